@@ -0,0 +1,80 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.benchmark.checksum;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.Adler32;
+import java.util.zip.CRC32;
+
+/**
+ * Compares the checksums that can be used to verify files and translog operations on blocks of 16kb.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class ChecksumBenchmark {
+
+    public static final int BATCH_SIZE = 16 * 1024;
+
+    private final byte[] data = new byte[BATCH_SIZE];
+    private final CRC32 crc = new CRC32();
+    private final Adler32 adler = new Adler32();
+    private MessageDigest md5;
+
+    @Setup
+    public void setUp() throws NoSuchAlgorithmException {
+        new Random(0).nextBytes(data);
+        md5 = MessageDigest.getInstance("MD5");
+    }
+
+    @Benchmark
+    public long crc() {
+        crc.update(data);
+        return crc.getValue();
+    }
+
+    @Benchmark
+    public long adler() {
+        adler.update(data);
+        return adler.getValue();
+    }
+
+    @Benchmark
+    public byte[] md5() {
+        md5.update(data);
+        return md5.digest();
+    }
+}
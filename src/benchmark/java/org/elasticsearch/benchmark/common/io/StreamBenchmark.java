@@ -0,0 +1,135 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.benchmark.common.io;
+
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of writing and reading the primitives that most transport messages are made of: variable length
+ * ints and longs and strings.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class StreamBenchmark {
+
+    private static final int NUM_VALUES = 1024;
+
+    private final BytesStreamOutput out = new BytesStreamOutput();
+    private int[] ints;
+    private long[] longs;
+    private String[] strings;
+    private BytesReference serializedInts;
+    private BytesReference serializedLongs;
+    private BytesReference serializedStrings;
+
+    @Setup
+    public void setUp() throws IOException {
+        Random random = new Random(0);
+        ints = new int[NUM_VALUES];
+        longs = new long[NUM_VALUES];
+        strings = new String[NUM_VALUES];
+        for (int i = 0; i < NUM_VALUES; ++i) {
+            // mostly small values, like sizes and counts
+            ints[i] = random.nextInt(1 << random.nextInt(31));
+            longs[i] = random.nextLong() >>> random.nextInt(64);
+            strings[i] = "field_" + random.nextInt(1000) + (random.nextBoolean() ? "" : "_\u00e9l\u00e9ment");
+        }
+        // the output is reused, so copy what it wrote
+        serializedInts = writeVInts().copyBytesArray();
+        serializedLongs = writeVLongs().copyBytesArray();
+        serializedStrings = writeStrings().copyBytesArray();
+    }
+
+    @Benchmark
+    public BytesReference writeVInts() throws IOException {
+        out.reset();
+        for (int value : ints) {
+            out.writeVInt(value);
+        }
+        return out.bytes();
+    }
+
+    @Benchmark
+    public BytesReference writeVLongs() throws IOException {
+        out.reset();
+        for (long value : longs) {
+            out.writeVLong(value);
+        }
+        return out.bytes();
+    }
+
+    @Benchmark
+    public BytesReference writeStrings() throws IOException {
+        out.reset();
+        for (String value : strings) {
+            out.writeString(value);
+        }
+        return out.bytes();
+    }
+
+    @Benchmark
+    public long readVInts() throws IOException {
+        StreamInput in = serializedInts.streamInput();
+        long sum = 0;
+        for (int i = 0; i < NUM_VALUES; ++i) {
+            sum += in.readVInt();
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long readVLongs() throws IOException {
+        StreamInput in = serializedLongs.streamInput();
+        long sum = 0;
+        for (int i = 0; i < NUM_VALUES; ++i) {
+            sum += in.readVLong();
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long readStrings() throws IOException {
+        StreamInput in = serializedStrings.streamInput();
+        long length = 0;
+        for (int i = 0; i < NUM_VALUES; ++i) {
+            length += in.readString().length();
+        }
+        return length;
+    }
+}
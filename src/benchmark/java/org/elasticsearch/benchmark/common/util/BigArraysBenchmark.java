@@ -0,0 +1,116 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.benchmark.common.util;
+
+import org.elasticsearch.common.util.BigArrays;
+import org.elasticsearch.common.util.LongArray;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares sequential and random access to a paged {@link LongArray} with a plain <code>long[]</code>, for arrays that
+ * fit in a single page and arrays that span many pages.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class BigArraysBenchmark {
+
+    @Param({"1024", "1048576"})
+    int size;
+
+    private LongArray bigArray;
+    private long[] array;
+    private int[] randomIndices;
+
+    @Setup
+    public void setUp() {
+        bigArray = BigArrays.NON_RECYCLING_INSTANCE.newLongArray(size);
+        array = new long[size];
+        Random random = new Random(0);
+        randomIndices = new int[size];
+        for (int i = 0; i < size; ++i) {
+            randomIndices[i] = random.nextInt(size);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        bigArray.close();
+    }
+
+    @Benchmark
+    public long incrementSequentialBigArray() {
+        for (int i = 0; i < size; ++i) {
+            bigArray.increment(i, 1);
+        }
+        return bigArray.get(size - 1);
+    }
+
+    @Benchmark
+    public long incrementSequentialArray() {
+        for (int i = 0; i < size; ++i) {
+            array[i] += 1;
+        }
+        return array[size - 1];
+    }
+
+    @Benchmark
+    public long incrementRandomBigArray() {
+        for (int index : randomIndices) {
+            bigArray.increment(index, 1);
+        }
+        return bigArray.get(0);
+    }
+
+    @Benchmark
+    public long incrementRandomArray() {
+        for (int index : randomIndices) {
+            array[index] += 1;
+        }
+        return array[0];
+    }
+
+    @Benchmark
+    public LongArray grow() {
+        LongArray grown = BigArrays.NON_RECYCLING_INSTANCE.newLongArray(1);
+        for (int i = 0; i < size; ++i) {
+            grown = BigArrays.NON_RECYCLING_INSTANCE.grow(grown, i + 1);
+            grown.set(i, i);
+        }
+        grown.close();
+        return grown;
+    }
+}
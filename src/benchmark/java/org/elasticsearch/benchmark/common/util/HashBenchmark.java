@@ -0,0 +1,125 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.benchmark.common.util;
+
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.util.BigArrays;
+import org.elasticsearch.common.util.BytesRefHash;
+import org.elasticsearch.common.util.LongHash;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how fast {@link LongHash} and {@link BytesRefHash} assign ids to keys, as the terms aggregations do for
+ * every collected value, and look them up once built. Every key is added several times, like terms that occur in
+ * several documents.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class HashBenchmark {
+
+    private static final int NUM_VALUES = 1 << 16;
+
+    @Param({"16", "4096", "65536"})
+    int cardinality;
+
+    private long[] longs;
+    private BytesRef[] bytesRefs;
+    private LongHash builtLongHash;
+    private BytesRefHash builtBytesRefHash;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(0);
+        longs = new long[NUM_VALUES];
+        bytesRefs = new BytesRef[NUM_VALUES];
+        for (int i = 0; i < NUM_VALUES; ++i) {
+            // spread the keys so that they don't hash to consecutive slots
+            longs[i] = random.nextInt(cardinality) * 0x9E3779B97F4A7C15L;
+            bytesRefs[i] = new BytesRef(Long.toString(longs[i]));
+        }
+        builtLongHash = new LongHash(1, BigArrays.NON_RECYCLING_INSTANCE);
+        builtBytesRefHash = new BytesRefHash(1, BigArrays.NON_RECYCLING_INSTANCE);
+        for (int i = 0; i < NUM_VALUES; ++i) {
+            builtLongHash.add(longs[i]);
+            builtBytesRefHash.add(bytesRefs[i]);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        builtLongHash.close();
+        builtBytesRefHash.close();
+    }
+
+    @Benchmark
+    public long addLongs() {
+        try (LongHash hash = new LongHash(1, BigArrays.NON_RECYCLING_INSTANCE)) {
+            for (long value : longs) {
+                hash.add(value);
+            }
+            return hash.size();
+        }
+    }
+
+    @Benchmark
+    public long findLongs() {
+        long sum = 0;
+        for (long value : longs) {
+            sum += builtLongHash.find(value);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long addBytesRefs() {
+        try (BytesRefHash hash = new BytesRefHash(1, BigArrays.NON_RECYCLING_INSTANCE)) {
+            for (BytesRef value : bytesRefs) {
+                hash.add(value);
+            }
+            return hash.size();
+        }
+    }
+
+    @Benchmark
+    public long findBytesRefs() {
+        long sum = 0;
+        for (BytesRef value : bytesRefs) {
+            sum += builtBytesRefHash.find(value);
+        }
+        return sum;
+    }
+}
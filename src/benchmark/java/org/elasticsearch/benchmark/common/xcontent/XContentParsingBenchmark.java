@@ -0,0 +1,101 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.benchmark.common.xcontent;
+
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.xcontent.XContent;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.common.xcontent.XContentFactory;
+import org.elasticsearch.common.xcontent.XContentParser;
+import org.elasticsearch.common.xcontent.XContentType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parses a document shaped like a typical log event in every {@link XContentType}, once by only pulling its tokens,
+ * as the mappers do, and once into a map, as source filtering and scripts do.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class XContentParsingBenchmark {
+
+    @Param({"JSON", "SMILE", "CBOR", "YAML"})
+    XContentType type;
+
+    private XContent xContent;
+    private BytesReference source;
+
+    @Setup
+    public void setUp() throws IOException {
+        Random random = new Random(0);
+        xContent = XContentFactory.xContent(type);
+        XContentBuilder builder = XContentFactory.contentBuilder(type);
+        builder.startObject();
+        builder.field("@timestamp", "2015-05-04T10:15:30.123Z");
+        builder.field("host", "web-" + random.nextInt(100));
+        builder.field("status", 200);
+        builder.field("bytes", random.nextLong());
+        builder.field("duration", random.nextDouble());
+        builder.field("message", "GET /index.html HTTP/1.1 served from the cache in a reasonable amount of time");
+        builder.startArray("tags");
+        for (int i = 0; i < 10; ++i) {
+            builder.value("tag" + i);
+        }
+        builder.endArray();
+        builder.startObject("user").field("name", "kimchy").field("id", random.nextInt()).field("admin", false).endObject();
+        builder.endObject();
+        source = builder.bytes();
+    }
+
+    @Benchmark
+    public int pullTokens() throws IOException {
+        int numTokens = 0;
+        try (XContentParser parser = xContent.createParser(source)) {
+            while (parser.nextToken() != null) {
+                numTokens++;
+            }
+        }
+        return numTokens;
+    }
+
+    @Benchmark
+    public Map<String, Object> parseToMap() throws IOException {
+        try (XContentParser parser = xContent.createParser(source)) {
+            return parser.map();
+        }
+    }
+}
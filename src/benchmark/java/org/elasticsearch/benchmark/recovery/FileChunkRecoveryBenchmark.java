@@ -0,0 +1,148 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.benchmark.recovery;
+
+import org.elasticsearch.action.admin.cluster.health.ClusterHealthResponse;
+import org.elasticsearch.action.bulk.BulkRequestBuilder;
+import org.elasticsearch.client.Client;
+import org.elasticsearch.cluster.metadata.IndexMetaData;
+import org.elasticsearch.cluster.routing.allocation.decider.DiskThresholdDecider;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.indices.recovery.RecoverySettings;
+import org.elasticsearch.node.Node;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static org.elasticsearch.cluster.metadata.IndexMetaData.SETTING_NUMBER_OF_REPLICAS;
+import static org.elasticsearch.cluster.metadata.IndexMetaData.SETTING_NUMBER_OF_SHARDS;
+import static org.elasticsearch.common.settings.ImmutableSettings.settingsBuilder;
+import static org.elasticsearch.common.xcontent.XContentFactory.jsonBuilder;
+import static org.elasticsearch.node.NodeBuilder.nodeBuilder;
+
+/**
+ * Measures how fast the files of a shard are copied to a new replica, for different numbers of chunks of a file in
+ * flight at once ({@link RecoverySettings#INDICES_RECOVERY_MAX_CONCURRENT_FILE_CHUNKS}). Both nodes run in the
+ * benchmark JVM but talk over the netty transport, so chunks pay for serialization and a real socket round trip.
+ * Every iteration recovers one replica from scratch.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class FileChunkRecoveryBenchmark {
+
+    private static final String INDEX_NAME = "index";
+    private static final String TYPE_NAME = "type";
+    private static final int DOC_COUNT = 2000000;
+    private static final int BULK_SIZE = 1000;
+    private static final int FIELD_SIZE = 512;
+
+    @Param({"1", "2", "4", "8"})
+    int concurrentFileChunks;
+
+    // "0" disables throttling, set this to see how the window behaves under the rate limiter
+    @Param({"0"})
+    String maxBytesPerSec;
+
+    private Node node1;
+    private Node node2;
+    private Client client;
+
+    @Setup
+    public void setUp() throws IOException {
+        Settings settings = settingsBuilder()
+                .put("gateway.type", "local")
+                .put(DiskThresholdDecider.CLUSTER_ROUTING_ALLOCATION_DISK_THRESHOLD_ENABLED, "false")
+                .put(SETTING_NUMBER_OF_SHARDS, 1)
+                .put(SETTING_NUMBER_OF_REPLICAS, 0)
+                .put(RecoverySettings.INDICES_RECOVERY_MAX_BYTES_PER_SEC, maxBytesPerSec)
+                .put(RecoverySettings.INDICES_RECOVERY_MAX_CONCURRENT_FILE_CHUNKS, concurrentFileChunks)
+                // recovery chunks carry already compressed stored fields
+                .put(RecoverySettings.INDICES_RECOVERY_COMPRESS, false)
+                .build();
+
+        String clusterName = FileChunkRecoveryBenchmark.class.getSimpleName();
+        node1 = nodeBuilder().clusterName(clusterName).settings(settingsBuilder().put(settings)).node();
+        node2 = nodeBuilder().clusterName(clusterName).settings(settingsBuilder().put(settings)).node();
+        client = node1.client();
+        client.admin().cluster().prepareHealth().setWaitForNodes("2").get();
+
+        // keep the shard on the first node while indexing
+        client.admin().indices().prepareCreate(INDEX_NAME)
+                .setSettings(settingsBuilder().put("index.routing.allocation.include._name", node1.settings().get("name")))
+                .get();
+        client.admin().cluster().prepareHealth(INDEX_NAME).setWaitForGreenStatus().get();
+
+        final Random random = new Random(0);
+        final char[] chars = new char[FIELD_SIZE];
+        for (int i = 0; i < DOC_COUNT; ) {
+            BulkRequestBuilder bulk = client.prepareBulk();
+            for (int j = 0; j < BULK_SIZE && i < DOC_COUNT; j++, i++) {
+                for (int c = 0; c < chars.length; c++) {
+                    chars[c] = (char) ('a' + random.nextInt(26));
+                }
+                bulk.add(client.prepareIndex(INDEX_NAME, TYPE_NAME, Integer.toString(i))
+                        .setSource(jsonBuilder().startObject().field("num", i).field("text", new String(chars)).endObject()));
+            }
+            bulk.get();
+        }
+        client.admin().indices().prepareFlush(INDEX_NAME).setWaitIfOngoing(true).get();
+        client.admin().indices().prepareOptimize(INDEX_NAME).setMaxNumSegments(5).get();
+        client.admin().indices().prepareUpdateSettings(INDEX_NAME)
+                .setSettings(settingsBuilder().put("index.routing.allocation.include._name", "")).get();
+    }
+
+    @Setup(Level.Iteration)
+    public void removeReplica() throws InterruptedException {
+        client.admin().indices().prepareUpdateSettings(INDEX_NAME).setSettings(IndexMetaData.SETTING_NUMBER_OF_REPLICAS + ": 0").get();
+        client.admin().cluster().prepareHealth(INDEX_NAME).setWaitForRelocatingShards(0).get();
+        // give the second node time to delete its copy, so that the next recovery copies all files again
+        Thread.sleep(5000);
+    }
+
+    @TearDown
+    public void tearDown() {
+        client.close();
+        node1.close();
+        node2.close();
+    }
+
+    @Benchmark
+    public ClusterHealthResponse recoverReplica() {
+        client.admin().indices().prepareUpdateSettings(INDEX_NAME).setSettings(IndexMetaData.SETTING_NUMBER_OF_REPLICAS + ": 1").get();
+        return client.admin().cluster().prepareHealth(INDEX_NAME).setWaitForGreenStatus().setTimeout("30m").get();
+    }
+}
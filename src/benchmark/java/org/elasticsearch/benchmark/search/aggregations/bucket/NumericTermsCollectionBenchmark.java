@@ -0,0 +1,200 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.benchmark.search.aggregations.bucket;
+
+import org.apache.lucene.analysis.core.KeywordAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.SortedNumericDocValuesField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.DocValues;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.LeafReader;
+import org.apache.lucene.index.NumericDocValues;
+import org.apache.lucene.index.SortedNumericDocValues;
+import org.apache.lucene.store.RAMDirectory;
+import org.apache.lucene.util.Bits;
+import org.elasticsearch.common.util.BigArrays;
+import org.elasticsearch.common.util.IntArray;
+import org.elasticsearch.common.util.LongArray;
+import org.elasticsearch.common.util.LongHash;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the ways {@link org.elasticsearch.search.aggregations.bucket.terms.LongTermsAggregator} collects a numeric
+ * field into buckets: looking up every value in a {@link LongHash}, caching the bucket ordinal of every value of the
+ * segment in an array, and counting values in an array indexed by <code>value - min</code>. The collection loops are the
+ * same as in the aggregator, without the query and the aggregation framework around them.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class NumericTermsCollectionBenchmark {
+
+    private static final String FIELD = "value";
+    private static final int NUM_DOCS = 5000000;
+    private static final long MIN = 1000;
+
+    @Param({"10", "1000", "50000"})
+    int cardinality;
+
+    private final BigArrays bigArrays = BigArrays.NON_RECYCLING_INSTANCE;
+    private RAMDirectory dir;
+    private DirectoryReader reader;
+    private LeafReader leaf;
+
+    @Setup
+    public void setUp() throws IOException {
+        dir = new RAMDirectory();
+        final Random random = new Random(0);
+        try (IndexWriter writer = new IndexWriter(dir, new IndexWriterConfig(new KeywordAnalyzer()))) {
+            for (int i = 0; i < NUM_DOCS; ++i) {
+                final Document doc = new Document();
+                doc.add(new SortedNumericDocValuesField(FIELD, MIN + random.nextInt(cardinality)));
+                writer.addDocument(doc);
+            }
+            writer.forceMerge(1);
+        }
+        reader = DirectoryReader.open(dir);
+        leaf = reader.leaves().get(0).reader();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        reader.close();
+        dir.close();
+    }
+
+    @Benchmark
+    public long hash() throws IOException {
+        final SortedNumericDocValues values = DocValues.getSortedNumeric(leaf, FIELD);
+        final int maxDoc = leaf.maxDoc();
+        IntArray counts = bigArrays.newIntArray(1, true);
+        try (LongHash bucketOrds = new LongHash(1, bigArrays)) {
+            for (int doc = 0; doc < maxDoc; ++doc) {
+                values.setDocument(doc);
+                final int valuesCount = values.count();
+                for (int i = 0; i < valuesCount; ++i) {
+                    long bucketOrd = bucketOrds.add(values.valueAt(i));
+                    if (bucketOrd < 0) {
+                        bucketOrd = -1 - bucketOrd;
+                    } else {
+                        counts = bigArrays.grow(counts, bucketOrd + 1);
+                    }
+                    counts.increment(bucketOrd, 1);
+                }
+            }
+            return total(bucketOrds, counts);
+        } finally {
+            counts.close();
+        }
+    }
+
+    @Benchmark
+    public long cachedOrds() throws IOException {
+        final SortedNumericDocValues values = DocValues.getSortedNumeric(leaf, FIELD);
+        final int maxDoc = leaf.maxDoc();
+        IntArray counts = bigArrays.newIntArray(1, true);
+        try (LongHash bucketOrds = new LongHash(1, bigArrays);
+             LongArray segmentBucketOrds = bigArrays.newLongArray(cardinality, true)) {
+            for (int doc = 0; doc < maxDoc; ++doc) {
+                values.setDocument(doc);
+                final int valuesCount = values.count();
+                for (int i = 0; i < valuesCount; ++i) {
+                    final long val = values.valueAt(i);
+                    long bucketOrd = segmentBucketOrds.get(val - MIN) - 1;
+                    if (bucketOrd < 0) {
+                        bucketOrd = bucketOrds.add(val);
+                        if (bucketOrd < 0) {
+                            bucketOrd = -1 - bucketOrd;
+                        } else {
+                            counts = bigArrays.grow(counts, bucketOrd + 1);
+                        }
+                        segmentBucketOrds.set(val - MIN, bucketOrd + 1);
+                    }
+                    counts.increment(bucketOrd, 1);
+                }
+            }
+            return total(bucketOrds, counts);
+        } finally {
+            counts.close();
+        }
+    }
+
+    @Benchmark
+    public long counts() throws IOException {
+        final SortedNumericDocValues values = DocValues.getSortedNumeric(leaf, FIELD);
+        final int maxDoc = leaf.maxDoc();
+        IntArray counts = bigArrays.newIntArray(1, true);
+        try (LongHash bucketOrds = new LongHash(1, bigArrays);
+             IntArray segmentDocCounts = bigArrays.newIntArray(cardinality, true)) {
+            final NumericDocValues singleValues = DocValues.unwrapSingleton(values);
+            final Bits docsWithField = DocValues.unwrapSingletonBits(values);
+            for (int doc = 0; doc < maxDoc; ++doc) {
+                if (docsWithField.get(doc)) {
+                    segmentDocCounts.increment(singleValues.get(doc) - MIN, 1);
+                }
+            }
+            for (long i = 0; i < cardinality; ++i) {
+                final int inc = segmentDocCounts.get(i);
+                if (inc > 0) {
+                    long bucketOrd = bucketOrds.add(MIN + i);
+                    if (bucketOrd < 0) {
+                        bucketOrd = -1 - bucketOrd;
+                    }
+                    counts = bigArrays.grow(counts, bucketOrd + 1);
+                    counts.increment(bucketOrd, inc);
+                }
+            }
+            return total(bucketOrds, counts);
+        } finally {
+            counts.close();
+        }
+    }
+
+    /** Returns the number of collected values, which is the number of docs since every doc has a single value. */
+    private static long total(LongHash bucketOrds, IntArray counts) {
+        long total = 0;
+        for (long i = 0; i < bucketOrds.size(); ++i) {
+            total += counts.get(i);
+        }
+        if (total != NUM_DOCS) {
+            throw new AssertionError("wrong number of collected values: " + total);
+        }
+        return total;
+    }
+}
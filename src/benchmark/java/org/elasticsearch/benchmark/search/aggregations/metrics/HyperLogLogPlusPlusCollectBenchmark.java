@@ -0,0 +1,117 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.benchmark.search.aggregations.metrics;
+
+import com.carrotsearch.hppc.hash.MurmurHash3;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.util.BigArrays;
+import org.elasticsearch.search.aggregations.metrics.cardinality.HyperLogLogPlusPlus;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures collecting hashes into {@link HyperLogLogPlusPlus}, both while buckets are still in linear counting mode
+ * and after they have been upgraded to HyperLogLog, and merging serialized counts as the reduce phase does. The
+ * accuracy and memory usage per precision are reported by the HyperLogLogPlusPlusBenchmark test class.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class HyperLogLogPlusPlusCollectBenchmark {
+
+    private static final int NUM_BUCKETS = 16;
+
+    @Param({"14"})
+    int precision;
+
+    @Param({"100", "100000"})
+    int valuesPerBucket;
+
+    private long[] hashes;
+    private HyperLogLogPlusPlus collected;
+    private BytesStreamOutput serialized;
+
+    @Setup
+    public void setUp() throws IOException {
+        hashes = new long[valuesPerBucket];
+        for (int i = 0; i < valuesPerBucket; ++i) {
+            hashes[i] = MurmurHash3.hash((long) i);
+        }
+        collected = new HyperLogLogPlusPlus(precision, BigArrays.NON_RECYCLING_INSTANCE, NUM_BUCKETS);
+        for (int bucket = 0; bucket < NUM_BUCKETS; ++bucket) {
+            for (long hash : hashes) {
+                collected.collect(bucket, hash);
+            }
+        }
+        serialized = new BytesStreamOutput();
+        collected.writeTo(0, serialized);
+    }
+
+    @TearDown
+    public void tearDown() {
+        collected.close();
+    }
+
+    @Benchmark
+    public long collect() {
+        try (HyperLogLogPlusPlus counts = new HyperLogLogPlusPlus(precision, BigArrays.NON_RECYCLING_INSTANCE, NUM_BUCKETS)) {
+            for (int bucket = 0; bucket < NUM_BUCKETS; ++bucket) {
+                for (long hash : hashes) {
+                    counts.collect(bucket, hash);
+                }
+            }
+            return counts.maxBucket();
+        }
+    }
+
+    @Benchmark
+    public long cardinality() {
+        long sum = 0;
+        for (int bucket = 0; bucket < NUM_BUCKETS; ++bucket) {
+            sum += collected.cardinality(bucket);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long merge() throws IOException {
+        try (HyperLogLogPlusPlus merged = new HyperLogLogPlusPlus(precision, BigArrays.NON_RECYCLING_INSTANCE, NUM_BUCKETS)) {
+            for (int bucket = 0; bucket < NUM_BUCKETS; ++bucket) {
+                merged.merge(bucket, serialized.bytes().streamInput());
+            }
+            return merged.cardinality(0);
+        }
+    }
+}
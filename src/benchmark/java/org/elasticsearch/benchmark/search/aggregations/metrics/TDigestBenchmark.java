@@ -0,0 +1,93 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.benchmark.search.aggregations.metrics;
+
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.search.aggregations.metrics.percentiles.tdigest.TDigestState;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures adding values to the {@link TDigestState} that the percentiles aggregations build per bucket, computing
+ * quantiles from it and reading it back from its serialized form, for the default compression and a higher one.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class TDigestBenchmark {
+
+    private static final int NUM_VALUES = 10000;
+
+    @Param({"100", "1000"})
+    double compression;
+
+    private double[] values;
+    private TDigestState state;
+    private BytesReference serialized;
+
+    @Setup
+    public void setUp() throws IOException {
+        Random random = new Random(0);
+        values = new double[NUM_VALUES];
+        for (int i = 0; i < NUM_VALUES; ++i) {
+            // latencies are rather log-normally than uniformly distributed
+            values[i] = Math.exp(random.nextGaussian());
+        }
+        state = add();
+        BytesStreamOutput out = new BytesStreamOutput();
+        TDigestState.write(state, out);
+        serialized = out.bytes();
+    }
+
+    @Benchmark
+    public TDigestState add() {
+        TDigestState digest = new TDigestState(compression);
+        for (double value : values) {
+            digest.add(value);
+        }
+        return digest;
+    }
+
+    @Benchmark
+    public double quantiles() {
+        return state.quantile(0.5) + state.quantile(0.95) + state.quantile(0.99);
+    }
+
+    @Benchmark
+    public TDigestState read() throws IOException {
+        return TDigestState.read(serialized.streamInput());
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.benchmark.translog;
+
+import org.apache.lucene.util.IOUtils;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.util.BigArrays;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.index.translog.Translog;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static org.elasticsearch.common.settings.ImmutableSettings.settingsBuilder;
+
+/**
+ * Compares how fast the operations of translog files found on disk are replayed, as on shard recovery, when they
+ * are read with positional reads into heap buffers and when they are read from memory mapped files
+ * ({@link Translog#INDEX_TRANSLOG_MMAP_SNAPSHOTS}). The page cache is warm after the warmup iterations; run with
+ * <code>-prof gc</code> to compare the garbage both produce.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class TranslogReplayBenchmark {
+
+    private static final int OPERATIONS = 2000000;
+    private static final int SOURCE_SIZE = 512;
+
+    @Param({"false", "true"})
+    boolean mmap;
+
+    private final ShardId shardId = new ShardId("index", 0);
+    private Path location;
+    private Settings settings;
+
+    @Setup
+    public void setUp() throws IOException {
+        location = Files.createTempDirectory("translog-replay-benchmark");
+        settings = settingsBuilder().put(Translog.INDEX_TRANSLOG_MMAP_SNAPSHOTS, mmap).build();
+        Translog translog = new Translog(shardId, settingsBuilder().build(), BigArrays.NON_RECYCLING_INSTANCE, location);
+        try {
+            Random random = new Random(0);
+            byte[] source = new byte[SOURCE_SIZE];
+            for (int i = 0; i < OPERATIONS; i++) {
+                for (int j = 0; j < source.length; j++) {
+                    source[j] = (byte) ('a' + random.nextInt(26));
+                }
+                translog.add(new Translog.Index("type", Integer.toString(i), source));
+            }
+            translog.sync();
+        } finally {
+            translog.close();
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        IOUtils.rm(location);
+    }
+
+    @Benchmark
+    public int replay() throws IOException {
+        // reopening the translog turns the existing files into immutable generations, as on recovery
+        Translog translog = new Translog(shardId, settings, BigArrays.NON_RECYCLING_INSTANCE, location);
+        try (Translog.Snapshot snapshot = translog.newSnapshot()) {
+            int count = 0;
+            while (snapshot.next() != null) {
+                count++;
+            }
+            if (count != OPERATIONS) {
+                throw new IllegalStateException("expected [" + OPERATIONS + "] operations but replayed [" + count + "]");
+            }
+            return count;
+        } finally {
+            translog.close();
+        }
+    }
+}
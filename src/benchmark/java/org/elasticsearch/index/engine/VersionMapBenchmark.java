@@ -0,0 +1,128 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.index.engine;
+
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.Strings;
+import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
+import org.elasticsearch.index.translog.Translog;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the {@link PagedVersionMap} used by {@link LiveVersionMap} with the concurrent hash map it replaced, with several
+ * threads updating and looking up uids of a map that holds 1M entries. Run with <code>-prof gc</code> to compare the garbage
+ * they produce. Lives in the engine package since the version maps are package private.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Threads(4)
+@Fork(1)
+public class VersionMapBenchmark {
+
+    private static final int NUM_UIDS = 1 << 20;
+
+    @Param({"ConcurrentHashMap", "PagedVersionMap"})
+    String map;
+
+    private BytesRef[] uids;
+    private VersionMap versionMap;
+
+    interface VersionMap {
+        void put(BytesRef uid, VersionValue value);
+
+        VersionValue get(BytesRef uid, PagedVersionMap.Lookup lookup);
+    }
+
+    @State(Scope.Thread)
+    public static class Lookups {
+
+        final PagedVersionMap.Lookup lookup = new PagedVersionMap.Lookup();
+        final Random random = new Random();
+    }
+
+    @Setup
+    public void setUp() {
+        uids = new BytesRef[NUM_UIDS];
+        for (int i = 0; i < uids.length; i++) {
+            uids[i] = new BytesRef(Strings.base64UUID());
+        }
+        if ("ConcurrentHashMap".equals(map)) {
+            versionMap = new VersionMap() {
+                final Map<BytesRef, VersionValue> map = ConcurrentCollections.newConcurrentMapWithAggressiveConcurrency();
+
+                @Override
+                public void put(BytesRef uid, VersionValue value) {
+                    map.put(uid, value);
+                }
+
+                @Override
+                public VersionValue get(BytesRef uid, PagedVersionMap.Lookup lookup) {
+                    return map.get(uid);
+                }
+            };
+        } else {
+            versionMap = new VersionMap() {
+                final PagedVersionMap map = new PagedVersionMap();
+
+                @Override
+                public void put(BytesRef uid, VersionValue value) {
+                    map.put(uid, value);
+                }
+
+                @Override
+                public VersionValue get(BytesRef uid, PagedVersionMap.Lookup lookup) {
+                    return map.get(uid, lookup) ? lookup : null;
+                }
+            };
+        }
+        for (int i = 0; i < uids.length; i++) {
+            // the engine keeps the uid bytes of the document it indexes
+            versionMap.put(BytesRef.deepCopyOf(uids[i]), new VersionValue(i, new Translog.Location(1, i * 100l, 100)));
+        }
+    }
+
+    @Benchmark
+    public long get(Lookups lookups) {
+        return versionMap.get(uids[lookups.random.nextInt(NUM_UIDS)], lookups.lookup).version();
+    }
+
+    @Benchmark
+    public void put(Lookups lookups) {
+        final int i = lookups.random.nextInt(NUM_UIDS);
+        versionMap.put(BytesRef.deepCopyOf(uids[i]), new VersionValue(i, new Translog.Location(1, i * 100l, 100)));
+    }
+}
@@ -22,6 +22,7 @@ package org.elasticsearch.action.admin.cluster.node.stats;
 import org.elasticsearch.Version;
 import org.elasticsearch.action.support.nodes.NodeOperationResponse;
 import org.elasticsearch.cluster.node.DiscoveryNode;
+import org.elasticsearch.cluster.routing.AdaptiveSelectionStats;
 import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.breaker.CircuitBreaker;
 import org.elasticsearch.common.io.stream.StreamInput;
@@ -80,6 +81,9 @@ public class NodeStats extends NodeOperationResponse implements ToXContent {
     @Nullable
     private AllCircuitBreakerStats breaker;
 
+    @Nullable
+    private AdaptiveSelectionStats adaptiveSelectionStats;
+
     NodeStats() {
     }
 
@@ -87,6 +91,13 @@ public class NodeStats extends NodeOperationResponse implements ToXContent {
                      @Nullable OsStats os, @Nullable ProcessStats process, @Nullable JvmStats jvm, @Nullable ThreadPoolStats threadPool,
                      @Nullable NetworkStats network, @Nullable FsStats fs, @Nullable TransportStats transport, @Nullable HttpStats http,
                      @Nullable AllCircuitBreakerStats breaker) {
+        this(node, timestamp, indices, os, process, jvm, threadPool, network, fs, transport, http, breaker, null);
+    }
+
+    public NodeStats(DiscoveryNode node, long timestamp, @Nullable NodeIndicesStats indices,
+                     @Nullable OsStats os, @Nullable ProcessStats process, @Nullable JvmStats jvm, @Nullable ThreadPoolStats threadPool,
+                     @Nullable NetworkStats network, @Nullable FsStats fs, @Nullable TransportStats transport, @Nullable HttpStats http,
+                     @Nullable AllCircuitBreakerStats breaker, @Nullable AdaptiveSelectionStats adaptiveSelectionStats) {
         super(node);
         this.timestamp = timestamp;
         this.indices = indices;
@@ -99,6 +110,7 @@ public class NodeStats extends NodeOperationResponse implements ToXContent {
         this.transport = transport;
         this.http = http;
         this.breaker = breaker;
+        this.adaptiveSelectionStats = adaptiveSelectionStats;
     }
 
     public long getTimestamp() {
@@ -181,6 +193,11 @@ public class NodeStats extends NodeOperationResponse implements ToXContent {
         return this.breaker;
     }
 
+    @Nullable
+    public AdaptiveSelectionStats getAdaptiveSelectionStats() {
+        return this.adaptiveSelectionStats;
+    }
+
     public static NodeStats readNodeStats(StreamInput in) throws IOException {
         NodeStats nodeInfo = new NodeStats();
         nodeInfo.readFrom(in);
@@ -219,6 +236,7 @@ public class NodeStats extends NodeOperationResponse implements ToXContent {
             http = HttpStats.readHttpStats(in);
         }
         breaker = AllCircuitBreakerStats.readOptionalAllCircuitBreakerStats(in);
+        adaptiveSelectionStats = AdaptiveSelectionStats.readOptionalAdaptiveSelectionStats(in);
 
     }
 
@@ -281,6 +299,7 @@ public class NodeStats extends NodeOperationResponse implements ToXContent {
             http.writeTo(out);
         }
         out.writeOptionalStreamable(breaker);
+        out.writeOptionalStreamable(adaptiveSelectionStats);
     }
 
     @Override
@@ -331,6 +350,9 @@ public class NodeStats extends NodeOperationResponse implements ToXContent {
         if (getBreaker() != null) {
             getBreaker().toXContent(builder, params);
         }
+        if (getAdaptiveSelectionStats() != null) {
+            getAdaptiveSelectionStats().toXContent(builder, params);
+        }
 
         return builder;
     }
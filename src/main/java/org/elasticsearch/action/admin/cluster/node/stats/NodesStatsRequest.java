@@ -41,6 +41,7 @@ public class NodesStatsRequest extends NodesOperationRequest<NodesStatsRequest>
     private boolean transport;
     private boolean http;
     private boolean breaker;
+    private boolean adaptiveSelection;
 
     protected NodesStatsRequest() {
     }
@@ -67,6 +68,7 @@ public class NodesStatsRequest extends NodesOperationRequest<NodesStatsRequest>
         this.transport = true;
         this.http = true;
         this.breaker = true;
+        this.adaptiveSelection = true;
         return this;
     }
 
@@ -84,6 +86,7 @@ public class NodesStatsRequest extends NodesOperationRequest<NodesStatsRequest>
         this.transport = false;
         this.http = false;
         this.breaker = false;
+        this.adaptiveSelection = false;
         return this;
     }
 
@@ -240,6 +243,18 @@ public class NodesStatsRequest extends NodesOperationRequest<NodesStatsRequest>
         return this;
     }
 
+    public boolean adaptiveSelection() {
+        return this.adaptiveSelection;
+    }
+
+    /**
+     * Should the node's adaptive replica selection stats be returned.
+     */
+    public NodesStatsRequest adaptiveSelection(boolean adaptiveSelection) {
+        this.adaptiveSelection = adaptiveSelection;
+        return this;
+    }
+
     @Override
     public void readFrom(StreamInput in) throws IOException {
         super.readFrom(in);
@@ -253,6 +268,7 @@ public class NodesStatsRequest extends NodesOperationRequest<NodesStatsRequest>
         transport = in.readBoolean();
         http = in.readBoolean();
         breaker = in.readBoolean();
+        adaptiveSelection = in.readBoolean();
     }
 
     @Override
@@ -268,6 +284,7 @@ public class NodesStatsRequest extends NodesOperationRequest<NodesStatsRequest>
         out.writeBoolean(transport);
         out.writeBoolean(http);
         out.writeBoolean(breaker);
+        out.writeBoolean(adaptiveSelection);
     }
 
 }
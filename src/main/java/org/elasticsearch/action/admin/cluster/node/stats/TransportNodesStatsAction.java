@@ -80,7 +80,8 @@ public class TransportNodesStatsAction extends TransportNodesOperationAction<Nod
     protected NodeStats nodeOperation(NodeStatsRequest nodeStatsRequest) {
         NodesStatsRequest request = nodeStatsRequest.request;
         return nodeService.stats(request.indices(), request.os(), request.process(), request.jvm(), request.threadPool(), request.network(),
-                request.fs(), request.transport(), request.http(), request.breaker());
+                request.fs(), request.transport(), request.http(), request.breaker(),
+                request.adaptiveSelection());
     }
 
     @Override
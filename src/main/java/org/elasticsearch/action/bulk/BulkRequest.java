@@ -35,6 +35,7 @@ import org.elasticsearch.common.xcontent.XContent;
 import org.elasticsearch.common.xcontent.XContentFactory;
 import org.elasticsearch.common.xcontent.XContentParser;
 import org.elasticsearch.index.VersionType;
+import org.jboss.netty.buffer.ChannelBuffer;
 
 import java.io.IOException;
 import java.util.ArrayList;
@@ -424,13 +425,26 @@ public class BulkRequest extends ActionRequest<BulkRequest> implements Composite
         return timeout;
     }
 
+    /**
+     * Finds the next marker without going through {@link BytesReference#get(int)} for every byte, which needs to
+     * locate the right component of composite network buffers over and over again.
+     */
     private int findNextMarker(byte marker, int from, BytesReference data, int length) {
-        for (int i = from; i < length; i++) {
-            if (data.get(i) == marker) {
-                return i;
+        if (data.hasArray()) {
+            final byte[] array = data.array();
+            final int offset = data.arrayOffset();
+            for (int i = offset + from; i < offset + length; i++) {
+                if (array[i] == marker) {
+                    return i - offset;
+                }
             }
+            return -1;
         }
-        return -1;
+        // scans the underlying buffers in place, this doesn't copy the bytes
+        final ChannelBuffer buffer = data.toChannelBuffer();
+        final int offset = buffer.readerIndex();
+        final int index = buffer.indexOf(offset + from, offset + length, marker);
+        return index == -1 ? -1 : index - offset;
     }
 
     @Override
@@ -48,6 +48,7 @@ import org.elasticsearch.common.util.concurrent.AtomicArray;
 import org.elasticsearch.search.SearchPhaseResult;
 import org.elasticsearch.search.SearchShardTarget;
 import org.elasticsearch.search.action.SearchServiceTransportAction;
+import org.elasticsearch.search.controller.BatchedAggregationReducer;
 import org.elasticsearch.search.controller.SearchPhaseController;
 import org.elasticsearch.search.fetch.ShardFetchSearchRequest;
 import org.elasticsearch.search.internal.InternalSearchResponse;
@@ -103,6 +104,9 @@ public abstract class TransportSearchTypeAction extends TransportAction<SearchRe
         private volatile AtomicArray<ShardSearchFailure> shardFailures;
         private final Object shardFailuresMutex = new Object();
         protected volatile ScoreDoc[] sortedShardList;
+        /* takes over the aggregations of the first phase results on searches over many shards, null otherwise */
+        @Nullable
+        protected final BatchedAggregationReducer aggregationReducer;
 
         protected BaseAsyncAction(SearchRequest request, ActionListener<SearchResponse> listener) {
             this.request = request;
@@ -121,12 +125,14 @@ public abstract class TransportSearchTypeAction extends TransportAction<SearchRe
 
             Map<String, Set<String>> routingMap = clusterState.metaData().resolveSearchRouting(request.routing(), request.indices());
 
-            shardsIts = clusterService.operationRouting().searchShards(clusterState, request.indices(), concreteIndices, routingMap, request.preference());
+            shardsIts = clusterService.operationRouting().searchShards(clusterState, request.indices(), concreteIndices, routingMap, request.preference(),
+                    searchService.responseCollectorService());
             expectedSuccessfulOps = shardsIts.size();
             // we need to add 1 for non active partition, since we count it in the total!
             expectedTotalOps = shardsIts.totalSizeWith1ForEmpty();
 
             firstResults = new AtomicArray<>(shardsIts.size());
+            aggregationReducer = searchPhaseController.newBatchedAggregationReducer(shardsIts.size());
         }
 
         public void start() {
@@ -352,6 +358,9 @@ public abstract class TransportSearchTypeAction extends TransportAction<SearchRe
         protected abstract void sendExecuteFirstPhase(DiscoveryNode node, ShardSearchTransportRequest request, ActionListener<FirstResult> listener);
 
         protected final void processFirstPhaseResult(int shardIndex, ShardRouting shard, FirstResult result) {
+            if (aggregationReducer != null && result instanceof QuerySearchResultProvider) {
+                aggregationReducer.consume(((QuerySearchResultProvider) result).queryResult());
+            }
             firstResults.set(shardIndex, result);
 
             if (logger.isTraceEnabled()) {
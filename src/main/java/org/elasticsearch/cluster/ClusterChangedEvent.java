@@ -21,13 +21,18 @@ package org.elasticsearch.cluster;
 
 import com.carrotsearch.hppc.cursors.ObjectCursor;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Lists;
 import org.elasticsearch.cluster.metadata.IndexMetaData;
 import org.elasticsearch.cluster.metadata.MetaData;
 import org.elasticsearch.cluster.node.DiscoveryNodes;
+import org.elasticsearch.cluster.routing.IndexRoutingTable;
 
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 /**
  *
@@ -42,6 +47,8 @@ public class ClusterChangedEvent {
 
     private final DiscoveryNodes.Delta nodesDelta;
 
+    private Set<String> changedIndices;
+
     public ClusterChangedEvent(String source, ClusterState state, ClusterState previousState) {
         this.source = source;
         this.state = state;
@@ -78,6 +85,47 @@ public class ClusterChangedEvent {
         return true;
     }
 
+    /**
+     * Returns the indices of the new state whose meta data or routing table changed in this event, including the created
+     * indices. Unchanged indices keep the same meta data and routing table instances across cluster states, also when
+     * the state is received as a diff, so this only compares references.
+     */
+    public synchronized Set<String> changedIndices() {
+        if (changedIndices != null) {
+            return changedIndices;
+        }
+        if (previousState == null) {
+            changedIndices = ImmutableSet.copyOf(state.metaData().indices().keys().toArray(String.class));
+        } else if (!metaDataChanged() && !routingTableChanged()) {
+            changedIndices = ImmutableSet.of();
+        } else {
+            Set<String> changed = new HashSet<>();
+            if (metaDataChanged()) {
+                for (ObjectCursor<IndexMetaData> cursor : state.metaData().indices().values()) {
+                    if (indexMetaDataChanged(cursor.value)) {
+                        changed.add(cursor.value.index());
+                    }
+                }
+            }
+            if (routingTableChanged()) {
+                for (IndexRoutingTable indexRoutingTable : state.routingTable()) {
+                    if (indexRoutingTableChanged(indexRoutingTable.index())) {
+                        changed.add(indexRoutingTable.index());
+                    }
+                }
+            }
+            changedIndices = Collections.unmodifiableSet(changed);
+        }
+        return changedIndices;
+    }
+
+    /**
+     * Returns <tt>true</tt> if the meta data or the routing table of the given index changed in this event.
+     */
+    public boolean indexChanged(String index) {
+        return changedIndices().contains(index);
+    }
+
     /**
      * Returns the indices created in this event
      */
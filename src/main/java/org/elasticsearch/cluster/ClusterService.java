@@ -110,6 +110,14 @@ public interface ClusterService extends LifecycleComponent<ClusterService> {
      */
     void submitStateUpdateTask(final String source, final ClusterStateUpdateTask updateTask);
 
+    /**
+     * Submits a task that will update the cluster state together with the other pending tasks of the same executor.
+     * The executor runs all of them against the same cluster state, which is then published once, and the listener
+     * of every task of the batch is notified of the outcome.
+     */
+    <T> void submitStateUpdateTask(final String source, Priority priority, final T task,
+                                   final ClusterStateTaskExecutor<T> executor, final ClusterStateTaskListener listener);
+
     /**
      * Returns the tasks that are pending.
      */
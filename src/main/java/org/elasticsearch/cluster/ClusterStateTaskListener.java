@@ -0,0 +1,37 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.cluster;
+
+/**
+ * Notified about the outcome of a task submitted together with a {@link ClusterStateTaskExecutor}.
+ */
+public interface ClusterStateTaskListener {
+
+    /**
+     * A callback called when the execution of the batch the task was part of fails, or when the local node is no
+     * longer master and the executor only runs on the master.
+     */
+    void onFailure(String source, Throwable t);
+
+    /**
+     * Called when the result of the batch the task was part of has been processed properly by all listeners.
+     */
+    void clusterStateProcessed(String source, ClusterState oldState, ClusterState newState);
+}
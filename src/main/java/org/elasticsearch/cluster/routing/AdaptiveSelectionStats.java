@@ -0,0 +1,142 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.cluster.routing;
+
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.io.stream.Streamable;
+import org.elasticsearch.common.xcontent.ToXContent;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.common.xcontent.XContentBuilderString;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The statistics a node uses to rank the copies of a shard when it coordinates searches, see
+ * {@link ResponseCollectorService}.
+ */
+public class AdaptiveSelectionStats implements Streamable, ToXContent {
+
+    private Map<String, Long> clientOutgoingConnections;
+    private Map<String, ComputedNodeStats> nodeComputedStats;
+
+    AdaptiveSelectionStats() {
+    }
+
+    public AdaptiveSelectionStats(Map<String, Long> clientConnections, Map<String, ComputedNodeStats> nodeComputedStats) {
+        this.clientOutgoingConnections = clientConnections;
+        this.nodeComputedStats = nodeComputedStats;
+    }
+
+    /**
+     * The number of searches that are outstanding per node, keyed by node id.
+     */
+    public Map<String, Long> getOutgoingConnections() {
+        return clientOutgoingConnections;
+    }
+
+    /**
+     * The moving averages per node, keyed by node id.
+     */
+    public Map<String, ComputedNodeStats> getComputedStats() {
+        return nodeComputedStats;
+    }
+
+    /**
+     * The rank of every node, lower is better.
+     */
+    public Map<String, Double> getRanks() {
+        Map<String, Double> ranks = new HashMap<>(nodeComputedStats.size());
+        for (Map.Entry<String, ComputedNodeStats> entry : nodeComputedStats.entrySet()) {
+            Long outstanding = clientOutgoingConnections.get(entry.getKey());
+            ranks.put(entry.getKey(), entry.getValue().rank(outstanding == null ? 0 : outstanding));
+        }
+        return ranks;
+    }
+
+    public static AdaptiveSelectionStats readAdaptiveSelectionStats(StreamInput in) throws IOException {
+        AdaptiveSelectionStats stats = new AdaptiveSelectionStats();
+        stats.readFrom(in);
+        return stats;
+    }
+
+    public static AdaptiveSelectionStats readOptionalAdaptiveSelectionStats(StreamInput in) throws IOException {
+        return in.readOptionalStreamable(new AdaptiveSelectionStats());
+    }
+
+    @Override
+    public void readFrom(StreamInput in) throws IOException {
+        int size = in.readVInt();
+        clientOutgoingConnections = new HashMap<>(size);
+        for (int i = 0; i < size; i++) {
+            clientOutgoingConnections.put(in.readString(), in.readVLong());
+        }
+        size = in.readVInt();
+        nodeComputedStats = new HashMap<>(size);
+        for (int i = 0; i < size; i++) {
+            nodeComputedStats.put(in.readString(), ComputedNodeStats.readComputedNodeStats(in));
+        }
+    }
+
+    @Override
+    public void writeTo(StreamOutput out) throws IOException {
+        out.writeVInt(clientOutgoingConnections.size());
+        for (Map.Entry<String, Long> entry : clientOutgoingConnections.entrySet()) {
+            out.writeString(entry.getKey());
+            out.writeVLong(entry.getValue());
+        }
+        out.writeVInt(nodeComputedStats.size());
+        for (Map.Entry<String, ComputedNodeStats> entry : nodeComputedStats.entrySet()) {
+            out.writeString(entry.getKey());
+            entry.getValue().writeTo(out);
+        }
+    }
+
+    static final class Fields {
+        static final XContentBuilderString ADAPTIVE_SELECTION = new XContentBuilderString("adaptive_selection");
+        static final XContentBuilderString OUTGOING_SEARCHES = new XContentBuilderString("outgoing_searches");
+        static final XContentBuilderString RANK = new XContentBuilderString("rank");
+    }
+
+    @Override
+    public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
+        builder.startObject(Fields.ADAPTIVE_SELECTION);
+        Set<String> nodeIds = new HashSet<>(clientOutgoingConnections.keySet());
+        nodeIds.addAll(nodeComputedStats.keySet());
+        for (String nodeId : nodeIds) {
+            builder.startObject(nodeId, XContentBuilder.FieldCaseConversion.NONE);
+            Long outstanding = clientOutgoingConnections.get(nodeId);
+            builder.field(Fields.OUTGOING_SEARCHES, outstanding == null ? 0 : outstanding);
+            ComputedNodeStats stats = nodeComputedStats.get(nodeId);
+            if (stats != null) {
+                stats.toXContent(builder, params);
+                builder.field(Fields.RANK, String.format(Locale.ROOT, "%.1f", stats.rank(outstanding == null ? 0 : outstanding)));
+            }
+            builder.endObject();
+        }
+        builder.endObject();
+        return builder;
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.cluster.routing;
+
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.io.stream.Streamable;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.common.xcontent.ToXContent;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.common.xcontent.XContentBuilderString;
+
+import java.io.IOException;
+import java.util.Locale;
+
+/**
+ * A snapshot of the moving averages the {@link ResponseCollectorService} keeps for a node, and the rank of the node
+ * that is derived from them.
+ */
+public class ComputedNodeStats implements Streamable, ToXContent {
+
+    String nodeId;
+    int clientNum;
+    double queueSize;
+    double responseTime;
+    double serviceTime;
+
+    ComputedNodeStats() {
+    }
+
+    public ComputedNodeStats(String nodeId, int clientNum, double queueSize, double responseTime, double serviceTime) {
+        this.nodeId = nodeId;
+        this.clientNum = clientNum;
+        this.queueSize = queueSize;
+        this.responseTime = responseTime;
+        this.serviceTime = serviceTime;
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    /**
+     * The moving average of the size of the search queue of the node.
+     */
+    public double getQueueSize() {
+        return queueSize;
+    }
+
+    /**
+     * The moving average of the response time of the node, in nanoseconds.
+     */
+    public double getResponseTime() {
+        return responseTime;
+    }
+
+    /**
+     * The moving average of the time the node spent executing requests, in nanoseconds.
+     */
+    public double getServiceTime() {
+        return serviceTime;
+    }
+
+    /**
+     * Ranks the node following the C3 replica selection algorithm, lower is better. The queue size estimate accounts
+     * for the requests this node has outstanding, which are assumed to be representative of the other coordinating
+     * nodes, and is penalized cubically so that a node with a growing queue quickly loses traffic:
+     * <pre>
+     *     rank = responseTime - serviceTime + (1 + outstandingRequests * clientNum + queueSize)^3 * serviceTime
+     * </pre>
+     */
+    public double rank(long outstandingRequests) {
+        final double queueEstimate = 1 + outstandingRequests * clientNum + queueSize;
+        return responseTime - serviceTime + Math.pow(queueEstimate, 3) * serviceTime;
+    }
+
+    public static ComputedNodeStats readComputedNodeStats(StreamInput in) throws IOException {
+        ComputedNodeStats stats = new ComputedNodeStats();
+        stats.readFrom(in);
+        return stats;
+    }
+
+    @Override
+    public void readFrom(StreamInput in) throws IOException {
+        nodeId = in.readString();
+        clientNum = in.readVInt();
+        queueSize = in.readDouble();
+        responseTime = in.readDouble();
+        serviceTime = in.readDouble();
+    }
+
+    @Override
+    public void writeTo(StreamOutput out) throws IOException {
+        out.writeString(nodeId);
+        out.writeVInt(clientNum);
+        out.writeDouble(queueSize);
+        out.writeDouble(responseTime);
+        out.writeDouble(serviceTime);
+    }
+
+    static final class Fields {
+        static final XContentBuilderString AVG_QUEUE_SIZE = new XContentBuilderString("avg_queue_size");
+        static final XContentBuilderString AVG_SERVICE_TIME = new XContentBuilderString("avg_service_time");
+        static final XContentBuilderString AVG_SERVICE_TIME_IN_NANOS = new XContentBuilderString("avg_service_time_ns");
+        static final XContentBuilderString AVG_RESPONSE_TIME = new XContentBuilderString("avg_response_time");
+        static final XContentBuilderString AVG_RESPONSE_TIME_IN_NANOS = new XContentBuilderString("avg_response_time_ns");
+    }
+
+    @Override
+    public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
+        builder.field(Fields.AVG_QUEUE_SIZE, Math.round(queueSize));
+        if (builder.humanReadable()) {
+            builder.field(Fields.AVG_SERVICE_TIME, TimeValue.timeValueNanos((long) serviceTime).toString());
+        }
+        builder.field(Fields.AVG_SERVICE_TIME_IN_NANOS, (long) serviceTime);
+        if (builder.humanReadable()) {
+            builder.field(Fields.AVG_RESPONSE_TIME, TimeValue.timeValueNanos((long) responseTime).toString());
+        }
+        builder.field(Fields.AVG_RESPONSE_TIME_IN_NANOS, (long) responseTime);
+        return builder;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT, "ComputedNodeStats[%s](queue: %.1f, response time: %.1fns, service time: %.1fns)",
+                nodeId, queueSize, responseTime, serviceTime);
+    }
+}
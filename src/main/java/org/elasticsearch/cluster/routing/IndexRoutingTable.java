@@ -23,6 +23,7 @@ import com.carrotsearch.hppc.IntSet;
 import com.carrotsearch.hppc.cursors.IntCursor;
 import com.carrotsearch.hppc.cursors.IntObjectCursor;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Sets;
 import com.google.common.collect.UnmodifiableIterator;
 import org.elasticsearch.cluster.AbstractDiffable;
@@ -35,7 +36,9 @@ import org.elasticsearch.index.shard.ShardId;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ThreadLocalRandom;
 
@@ -70,6 +73,9 @@ public class IndexRoutingTable extends AbstractDiffable<IndexRoutingTable> imple
     private final ImmutableList<ShardRouting> allShards;
     private final ImmutableList<ShardRouting> allActiveShards;
 
+    // built on first use, tables of unchanged indices are shared between cluster states so this survives updates
+    private volatile ImmutableMap<String, ImmutableList<ShardRouting>> shardsByNode;
+
     IndexRoutingTable(String index, ImmutableOpenIntMap<IndexShardRoutingTable> shards) {
         this.index = index;
         this.shuffler = new RotationShardShuffler(ThreadLocalRandom.current().nextInt());
@@ -110,14 +116,17 @@ public class IndexRoutingTable extends AbstractDiffable<IndexRoutingTable> imple
     /**
      * creates a new {@link IndexRoutingTable} with all shard versions normalized
      *
-     * @return new {@link IndexRoutingTable}
+     * @return new {@link IndexRoutingTable}, or this one if its shard versions are already normalized
      */
     public IndexRoutingTable normalizeVersions() {
         IndexRoutingTable.Builder builder = new Builder(this.index);
+        boolean normalized = false;
         for (IntObjectCursor<IndexShardRoutingTable> cursor : shards) {
-            builder.addIndexShard(cursor.value.normalizeVersions());
+            IndexShardRoutingTable indexShardRoutingTable = cursor.value.normalizeVersions();
+            normalized |= indexShardRoutingTable != cursor.value;
+            builder.addIndexShard(indexShardRoutingTable);
         }
-        return builder.build();
+        return normalized ? builder.build() : this;
     }
 
     public void validate(RoutingTableValidation validation, MetaData metaData) {
@@ -206,6 +215,43 @@ public class IndexRoutingTable extends AbstractDiffable<IndexRoutingTable> imple
         return shards;
     }
 
+    /**
+     * Returns the shards of this index that are allocated on the given node, the same way {@link RoutingNodes} lists
+     * them: a shard relocating to the node is listed as an initializing shard whose relocating node is the source.
+     */
+    public ImmutableList<ShardRouting> shardsOnNode(String nodeId) {
+        ImmutableMap<String, ImmutableList<ShardRouting>> shardsByNode = this.shardsByNode;
+        if (shardsByNode == null) {
+            Map<String, ImmutableList.Builder<ShardRouting>> builders = new HashMap<>();
+            for (ShardRouting shard : allShards) {
+                if (shard.assignedToNode() == false) {
+                    continue;
+                }
+                shardsOnNodeBuilder(builders, shard.currentNodeId()).add(shard);
+                if (shard.relocating()) {
+                    shardsOnNodeBuilder(builders, shard.relocatingNodeId()).add(new ImmutableShardRouting(shard.index(), shard.id(), shard.relocatingNodeId(),
+                            shard.currentNodeId(), shard.primary(), ShardRoutingState.INITIALIZING, shard.version()));
+                }
+            }
+            ImmutableMap.Builder<String, ImmutableList<ShardRouting>> builder = ImmutableMap.builder();
+            for (Map.Entry<String, ImmutableList.Builder<ShardRouting>> entry : builders.entrySet()) {
+                builder.put(entry.getKey(), entry.getValue().build());
+            }
+            this.shardsByNode = shardsByNode = builder.build();
+        }
+        ImmutableList<ShardRouting> shardsOnNode = shardsByNode.get(nodeId);
+        return shardsOnNode == null ? ImmutableList.<ShardRouting>of() : shardsOnNode;
+    }
+
+    private static ImmutableList.Builder<ShardRouting> shardsOnNodeBuilder(Map<String, ImmutableList.Builder<ShardRouting>> builders, String nodeId) {
+        ImmutableList.Builder<ShardRouting> builder = builders.get(nodeId);
+        if (builder == null) {
+            builder = ImmutableList.builder();
+            builders.put(nodeId, builder);
+        }
+        return builder;
+    }
+
     public ImmutableOpenIntMap<IndexShardRoutingTable> getShards() {
         return shards();
     }
@@ -337,6 +383,29 @@ public class IndexRoutingTable extends AbstractDiffable<IndexRoutingTable> imple
         return result;
     }
 
+    /**
+     * Returns <tt>true</tt> if the given table is {@link #equals(Object) equal} to this one and all its shard routings
+     * also have the same versions, which {@link #equals(Object)} ignores. Such a table can be replaced by this one.
+     */
+    boolean identicalTo(IndexRoutingTable other) {
+        if (other == this) {
+            return true;
+        }
+        if (other == null || equals(other) == false) {
+            return false;
+        }
+        for (IntObjectCursor<IndexShardRoutingTable> cursor : shards) {
+            List<ShardRouting> shardRoutings = cursor.value.shards();
+            List<ShardRouting> otherShardRoutings = other.shard(cursor.key).shards();
+            for (int i = 0; i < shardRoutings.size(); i++) {
+                if (shardRoutings.get(i).version() != otherShardRoutings.get(i).version()) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
     public void validate() throws RoutingValidationException {
     }
 
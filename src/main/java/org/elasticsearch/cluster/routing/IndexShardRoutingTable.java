@@ -22,6 +22,7 @@ package org.elasticsearch.cluster.routing;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.UnmodifiableIterator;
+import org.apache.lucene.util.CollectionUtil;
 import org.elasticsearch.cluster.node.DiscoveryNode;
 import org.elasticsearch.cluster.node.DiscoveryNodes;
 import org.elasticsearch.common.collect.MapBuilder;
@@ -265,6 +266,62 @@ public class IndexShardRoutingTable implements Iterable<ShardRouting> {
         return activeInitializingShardsIt(shuffler.nextSeed());
     }
 
+    /**
+     * Returns an iterator over active and initializing shards, the active shards ordered by the rank of the node they
+     * are allocated on (best first, see {@link ComputedNodeStats#rank(long)}). Copies on nodes that have no statistics
+     * yet come first so that they get some. The given counts of the shards of the current search that have already been
+     * routed to each node are taken into account as outstanding requests, and updated with the winner of this ranking.
+     */
+    public ShardIterator activeInitializingShardsRankedIt(ResponseCollectorService collector, Map<String, Long> nodeSearchCounts) {
+        // shuffle first so that copies with equal ranks are still picked at random
+        final List<ShardRouting> shuffled = shuffler.shuffle(activeShards);
+        final List<ShardRouting> ordered = new ArrayList<>(activeShards.size() + allInitializingShards.size());
+        if (shuffled.size() > 1) {
+            final Map<String, Double> ranks = new HashMap<>(shuffled.size());
+            final Map<String, ComputedNodeStats> stats = new HashMap<>(shuffled.size());
+            for (ShardRouting shard : shuffled) {
+                final String nodeId = shard.currentNodeId();
+                if (ranks.containsKey(nodeId) == false) {
+                    final ComputedNodeStats nodeStats = collector.getNodeStatistics(nodeId);
+                    if (nodeStats == null) {
+                        ranks.put(nodeId, Double.NEGATIVE_INFINITY);
+                    } else {
+                        final Long searchCount = nodeSearchCounts.get(nodeId);
+                        final long outstanding = collector.getOutstandingRequests(nodeId) + (searchCount == null ? 0 : searchCount);
+                        ranks.put(nodeId, nodeStats.rank(outstanding));
+                        stats.put(nodeId, nodeStats);
+                    }
+                }
+            }
+            final List<ShardRouting> sorted = new ArrayList<>(shuffled);
+            CollectionUtil.timSort(sorted, new Comparator<ShardRouting>() {
+                @Override
+                public int compare(ShardRouting o1, ShardRouting o2) {
+                    return Double.compare(ranks.get(o1.currentNodeId()), ranks.get(o2.currentNodeId()));
+                }
+            });
+            final ComputedNodeStats winner = stats.get(sorted.get(0).currentNodeId());
+            if (winner != null) {
+                for (int i = 1; i < sorted.size(); i++) {
+                    final String nodeId = sorted.get(i).currentNodeId();
+                    if (nodeId.equals(winner.getNodeId()) == false) {
+                        collector.adjustTowards(nodeId, winner);
+                    }
+                }
+            }
+            ordered.addAll(sorted);
+        } else {
+            ordered.addAll(shuffled);
+        }
+        if (ordered.isEmpty() == false) {
+            final String winnerNodeId = ordered.get(0).currentNodeId();
+            final Long searchCount = nodeSearchCounts.get(winnerNodeId);
+            nodeSearchCounts.put(winnerNodeId, searchCount == null ? 1 : searchCount + 1);
+        }
+        ordered.addAll(allInitializingShards);
+        return new PlainShardIterator(shardId, ordered);
+    }
+
     /**
      * Returns an iterator over active and initializing shards. Making sure though that
      * its random within the active shards, and initializing shards are the last to iterate through.
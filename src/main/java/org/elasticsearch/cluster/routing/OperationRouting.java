@@ -36,8 +36,10 @@ import org.elasticsearch.index.Index;
 import org.elasticsearch.index.IndexShardMissingException;
 import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.indices.IndexMissingException;
+import org.elasticsearch.node.settings.NodeSettingsService;
 
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
@@ -47,14 +49,33 @@ import java.util.Set;
  */
 public class OperationRouting extends AbstractComponent {
 
-
+    public static final String USE_ADAPTIVE_REPLICA_SELECTION = "cluster.routing.use_adaptive_replica_selection";
 
     private final AwarenessAllocationDecider awarenessAllocationDecider;
 
-    @Inject
+    private volatile boolean useAdaptiveReplicaSelection;
+
     public OperationRouting(Settings settings, AwarenessAllocationDecider awarenessAllocationDecider) {
+        this(settings, awarenessAllocationDecider, new NodeSettingsService(settings));
+    }
+
+    @Inject
+    public OperationRouting(Settings settings, AwarenessAllocationDecider awarenessAllocationDecider, NodeSettingsService nodeSettingsService) {
         super(settings);
         this.awarenessAllocationDecider = awarenessAllocationDecider;
+        this.useAdaptiveReplicaSelection = settings.getAsBoolean(USE_ADAPTIVE_REPLICA_SELECTION, false);
+        nodeSettingsService.addListener(new ApplySettings());
+    }
+
+    class ApplySettings implements NodeSettingsService.Listener {
+        @Override
+        public void onRefreshSettings(Settings settings) {
+            boolean useAdaptiveReplicaSelection = settings.getAsBoolean(USE_ADAPTIVE_REPLICA_SELECTION, OperationRouting.this.useAdaptiveReplicaSelection);
+            if (useAdaptiveReplicaSelection != OperationRouting.this.useAdaptiveReplicaSelection) {
+                logger.info("updating [{}] from [{}] to [{}]", USE_ADAPTIVE_REPLICA_SELECTION, OperationRouting.this.useAdaptiveReplicaSelection, useAdaptiveReplicaSelection);
+                OperationRouting.this.useAdaptiveReplicaSelection = useAdaptiveReplicaSelection;
+            }
+        }
     }
 
     public ShardIterator indexShards(ClusterState clusterState, String index, String type, String id, @Nullable String routing) throws IndexMissingException, IndexShardMissingException {
@@ -83,10 +104,22 @@ public class OperationRouting extends AbstractComponent {
     }
 
     public GroupShardsIterator searchShards(ClusterState clusterState, String[] indices, String[] concreteIndices, @Nullable Map<String, Set<String>> routing, @Nullable String preference) throws IndexMissingException {
+        return searchShards(clusterState, indices, concreteIndices, routing, preference, null);
+    }
+
+    /**
+     * Like {@link #searchShards(ClusterState, String[], String[], Map, String)}, but ranks the copies of every shard by
+     * the statistics of the given collector if adaptive replica selection is enabled and no preference is given.
+     */
+    public GroupShardsIterator searchShards(ClusterState clusterState, String[] indices, String[] concreteIndices, @Nullable Map<String, Set<String>> routing,
+                                            @Nullable String preference, @Nullable ResponseCollectorService collectorService) throws IndexMissingException {
         final Set<IndexShardRoutingTable> shards = computeTargetedShards(clusterState, concreteIndices, routing);
         final Set<ShardIterator> set = new HashSet<>(shards.size());
+        final ResponseCollectorService ranking = useAdaptiveReplicaSelection ? collectorService : null;
+        // the number of shards of this search that have been routed to each node so far
+        final Map<String, Long> nodeSearchCounts = ranking == null ? null : new HashMap<String, Long>();
         for (IndexShardRoutingTable shard : shards) {
-            ShardIterator iterator = preferenceActiveShardIterator(shard, clusterState.nodes().localNodeId(), clusterState.nodes(), preference);
+            ShardIterator iterator = preferenceActiveShardIterator(shard, clusterState.nodes().localNodeId(), clusterState.nodes(), preference, ranking, nodeSearchCounts);
             if (iterator != null) {
                 set.add(iterator);
             }
@@ -123,9 +156,17 @@ public class OperationRouting extends AbstractComponent {
     }
 
     private ShardIterator preferenceActiveShardIterator(IndexShardRoutingTable indexShard, String localNodeId, DiscoveryNodes nodes, @Nullable String preference) {
+        return preferenceActiveShardIterator(indexShard, localNodeId, nodes, preference, null, null);
+    }
+
+    private ShardIterator preferenceActiveShardIterator(IndexShardRoutingTable indexShard, String localNodeId, DiscoveryNodes nodes, @Nullable String preference,
+                                                        @Nullable ResponseCollectorService collectorService, @Nullable Map<String, Long> nodeSearchCounts) {
         if (preference == null || preference.isEmpty()) {
             String[] awarenessAttributes = awarenessAllocationDecider.awarenessAttributes();
             if (awarenessAttributes.length == 0) {
+                if (collectorService != null) {
+                    return indexShard.activeInitializingShardsRankedIt(collectorService, nodeSearchCounts);
+                }
                 return indexShard.activeInitializingShardsRandomIt();
             } else {
                 return indexShard.preferAttributesActiveInitializingShardsIt(awarenessAttributes, nodes);
@@ -158,6 +199,9 @@ public class OperationRouting extends AbstractComponent {
                 if (index == -1 || index == preference.length() - 1) {
                     String[] awarenessAttributes = awarenessAllocationDecider.awarenessAttributes();
                     if (awarenessAttributes.length == 0) {
+                        if (collectorService != null) {
+                            return indexShard.activeInitializingShardsRankedIt(collectorService, nodeSearchCounts);
+                        }
                         return indexShard.activeInitializingShardsRandomIt();
                     } else {
                         return indexShard.preferAttributesActiveInitializingShardsIt(awarenessAttributes, nodes);
@@ -0,0 +1,211 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.cluster.routing;
+
+import org.elasticsearch.cluster.ClusterChangedEvent;
+import org.elasticsearch.cluster.ClusterService;
+import org.elasticsearch.cluster.ClusterStateListener;
+import org.elasticsearch.cluster.node.DiscoveryNode;
+import org.elasticsearch.common.Nullable;
+import org.elasticsearch.common.component.AbstractComponent;
+import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Collects statistics about the search responses the coordinating node receives from every node: moving averages of
+ * the response time, of the time the remote node spent executing the request and of the size of its search queue,
+ * plus the number of requests that are still outstanding. {@link OperationRouting} ranks shard copies by these
+ * statistics when adaptive replica selection is enabled, see {@link ComputedNodeStats#rank(long)}.
+ */
+public class ResponseCollectorService extends AbstractComponent implements ClusterStateListener {
+
+    /**
+     * The weight of a new observation in the moving averages.
+     */
+    public static final double ALPHA = 0.3;
+
+    private final ConcurrentMap<String, NodeStatistics> nodeStats = ConcurrentCollections.newConcurrentMap();
+
+    @Inject
+    public ResponseCollectorService(Settings settings, ClusterService clusterService) {
+        this(settings);
+        clusterService.add(this);
+    }
+
+    ResponseCollectorService(Settings settings) {
+        super(settings);
+    }
+
+    @Override
+    public void clusterChanged(ClusterChangedEvent event) {
+        if (event.nodesRemoved()) {
+            for (DiscoveryNode removedNode : event.nodesDelta().removedNodes()) {
+                nodeStats.remove(removedNode.id());
+            }
+        }
+    }
+
+    /**
+     * Called when a search request is sent to the node.
+     */
+    public void onRequestSent(String nodeId) {
+        statistics(nodeId).outstandingRequests.incrementAndGet();
+    }
+
+    /**
+     * Called when a response to a search request has been received from the node.
+     *
+     * @param responseTimeNanos the time it took from sending the request to receiving the response
+     * @param queueSize         the size of the search queue of the node when it executed the request, or <tt>-1</tt> if unknown
+     * @param serviceTimeNanos  the time the node spent executing the request, or <tt>-1</tt> if unknown
+     */
+    public void onResponse(String nodeId, long responseTimeNanos, int queueSize, long serviceTimeNanos) {
+        NodeStatistics statistics = statistics(nodeId);
+        statistics.outstandingRequests.decrementAndGet();
+        statistics.update(responseTimeNanos, queueSize, serviceTimeNanos);
+    }
+
+    /**
+     * Called when a search request to the node failed.
+     */
+    public void onFailure(String nodeId) {
+        statistics(nodeId).outstandingRequests.decrementAndGet();
+    }
+
+    /**
+     * Returns the statistics of the node, or <tt>null</tt> if no response has been received from it yet.
+     */
+    @Nullable
+    public ComputedNodeStats getNodeStatistics(String nodeId) {
+        NodeStatistics statistics = nodeStats.get(nodeId);
+        return statistics == null ? null : statistics.compute(nodeStats.size());
+    }
+
+    /**
+     * Returns the number of search requests that have been sent to the node and not answered yet.
+     */
+    public long getOutstandingRequests(String nodeId) {
+        NodeStatistics statistics = nodeStats.get(nodeId);
+        return statistics == null ? 0 : Math.max(0L, statistics.outstandingRequests.get());
+    }
+
+    /**
+     * Returns the statistics of all nodes a response has been received from, keyed by node id.
+     */
+    public Map<String, ComputedNodeStats> getAllNodeStatistics() {
+        final int clientNum = nodeStats.size();
+        Map<String, ComputedNodeStats> computed = new HashMap<>(clientNum);
+        for (Map.Entry<String, NodeStatistics> entry : nodeStats.entrySet()) {
+            ComputedNodeStats stats = entry.getValue().compute(clientNum);
+            if (stats != null) {
+                computed.put(entry.getKey(), stats);
+            }
+        }
+        return computed;
+    }
+
+    /**
+     * Moves the statistics of a node that lost a ranking half way towards the statistics of the winner. Otherwise a
+     * node that had a slow period would never be picked again and would never get the chance to show it recovered.
+     */
+    public void adjustTowards(String nodeId, ComputedNodeStats winner) {
+        NodeStatistics statistics = nodeStats.get(nodeId);
+        if (statistics != null) {
+            statistics.adjustTowards(winner);
+        }
+    }
+
+    /**
+     * The statistics of all nodes, as reported in the node stats.
+     */
+    public AdaptiveSelectionStats stats() {
+        Map<String, Long> outstanding = new HashMap<>(nodeStats.size());
+        for (Map.Entry<String, NodeStatistics> entry : nodeStats.entrySet()) {
+            outstanding.put(entry.getKey(), Math.max(0L, entry.getValue().outstandingRequests.get()));
+        }
+        return new AdaptiveSelectionStats(outstanding, getAllNodeStatistics());
+    }
+
+    private NodeStatistics statistics(String nodeId) {
+        NodeStatistics statistics = nodeStats.get(nodeId);
+        if (statistics == null) {
+            statistics = new NodeStatistics(nodeId);
+            NodeStatistics existing = nodeStats.putIfAbsent(nodeId, statistics);
+            if (existing != null) {
+                statistics = existing;
+            }
+        }
+        return statistics;
+    }
+
+    private static class NodeStatistics {
+
+        final String nodeId;
+        final AtomicLong outstandingRequests = new AtomicLong();
+
+        private boolean initialized;
+        private double queueSize;
+        private double responseTime;
+        private double serviceTime;
+
+        NodeStatistics(String nodeId) {
+            this.nodeId = nodeId;
+        }
+
+        synchronized void update(long responseTimeNanos, int queueSize, long serviceTimeNanos) {
+            if (initialized == false) {
+                this.responseTime = responseTimeNanos;
+                this.queueSize = Math.max(0, queueSize);
+                this.serviceTime = Math.max(0, serviceTimeNanos);
+                initialized = true;
+                return;
+            }
+            this.responseTime += ALPHA * (responseTimeNanos - this.responseTime);
+            if (queueSize >= 0) {
+                this.queueSize += ALPHA * (queueSize - this.queueSize);
+            }
+            if (serviceTimeNanos >= 0) {
+                this.serviceTime += ALPHA * (serviceTimeNanos - this.serviceTime);
+            }
+        }
+
+        synchronized void adjustTowards(ComputedNodeStats winner) {
+            if (initialized) {
+                responseTime = (responseTime + winner.responseTime) / 2;
+                queueSize = (queueSize + winner.queueSize) / 2;
+                serviceTime = (serviceTime + winner.serviceTime) / 2;
+            }
+        }
+
+        @Nullable
+        synchronized ComputedNodeStats compute(int clientNum) {
+            if (initialized == false) {
+                return null;
+            }
+            return new ComputedNodeStats(nodeId, clientNum, queueSize, responseTime, serviceTime);
+        }
+    }
+}
@@ -118,6 +118,19 @@ public class RoutingTable implements Iterable<IndexRoutingTable>, Diffable<Routi
         return shards;
     }
 
+    /**
+     * All the shards allocated on the given node, see {@link IndexRoutingTable#shardsOnNode(String)}. Unlike
+     * {@link RoutingNodes} this does not look at the shards of other nodes, and the shards of indices whose routing did
+     * not change since the previous cluster state are not looked at again.
+     */
+    public List<ShardRouting> shardsOnNode(String nodeId) {
+        List<ShardRouting> shards = newArrayList();
+        for (IndexRoutingTable indexRoutingTable : this) {
+            shards.addAll(indexRoutingTable.shardsOnNode(nodeId));
+        }
+        return shards;
+    }
+
     /**
      * All the shards (replicas) for all indices in this routing table.
      *
@@ -381,7 +394,10 @@ public class RoutingTable implements Iterable<IndexRoutingTable>, Diffable<Routi
             }
 
             for (IndexRoutingTable.Builder indexBuilder : indexRoutingTableBuilders.values()) {
-                add(indexBuilder);
+                IndexRoutingTable indexRoutingTable = indexBuilder.build().normalizeVersions();
+                IndexRoutingTable previous = routingNodes.routingTable().index(indexRoutingTable.index());
+                // keep the previous instance of unchanged indices, listeners compare them by identity
+                add(indexRoutingTable.identicalTo(previous) ? previous : indexRoutingTable);
             }
             return this;
         }
@@ -97,6 +97,9 @@ public class InternalClusterService extends AbstractLifecycleComponent<ClusterSe
 
     private final Queue<NotifyTimeout> onGoingTimeouts = ConcurrentCollections.newQueue();
 
+    // tasks submitted with an executor that did not run yet, the first of them to run executes them all in one batch
+    private final Map<ClusterStateTaskExecutor<?>, List<BatchedUpdateTask<?>>> pendingBatchedTasks = new HashMap<>();
+
     private volatile ClusterState clusterState;
 
     private final ClusterBlocks.Builder initialBlocks;
@@ -301,6 +304,38 @@ public class InternalClusterService extends AbstractLifecycleComponent<ClusterSe
         }
     }
 
+    @Override
+    public <T> void submitStateUpdateTask(final String source, Priority priority, final T task,
+                                          final ClusterStateTaskExecutor<T> executor, final ClusterStateTaskListener listener) {
+        if (!lifecycle.started()) {
+            return;
+        }
+        final BatchedUpdateTask<T> updateTask = new BatchedUpdateTask<>(source, priority, task, executor, listener);
+        synchronized (pendingBatchedTasks) {
+            List<BatchedUpdateTask<?>> pending = pendingBatchedTasks.get(executor);
+            if (pending == null) {
+                pending = new ArrayList<>();
+                pendingBatchedTasks.put(executor, pending);
+            }
+            pending.add(updateTask);
+        }
+        try {
+            updateTasksExecutor.execute(updateTask);
+        } catch (EsRejectedExecutionException e) {
+            synchronized (pendingBatchedTasks) {
+                List<BatchedUpdateTask<?>> pending = pendingBatchedTasks.get(executor);
+                if (pending != null && pending.remove(updateTask) && pending.isEmpty()) {
+                    pendingBatchedTasks.remove(executor);
+                }
+            }
+            // ignore cases where we are shutting down..., there is really nothing interesting
+            // to be done here...
+            if (!lifecycle.stoppedOrClosed()) {
+                throw e;
+            }
+        }
+    }
+
     @Override
     public List<PendingClusterTask> pendingTasks() {
         PrioritizedEsThreadPoolExecutor.Pending[] pendings = updateTasksExecutor.getPending();
@@ -538,6 +573,89 @@ public class InternalClusterService extends AbstractLifecycleComponent<ClusterSe
         }
     }
 
+    class BatchedUpdateTask<T> extends TimedPrioritizedRunnable {
+
+        final T task;
+        final ClusterStateTaskExecutor<T> executor;
+        final ClusterStateTaskListener listener;
+
+        BatchedUpdateTask(String source, Priority priority, T task, ClusterStateTaskExecutor<T> executor, ClusterStateTaskListener listener) {
+            super(priority, source);
+            this.task = task;
+            this.executor = executor;
+            this.listener = listener;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public void run() {
+            final List<BatchedUpdateTask<T>> batch = new ArrayList<>();
+            synchronized (pendingBatchedTasks) {
+                List<BatchedUpdateTask<?>> pending = pendingBatchedTasks.remove(executor);
+                if (pending == null) {
+                    // this task was executed as part of the batch of another task of the same executor
+                    return;
+                }
+                // the tasks are keyed by their executor, so they all share its task type
+                for (BatchedUpdateTask<?> pendingTask : pending) {
+                    batch.add((BatchedUpdateTask<T>) pendingTask);
+                }
+            }
+            final String batchSource = batch.size() == 1 ? batch.get(0).source : batch.get(0).source + " and [" + (batch.size() - 1) + "] more tasks";
+            new UpdateTask(batchSource, priority(), new BatchedClusterStateUpdateTask<>(executor, batch)).run();
+        }
+    }
+
+    /**
+     * Runs a batch of tasks through the regular {@link UpdateTask} path, so they are published once.
+     */
+    class BatchedClusterStateUpdateTask<T> extends ProcessedClusterStateUpdateTask {
+
+        private final ClusterStateTaskExecutor<T> executor;
+        private final List<BatchedUpdateTask<T>> batch;
+
+        BatchedClusterStateUpdateTask(ClusterStateTaskExecutor<T> executor, List<BatchedUpdateTask<T>> batch) {
+            this.executor = executor;
+            this.batch = batch;
+        }
+
+        @Override
+        public ClusterState execute(ClusterState currentState) throws Exception {
+            List<T> tasks = new ArrayList<>(batch.size());
+            for (BatchedUpdateTask<T> updateTask : batch) {
+                tasks.add(updateTask.task);
+            }
+            return executor.execute(currentState, tasks);
+        }
+
+        @Override
+        public boolean runOnlyOnMaster() {
+            return executor.runOnlyOnMaster();
+        }
+
+        @Override
+        public void onFailure(String source, Throwable t) {
+            for (BatchedUpdateTask<T> updateTask : batch) {
+                try {
+                    updateTask.listener.onFailure(updateTask.source, t);
+                } catch (Throwable inner) {
+                    logger.warn("failed to notify listener of [{}] about a failure", inner, updateTask.source);
+                }
+            }
+        }
+
+        @Override
+        public void clusterStateProcessed(String source, ClusterState oldState, ClusterState newState) {
+            for (BatchedUpdateTask<T> updateTask : batch) {
+                try {
+                    updateTask.listener.clusterStateProcessed(updateTask.source, oldState, newState);
+                } catch (Throwable t) {
+                    logger.warn("failed to notify listener of [{}] about the processed cluster state", t, updateTask.source);
+                }
+            }
+        }
+    }
+
     private void warnAboutSlowTaskIfNeeded(TimeValue executionTime, String source) {
         if (executionTime.getMillis() > slowTaskLoggingThreshold.getMillis()) {
             logger.warn("cluster state update task [{}] took {} above the warn threshold of {}", source, executionTime, slowTaskLoggingThreshold);
@@ -0,0 +1,92 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.common.compress.lz4;
+
+import org.apache.lucene.codecs.compressing.CompressionMode;
+import org.apache.lucene.codecs.compressing.Decompressor;
+import org.apache.lucene.store.ByteArrayDataInput;
+import org.apache.lucene.util.ArrayUtil;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.compress.CompressedStreamInput;
+import org.elasticsearch.common.io.stream.StreamInput;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Reads the chunks written by {@link LZ4CompressedStreamOutput}. The stream ends with the underlying stream, there
+ * is no end marker, so that the whole underlying stream is consumed once the last chunk has been read.
+ */
+public class LZ4CompressedStreamInput extends CompressedStreamInput<LZ4CompressorContext> {
+
+    private final Decompressor decompressor;
+    private final ByteArrayDataInput compressedIn = new ByteArrayDataInput();
+    private final BytesRef decompressed = new BytesRef();
+    private byte[] compressed = BytesRef.EMPTY_BYTES;
+
+    public LZ4CompressedStreamInput(StreamInput in) throws IOException {
+        super(in, LZ4CompressorContext.INSTANCE);
+        this.decompressor = CompressionMode.FAST.newDecompressor();
+    }
+
+    @Override
+    protected void readHeader(StreamInput in) throws IOException {
+        byte[] header = new byte[LZ4Compressor.HEADER.length];
+        in.readBytes(header, 0, header.length);
+        if (!Arrays.equals(header, LZ4Compressor.HEADER)) {
+            throw new IOException("not an lz4 compressed stream, header " + Arrays.toString(header));
+        }
+    }
+
+    @Override
+    protected int uncompress(StreamInput in, byte[] out) throws IOException {
+        int b = in.read();
+        if (b == -1) {
+            return -1;
+        }
+        // the first byte of the vint was read to detect the end of the stream
+        int uncompressedLength = b & 0x7F;
+        for (int shift = 7; (b & 0x80) != 0; shift += 7) {
+            b = in.readByte();
+            uncompressedLength |= (b & 0x7F) << shift;
+        }
+        int compressedLength = in.readVInt();
+        if (uncompressedLength <= 0 || uncompressedLength > LZ4Compressor.CHUNK_SIZE
+                || compressedLength < 0 || compressedLength > LZ4Compressor.maxCompressedLength(uncompressedLength)) {
+            throw new IOException("corrupted lz4 chunk, uncompressed length [" + uncompressedLength + "], compressed length [" + compressedLength + "]");
+        }
+        if (compressed.length < compressedLength) {
+            compressed = new byte[ArrayUtil.oversize(compressedLength, 1)];
+        }
+        in.readBytes(compressed, 0, compressedLength);
+        compressedIn.reset(compressed, 0, compressedLength);
+        decompressor.decompress(compressedIn, uncompressedLength, 0, uncompressedLength, decompressed);
+        assert decompressed.offset == 0 && decompressed.length == uncompressedLength;
+        // the decompressor grows its own buffer, read from it directly rather than copying into ours
+        uncompressed = decompressed.bytes;
+        return uncompressedLength;
+    }
+
+    @Override
+    protected void doClose() throws IOException {
+        uncompressed = null;
+        compressed = null;
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.common.compress.lz4;
+
+import org.apache.lucene.codecs.compressing.CompressionMode;
+import org.apache.lucene.store.ByteArrayDataOutput;
+import org.elasticsearch.common.compress.CompressedStreamOutput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+
+import java.io.IOException;
+
+/**
+ * Writes {@link LZ4Compressor#HEADER} followed by chunks of up to {@link LZ4Compressor#CHUNK_SIZE} bytes, each
+ * made of its uncompressed length, its compressed length and the LZ4 compressed bytes.
+ */
+public class LZ4CompressedStreamOutput extends CompressedStreamOutput<LZ4CompressorContext> {
+
+    private final org.apache.lucene.codecs.compressing.Compressor compressor;
+    private final ByteArrayDataOutput compressedOut = new ByteArrayDataOutput();
+    private byte[] compressed;
+
+    public LZ4CompressedStreamOutput(StreamOutput out) throws IOException {
+        super(out, LZ4CompressorContext.INSTANCE);
+        this.compressor = CompressionMode.FAST.newCompressor();
+        this.uncompressed = new byte[LZ4Compressor.CHUNK_SIZE];
+        this.uncompressedLength = LZ4Compressor.CHUNK_SIZE;
+        this.compressed = new byte[LZ4Compressor.maxCompressedLength(LZ4Compressor.CHUNK_SIZE)];
+    }
+
+    @Override
+    protected void writeHeader(StreamOutput out) throws IOException {
+        out.writeBytes(LZ4Compressor.HEADER);
+    }
+
+    @Override
+    protected void compress(byte[] data, int offset, int len, StreamOutput out) throws IOException {
+        compressedOut.reset(compressed);
+        compressor.compress(data, offset, len, compressedOut);
+        out.writeVInt(len);
+        out.writeVInt(compressedOut.getPosition());
+        out.writeBytes(compressed, 0, compressedOut.getPosition());
+    }
+
+    @Override
+    protected void doClose() throws IOException {
+        uncompressed = null;
+        compressed = null;
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.common.compress.lz4;
+
+import org.apache.lucene.store.IndexInput;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.compress.CompressedIndexInput;
+import org.elasticsearch.common.compress.CompressedStreamInput;
+import org.elasticsearch.common.compress.CompressedStreamOutput;
+import org.elasticsearch.common.compress.Compressor;
+import org.elasticsearch.common.io.Streams;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.settings.Settings;
+import org.jboss.netty.buffer.ChannelBuffer;
+
+import java.io.IOException;
+
+/**
+ * A {@link Compressor} based on the LZ4 implementation Lucene uses for {@link org.apache.lucene.codecs.compressing.CompressionMode#FAST}
+ * stored fields. It compresses less than {@link org.elasticsearch.common.compress.lzf.LZFCompressor LZF} in some cases
+ * but is considerably faster at decompression, which makes it a better fit to compress the traffic between nodes.
+ * <p>
+ * It is only used by the transport and on purpose not registered with {@link org.elasticsearch.common.compress.CompressorFactory},
+ * since it can't read compressed index inputs.
+ */
+public class LZ4Compressor implements Compressor {
+
+    public static final String TYPE = "lz4";
+
+    static final byte[] HEADER = {'L', 'Z', '4', 0};
+
+    /** LZ4 finds matches up to 64KB back, larger chunks would not compress better */
+    static final int CHUNK_SIZE = 1 << 16;
+
+    static int maxCompressedLength(int uncompressedLength) {
+        return uncompressedLength + (uncompressedLength / 255) + 16;
+    }
+
+    @Override
+    public String type() {
+        return TYPE;
+    }
+
+    @Override
+    public void configure(Settings settings) {}
+
+    @Override
+    public boolean isCompressed(BytesReference bytes) {
+        if (bytes.length() < HEADER.length) {
+            return false;
+        }
+        for (int i = 0; i < HEADER.length; i++) {
+            if (bytes.get(i) != HEADER[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public boolean isCompressed(byte[] data, int offset, int length) {
+        if (length < HEADER.length) {
+            return false;
+        }
+        for (int i = 0; i < HEADER.length; i++) {
+            if (data[offset + i] != HEADER[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public boolean isCompressed(ChannelBuffer buffer) {
+        if (buffer.readableBytes() < HEADER.length) {
+            return false;
+        }
+        int offset = buffer.readerIndex();
+        for (int i = 0; i < HEADER.length; i++) {
+            if (buffer.getByte(offset + i) != HEADER[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public boolean isCompressed(IndexInput in) throws IOException {
+        // only used for transport messages
+        return false;
+    }
+
+    @Override
+    public byte[] uncompress(byte[] data, int offset, int length) throws IOException {
+        StreamInput compressed = streamInput(new BytesArray(data, offset, length).streamInput());
+        BytesStreamOutput out = new BytesStreamOutput();
+        Streams.copy(compressed, out);
+        return out.bytes().toBytes();
+    }
+
+    @Override
+    public byte[] compress(byte[] data, int offset, int length) throws IOException {
+        BytesStreamOutput out = new BytesStreamOutput();
+        StreamOutput compressed = streamOutput(out);
+        compressed.writeBytes(data, offset, length);
+        compressed.close();
+        return out.bytes().toBytes();
+    }
+
+    @Override
+    public CompressedStreamInput streamInput(StreamInput in) throws IOException {
+        return new LZ4CompressedStreamInput(in);
+    }
+
+    @Override
+    public CompressedStreamOutput streamOutput(StreamOutput out) throws IOException {
+        return new LZ4CompressedStreamOutput(out);
+    }
+
+    @Override
+    public CompressedIndexInput indexInput(IndexInput in) throws IOException {
+        throw new UnsupportedOperationException("lz4 is not used to compress index files");
+    }
+}
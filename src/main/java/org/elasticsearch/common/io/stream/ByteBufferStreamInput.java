@@ -72,12 +72,36 @@ public class ByteBufferStreamInput extends StreamInput {
 
     @Override
     public void readBytes(byte[] b, int offset, int len) throws IOException {
-        if (buffer.remaining() > len) {
+        if (buffer.remaining() < len) {
             throw new EOFException();
         }
         buffer.get(b, offset, len);
     }
 
+    @Override
+    public short readShort() throws IOException {
+        if (buffer.remaining() < 2) {
+            throw new EOFException();
+        }
+        return buffer.getShort();
+    }
+
+    @Override
+    public int readInt() throws IOException {
+        if (buffer.remaining() < 4) {
+            throw new EOFException();
+        }
+        return buffer.getInt();
+    }
+
+    @Override
+    public long readLong() throws IOException {
+        if (buffer.remaining() < 8) {
+            throw new EOFException();
+        }
+        return buffer.getLong();
+    }
+
     @Override
     public void reset() throws IOException {
         buffer.reset();
@@ -79,6 +79,7 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.elasticsearch.common.lucene.search.NoopCollector.NOOP_COLLECTOR;
 
@@ -277,6 +278,14 @@ public class Lucene {
         return new EarlyTerminatingCollector(delegate, maxCountHits);
     }
 
+    /**
+     * Wraps <code>delegate</code> with count based early termination collector with a threshold of <code>maxCountHits</code>
+     * that is shared with all other collectors created with the same <code>sharedCount</code>
+     */
+    public final static EarlyTerminatingCollector wrapCountBasedEarlyTerminatingCollector(final Collector delegate, int maxCountHits, AtomicInteger sharedCount) {
+        return new EarlyTerminatingCollector(delegate, maxCountHits, sharedCount);
+    }
+
     /**
      * Wraps <code>delegate</code> with a time limited collector with a timeout of <code>timeoutInMillis</code>
      */
@@ -572,18 +581,23 @@ public class Lucene {
 
         private final int maxCountHits;
         private final Collector delegate;
+        private final AtomicInteger sharedCount;
 
         private int count = 0;
         private LeafCollector leafCollector;
 
         EarlyTerminatingCollector(int maxCountHits) {
-            this.maxCountHits = maxCountHits;
-            this.delegate = NOOP_COLLECTOR;
+            this(NOOP_COLLECTOR, maxCountHits);
         }
 
         EarlyTerminatingCollector(final Collector delegate, int maxCountHits) {
+            this(delegate, maxCountHits, null);
+        }
+
+        EarlyTerminatingCollector(final Collector delegate, int maxCountHits, @Nullable AtomicInteger sharedCount) {
             this.maxCountHits = maxCountHits;
             this.delegate = (delegate == null) ? NOOP_COLLECTOR : delegate;
+            this.sharedCount = sharedCount;
         }
 
         public void reset() {
@@ -606,7 +620,9 @@ public class Lucene {
         public void collect(int doc) throws IOException {
             leafCollector.collect(doc);
 
-            if (++count >= maxCountHits) {
+            ++count;
+            final int totalCount = sharedCount == null ? count : sharedCount.incrementAndGet();
+            if (totalCount >= maxCountHits) {
                 throw new EarlyTerminationException("early termination [CountBased]");
             }
         }
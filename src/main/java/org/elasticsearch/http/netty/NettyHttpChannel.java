@@ -21,6 +21,7 @@ package org.elasticsearch.http.netty;
 
 import com.google.common.base.Strings;
 import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.action.ActionListener;
 import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.io.stream.BytesStreamOutput;
 import org.elasticsearch.common.io.stream.ReleasableBytesStreamOutput;
@@ -56,6 +57,7 @@ public class NettyHttpChannel extends HttpChannel {
     private final org.jboss.netty.handler.codec.http.HttpRequest nettyRequest;
     private OrderedUpstreamMessageEvent orderedUpstreamMessageEvent = null;
     private Pattern corsPattern;
+    private int subsequence = 0;
 
     public NettyHttpChannel(NettyHttpServerTransport transport, NettyHttpRequest request, Pattern corsPattern, boolean detailedErrorsEnabled) {
         super(request, detailedErrorsEnabled);
@@ -78,16 +80,107 @@ public class NettyHttpChannel extends HttpChannel {
 
     @Override
     public void sendResponse(RestResponse response) {
-        // Decide whether to close the connection or not.
+        boolean close = isCloseConnection();
+        org.jboss.netty.handler.codec.http.HttpResponse resp = newResponse(response.status(), response.getHeaders(), close);
+
+        BytesReference content = response.content();
+        ChannelBuffer buffer;
+        boolean addedReleaseListener = false;
+        try {
+            buffer = content.toChannelBuffer();
+            resp.setContent(buffer);
+
+            // If our response doesn't specify a content-type header, set one
+            if (!resp.headers().contains(HttpHeaders.Names.CONTENT_TYPE)) {
+                resp.headers().add(HttpHeaders.Names.CONTENT_TYPE, response.contentType());
+            }
+
+            // If our response has no content-length, calculate and set one
+            if (!resp.headers().contains(HttpHeaders.Names.CONTENT_LENGTH)) {
+                resp.headers().add(HttpHeaders.Names.CONTENT_LENGTH, String.valueOf(buffer.readableBytes()));
+            }
+
+            ChannelFuture future = write(resp, true);
+
+            if (content instanceof Releasable) {
+                future.addListener(new ReleaseChannelFutureListener((Releasable) content));
+                addedReleaseListener = true;
+            }
+
+            if (close) {
+                future.addListener(ChannelFutureListener.CLOSE);
+            }
+
+        } finally {
+            if (!addedReleaseListener && content instanceof Releasable) {
+                ((Releasable) content).close();
+            }
+        }
+    }
+
+    @Override
+    public boolean supportsChunkedResponses() {
+        // chunked transfer encoding is only defined as of HTTP/1.1
+        return nettyRequest.getProtocolVersion().equals(HttpVersion.HTTP_1_1);
+    }
+
+    @Override
+    public void startChunkedResponse(RestStatus status, String contentType) {
+        if (supportsChunkedResponses() == false) {
+            throw new IllegalStateException("chunked responses require HTTP/1.1");
+        }
+        org.jboss.netty.handler.codec.http.HttpResponse resp = newResponse(status, null, false);
+        resp.setChunked(true);
+        resp.headers().add(HttpHeaders.Names.TRANSFER_ENCODING, HttpHeaders.Values.CHUNKED);
+        resp.headers().add(HttpHeaders.Names.CONTENT_TYPE, contentType);
+        write(resp, false);
+    }
+
+    @Override
+    public void sendChunk(BytesReference chunk, final ActionListener<Void> listener) {
+        boolean addedReleaseListener = false;
+        try {
+            ChannelFuture future = write(new DefaultHttpChunk(chunk.toChannelBuffer()), false);
+            if (chunk instanceof Releasable) {
+                future.addListener(new ReleaseChannelFutureListener((Releasable) chunk));
+                addedReleaseListener = true;
+            }
+            future.addListener(new ChannelFutureListener() {
+                @Override
+                public void operationComplete(ChannelFuture future) throws Exception {
+                    if (future.isSuccess()) {
+                        listener.onResponse(null);
+                    } else {
+                        listener.onFailure(future.getCause());
+                    }
+                }
+            });
+        } finally {
+            if (!addedReleaseListener && chunk instanceof Releasable) {
+                ((Releasable) chunk).close();
+            }
+        }
+    }
+
+    @Override
+    public void endChunkedResponse() {
+        ChannelFuture future = write(HttpChunk.LAST_CHUNK, true);
+        if (isCloseConnection()) {
+            future.addListener(ChannelFutureListener.CLOSE);
+        }
+    }
+
+    private boolean isCloseConnection() {
         boolean http10 = nettyRequest.getProtocolVersion().equals(HttpVersion.HTTP_1_0);
-        boolean close =
-                HttpHeaders.Values.CLOSE.equalsIgnoreCase(nettyRequest.headers().get(HttpHeaders.Names.CONNECTION)) ||
-                        (http10 && !HttpHeaders.Values.KEEP_ALIVE.equalsIgnoreCase(nettyRequest.headers().get(HttpHeaders.Names.CONNECTION)));
+        return HttpHeaders.Values.CLOSE.equalsIgnoreCase(nettyRequest.headers().get(HttpHeaders.Names.CONNECTION)) ||
+                (http10 && !HttpHeaders.Values.KEEP_ALIVE.equalsIgnoreCase(nettyRequest.headers().get(HttpHeaders.Names.CONNECTION)));
+    }
 
+    private org.jboss.netty.handler.codec.http.HttpResponse newResponse(RestStatus restStatus, Map<String, List<String>> customHeaders, boolean close) {
         // Build the response object.
-        HttpResponseStatus status = getStatus(response.status());
+        HttpResponseStatus status = getStatus(restStatus);
         org.jboss.netty.handler.codec.http.HttpResponse resp;
-        if (http10) {
+        if (nettyRequest.getProtocolVersion().equals(HttpVersion.HTTP_1_0)) {
             resp = new DefaultHttpResponse(HttpVersion.HTTP_1_0, status);
             if (!close) {
                 resp.headers().add(HttpHeaders.Names.CONNECTION, "Keep-Alive");
@@ -124,7 +217,6 @@ public class NettyHttpChannel extends HttpChannel {
         }
 
         // Add all custom headers
-        Map<String, List<String>> customHeaders = response.getHeaders();
         if (customHeaders != null) {
             for (Map.Entry<String, List<String>> headerEntry : customHeaders.entrySet()) {
                 for (String headerValue : headerEntry.getValue()) {
@@ -133,63 +225,35 @@ public class NettyHttpChannel extends HttpChannel {
             }
         }
 
-        BytesReference content = response.content();
-        ChannelBuffer buffer;
-        boolean addedReleaseListener = false;
-        try {
-            buffer = content.toChannelBuffer();
-            resp.setContent(buffer);
-
-            // If our response doesn't specify a content-type header, set one
-            if (!resp.headers().contains(HttpHeaders.Names.CONTENT_TYPE)) {
-                resp.headers().add(HttpHeaders.Names.CONTENT_TYPE, response.contentType());
-            }
-
-            // If our response has no content-length, calculate and set one
-            if (!resp.headers().contains(HttpHeaders.Names.CONTENT_LENGTH)) {
-                resp.headers().add(HttpHeaders.Names.CONTENT_LENGTH, String.valueOf(buffer.readableBytes()));
-            }
-
-            if (transport.resetCookies) {
-                String cookieString = nettyRequest.headers().get(HttpHeaders.Names.COOKIE);
-                if (cookieString != null) {
-                    CookieDecoder cookieDecoder = new CookieDecoder();
-                    Set<Cookie> cookies = cookieDecoder.decode(cookieString);
-                    if (!cookies.isEmpty()) {
-                        // Reset the cookies if necessary.
-                        CookieEncoder cookieEncoder = new CookieEncoder(true);
-                        for (Cookie cookie : cookies) {
-                            cookieEncoder.addCookie(cookie);
-                        }
-                        resp.headers().add(HttpHeaders.Names.SET_COOKIE, cookieEncoder.encode());
+        if (transport.resetCookies) {
+            String cookieString = nettyRequest.headers().get(HttpHeaders.Names.COOKIE);
+            if (cookieString != null) {
+                CookieDecoder cookieDecoder = new CookieDecoder();
+                Set<Cookie> cookies = cookieDecoder.decode(cookieString);
+                if (!cookies.isEmpty()) {
+                    // Reset the cookies if necessary.
+                    CookieEncoder cookieEncoder = new CookieEncoder(true);
+                    for (Cookie cookie : cookies) {
+                        cookieEncoder.addCookie(cookie);
                     }
+                    resp.headers().add(HttpHeaders.Names.SET_COOKIE, cookieEncoder.encode());
                 }
             }
+        }
+        return resp;
+    }
 
-            ChannelFuture future;
-
-            if (orderedUpstreamMessageEvent != null) {
-                OrderedDownstreamChannelEvent downstreamChannelEvent = new OrderedDownstreamChannelEvent(orderedUpstreamMessageEvent, 0, true, resp);
-                future = downstreamChannelEvent.getFuture();
-                channel.getPipeline().sendDownstream(downstreamChannelEvent);
-            } else {
-                future = channel.write(resp);
-            }
-
-            if (content instanceof Releasable) {
-                future.addListener(new ReleaseChannelFutureListener((Releasable) content));
-                addedReleaseListener = true;
-            }
-
-            if (close) {
-                future.addListener(ChannelFutureListener.CLOSE);
-            }
-
-        } finally {
-            if (!addedReleaseListener && content instanceof Releasable) {
-                ((Releasable) content).close();
-            }
+    /**
+     * Writes a message of the response, in the order of the request when pipelining. A chunked response consists of
+     * several messages, the <tt>last</tt> one ends it.
+     */
+    private ChannelFuture write(Object message, boolean last) {
+        if (orderedUpstreamMessageEvent != null) {
+            OrderedDownstreamChannelEvent downstreamChannelEvent = new OrderedDownstreamChannelEvent(orderedUpstreamMessageEvent, subsequence++, last, message);
+            channel.getPipeline().sendDownstream(downstreamChannelEvent);
+            return downstreamChannelEvent.getFuture();
         }
+        return channel.write(message);
     }
 
     private static final HttpResponseStatus TOO_MANY_REQUESTS = new HttpResponseStatus(429, "Too Many Requests");
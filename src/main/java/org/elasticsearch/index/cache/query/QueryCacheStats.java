@@ -37,15 +37,23 @@ public class QueryCacheStats implements Streamable, ToXContent {
     long evictions;
     long hitCount;
     long missCount;
+    long segmentHitCount;
+    long segmentMissCount;
 
     public QueryCacheStats() {
     }
 
     public QueryCacheStats(long memorySize, long evictions, long hitCount, long missCount) {
+        this(memorySize, evictions, hitCount, missCount, 0, 0);
+    }
+
+    public QueryCacheStats(long memorySize, long evictions, long hitCount, long missCount, long segmentHitCount, long segmentMissCount) {
         this.memorySize = memorySize;
         this.evictions = evictions;
         this.hitCount = hitCount;
         this.missCount = missCount;
+        this.segmentHitCount = segmentHitCount;
+        this.segmentMissCount = segmentMissCount;
     }
 
     public void add(QueryCacheStats stats) {
@@ -53,6 +61,8 @@ public class QueryCacheStats implements Streamable, ToXContent {
         this.evictions += stats.evictions;
         this.hitCount += stats.hitCount;
         this.missCount += stats.missCount;
+        this.segmentHitCount += stats.segmentHitCount;
+        this.segmentMissCount += stats.segmentMissCount;
     }
 
     public long getMemorySizeInBytes() {
@@ -75,12 +85,28 @@ public class QueryCacheStats implements Streamable, ToXContent {
         return this.missCount;
     }
 
+    /**
+     * The number of segment level results that were served from the cache.
+     */
+    public long getSegmentHitCount() {
+        return this.segmentHitCount;
+    }
+
+    /**
+     * The number of segment level results that had to be computed.
+     */
+    public long getSegmentMissCount() {
+        return this.segmentMissCount;
+    }
+
     @Override
     public void readFrom(StreamInput in) throws IOException {
         memorySize = in.readVLong();
         evictions = in.readVLong();
         hitCount = in.readVLong();
         missCount = in.readVLong();
+        segmentHitCount = in.readVLong();
+        segmentMissCount = in.readVLong();
     }
 
     @Override
@@ -89,6 +115,8 @@ public class QueryCacheStats implements Streamable, ToXContent {
         out.writeVLong(evictions);
         out.writeVLong(hitCount);
         out.writeVLong(missCount);
+        out.writeVLong(segmentHitCount);
+        out.writeVLong(segmentMissCount);
     }
 
     @Override
@@ -98,6 +126,8 @@ public class QueryCacheStats implements Streamable, ToXContent {
         builder.field(Fields.EVICTIONS, getEvictions());
         builder.field(Fields.HIT_COUNT, getHitCount());
         builder.field(Fields.MISS_COUNT, getMissCount());
+        builder.field(Fields.SEGMENT_HIT_COUNT, getSegmentHitCount());
+        builder.field(Fields.SEGMENT_MISS_COUNT, getSegmentMissCount());
         builder.endObject();
         return builder;
     }
@@ -109,5 +139,7 @@ public class QueryCacheStats implements Streamable, ToXContent {
         static final XContentBuilderString EVICTIONS = new XContentBuilderString("evictions");
         static final XContentBuilderString HIT_COUNT = new XContentBuilderString("hit_count");
         static final XContentBuilderString MISS_COUNT = new XContentBuilderString("miss_count");
+        static final XContentBuilderString SEGMENT_HIT_COUNT = new XContentBuilderString("segment_hit_count");
+        static final XContentBuilderString SEGMENT_MISS_COUNT = new XContentBuilderString("segment_miss_count");
     }
 }
@@ -38,6 +38,8 @@ public class ShardQueryCache extends AbstractIndexShardComponent implements Remo
     final CounterMetric totalMetric = new CounterMetric();
     final CounterMetric hitCount = new CounterMetric();
     final CounterMetric missCount = new CounterMetric();
+    final CounterMetric segmentHitCount = new CounterMetric();
+    final CounterMetric segmentMissCount = new CounterMetric();
 
     @Inject
     public ShardQueryCache(ShardId shardId, @IndexSettings Settings indexSettings) {
@@ -45,7 +47,8 @@ public class ShardQueryCache extends AbstractIndexShardComponent implements Remo
     }
 
     public QueryCacheStats stats() {
-        return new QueryCacheStats(totalMetric.count(), evictionsMetric.count(), hitCount.count(), missCount.count());
+        return new QueryCacheStats(totalMetric.count(), evictionsMetric.count(), hitCount.count(), missCount.count(),
+                segmentHitCount.count(), segmentMissCount.count());
     }
 
     public void onHit() {
@@ -56,6 +59,14 @@ public class ShardQueryCache extends AbstractIndexShardComponent implements Remo
         missCount.inc();
     }
 
+    public void onSegmentHit() {
+        segmentHitCount.inc();
+    }
+
+    public void onSegmentMiss() {
+        segmentMissCount.inc();
+    }
+
     public void onCached(IndicesQueryCache.Key key, IndicesQueryCache.Value value) {
         totalMetric.inc(key.ramBytesUsed() + value.ramBytesUsed());
     }
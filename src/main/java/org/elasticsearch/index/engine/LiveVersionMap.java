@@ -37,19 +37,18 @@ class LiveVersionMap implements ReferenceManager.RefreshListener, Accountable {
     private static class Maps {
 
         // All writes (adds and deletes) go into here:
-        final Map<BytesRef,VersionValue> current;
+        final PagedVersionMap current;
 
         // Used while refresh is running, and to hold adds/deletes until refresh finishes.  We read from both current and old on lookup:
-        final Map<BytesRef,VersionValue> old;
+        final PagedVersionMap old;
       
-        public Maps(Map<BytesRef,VersionValue> current, Map<BytesRef,VersionValue> old) {
+        public Maps(PagedVersionMap current, PagedVersionMap old) {
            this.current = current;
            this.old = old;
         }
 
         public Maps() {
-            this(ConcurrentCollections.<BytesRef,VersionValue>newConcurrentMapWithAggressiveConcurrency(),
-                 ConcurrentCollections.<BytesRef,VersionValue>newConcurrentMapWithAggressiveConcurrency());
+            this(newVersionMap(), newVersionMap());
         }
     }
 
@@ -79,13 +78,21 @@ class LiveVersionMap implements ReferenceManager.RefreshListener, Accountable {
         RamUsageEstimator.NUM_BYTES_INT +
         5*RamUsageEstimator.NUM_BYTES_OBJECT_REF;
 
-    /** Tracks bytes used by current map, i.e. what is freed on refresh. For deletes, which are also added to tombstones, we only account
-     *  for the CHM entry here, and account for BytesRef/VersionValue against the tombstones, since refresh would not clear this RAM. */
-    final AtomicLong ramBytesUsedCurrent = new AtomicLong();
-
-    /** Tracks bytes used by tombstones (deletes) */
+    /** Tracks bytes used by tombstones (deletes). The current and old maps account for their own memory. */
     final AtomicLong ramBytesUsedTombstones = new AtomicLong();
 
+    /** Lookups in the current and old maps copy the version information into a value that is reused by the thread's next lookup. */
+    private static final ThreadLocal<PagedVersionMap.Lookup> lookups = new ThreadLocal<PagedVersionMap.Lookup>() {
+        @Override
+        protected PagedVersionMap.Lookup initialValue() {
+            return new PagedVersionMap.Lookup();
+        }
+    };
+
+    private static PagedVersionMap newVersionMap() {
+        return new PagedVersionMap();
+    }
+
     /** Sync'd because we replace old mgr. */
     synchronized void setManager(ReferenceManager newMgr) {
         if (mgr != null) {
@@ -107,11 +114,7 @@ class LiveVersionMap implements ReferenceManager.RefreshListener, Accountable {
         // map.  While reopen is running, any lookup will first
         // try this new map, then fallback to old, then to the
         // current searcher:
-        maps = new Maps(ConcurrentCollections.<BytesRef,VersionValue>newConcurrentMapWithAggressiveConcurrency(), maps.current);
-
-        // This is not 100% correct, since concurrent indexing ops can change these counters in between our execution of the previous
-        // line and this one, but that should be minor, and the error won't accumulate over time:
-        ramBytesUsedCurrent.set(0);
+        maps = new Maps(newVersionMap(), maps.current);
     }
 
     @Override
@@ -122,22 +125,21 @@ class LiveVersionMap implements ReferenceManager.RefreshListener, Accountable {
         // case.  This is because we assign new maps (in beforeRefresh) slightly before Lucene actually flushes any segments for the
         // reopen, and so any concurrent indexing requests can still sneak in a few additions to that current map that are in fact reflected
         // in the previous reader.   We don't touch tombstones here: they expire on their own index.gc_deletes timeframe:
-        maps = new Maps(maps.current, ConcurrentCollections.<BytesRef,VersionValue>newConcurrentMapWithAggressiveConcurrency());
+        maps = new Maps(maps.current, newVersionMap());
     }
 
-    /** Returns the live version (add or delete) for this uid. */
+    /** Returns the live version (add or delete) for this uid. The returned value may be reused by the next lookup of the calling thread. */
     VersionValue getUnderLock(BytesRef uid) {
         Maps currentMaps = maps;
+        PagedVersionMap.Lookup lookup = lookups.get();
 
         // First try to get the "live" value:
-        VersionValue value = currentMaps.current.get(uid);
-        if (value != null) {
-            return value;
+        if (currentMaps.current.get(uid, lookup)) {
+            return lookup;
         }
 
-        value = currentMaps.old.get(uid);
-        if (value != null) {
-            return value;
+        if (currentMaps.old.get(uid, lookup)) {
+            return lookup;
         }
 
         return tombstones.get(uid);
@@ -148,38 +150,13 @@ class LiveVersionMap implements ReferenceManager.RefreshListener, Accountable {
 
         long uidRAMBytesUsed = BASE_BYTES_PER_BYTESREF + uid.bytes.length;
 
-        final VersionValue prev = maps.current.put(uid, version);
-        if (prev != null) {
-            // Deduct RAM for the version we just replaced:
-            long prevBytes = BASE_BYTES_PER_CHM_ENTRY;
-            if (prev.delete() == false) {
-                prevBytes += prev.ramBytesUsed() + uidRAMBytesUsed;
-            }
-            ramBytesUsedCurrent.addAndGet(-prevBytes);
-        }
-
-        // Add RAM for the new version:
-        long newBytes = BASE_BYTES_PER_CHM_ENTRY;
-        if (version.delete() == false) {
-            newBytes += version.ramBytesUsed() + uidRAMBytesUsed;
-        }
-        ramBytesUsedCurrent.addAndGet(newBytes);
+        maps.current.put(uid, version);
 
         final VersionValue prevTombstone;
         if (version.delete()) {
-            // Also enroll the delete into tombstones, and account for its RAM too:
+            // Also enroll the delete into tombstones, and account for its RAM too since it is not freed up on refresh:
             prevTombstone = tombstones.put(uid, version);
-
-            // We initially account for BytesRef/VersionValue RAM for a delete against the tombstones, because this RAM will not be freed up
-            // on refresh. Later, in removeTombstoneUnderLock, if we clear the tombstone entry but the delete remains in current, we shift
-            // the accounting to current:
             ramBytesUsedTombstones.addAndGet(BASE_BYTES_PER_CHM_ENTRY + version.ramBytesUsed() + uidRAMBytesUsed);
-
-            if (prevTombstone == null && prev != null && prev.delete()) {
-                // If prev was a delete that had already been removed from tombstones, then current was already accounting for the
-                // BytesRef/VersionValue RAM, so we now deduct that as well:
-                ramBytesUsedCurrent.addAndGet(-(prev.ramBytesUsed() + uidRAMBytesUsed));
-            }
         } else {
             // UID came back to life so we remove the tombstone:
             prevTombstone = tombstones.remove(uid);
@@ -203,13 +180,6 @@ class LiveVersionMap implements ReferenceManager.RefreshListener, Accountable {
             long v = ramBytesUsedTombstones.addAndGet(-(BASE_BYTES_PER_CHM_ENTRY + prev.ramBytesUsed() + uidRAMBytesUsed));
             assert v >= 0: "bytes=" + v;
         }
-        final VersionValue curVersion = maps.current.get(uid);
-        if (curVersion != null && curVersion.delete()) {
-            // We now shift accounting of the BytesRef from tombstones to current, because a refresh would clear this RAM.  This should be
-            // uncommon, because with the default refresh=1s and gc_deletes=60s, deletes should be cleared from current long before we drop
-            // them from tombstones:
-            ramBytesUsedCurrent.addAndGet(curVersion.ramBytesUsed() + uidRAMBytesUsed);
-        }
     }
 
     /** Caller has a lock, so that this uid will not be concurrently added/deleted by another thread. */
@@ -226,7 +196,6 @@ class LiveVersionMap implements ReferenceManager.RefreshListener, Accountable {
     synchronized void clear() {
         maps = new Maps();
         tombstones.clear();
-        ramBytesUsedCurrent.set(0);
 
         // NOTE: we can't zero this here, because a refresh thread could be calling InternalEngine.pruneDeletedTombstones at the same time,
         // and this will lead to an assert trip.  Presumably it's fine if our ramBytesUsedTombstones is non-zero after clear since the index
@@ -241,13 +210,14 @@ class LiveVersionMap implements ReferenceManager.RefreshListener, Accountable {
 
     @Override
     public long ramBytesUsed() {
-        return ramBytesUsedCurrent.get() + ramBytesUsedTombstones.get();
+        final Maps currentMaps = maps;
+        return currentMaps.current.ramBytesUsed() + currentMaps.old.ramBytesUsed() + ramBytesUsedTombstones.get();
     }
 
-    /** Returns how much RAM would be freed up by refreshing. This is {@link ramBytesUsed} except does not include tombstones because they
-     *  don't clear on refresh. */
+    /** Returns how much RAM would be freed up by refreshing. This is {@link #ramBytesUsed} except does not include tombstones because they
+     *  don't clear on refresh, nor the old map which is already being cleared by an ongoing refresh. */
     long ramBytesUsedForRefresh() {
-        return ramBytesUsedCurrent.get();
+        return maps.current.ramBytesUsed();
     }
 
     @Override
@@ -0,0 +1,367 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.index.engine;
+
+import com.carrotsearch.hppc.hash.MurmurHash3;
+import org.apache.lucene.util.Accountable;
+import org.apache.lucene.util.ArrayUtil;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.RamUsageEstimator;
+import org.elasticsearch.index.translog.Translog;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Maps _uid values to version information without allocating objects per entry or per lookup. The uids are appended to byte
+ * pages and the version information of each uid is stored in pages of longs, lookups copy it into a reusable {@link Lookup}.
+ * The pages are not taken from {@link org.elasticsearch.common.util.BigArrays}: its arrays are plain arrays that lookups can't
+ * read optimistically, since plain reads may be reordered past the check that no update got in the way.
+ * Entries can only be added or replaced, never removed: the whole map is dropped on refresh instead.
+ * <p>
+ * The map is split into stripes. Updates lock their stripe, so that concurrent updates of different uids rarely contend, while
+ * lookups read the stripe optimistically, like a seqlock: the sequence number of a stripe is odd while it is updated, and a lookup
+ * that overlapped with an update is retried under the lock. Pages are only ever appended and the slot table of a stripe is copied
+ * instead of being rehashed in place, so that an optimistic lookup never sees a partially written entry.
+ */
+final class PagedVersionMap implements Accountable {
+
+    private static final int NUM_STRIPES = 16; // must be a power of two
+    private static final int STRIPE_SHIFT = Integer.SIZE - Integer.numberOfTrailingZeros(NUM_STRIPES);
+    private static final int INITIAL_STRIPE_CAPACITY = 16; // must be a power of two
+    private static final float MAX_LOAD_FACTOR = 0.6f;
+
+    /* the longs that make up an entry */
+    private static final int VERSION = 0;
+    private static final int TIME = 1;
+    private static final int TRANSLOG_ID = 2;
+    private static final int TRANSLOG_OFFSET = 3;
+    private static final int TRANSLOG_SIZE = 4;
+    private static final int HASH = 5;
+    private static final int UID_ADDRESS = 6;
+    private static final int UID_LENGTH = 7;
+    private static final int ENTRY_LONGS = 8;
+
+    private static final int ENTRY_PAGE_SHIFT = 7;
+    private static final int ENTRIES_PER_PAGE = 1 << ENTRY_PAGE_SHIFT;
+    private static final int UID_PAGE_SIZE = 1 << 13;
+
+    /* marks entries that are not deletes, delete times are always positive */
+    private static final long NO_TIME = Long.MIN_VALUE;
+    /* marks entries without a translog location */
+    private static final int NO_LOCATION = -1;
+
+    private final Stripe[] stripes;
+
+    /* kept up-to-date by the stripes so that it can be checked after every operation without locking */
+    private final AtomicLong ramBytesUsed = new AtomicLong();
+
+    PagedVersionMap() {
+        stripes = new Stripe[NUM_STRIPES];
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new Stripe();
+        }
+    }
+
+    /**
+     * Copies the version information of the given uid into the given lookup and returns <code>true</code>, or returns
+     * <code>false</code> if the uid is not in this map.
+     */
+    boolean get(BytesRef uid, Lookup lookup) {
+        final int hash = MurmurHash3.hash(uid.hashCode());
+        return stripe(hash).get(uid, hash, lookup);
+    }
+
+    /** Associates the given uid with the given version value. */
+    void put(BytesRef uid, VersionValue value) {
+        final int hash = MurmurHash3.hash(uid.hashCode());
+        stripe(hash).put(uid, hash, value);
+    }
+
+    /** Returns the number of uids in this map. */
+    long size() {
+        long size = 0;
+        for (Stripe stripe : stripes) {
+            size += stripe.size();
+        }
+        return size;
+    }
+
+    @Override
+    public long ramBytesUsed() {
+        return ramBytesUsed.get();
+    }
+
+    @Override
+    public Collection<Accountable> getChildResources() {
+        return Collections.emptyList();
+    }
+
+    private Stripe stripe(int hash) {
+        // slots are picked from the low bits of the same hash, so we use the high ones
+        return stripes[hash >>> STRIPE_SHIFT];
+    }
+
+    private static final long BASE_RAM_BYTES_PER_LONGS = RamUsageEstimator.shallowSizeOfInstance(AtomicLongArray.class);
+
+    private static long sizeOfLongs(int length) {
+        return BASE_RAM_BYTES_PER_LONGS
+                + RamUsageEstimator.alignObjectSize(RamUsageEstimator.NUM_BYTES_ARRAY_HEADER + (long) RamUsageEstimator.NUM_BYTES_LONG * length);
+    }
+
+    private final class Stripe {
+
+        /* odd while an update modifies this stripe, only incremented under the lock */
+        private volatile int seq;
+
+        /* ids + 1 of the entries by slot, 0 marks free slots; slots are only filled in, the table is replaced when it grows */
+        private volatile AtomicLongArray slots;
+        private volatile AtomicLongArray[] entryPages = new AtomicLongArray[0];
+        private volatile byte[][] uidPages = new byte[0][];
+
+        /* only accessed under the lock */
+        private int size;
+        private int uidPageCount;
+        private int uidPageOffset;
+
+        Stripe() {
+            slots = new AtomicLongArray(INITIAL_STRIPE_CAPACITY);
+            ramBytesUsed.addAndGet(sizeOfLongs(INITIAL_STRIPE_CAPACITY));
+        }
+
+        boolean get(BytesRef uid, int hash, Lookup lookup) {
+            final int seq = this.seq;
+            if ((seq & 1) == 0) {
+                final boolean found = read(uid, hash, lookup);
+                if (this.seq == seq) {
+                    return found;
+                }
+            }
+            // an update got in the way, wait for it
+            synchronized (this) {
+                return read(uid, hash, lookup);
+            }
+        }
+
+        synchronized void put(BytesRef uid, int hash, VersionValue value) {
+            seq++;
+            try {
+                int id = find(slots, uid, hash);
+                if (id < 0) {
+                    id = add(uid, hash);
+                    write(id, value);
+                    // only now that the entry is complete it may be found
+                    if (size > slots.length() * MAX_LOAD_FACTOR) {
+                        grow();
+                    }
+                    insert(slots, hash, id);
+                } else {
+                    write(id, value);
+                }
+            } finally {
+                seq++;
+            }
+        }
+
+        synchronized long size() {
+            return size;
+        }
+
+        private boolean read(BytesRef uid, int hash, Lookup lookup) {
+            final int id = find(slots, uid, hash);
+            if (id < 0) {
+                return false;
+            }
+            final AtomicLongArray page = entryPages[id >>> ENTRY_PAGE_SHIFT];
+            final int entry = entryOffset(id);
+            lookup.version = page.get(entry + VERSION);
+            lookup.time = page.get(entry + TIME);
+            lookup.translogId = page.get(entry + TRANSLOG_ID);
+            lookup.translogOffset = page.get(entry + TRANSLOG_OFFSET);
+            lookup.translogSize = (int) page.get(entry + TRANSLOG_SIZE);
+            return true;
+        }
+
+        /* returns the id of the given uid or -1 if it is not in the given slots */
+        private int find(AtomicLongArray slots, BytesRef uid, int hash) {
+            final int mask = slots.length() - 1;
+            for (int slot = hash & mask; ; slot = (slot + 1) & mask) {
+                final int id = (int) slots.get(slot) - 1;
+                if (id < 0) {
+                    return -1;
+                }
+                final AtomicLongArray page = entryPages[id >>> ENTRY_PAGE_SHIFT];
+                final int entry = entryOffset(id);
+                if ((int) page.get(entry + HASH) == hash && uidEquals(page, entry, uid)) {
+                    return id;
+                }
+            }
+        }
+
+        private boolean uidEquals(AtomicLongArray page, int entry, BytesRef uid) {
+            if (page.get(entry + UID_LENGTH) != uid.length) {
+                return false;
+            }
+            final long address = page.get(entry + UID_ADDRESS);
+            final byte[] bytes = uidPages[(int) (address >>> 32)];
+            final int offset = (int) address;
+            for (int i = 0; i < uid.length; i++) {
+                if (bytes[offset + i] != uid.bytes[uid.offset + i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /* appends a new entry for the given uid, which can't be found until it is inserted into the slots */
+        private int add(BytesRef uid, int hash) {
+            final int id = size++;
+            final int pageIndex = id >>> ENTRY_PAGE_SHIFT;
+            AtomicLongArray[] entryPages = this.entryPages;
+            if (pageIndex == entryPages.length) {
+                entryPages = Arrays.copyOf(entryPages, ArrayUtil.oversize(pageIndex + 1, RamUsageEstimator.NUM_BYTES_OBJECT_REF));
+                this.entryPages = entryPages;
+            }
+            if (entryPages[pageIndex] == null) {
+                entryPages[pageIndex] = new AtomicLongArray(ENTRIES_PER_PAGE * ENTRY_LONGS);
+                ramBytesUsed.addAndGet(sizeOfLongs(ENTRIES_PER_PAGE * ENTRY_LONGS));
+            }
+
+            byte[][] uidPages = this.uidPages;
+            if (uidPageCount == 0 || uidPageOffset + uid.length > uidPages[uidPageCount - 1].length) {
+                if (uidPageCount == uidPages.length) {
+                    uidPages = Arrays.copyOf(uidPages, ArrayUtil.oversize(uidPageCount + 1, RamUsageEstimator.NUM_BYTES_OBJECT_REF));
+                    this.uidPages = uidPages;
+                }
+                uidPages[uidPageCount++] = new byte[Math.max(UID_PAGE_SIZE, uid.length)];
+                uidPageOffset = 0;
+                ramBytesUsed.addAndGet(RamUsageEstimator.sizeOf(uidPages[uidPageCount - 1]));
+            }
+            System.arraycopy(uid.bytes, uid.offset, uidPages[uidPageCount - 1], uidPageOffset, uid.length);
+
+            final AtomicLongArray page = entryPages[pageIndex];
+            final int entry = entryOffset(id);
+            page.set(entry + HASH, hash);
+            page.set(entry + UID_ADDRESS, ((long) (uidPageCount - 1) << 32) | uidPageOffset);
+            page.set(entry + UID_LENGTH, uid.length);
+            uidPageOffset += uid.length;
+            return id;
+        }
+
+        private void write(int id, VersionValue value) {
+            final AtomicLongArray page = entryPages[id >>> ENTRY_PAGE_SHIFT];
+            final int entry = entryOffset(id);
+            page.set(entry + VERSION, value.version());
+            page.set(entry + TIME, value.delete() ? value.time() : NO_TIME);
+            final Translog.Location location = value.translogLocation();
+            if (location == null) {
+                page.set(entry + TRANSLOG_SIZE, NO_LOCATION);
+            } else {
+                page.set(entry + TRANSLOG_ID, location.translogId);
+                page.set(entry + TRANSLOG_OFFSET, location.translogLocation);
+                page.set(entry + TRANSLOG_SIZE, location.size);
+            }
+        }
+
+        /* lookups may still be reading the current slots, so the entries are inserted into a copy */
+        private void grow() {
+            final AtomicLongArray grown = new AtomicLongArray(slots.length() << 1);
+            for (int id = 0; id < size - 1; id++) {
+                insert(grown, (int) entryPages[id >>> ENTRY_PAGE_SHIFT].get(entryOffset(id) + HASH), id);
+            }
+            ramBytesUsed.addAndGet(sizeOfLongs(grown.length()) - sizeOfLongs(slots.length()));
+            slots = grown;
+        }
+
+        private void insert(AtomicLongArray slots, int hash, int id) {
+            final int mask = slots.length() - 1;
+            int slot = hash & mask;
+            while (slots.get(slot) != 0) {
+                slot = (slot + 1) & mask;
+            }
+            slots.set(slot, id + 1);
+        }
+    }
+
+    private static int entryOffset(int id) {
+        return (id & (ENTRIES_PER_PAGE - 1)) * ENTRY_LONGS;
+    }
+
+    /**
+     * A reusable {@link VersionValue} that lookups copy the version information of a uid into. It is only valid until the next
+     * lookup it is passed to, and must not be stored.
+     */
+    static final class Lookup extends VersionValue {
+
+        private static final long BASE_RAM_BYTES_USED = RamUsageEstimator.shallowSizeOfInstance(Lookup.class);
+
+        private long version;
+        private long time;
+        private long translogId;
+        private long translogOffset;
+        private int translogSize;
+        /* the location handed out last, reused as long as lookups find the same one */
+        private Translog.Location location;
+
+        Lookup() {
+            super(0, null);
+        }
+
+        @Override
+        public long version() {
+            return version;
+        }
+
+        @Override
+        public boolean delete() {
+            return time != NO_TIME;
+        }
+
+        @Override
+        public long time() {
+            if (time == NO_TIME) {
+                throw new UnsupportedOperationException();
+            }
+            return time;
+        }
+
+        @Override
+        public Translog.Location translogLocation() {
+            if (translogSize == NO_LOCATION) {
+                return null;
+            }
+            Translog.Location location = this.location;
+            if (location == null || location.translogId != translogId || location.translogLocation != translogOffset
+                    || location.size != translogSize) {
+                location = new Translog.Location(translogId, translogOffset, translogSize);
+                this.location = location;
+            }
+            return location;
+        }
+
+        @Override
+        public long ramBytesUsed() {
+            return BASE_RAM_BYTES_USED;
+        }
+    }
+}
@@ -25,6 +25,7 @@ import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.io.stream.Streamable;
 import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.common.xcontent.ToXContent;
 import org.elasticsearch.common.xcontent.XContentBuilder;
 import org.elasticsearch.common.xcontent.XContentBuilderString;
@@ -39,20 +40,34 @@ public class FieldDataStats implements Streamable, ToXContent {
     long evictions;
     @Nullable
     ObjectLongOpenHashMap<String> fields;
+    long globalOrdinalsMemorySize;
+    long globalOrdinalsBuildCount;
+    long globalOrdinalsBuildTimeInMillis;
 
     public FieldDataStats() {
 
     }
 
     public FieldDataStats(long memorySize, long evictions, @Nullable ObjectLongOpenHashMap<String> fields) {
+        this(memorySize, evictions, fields, 0, 0, 0);
+    }
+
+    public FieldDataStats(long memorySize, long evictions, @Nullable ObjectLongOpenHashMap<String> fields,
+                          long globalOrdinalsMemorySize, long globalOrdinalsBuildCount, long globalOrdinalsBuildTimeInMillis) {
         this.memorySize = memorySize;
         this.evictions = evictions;
         this.fields = fields;
+        this.globalOrdinalsMemorySize = globalOrdinalsMemorySize;
+        this.globalOrdinalsBuildCount = globalOrdinalsBuildCount;
+        this.globalOrdinalsBuildTimeInMillis = globalOrdinalsBuildTimeInMillis;
     }
 
     public void add(FieldDataStats stats) {
         this.memorySize += stats.memorySize;
         this.evictions += stats.evictions;
+        this.globalOrdinalsMemorySize += stats.globalOrdinalsMemorySize;
+        this.globalOrdinalsBuildCount += stats.globalOrdinalsBuildCount;
+        this.globalOrdinalsBuildTimeInMillis += stats.globalOrdinalsBuildTimeInMillis;
         if (stats.fields != null) {
             if (fields == null) fields = new ObjectLongOpenHashMap<>();
             final boolean[] states = stats.fields.allocated;
@@ -83,6 +98,35 @@ public class FieldDataStats implements Streamable, ToXContent {
         return fields;
     }
 
+    /**
+     * The memory used by global ordinals, which is included in {@link #getMemorySize()}.
+     */
+    public ByteSizeValue getGlobalOrdinalsMemorySize() {
+        return new ByteSizeValue(globalOrdinalsMemorySize);
+    }
+
+    public long getGlobalOrdinalsMemorySizeInBytes() {
+        return globalOrdinalsMemorySize;
+    }
+
+    /**
+     * The number of times global ordinals were built.
+     */
+    public long getGlobalOrdinalsBuildCount() {
+        return globalOrdinalsBuildCount;
+    }
+
+    /**
+     * The total time spent building global ordinals, including loading the field data of the segments.
+     */
+    public TimeValue getGlobalOrdinalsBuildTime() {
+        return new TimeValue(globalOrdinalsBuildTimeInMillis);
+    }
+
+    public long getGlobalOrdinalsBuildTimeInMillis() {
+        return globalOrdinalsBuildTimeInMillis;
+    }
+
     public static FieldDataStats readFieldDataStats(StreamInput in) throws IOException {
         FieldDataStats stats = new FieldDataStats();
         stats.readFrom(in);
@@ -100,6 +144,9 @@ public class FieldDataStats implements Streamable, ToXContent {
                 fields.put(in.readString(), in.readVLong());
             }
         }
+        globalOrdinalsMemorySize = in.readVLong();
+        globalOrdinalsBuildCount = in.readVLong();
+        globalOrdinalsBuildTimeInMillis = in.readVLong();
     }
 
     @Override
@@ -121,6 +168,9 @@ public class FieldDataStats implements Streamable, ToXContent {
                 }
             }
         }
+        out.writeVLong(globalOrdinalsMemorySize);
+        out.writeVLong(globalOrdinalsBuildCount);
+        out.writeVLong(globalOrdinalsBuildTimeInMillis);
     }
 
     @Override
@@ -128,6 +178,11 @@ public class FieldDataStats implements Streamable, ToXContent {
         builder.startObject(Fields.FIELDDATA);
         builder.byteSizeField(Fields.MEMORY_SIZE_IN_BYTES, Fields.MEMORY_SIZE, memorySize);
         builder.field(Fields.EVICTIONS, getEvictions());
+        builder.startObject(Fields.GLOBAL_ORDINALS);
+        builder.byteSizeField(Fields.MEMORY_SIZE_IN_BYTES, Fields.MEMORY_SIZE, globalOrdinalsMemorySize);
+        builder.field(Fields.BUILD_TOTAL, globalOrdinalsBuildCount);
+        builder.timeValueField(Fields.BUILD_TIME_IN_MILLIS, Fields.BUILD_TIME, globalOrdinalsBuildTimeInMillis);
+        builder.endObject();
         if (fields != null) {
             builder.startObject(Fields.FIELDS);
             final boolean[] states = fields.allocated;
@@ -152,5 +207,9 @@ public class FieldDataStats implements Streamable, ToXContent {
         static final XContentBuilderString MEMORY_SIZE_IN_BYTES = new XContentBuilderString("memory_size_in_bytes");
         static final XContentBuilderString EVICTIONS = new XContentBuilderString("evictions");
         static final XContentBuilderString FIELDS = new XContentBuilderString("fields");
+        static final XContentBuilderString GLOBAL_ORDINALS = new XContentBuilderString("global_ordinals");
+        static final XContentBuilderString BUILD_TOTAL = new XContentBuilderString("build_total");
+        static final XContentBuilderString BUILD_TIME = new XContentBuilderString("build_time");
+        static final XContentBuilderString BUILD_TIME_IN_MILLIS = new XContentBuilderString("build_time_in_millis");
     }
 }
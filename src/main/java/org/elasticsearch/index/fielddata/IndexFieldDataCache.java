@@ -49,7 +49,13 @@ public interface IndexFieldDataCache {
 
         void onLoad(FieldMapper.Names fieldNames, FieldDataType fieldDataType, Accountable ramUsage);
 
-        void onUnload(FieldMapper.Names fieldNames, FieldDataType fieldDataType, boolean wasEvicted, long sizeInBytes);
+        /**
+         * Called after global ordinals were built and passed to {@link #onLoad}, with the time it took to load the
+         * segments and build the global ordinals.
+         */
+        void onGlobalOrdinalsBuilt(FieldMapper.Names fieldNames, FieldDataType fieldDataType, long tookInNanos);
+
+        void onUnload(FieldMapper.Names fieldNames, FieldDataType fieldDataType, boolean wasEvicted, Accountable ramUsage);
     }
 
     class None implements IndexFieldDataCache {
@@ -23,6 +23,7 @@ import com.carrotsearch.hppc.ObjectLongOpenHashMap;
 import org.apache.lucene.util.Accountable;
 import org.elasticsearch.common.inject.Inject;
 import org.elasticsearch.common.metrics.CounterMetric;
+import org.elasticsearch.common.metrics.MeanMetric;
 import org.elasticsearch.common.regex.Regex;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
@@ -34,6 +35,7 @@ import org.elasticsearch.index.shard.ShardId;
 
 import java.util.Map;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
 
 /**
  */
@@ -41,6 +43,8 @@ public class ShardFieldData extends AbstractIndexShardComponent implements Index
 
     final CounterMetric evictionsMetric = new CounterMetric();
     final CounterMetric totalMetric = new CounterMetric();
+    final CounterMetric globalOrdinalsMetric = new CounterMetric();
+    final MeanMetric globalOrdinalsBuildMetric = new MeanMetric();
 
     final ConcurrentMap<String, CounterMetric> perFieldTotals = ConcurrentCollections.newConcurrentMap();
 
@@ -66,12 +70,16 @@ public class ShardFieldData extends AbstractIndexShardComponent implements Index
         if (perFieldTotals.containsKey(ParentFieldMapper.NAME)) {
             memorySize -= perFieldTotals.get(ParentFieldMapper.NAME).count();
         }
-        return new FieldDataStats(memorySize, evictionsMetric.count(), fieldTotals);
+        return new FieldDataStats(memorySize, evictionsMetric.count(), fieldTotals, globalOrdinalsMetric.count(),
+                globalOrdinalsBuildMetric.count(), TimeUnit.NANOSECONDS.toMillis(globalOrdinalsBuildMetric.sum()));
     }
 
     @Override
     public void onLoad(FieldMapper.Names fieldNames, FieldDataType fieldDataType, Accountable ramUsage) {
         totalMetric.inc(ramUsage.ramBytesUsed());
+        if (ramUsage instanceof IndexFieldData.Global) {
+            globalOrdinalsMetric.inc(ramUsage.ramBytesUsed());
+        }
         String keyFieldName = fieldNames.indexName();
         CounterMetric total = perFieldTotals.get(keyFieldName);
         if (total != null) {
@@ -87,18 +95,25 @@ public class ShardFieldData extends AbstractIndexShardComponent implements Index
     }
 
     @Override
-    public void onUnload(FieldMapper.Names fieldNames, FieldDataType fieldDataType, boolean wasEvicted, long sizeInBytes) {
+    public void onGlobalOrdinalsBuilt(FieldMapper.Names fieldNames, FieldDataType fieldDataType, long tookInNanos) {
+        globalOrdinalsBuildMetric.inc(tookInNanos);
+    }
+
+    @Override
+    public void onUnload(FieldMapper.Names fieldNames, FieldDataType fieldDataType, boolean wasEvicted, Accountable ramUsage) {
         if (wasEvicted) {
             evictionsMetric.inc();
         }
-        if (sizeInBytes != -1) {
-            totalMetric.dec(sizeInBytes);
+        final long sizeInBytes = ramUsage.ramBytesUsed();
+        totalMetric.dec(sizeInBytes);
+        if (ramUsage instanceof IndexFieldData.Global) {
+            globalOrdinalsMetric.dec(sizeInBytes);
+        }
 
-            String keyFieldName = fieldNames.indexName();
-            CounterMetric total = perFieldTotals.get(keyFieldName);
-            if (total != null) {
-                total.dec(sizeInBytes);
-            }
+        String keyFieldName = fieldNames.indexName();
+        CounterMetric total = perFieldTotals.get(keyFieldName);
+        if (total != null) {
+            total.dec(sizeInBytes);
         }
     }
 }
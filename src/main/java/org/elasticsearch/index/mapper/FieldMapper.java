@@ -243,6 +243,13 @@ public interface FieldMapper<T> extends Mapper {
      */
     boolean useTermQueryWithQueryString();
 
+    /**
+     * Whether the queries built on this field only depend on the query source and the mappings, so that they can be
+     * reused for other requests by the {@link org.elasticsearch.index.query.ParsedQueryCache}. Fields whose values can
+     * be relative to the time of the request, like dates, return <tt>false</tt>.
+     */
+    boolean isParsedQueryCacheable();
+
     Query termQuery(Object value, @Nullable QueryParseContext context);
 
     Query termsQuery(List values, @Nullable QueryParseContext context);
@@ -70,6 +70,7 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static org.elasticsearch.common.collect.MapBuilder.newMapBuilder;
 
@@ -112,6 +113,8 @@ public class MapperService extends AbstractIndexComponent  {
 
     private volatile ImmutableMap<String, FieldMapper<?>> unmappedFieldMappers = ImmutableMap.of();
 
+    private final AtomicLong mappingVersion = new AtomicLong();
+
     @Inject
     public MapperService(Index index, @IndexSettings Settings indexSettings, AnalysisService analysisService, IndexFieldDataService fieldDataService,
                          SimilarityLookupService similarityLookupService,
@@ -262,6 +265,7 @@ public class MapperService extends AbstractIndexComponent  {
                     }
                 }
                 fieldDataService.onMappingUpdate();
+                mappingVersion.incrementAndGet();
                 return oldMapper;
             } else {
                 List<ObjectMapper> newObjectMappers = new ArrayList<>();
@@ -279,6 +283,7 @@ public class MapperService extends AbstractIndexComponent  {
                     typeListener.beforeCreate(mapper);
                 }
                 mappers = newMapBuilder(mappers).put(mapper.type(), mapper).map();
+                mappingVersion.incrementAndGet();
                 return mapper;
             }
         }
@@ -301,15 +306,25 @@ public class MapperService extends AbstractIndexComponent  {
                 }
             }
             this.fullPathObjectMappers = fullPathObjectMappers.build();
+            mappingVersion.incrementAndGet();
         }
     }
 
     protected void addFieldMappers(Collection<FieldMapper<?>> fieldMappers) {
         synchronized (mappersMutex) {
             this.fieldMappers = this.fieldMappers.copyAndAddAll(fieldMappers);
+            mappingVersion.incrementAndGet();
         }
     }
 
+    /**
+     * A number that changes every time the mappings of this index change, so that results derived from the mappings,
+     * like parsed queries, can tell whether they are still up to date.
+     */
+    public long mappingVersion() {
+        return mappingVersion.get();
+    }
+
     public DocumentMapper parse(String mappingType, CompressedString mappingSource, boolean applyDefault) throws MapperParsingException {
         String defaultMappingSource;
         if (PercolatorService.TYPE_NAME.equals(mappingType)) {
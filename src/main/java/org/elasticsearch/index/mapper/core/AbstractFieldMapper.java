@@ -474,6 +474,11 @@ public abstract class AbstractFieldMapper<T> implements FieldMapper<T> {
         return false;
     }
 
+    @Override
+    public boolean isParsedQueryCacheable() {
+        return true;
+    }
+
     @Override
     public Query termQuery(Object value, @Nullable QueryParseContext context) {
         return new TermQuery(names().createIndexNameTerm(indexedValueForSearch(value)));
@@ -278,6 +278,12 @@ public class DateFieldMapper extends NumberFieldMapper<Long> {
         };
     }
 
+    @Override
+    public boolean isParsedQueryCacheable() {
+        // term, range and fuzzy queries parse date math, which may be relative to now
+        return false;
+    }
+
     @Override
     public Query fuzzyQuery(String value, Fuzziness fuzziness, int prefixLength, int maxExpansions, boolean transpositions) {
         long iValue = dateMathParser.parse(value, now());
@@ -19,6 +19,7 @@
 
 package org.elasticsearch.index.percolator;
 
+import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.index.Term;
 import org.apache.lucene.search.Query;
 import org.apache.lucene.search.TermQuery;
@@ -56,6 +57,7 @@ import org.elasticsearch.percolator.PercolatorService;
 import java.io.Closeable;
 import java.io.IOException;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.atomic.AtomicBoolean;
 
@@ -81,6 +83,7 @@ public class PercolatorQueriesRegistry extends AbstractIndexShardComponent imple
     private final ShardPercolateService shardPercolateService;
 
     private final ConcurrentMap<BytesRef, Query> percolateQueries = ConcurrentCollections.newConcurrentMapWithAggressiveConcurrency();
+    private final QueryTermsIndex queryTermsIndex = new QueryTermsIndex();
     private final ShardLifecycleListener shardLifecycleListener = new ShardLifecycleListener();
     private final RealTimePercolatorOperationListener realTimePercolatorOperationListener = new RealTimePercolatorOperationListener();
     private final PercolateTypeListener percolateTypeListener = new PercolateTypeListener();
@@ -117,6 +120,14 @@ public class PercolatorQueriesRegistry extends AbstractIndexShardComponent imple
         return percolateQueries;
     }
 
+    /**
+     * Returns the ids of the registered queries that may match the documents in the given reader: the queries that
+     * share a term with them and the queries that no terms could be extracted from. All other queries can't match.
+     */
+    public Set<BytesRef> candidateQueries(IndexReader reader) throws IOException {
+        return queryTermsIndex.candidateQueries(reader);
+    }
+
     @Override
     public void close() {
         mapperService.removeTypeListener(percolateTypeListener);
@@ -127,6 +138,7 @@ public class PercolatorQueriesRegistry extends AbstractIndexShardComponent imple
 
     public void clear() {
         percolateQueries.clear();
+        queryTermsIndex.clear();
     }
 
     void enableRealTimePercolator() {
@@ -144,6 +156,8 @@ public class PercolatorQueriesRegistry extends AbstractIndexShardComponent imple
     public void addPercolateQuery(String idAsString, BytesReference source) {
         Query newquery = parsePercolatorDocument(idAsString, source);
         BytesRef id = new BytesRef(idAsString);
+        // index the terms before publishing the query, a percolation that sees the query must also find it as a candidate
+        queryTermsIndex.add(id, newquery, percolateQueries.get(id));
         Query previousQuery = percolateQueries.put(id, newquery);
         shardPercolateService.addedQuery(id, previousQuery, newquery);
     }
@@ -152,6 +166,7 @@ public class PercolatorQueriesRegistry extends AbstractIndexShardComponent imple
         BytesRef id = new BytesRef(idAsString);
         Query query = percolateQueries.remove(id);
         if (query != null) {
+            queryTermsIndex.remove(id, query);
             shardPercolateService.removedQuery(id, query);
         }
     }
@@ -283,6 +298,7 @@ public class PercolatorQueriesRegistry extends AbstractIndexShardComponent imple
                 searcher.searcher().search(query, queryCollector);
                 Map<BytesRef, Query> queries = queryCollector.queries();
                 for (Map.Entry<BytesRef, Query> entry : queries.entrySet()) {
+                    queryTermsIndex.add(entry.getKey(), entry.getValue(), percolateQueries.get(entry.getKey()));
                     Query previousQuery = percolateQueries.put(entry.getKey(), entry.getValue());
                     shardPercolateService.addedQuery(entry.getKey(), previousQuery, entry.getValue());
                 }
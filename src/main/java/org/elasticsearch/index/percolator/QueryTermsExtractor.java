@@ -0,0 +1,175 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.index.percolator;
+
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.ConstantScoreQuery;
+import org.apache.lucene.search.DisjunctionMaxQuery;
+import org.apache.lucene.search.FilteredQuery;
+import org.apache.lucene.search.MultiPhraseQuery;
+import org.apache.lucene.search.PhraseQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.TermQuery;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Extracts from a percolator query a set of terms of which a document needs to contain at least one for the query to
+ * possibly match. This allows to skip the queries that can't match a document without executing them.
+ * <p/>
+ * Queries that may match documents that contain none of their terms, or that are simply not known here, can't be
+ * analysed: for those {@link UnsupportedQueryException} is thrown and the query always needs to be verified.
+ */
+final class QueryTermsExtractor {
+
+    private QueryTermsExtractor() {
+    }
+
+    /**
+     * Returns the terms of which at least one must be present in a document for the given query to match it. An empty
+     * set means that the query matches no documents at all.
+     *
+     * @throws UnsupportedQueryException if no such terms can be extracted from the query
+     */
+    static Set<Term> extractQueryTerms(Query query) throws UnsupportedQueryException {
+        if (query instanceof TermQuery) {
+            return Collections.singleton(((TermQuery) query).getTerm());
+        } else if (query instanceof PhraseQuery) {
+            Term[] terms = ((PhraseQuery) query).getTerms();
+            if (terms.length == 0) {
+                return Collections.emptySet();
+            }
+            // all terms need to be present, the longest one is likely the least frequent one
+            Term longestTerm = terms[0];
+            for (Term term : terms) {
+                if (longestTerm.bytes().length < term.bytes().length) {
+                    longestTerm = term;
+                }
+            }
+            return Collections.singleton(longestTerm);
+        } else if (query instanceof MultiPhraseQuery) {
+            List<Term[]> termArrays = ((MultiPhraseQuery) query).getTermArrays();
+            if (termArrays.isEmpty()) {
+                return Collections.emptySet();
+            }
+            // one of the terms of every position needs to be present, any position will do
+            return new HashSet<>(Arrays.asList(termArrays.get(0)));
+        } else if (query instanceof ConstantScoreQuery) {
+            Query wrappedQuery = ((ConstantScoreQuery) query).getQuery();
+            if (wrappedQuery == null) {
+                throw new UnsupportedQueryException(query);
+            }
+            return extractQueryTerms(wrappedQuery);
+        } else if (query instanceof FilteredQuery) {
+            FilteredQuery filteredQuery = (FilteredQuery) query;
+            return selectBestTerms(extractOrNull(filteredQuery.getQuery()), extractOrNull(filteredQuery.getFilter()), query);
+        } else if (query instanceof DisjunctionMaxQuery) {
+            Set<Term> terms = new HashSet<>();
+            for (Query disjunct : ((DisjunctionMaxQuery) query).getDisjuncts()) {
+                terms.addAll(extractQueryTerms(disjunct));
+            }
+            return terms;
+        } else if (query instanceof BooleanQuery) {
+            List<BooleanClause> clauses = ((BooleanQuery) query).clauses();
+            boolean hasRequiredClauses = false;
+            for (BooleanClause clause : clauses) {
+                if (clause.isRequired()) {
+                    hasRequiredClauses = true;
+                    break;
+                }
+            }
+            if (hasRequiredClauses) {
+                // every required clause needs to match, so the terms of any one of them are enough
+                Set<Term> bestTerms = null;
+                for (BooleanClause clause : clauses) {
+                    if (clause.isRequired()) {
+                        bestTerms = selectBestTerms(bestTerms, extractOrNull(clause.getQuery()), null);
+                    }
+                }
+                if (bestTerms == null) {
+                    throw new UnsupportedQueryException(query);
+                }
+                return bestTerms;
+            } else {
+                // one of the optional clauses needs to match, prohibited clauses can only remove matches
+                Set<Term> terms = new HashSet<>();
+                for (BooleanClause clause : clauses) {
+                    if (clause.isProhibited() == false) {
+                        terms.addAll(extractQueryTerms(clause.getQuery()));
+                    }
+                }
+                return terms;
+            }
+        } else {
+            throw new UnsupportedQueryException(query);
+        }
+    }
+
+    private static Set<Term> extractOrNull(Query query) {
+        try {
+            return extractQueryTerms(query);
+        } catch (UnsupportedQueryException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Out of two sets of terms that are both required, picks the one whose shortest term is the longest, since longer
+     * terms tend to be less frequent and so select fewer queries. Throws if neither set could be extracted and
+     * <code>query</code> is not <code>null</code>.
+     */
+    private static Set<Term> selectBestTerms(Set<Term> terms1, Set<Term> terms2, Query query) throws UnsupportedQueryException {
+        if (terms1 == null && terms2 == null) {
+            if (query != null) {
+                throw new UnsupportedQueryException(query);
+            }
+            return null;
+        } else if (terms1 == null) {
+            return terms2;
+        } else if (terms2 == null) {
+            return terms1;
+        }
+        return shortestTermLength(terms1) >= shortestTermLength(terms2) ? terms1 : terms2;
+    }
+
+    private static int shortestTermLength(Set<Term> terms) {
+        int shortestLength = Integer.MAX_VALUE;
+        for (Term term : terms) {
+            shortestLength = Math.min(shortestLength, term.bytes().length);
+        }
+        return shortestLength;
+    }
+
+    /**
+     * Thrown when the terms of a query can't be extracted.
+     */
+    static class UnsupportedQueryException extends Exception {
+
+        UnsupportedQueryException(Query query) {
+            super("no query terms can be extracted from query [" + query + "]");
+        }
+
+    }
+}
@@ -0,0 +1,169 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.index.percolator;
+
+import com.google.common.collect.Sets;
+import org.apache.lucene.index.Fields;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.index.Terms;
+import org.apache.lucene.index.TermsEnum;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * An in-memory inverted index from the terms extracted by {@link QueryTermsExtractor} to the ids of the percolator
+ * queries they were extracted from, which allows to select the queries that may match a document without running
+ * them. Queries whose terms can't be extracted are always selected.
+ * <p/>
+ * Updates are serialized, lookups don't block and may miss concurrent updates.
+ */
+final class QueryTermsIndex {
+
+    private final ConcurrentMap<String, ConcurrentMap<BytesRef, Set<BytesRef>>> queriesByTerm = ConcurrentCollections.newConcurrentMap();
+    private final Set<BytesRef> unsupportedQueries = ConcurrentCollections.newConcurrentSet();
+
+    /**
+     * Indexes the query with the given id, replacing the terms of the query that was registered under that id before,
+     * if any. The new terms are added before the previous ones are removed, so that lookups running concurrently
+     * always see the query under either its old or its new terms.
+     */
+    synchronized void add(BytesRef id, Query query, Query previousQuery) {
+        Set<Term> terms;
+        try {
+            terms = QueryTermsExtractor.extractQueryTerms(query);
+        } catch (QueryTermsExtractor.UnsupportedQueryException e) {
+            terms = null;
+        }
+        if (terms == null) {
+            unsupportedQueries.add(id);
+        } else {
+            for (Term term : terms) {
+                ConcurrentMap<BytesRef, Set<BytesRef>> fieldTerms = queriesByTerm.get(term.field());
+                if (fieldTerms == null) {
+                    fieldTerms = ConcurrentCollections.newConcurrentMap();
+                    queriesByTerm.put(term.field(), fieldTerms);
+                }
+                Set<BytesRef> ids = fieldTerms.get(term.bytes());
+                if (ids == null) {
+                    ids = ConcurrentCollections.newConcurrentSet();
+                    fieldTerms.put(BytesRef.deepCopyOf(term.bytes()), ids);
+                }
+                ids.add(id);
+            }
+        }
+        if (previousQuery != null) {
+            if (terms == null) {
+                removeTerms(id, previousQuery, Collections.<Term>emptySet());
+            } else {
+                unsupportedQueries.remove(id);
+                removeTerms(id, previousQuery, terms);
+            }
+        }
+    }
+
+    synchronized void remove(BytesRef id, Query query) {
+        if (unsupportedQueries.remove(id)) {
+            return;
+        }
+        removeTerms(id, query, Collections.<Term>emptySet());
+    }
+
+    private void removeTerms(BytesRef id, Query query, Set<Term> keep) {
+        final Set<Term> terms;
+        try {
+            terms = QueryTermsExtractor.extractQueryTerms(query);
+        } catch (QueryTermsExtractor.UnsupportedQueryException e) {
+            return;
+        }
+        for (Term term : terms) {
+            if (keep.contains(term)) {
+                continue;
+            }
+            ConcurrentMap<BytesRef, Set<BytesRef>> fieldTerms = queriesByTerm.get(term.field());
+            if (fieldTerms == null) {
+                continue;
+            }
+            Set<BytesRef> ids = fieldTerms.get(term.bytes());
+            if (ids != null && ids.remove(id) && ids.isEmpty()) {
+                fieldTerms.remove(term.bytes());
+                if (fieldTerms.isEmpty()) {
+                    queriesByTerm.remove(term.field());
+                }
+            }
+        }
+    }
+
+    synchronized void clear() {
+        queriesByTerm.clear();
+        unsupportedQueries.clear();
+    }
+
+    /**
+     * Returns the ids of the queries that share at least one term with the documents in the given reader, together
+     * with the ids of the queries whose terms couldn't be extracted.
+     */
+    Set<BytesRef> candidateQueries(IndexReader reader) throws IOException {
+        Set<BytesRef> matchingQueries = new HashSet<>();
+        for (LeafReaderContext context : reader.leaves()) {
+            Fields fields = context.reader().fields();
+            if (fields == null) {
+                continue;
+            }
+            for (String field : fields) {
+                Map<BytesRef, Set<BytesRef>> fieldTerms = queriesByTerm.get(field);
+                Terms terms;
+                if (fieldTerms == null || (terms = fields.terms(field)) == null) {
+                    continue;
+                }
+                TermsEnum termsEnum = terms.iterator();
+                long numTerms = terms.size();
+                if (numTerms != -1 && numTerms > fieldTerms.size()) {
+                    // the document has more terms than the queries, look up the terms of the queries instead
+                    for (Map.Entry<BytesRef, Set<BytesRef>> entry : fieldTerms.entrySet()) {
+                        if (termsEnum.seekExact(entry.getKey())) {
+                            matchingQueries.addAll(entry.getValue());
+                        }
+                    }
+                } else {
+                    for (BytesRef term = termsEnum.next(); term != null; term = termsEnum.next()) {
+                        Set<BytesRef> ids = fieldTerms.get(term);
+                        if (ids != null) {
+                            matchingQueries.addAll(ids);
+                        }
+                    }
+                }
+            }
+        }
+        return Sets.union(matchingQueries, unsupportedQueries);
+    }
+
+    int numUnsupportedQueries() {
+        return unsupportedQueries.size();
+    }
+}
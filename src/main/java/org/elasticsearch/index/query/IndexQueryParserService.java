@@ -94,6 +94,8 @@ public class IndexQueryParserService extends AbstractIndexComponent {
 
     private final Map<String, QueryParser> queryParsers;
 
+    private final ParsedQueryCache parsedQueryCache;
+
     private String defaultField;
     private boolean queryStringLenient;
     private final boolean strict;
@@ -120,6 +122,7 @@ public class IndexQueryParserService extends AbstractIndexComponent {
         this.queryStringLenient = indexSettings.getAsBoolean(QUERY_STRING_LENIENT, false);
         this.strict = indexSettings.getAsBoolean(PARSE_STRICT, false);
         this.defaultAllowUnmappedFields = indexSettings.getAsBoolean(ALLOW_UNMAPPED, true);
+        this.parsedQueryCache = new ParsedQueryCache(indexSettings);
 
         List<QueryParser> queryParsers = newArrayList();
         if (namedQueryParsers != null) {
@@ -147,6 +150,7 @@ public class IndexQueryParserService extends AbstractIndexComponent {
 
     public void close() {
         cache.close();
+        parsedQueryCache.clear();
     }
 
     public String defaultField() {
@@ -218,6 +222,45 @@ public class IndexQueryParserService extends AbstractIndexComponent {
         }
     }
 
+    public boolean isParsedQueryCacheEnabled() {
+        return parsedQueryCache.enabled();
+    }
+
+    /**
+     * Parses the given query source like {@link #parse(BytesReference)}, but returns the {@link ParsedQuery} of an
+     * earlier parse of the same source, for the same types and mappings, if the {@link ParsedQueryCache} has one. The
+     * returned query may be shared with other requests and must not be modified.
+     */
+    public ParsedQuery parseCached(BytesReference source, ParsedQueryCache.Listener listener) {
+        if (parsedQueryCache.enabled() == false) {
+            listener.onMiss();
+            return parse(source);
+        }
+        source = source.toBytesArray();
+        final ParsedQueryCache.Key key = new ParsedQueryCache.Key(source, QueryParseContext.getTypes(), mapperService.mappingVersion());
+        final ParsedQueryCache.Value value = parsedQueryCache.get(key);
+        if (value != null && value.parsedQuery != null) {
+            listener.onHit(value.parseTimeInNanos);
+            return value.parsedQuery;
+        }
+        listener.onMiss();
+        final QueryParseContext context = cache.get();
+        XContentParser parser = null;
+        try {
+            parser = XContentFactory.xContent(source).createParser(source);
+            // only remember the outcome of the first parse, a query that can't be cached won't ever be
+            return innerParse(context, parser, value == null ? key : null);
+        } catch (QueryParsingException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new QueryParsingException(context, "Failed to parse", e);
+        } finally {
+            if (parser != null) {
+                parser.close();
+            }
+        }
+    }
+
     public ParsedQuery parse(String source) throws QueryParsingException {
         XContentParser parser = null;
         try {
@@ -336,6 +379,14 @@ public class IndexQueryParserService extends AbstractIndexComponent {
     }
 
     private ParsedQuery innerParse(QueryParseContext parseContext, XContentParser parser) throws IOException, QueryParsingException {
+        return innerParse(parseContext, parser, null);
+    }
+
+    /**
+     * Parses the query, adding it to the {@link ParsedQueryCache} under the given key if there is one.
+     */
+    private ParsedQuery innerParse(QueryParseContext parseContext, XContentParser parser, @Nullable ParsedQueryCache.Key cacheKey) throws IOException, QueryParsingException {
+        final long start = cacheKey == null ? 0 : System.nanoTime();
         parseContext.reset(parser);
         try {
             if (strict) {
@@ -345,7 +396,13 @@ public class IndexQueryParserService extends AbstractIndexComponent {
             if (query == null) {
                 query = Queries.newMatchNoDocsQuery();
             }
-            return new ParsedQuery(query, parseContext.copyNamedFilters());
+            ParsedQuery parsedQuery = new ParsedQuery(query, parseContext.copyNamedFilters());
+            if (cacheKey != null) {
+                ParsedQueryCache.Key key = new ParsedQueryCache.Key(cacheKey.source.copyBytesArray(),
+                        cacheKey.types == null ? null : cacheKey.types.clone(), cacheKey.mappingVersion);
+                parsedQueryCache.put(key, parseContext.isCacheable() ? parsedQuery : null, System.nanoTime() - start);
+            }
+            return parsedQuery;
         } finally {
             parseContext.reset(null);
         }
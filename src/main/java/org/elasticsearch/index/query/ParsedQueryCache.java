@@ -0,0 +1,182 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.index.query;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.Weigher;
+import org.apache.lucene.util.Accountable;
+import org.elasticsearch.common.Nullable;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.ByteSizeUnit;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.common.unit.TimeValue;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the {@link ParsedQuery} of recently seen query sources, so that requests that send the same query over and
+ * over again, like dashboards, do not rebuild the same Lucene query every time. Entries are keyed on the query source,
+ * the types of the request and the {@link org.elasticsearch.index.mapper.MapperService#mappingVersion() mapping version},
+ * so that a mapping change makes all entries stale. Queries that depend on more than that, for instance on the time of
+ * the request, are remembered as such and parsed every time, see {@link QueryParseContext#markAsNotCacheable()}.
+ * <p/>
+ * A cached {@link ParsedQuery} is shared by concurrent searches and must not be modified.
+ */
+public class ParsedQueryCache {
+
+    public static final String SIZE = "index.query.parse.cache.size";
+    public static final String EXPIRE = "index.query.parse.cache.expire";
+
+    /**
+     * The estimated size of a parsed query that doesn't report its own, on top of its terms, which take about as much
+     * memory as the query source.
+     */
+    static final long QUERY_DEFAULT_RAM_BYTES_USED = 1024;
+
+    /**
+     * Notified of the outcome of looking up a query in the cache.
+     */
+    public interface Listener {
+
+        /**
+         * The query was found in the cache, which saved the given time it took to parse it in the first place.
+         */
+        void onHit(long savedNanos);
+
+        /**
+         * The query had to be parsed.
+         */
+        void onMiss();
+    }
+
+    @Nullable
+    private final Cache<Key, Value> cache;
+
+    private volatile long mappingVersion;
+
+    ParsedQueryCache(Settings indexSettings) {
+        final ByteSizeValue size = indexSettings.getAsBytesSize(SIZE, new ByteSizeValue(10, ByteSizeUnit.MB));
+        if (size.bytes() <= 0) {
+            cache = null;
+        } else {
+            CacheBuilder<Key, Value> cacheBuilder = CacheBuilder.newBuilder().maximumWeight(size.bytes()).weigher(new Weigher<Key, Value>() {
+                @Override
+                public int weigh(Key key, Value value) {
+                    return (int) Math.min(Integer.MAX_VALUE, ramBytesUsed(key, value));
+                }
+            });
+            final TimeValue expire = indexSettings.getAsTime(EXPIRE, null);
+            if (expire != null) {
+                cacheBuilder.expireAfterAccess(expire.millis(), TimeUnit.MILLISECONDS);
+            }
+            cache = cacheBuilder.build();
+        }
+    }
+
+    /**
+     * Estimates the memory taken by an entry: its source, which the key holds on to, and its parsed query.
+     */
+    static long ramBytesUsed(Key key, Value value) {
+        long bytes = key.source.length();
+        if (value.parsedQuery != null) {
+            if (value.parsedQuery.query() instanceof Accountable) {
+                bytes += ((Accountable) value.parsedQuery.query()).ramBytesUsed();
+            } else {
+                bytes += QUERY_DEFAULT_RAM_BYTES_USED + key.source.length();
+            }
+        }
+        return bytes;
+    }
+
+    public boolean enabled() {
+        return cache != null;
+    }
+
+    @Nullable
+    Value get(Key key) {
+        return cache.getIfPresent(key);
+    }
+
+    /**
+     * Records the result of parsing the query of the given key, {@code null} if it must not be reused.
+     */
+    void put(Key key, @Nullable ParsedQuery parsedQuery, long parseTimeInNanos) {
+        if (key.mappingVersion > mappingVersion) {
+            // entries of older mappings can't be hit anymore, don't wait for them to be evicted
+            mappingVersion = key.mappingVersion;
+            cache.invalidateAll();
+        }
+        cache.put(key, new Value(parsedQuery, parseTimeInNanos));
+    }
+
+    public void clear() {
+        if (cache != null) {
+            cache.invalidateAll();
+        }
+    }
+
+    static class Key {
+
+        final BytesReference source;
+        final String[] types;
+        final long mappingVersion;
+
+        Key(BytesReference source, @Nullable String[] types, long mappingVersion) {
+            this.source = source;
+            this.types = types;
+            this.mappingVersion = mappingVersion;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            Key key = (Key) o;
+            return mappingVersion == key.mappingVersion && source.equals(key.source) && Arrays.equals(types, key.types);
+        }
+
+        @Override
+        public int hashCode() {
+            int result = source.hashCode();
+            result = 31 * result + Arrays.hashCode(types);
+            result = 31 * result + (int) (mappingVersion ^ (mappingVersion >>> 32));
+            return result;
+        }
+    }
+
+    static class Value {
+
+        @Nullable
+        final ParsedQuery parsedQuery;
+        final long parseTimeInNanos;
+
+        Value(@Nullable ParsedQuery parsedQuery, long parseTimeInNanos) {
+            this.parsedQuery = parsedQuery;
+            this.parseTimeInNanos = parseTimeInNanos;
+        }
+    }
+}
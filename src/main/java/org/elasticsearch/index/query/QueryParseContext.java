@@ -20,6 +20,7 @@
 package org.elasticsearch.index.query;
 
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Maps;
 
 import org.apache.lucene.queryparser.classic.MapperQueryParser;
@@ -68,6 +69,24 @@ public class QueryParseContext {
     private static final ParseField CACHE = new ParseField("_cache").withAllDeprecated("Elasticsearch makes its own caching decisions");
     private static final ParseField CACHE_KEY = new ParseField("_cache_key").withAllDeprecated("Filters are always used as cache keys");
 
+    /**
+     * The parsers whose queries only depend on the parsed source and the mappings, and not on the time, on other
+     * documents or on the search request they are parsed for. A query that only consists of such queries can be reused
+     * by the {@link ParsedQueryCache}.
+     */
+    private static final ImmutableSet<Class<?>> CACHEABLE_QUERY_PARSERS = ImmutableSet.<Class<?>>of(
+            AndQueryParser.class, BoolQueryParser.class, BoostingQueryParser.class, CommonTermsQueryParser.class,
+            ConstantScoreQueryParser.class, DisMaxQueryParser.class, ExistsQueryParser.class, FQueryFilterParser.class,
+            FieldMaskingSpanQueryParser.class, FilteredQueryParser.class, GeoBoundingBoxQueryParser.class,
+            GeoDistanceQueryParser.class, GeoDistanceRangeQueryParser.class, GeoPolygonQueryParser.class, IdsQueryParser.class,
+            LimitQueryParser.class, MatchAllQueryParser.class, MatchQueryParser.class, MissingQueryParser.class,
+            MultiMatchQueryParser.class, NotQueryParser.class, OrQueryParser.class, PrefixQueryParser.class,
+            QueryFilterParser.class, QueryStringQueryParser.class, RangeQueryParser.class, RegexpQueryParser.class,
+            SimpleQueryStringParser.class, SpanContainingQueryParser.class, SpanFirstQueryParser.class,
+            SpanMultiTermQueryParser.class, SpanNearQueryParser.class, SpanNotQueryParser.class, SpanOrQueryParser.class,
+            SpanTermQueryParser.class, SpanWithinQueryParser.class, TermQueryParser.class, TermsQueryParser.class,
+            TypeQueryParser.class, WildcardQueryParser.class);
+
     private static ThreadLocal<String[]> typesContext = new ThreadLocal<>();
 
     public static void setTypes(String[] types) {
@@ -108,6 +127,8 @@ public class QueryParseContext {
 
     private boolean isFilter;
 
+    private boolean cacheable;
+
     public QueryParseContext(Index index, IndexQueryParserService indexQueryParser) {
         this.index = index;
         this.indexQueryParser = indexQueryParser;
@@ -129,6 +150,7 @@ public class QueryParseContext {
         this.namedQueries.clear();
         this.nestedScope = new NestedScope();
         this.isFilter = false;
+        this.cacheable = true;
     }
 
     public Index index() {
@@ -199,6 +221,7 @@ public class QueryParseContext {
 
     public void combineNamedFilters(QueryParseContext context) {
         namedQueries.putAll(context.namedQueries);
+        cacheable &= context.cacheable;
     }
 
     /**
@@ -208,7 +231,24 @@ public class QueryParseContext {
         return isFilter;
     }
 
+    /**
+     * Marks the query being parsed as depending on more than its source and the mappings, for instance on the time
+     * of the request or on the content of another document, so that it is not reused for other requests.
+     */
+    public void markAsNotCacheable() {
+        cacheable = false;
+    }
+
+    /**
+     * Whether the query parsed so far can be reused for other requests with the same source, see
+     * {@link #markAsNotCacheable()}.
+     */
+    public boolean isCacheable() {
+        return cacheable;
+    }
+
     public void addInnerHits(String name, InnerHitsContext.BaseInnerHits context) {
+        markAsNotCacheable();
         SearchContext sc = SearchContext.current();
         InnerHitsContext innerHitsContext;
         if (sc.innerHits() == null) {
@@ -249,6 +289,9 @@ public class QueryParseContext {
         if (queryParser == null) {
             throw new QueryParsingException(this, "No query registered for [" + queryName + "]");
         }
+        if (CACHEABLE_QUERY_PARSERS.contains(queryParser.getClass()) == false) {
+            markAsNotCacheable();
+        }
         Query result = queryParser.parse(this);
         if (parser.currentToken() == XContentParser.Token.END_OBJECT || parser.currentToken() == XContentParser.Token.END_ARRAY) {
             // if we are at END_OBJECT, move to the next one...
@@ -276,6 +319,9 @@ public class QueryParseContext {
             if (queryParser == null) {
                 throw new QueryParsingException(this, "No query registered for [" + queryName + "]");
             }
+            if (CACHEABLE_QUERY_PARSERS.contains(queryParser.getClass()) == false) {
+                markAsNotCacheable();
+            }
             return queryParser.parse(this);
         } finally {
             isFilter = originalIsFilter;
@@ -287,6 +333,7 @@ public class QueryParseContext {
         if (fieldMappers == null) {
             return null;
         }
+        checkCacheable(fieldMappers.mapper());
         return fieldMappers.mapper();
     }
 
@@ -303,7 +350,21 @@ public class QueryParseContext {
     }
 
     public MapperService.SmartNameFieldMappers smartFieldMappers(String name) {
-        return failIfFieldMappingNotFound(name, indexQueryParser.mapperService.smartName(name, getTypes()));
+        MapperService.SmartNameFieldMappers fieldMappers = failIfFieldMappingNotFound(name, indexQueryParser.mapperService.smartName(name, getTypes()));
+        if (fieldMappers != null && fieldMappers.hasMapper()) {
+            checkCacheable(fieldMappers.mapper());
+        }
+        return fieldMappers;
+    }
+
+    /**
+     * Queries are built from the field mappers that are looked up here, so the query being parsed can't be reused if
+     * one of them builds queries that depend on more than the source, see {@link FieldMapper#isParsedQueryCacheable()}.
+     */
+    private void checkCacheable(@Nullable FieldMapper mapper) {
+        if (mapper != null && mapper.isParsedQueryCacheable() == false) {
+            markAsNotCacheable();
+        }
     }
 
     public MapperService.SmartNameObjectMapper smartObjectMapper(String name) {
@@ -355,6 +416,7 @@ public class QueryParseContext {
     private SearchLookup lookup = null;
 
     public SearchLookup lookup() {
+        markAsNotCacheable();
         SearchContext current = SearchContext.current();
         if (current != null) {
             return current.lookup();
@@ -366,6 +428,7 @@ public class QueryParseContext {
     }
 
     public long nowInMillis() {
+        markAsNotCacheable();
         SearchContext current = SearchContext.current();
         if (current != null) {
             return current.nowInMillis();
@@ -170,6 +170,8 @@ public class TermsQueryParser implements QueryParser {
         }
 
         if (lookupId != null) {
+            // the terms come from another document that may change
+            parseContext.markAsNotCacheable();
             final TermsLookup lookup = new TermsLookup(lookupIndex, lookupType, lookupId, lookupRouting, lookupPath, parseContext);
             final GetResponse getResponse = client.get(new GetRequest(lookup.getIndex(), lookup.getType(), lookup.getId()).preference("_local").routing(lookup.getRouting())).actionGet();
             if (getResponse.isExists()) {
@@ -46,13 +46,13 @@ import org.elasticsearch.common.lucene.search.NoopCollector;
 import org.elasticsearch.common.util.BigArrays;
 import org.elasticsearch.common.util.FloatArray;
 import org.elasticsearch.common.util.IntArray;
-import org.elasticsearch.common.util.LongHash;
 import org.elasticsearch.index.fielddata.IndexParentChildFieldData;
 import org.elasticsearch.index.fielddata.plain.ParentChildIndexFieldData;
 import org.elasticsearch.search.internal.SearchContext;
 import org.elasticsearch.search.internal.SearchContext.Lifetime;
 
 import java.io.IOException;
+import java.util.List;
 import java.util.Set;
 
 /**
@@ -149,10 +149,16 @@ public final class ChildrenQuery extends IndexCacheableQuery {
         SearchContext sc = SearchContext.current();
 
         IndexParentChildFieldData globalIfd = ifd.loadGlobal(searcher.getIndexReader());
-        if (globalIfd == null) {
+        List<LeafReaderContext> leaves = searcher.getIndexReader().leaves();
+        if (globalIfd == null || leaves.isEmpty()) {
             // No docs of the specified type exist on this shard
             return new BooleanQuery().createWeight(searcher, needsScores);
         }
+        final SortedDocValues globalValues = globalIfd.load(leaves.get(0)).getOrdinalsValues(parentType);
+        final long maxOrd = globalValues == null ? 0 : globalValues.getValueCount();
+        if (maxOrd == 0) {
+            return new BooleanQuery().createWeight(searcher, needsScores);
+        }
         IndexSearcher indexSearcher = new IndexSearcher(searcher.getIndexReader());
         indexSearcher.setSimilarity(searcher.getSimilarity());
         indexSearcher.setQueryCache(null);
@@ -164,30 +170,30 @@ public final class ChildrenQuery extends IndexCacheableQuery {
             if (minChildren == 0 && maxChildren == 0 && scoreType != ScoreType.NONE) {
                 switch (scoreType) {
                 case MIN:
-                    collector = new MinCollector(globalIfd, sc, parentType);
+                    collector = new MinCollector(globalIfd, maxOrd, sc, parentType);
                     break;
                 case MAX:
-                    collector = new MaxCollector(globalIfd, sc, parentType);
+                    collector = new MaxCollector(globalIfd, maxOrd, sc, parentType);
                     break;
                 case SUM:
-                    collector = new SumCollector(globalIfd, sc, parentType);
+                    collector = new SumCollector(globalIfd, maxOrd, sc, parentType);
                     break;
                 }
             }
             if (collector == null) {
                 switch (scoreType) {
                 case MIN:
-                    collector = new MinCountCollector(globalIfd, sc, parentType);
+                    collector = new MinCountCollector(globalIfd, maxOrd, sc, parentType);
                     break;
                 case MAX:
-                    collector = new MaxCountCollector(globalIfd, sc, parentType);
+                    collector = new MaxCountCollector(globalIfd, maxOrd, sc, parentType);
                     break;
                 case SUM:
                 case AVG:
-                    collector = new SumCountAndAvgCollector(globalIfd, sc, parentType);
+                    collector = new SumCountAndAvgCollector(globalIfd, maxOrd, sc, parentType);
                     break;
                 case NONE:
-                    collector = new CountCollector(globalIfd, sc, parentType);
+                    collector = new CountCollector(globalIfd, maxOrd, sc, parentType);
                     break;
                 default:
                     throw new RuntimeException("Are we missing a score type here? -- " + scoreType);
@@ -308,7 +314,7 @@ public final class ChildrenQuery extends IndexCacheableQuery {
     protected abstract static class ParentCollector extends NoopCollector implements Releasable {
 
         protected final IndexParentChildFieldData globalIfd;
-        protected final LongHash parentIdxs;
+        protected final ParentIdxs parentIdxs;
         protected final BigArrays bigArrays;
         protected final SearchContext searchContext;
         protected final String parentType;
@@ -316,11 +322,11 @@ public final class ChildrenQuery extends IndexCacheableQuery {
         protected SortedDocValues values;
         protected Scorer scorer;
 
-        protected ParentCollector(IndexParentChildFieldData globalIfd, SearchContext searchContext, String parentType) {
+        protected ParentCollector(IndexParentChildFieldData globalIfd, long maxOrd, SearchContext searchContext, String parentType) {
             this.globalIfd = globalIfd;
             this.searchContext = searchContext;
             this.bigArrays = searchContext.bigArrays();
-            this.parentIdxs = new LongHash(512, bigArrays);
+            this.parentIdxs = new ParentIdxs(maxOrd, bigArrays);
             this.parentType = parentType;
         }
 
@@ -332,6 +338,10 @@ public final class ChildrenQuery extends IndexCacheableQuery {
                     long parentIdx = parentIdxs.add(globalOrdinal);
                     if (parentIdx >= 0) {
                         newParent(parentIdx);
+                        if (parentIdxs.shouldSwitchToOrdinals()) {
+                            remapToOrdinals();
+                            parentIdxs.switchToOrdinals();
+                        }
                     } else {
                         parentIdx = -1 - parentIdx;
                         existingParent(parentIdx);
@@ -346,6 +356,12 @@ public final class ChildrenQuery extends IndexCacheableQuery {
         protected void existingParent(long parentIdx) throws IOException {
         }
 
+        /**
+         * Called before the parent indices switch from the hash to global ordinals, moves per parent state over.
+         */
+        protected void remapToOrdinals() {
+        }
+
         public long foundParents() {
             return parentIdxs.size();
         }
@@ -370,8 +386,8 @@ public final class ChildrenQuery extends IndexCacheableQuery {
 
         protected FloatArray scores;
 
-        protected ParentScoreCollector(IndexParentChildFieldData globalIfd, SearchContext searchContext, String parentType) {
-            super(globalIfd, searchContext, parentType);
+        protected ParentScoreCollector(IndexParentChildFieldData globalIfd, long maxOrd, SearchContext searchContext, String parentType) {
+            super(globalIfd, maxOrd, searchContext, parentType);
             this.scores = this.bigArrays.newFloatArray(512, false);
         }
 
@@ -386,6 +402,11 @@ public final class ChildrenQuery extends IndexCacheableQuery {
             scores.set(parentIdx, scorer.score());
         }
 
+        @Override
+        protected void remapToOrdinals() {
+            scores = parentIdxs.remap(scores);
+        }
+
         @Override
         public void close() {
             Releasables.close(parentIdxs, scores);
@@ -396,8 +417,8 @@ public final class ChildrenQuery extends IndexCacheableQuery {
 
         protected IntArray occurrences;
 
-        protected ParentScoreCountCollector(IndexParentChildFieldData globalIfd, SearchContext searchContext, String parentType) {
-            super(globalIfd, searchContext, parentType);
+        protected ParentScoreCountCollector(IndexParentChildFieldData globalIfd, long maxOrd, SearchContext searchContext, String parentType) {
+            super(globalIfd, maxOrd, searchContext, parentType);
             this.occurrences = bigArrays.newIntArray(512, false);
         }
 
@@ -409,6 +430,12 @@ public final class ChildrenQuery extends IndexCacheableQuery {
             occurrences.set(parentIdx, 1);
         }
 
+        @Override
+        protected void remapToOrdinals() {
+            super.remapToOrdinals();
+            occurrences = parentIdxs.remap(occurrences);
+        }
+
         @Override
         public void close() {
             Releasables.close(parentIdxs, scores, occurrences);
@@ -419,8 +446,8 @@ public final class ChildrenQuery extends IndexCacheableQuery {
 
         protected IntArray occurrences;
 
-        protected CountCollector(IndexParentChildFieldData globalIfd, SearchContext searchContext, String parentType) {
-            super(globalIfd, searchContext, parentType);
+        protected CountCollector(IndexParentChildFieldData globalIfd, long maxOrd, SearchContext searchContext, String parentType) {
+            super(globalIfd, maxOrd, searchContext, parentType);
             this.occurrences = bigArrays.newIntArray(512, false);
         }
 
@@ -435,6 +462,11 @@ public final class ChildrenQuery extends IndexCacheableQuery {
             occurrences.increment(parentIdx, 1);
         }
 
+        @Override
+        protected void remapToOrdinals() {
+            occurrences = parentIdxs.remap(occurrences);
+        }
+
         @Override
         public void close() {
             Releasables.close(parentIdxs, occurrences);
@@ -443,8 +475,8 @@ public final class ChildrenQuery extends IndexCacheableQuery {
 
     private final static class SumCollector extends ParentScoreCollector {
 
-        private SumCollector(IndexParentChildFieldData globalIfd, SearchContext searchContext, String parentType) {
-            super(globalIfd, searchContext, parentType);
+        private SumCollector(IndexParentChildFieldData globalIfd, long maxOrd, SearchContext searchContext, String parentType) {
+            super(globalIfd, maxOrd, searchContext, parentType);
         }
 
         @Override
@@ -455,8 +487,8 @@ public final class ChildrenQuery extends IndexCacheableQuery {
 
     private final static class MaxCollector extends ParentScoreCollector {
 
-        private MaxCollector(IndexParentChildFieldData globalIfd, SearchContext searchContext, String parentType) {
-            super(globalIfd, searchContext, parentType);
+        private MaxCollector(IndexParentChildFieldData globalIfd, long maxOrd, SearchContext searchContext, String parentType) {
+            super(globalIfd, maxOrd, searchContext, parentType);
         }
 
         @Override
@@ -470,8 +502,8 @@ public final class ChildrenQuery extends IndexCacheableQuery {
 
     private final static class MinCollector extends ParentScoreCollector {
 
-        private MinCollector(IndexParentChildFieldData globalIfd, SearchContext searchContext, String parentType) {
-            super(globalIfd, searchContext, parentType);
+        private MinCollector(IndexParentChildFieldData globalIfd, long maxOrd, SearchContext searchContext, String parentType) {
+            super(globalIfd, maxOrd, searchContext, parentType);
         }
 
         @Override
@@ -485,8 +517,8 @@ public final class ChildrenQuery extends IndexCacheableQuery {
 
     private final static class MaxCountCollector extends ParentScoreCountCollector {
 
-        private MaxCountCollector(IndexParentChildFieldData globalIfd, SearchContext searchContext, String parentType) {
-            super(globalIfd, searchContext, parentType);
+        private MaxCountCollector(IndexParentChildFieldData globalIfd, long maxOrd, SearchContext searchContext, String parentType) {
+            super(globalIfd, maxOrd, searchContext, parentType);
         }
 
         @Override
@@ -501,8 +533,8 @@ public final class ChildrenQuery extends IndexCacheableQuery {
 
     private final static class MinCountCollector extends ParentScoreCountCollector {
 
-        private MinCountCollector(IndexParentChildFieldData globalIfd, SearchContext searchContext, String parentType) {
-            super(globalIfd, searchContext, parentType);
+        private MinCountCollector(IndexParentChildFieldData globalIfd, long maxOrd, SearchContext searchContext, String parentType) {
+            super(globalIfd, maxOrd, searchContext, parentType);
         }
 
         @Override
@@ -517,8 +549,8 @@ public final class ChildrenQuery extends IndexCacheableQuery {
 
     private final static class SumCountAndAvgCollector extends ParentScoreCountCollector {
 
-        SumCountAndAvgCollector(IndexParentChildFieldData globalIfd, SearchContext searchContext, String parentType) {
-            super(globalIfd, searchContext, parentType);
+        SumCountAndAvgCollector(IndexParentChildFieldData globalIfd, long maxOrd, SearchContext searchContext, String parentType) {
+            super(globalIfd, maxOrd, searchContext, parentType);
         }
 
         @Override
@@ -531,7 +563,7 @@ public final class ChildrenQuery extends IndexCacheableQuery {
     private static class ParentScorer extends Scorer {
 
         final ParentWeight parentWeight;
-        final LongHash parentIds;
+        final ParentIdxs parentIds;
         final FloatArray scores;
 
         final SortedDocValues globalOrdinals;
@@ -688,7 +720,7 @@ public final class ChildrenQuery extends IndexCacheableQuery {
 
     private final static class CountParentOrdIterator extends XFilteredDocIdSetIterator {
 
-        private final LongHash parentIds;
+        private final ParentIdxs parentIds;
         protected final IntArray occurrences;
         private final int minChildren;
         private final int maxChildren;
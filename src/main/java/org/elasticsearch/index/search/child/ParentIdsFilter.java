@@ -91,9 +91,13 @@ final class ParentIdsFilter extends Filter {
 
     static Filter createShortCircuitFilter(BitDocIdSetFilter nonNestedDocsFilter, SearchContext searchContext,
                                            String parentType, SortedDocValues globalValues,
-                                           LongHash parentIdxs, long numFoundParents) {
+                                           ParentIdxs parentIdxs, long numFoundParents) {
+        final LongHash hash = parentIdxs.hash();
+        if (hash == null) {
+            return createShortCircuitFilter(nonNestedDocsFilter, searchContext, parentType, globalValues, parentIdxs.ords(), numFoundParents);
+        }
         if (numFoundParents == 1) {
-            BytesRef id = globalValues.lookupOrd((int) parentIdxs.get(0));
+            BytesRef id = globalValues.lookupOrd((int) hash.get(0));
             if (nonNestedDocsFilter != null) {
                 BooleanQuery bq = new BooleanQuery();
                 bq.add(new TermQuery(new Term(UidFieldMapper.NAME, Uid.createUidAsBytes(parentType, id))), Occur.MUST);
@@ -107,8 +111,8 @@ final class ParentIdsFilter extends Filter {
             boolean constructed = false;
             try {
                 parentIds = new BytesRefHash(numFoundParents, searchContext.bigArrays());
-                for (int id = 0; id < parentIdxs.size(); id++) {
-                    parentIds.add(globalValues.lookupOrd((int) parentIdxs.get(id)));
+                for (int id = 0; id < hash.size(); id++) {
+                    parentIds.add(globalValues.lookupOrd((int) hash.get(id)));
                 }
                 constructed = true;
             } finally {
@@ -0,0 +1,148 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.index.search.child;
+
+import org.apache.lucene.util.LongBitSet;
+import org.elasticsearch.common.lease.Releasable;
+import org.elasticsearch.common.lease.Releasables;
+import org.elasticsearch.common.util.BigArrays;
+import org.elasticsearch.common.util.FloatArray;
+import org.elasticsearch.common.util.IntArray;
+import org.elasticsearch.common.util.LongHash;
+
+/**
+ * Maps the global ordinals of the parents found by the first round of a parent/child query to dense indices, which
+ * address the per parent scores and counts.
+ * <p/>
+ * This starts out as a {@link LongHash}, which takes little memory when few parents match. Every entry of the hash costs
+ * about as much as 8 global ordinals in a bit set plus an array indexed by global ordinal, so once more than 1/8th of
+ * all parents matched, {@link #shouldSwitchToOrdinals()} returns <code>true</code>. The owner then moves its arrays
+ * over to global ordinal indices through the <code>remap</code> methods and calls {@link #switchToOrdinals()}, after
+ * which the global ordinals themselves are the indices and matching parents are tracked in a {@link LongBitSet}.
+ */
+final class ParentIdxs implements Releasable {
+
+    private final BigArrays bigArrays;
+    private final long maxOrd;
+    private LongHash hash;
+    private LongBitSet ords;
+    private long size;
+
+    ParentIdxs(long maxOrd, BigArrays bigArrays) {
+        this.bigArrays = bigArrays;
+        this.maxOrd = maxOrd;
+        this.hash = new LongHash(512, bigArrays);
+    }
+
+    /**
+     * Adds the given global ordinal. Returns its index if it was not added before, or <code>-1 - index</code> if it was.
+     */
+    long add(long globalOrdinal) {
+        if (ords != null) {
+            if (ords.getAndSet(globalOrdinal)) {
+                return -1 - globalOrdinal;
+            }
+            size++;
+            return globalOrdinal;
+        }
+        final long parentIdx = hash.add(globalOrdinal);
+        if (parentIdx >= 0) {
+            size++;
+        }
+        return parentIdx;
+    }
+
+    /**
+     * Returns the index of the given global ordinal, or <code>-1</code> if it has not been added.
+     */
+    long find(long globalOrdinal) {
+        if (ords != null) {
+            return ords.get(globalOrdinal) ? globalOrdinal : -1;
+        }
+        return hash.find(globalOrdinal);
+    }
+
+    /**
+     * The number of global ordinals that have been added.
+     */
+    long size() {
+        return size;
+    }
+
+    /**
+     * The hash of the global ordinals, or <code>null</code> if this switched to global ordinal indices.
+     */
+    LongHash hash() {
+        return hash;
+    }
+
+    /**
+     * The bit set of the global ordinals, or <code>null</code> if this did not switch to global ordinal indices.
+     */
+    LongBitSet ords() {
+        return ords;
+    }
+
+    boolean shouldSwitchToOrdinals() {
+        return hash != null && size > (maxOrd >>> 3);
+    }
+
+    /**
+     * Moves the values of the given array from hash indices to global ordinal indices, and releases it.
+     */
+    FloatArray remap(FloatArray array) {
+        assert hash != null;
+        final FloatArray remapped = bigArrays.newFloatArray(maxOrd, false);
+        for (long i = 0; i < hash.size(); i++) {
+            remapped.set(hash.get(i), array.get(i));
+        }
+        Releasables.close(array);
+        return remapped;
+    }
+
+    /**
+     * Moves the values of the given array from hash indices to global ordinal indices, and releases it.
+     */
+    IntArray remap(IntArray array) {
+        assert hash != null;
+        final IntArray remapped = bigArrays.newIntArray(maxOrd, false);
+        for (long i = 0; i < hash.size(); i++) {
+            remapped.set(hash.get(i), array.get(i));
+        }
+        Releasables.close(array);
+        return remapped;
+    }
+
+    void switchToOrdinals() {
+        assert hash != null;
+        final LongBitSet ords = new LongBitSet(maxOrd);
+        for (long i = 0; i < hash.size(); i++) {
+            ords.set(hash.get(i));
+        }
+        this.ords = ords;
+        Releasables.close(hash);
+        hash = null;
+    }
+
+    @Override
+    public void close() {
+        Releasables.close(hash);
+    }
+}
@@ -43,13 +43,13 @@ import org.elasticsearch.common.lucene.docset.DocIdSets;
 import org.elasticsearch.common.lucene.search.NoopCollector;
 import org.elasticsearch.common.util.BigArrays;
 import org.elasticsearch.common.util.FloatArray;
-import org.elasticsearch.common.util.LongHash;
 import org.elasticsearch.index.fielddata.IndexParentChildFieldData;
 import org.elasticsearch.index.fielddata.plain.ParentChildIndexFieldData;
 import org.elasticsearch.search.internal.SearchContext;
 import org.elasticsearch.search.internal.SearchContext.Lifetime;
 
 import java.io.IOException;
+import java.util.List;
 import java.util.Set;
 
 /**
@@ -122,13 +122,19 @@ public class ParentQuery extends IndexCacheableQuery {
         boolean releaseCollectorResource = true;
         ParentOrdAndScoreCollector collector = null;
         IndexParentChildFieldData globalIfd = parentChildIndexFieldData.loadGlobal(searcher.getIndexReader());
-        if (globalIfd == null) {
+        List<LeafReaderContext> leaves = searcher.getIndexReader().leaves();
+        if (globalIfd == null || leaves.isEmpty()) {
             // No docs of the specified type don't exist on this shard
             return new BooleanQuery().createWeight(searcher, needsScores);
         }
+        final SortedDocValues globalValues = globalIfd.load(leaves.get(0)).getOrdinalsValues(parentType);
+        final long maxOrd = globalValues == null ? 0 : globalValues.getValueCount();
+        if (maxOrd == 0) {
+            return new BooleanQuery().createWeight(searcher, needsScores);
+        }
 
         try {
-            collector = new ParentOrdAndScoreCollector(sc, globalIfd, parentType);
+            collector = new ParentOrdAndScoreCollector(sc, globalIfd, maxOrd, parentType);
             IndexSearcher indexSearcher = new IndexSearcher(sc.searcher().getIndexReader());
             indexSearcher.setSimilarity(searcher.getSimilarity());
             indexSearcher.setQueryCache(null);
@@ -150,15 +156,15 @@ public class ParentQuery extends IndexCacheableQuery {
 
     private static class ParentOrdAndScoreCollector implements Collector, Releasable {
 
-        private final LongHash parentIdxs;
+        private final ParentIdxs parentIdxs;
         private FloatArray scores;
         private final IndexParentChildFieldData globalIfd;
         private final BigArrays bigArrays;
         private final String parentType;
 
-        ParentOrdAndScoreCollector(SearchContext searchContext, IndexParentChildFieldData globalIfd, String parentType) {
+        ParentOrdAndScoreCollector(SearchContext searchContext, IndexParentChildFieldData globalIfd, long maxOrd, String parentType) {
             this.bigArrays = searchContext.bigArrays();
-            this.parentIdxs = new LongHash(512, bigArrays);
+            this.parentIdxs = new ParentIdxs(maxOrd, bigArrays);
             this.scores = bigArrays.newFloatArray(512, false);
             this.globalIfd = globalIfd;
             this.parentType = parentType;
@@ -189,6 +195,10 @@ public class ParentQuery extends IndexCacheableQuery {
                         if (parentIdx >= 0) {
                             scores = bigArrays.grow(scores, parentIdx + 1);
                             scores.set(parentIdx, scorer.score());
+                            if (parentIdxs.shouldSwitchToOrdinals()) {
+                                scores = parentIdxs.remap(scores);
+                                parentIdxs.switchToOrdinals();
+                            }
                         } else {
                             assert false : "parent id should only match once, since there can only be one parent doc";
                         }
@@ -212,7 +222,7 @@ public class ParentQuery extends IndexCacheableQuery {
 
         private final Weight parentWeight;
         private final Filter childrenFilter;
-        private final LongHash parentIdxs;
+        private final ParentIdxs parentIdxs;
         private final FloatArray scores;
         private final IndexParentChildFieldData globalIfd;
 
@@ -267,7 +277,7 @@ public class ParentQuery extends IndexCacheableQuery {
 
     private static class ChildScorer extends Scorer {
 
-        private final LongHash parentIdxs;
+        private final ParentIdxs parentIdxs;
         private final FloatArray scores;
         private final DocIdSetIterator childrenIterator;
         private final SortedDocValues ordinals;
@@ -275,7 +285,7 @@ public class ParentQuery extends IndexCacheableQuery {
         private int currentChildDoc = -1;
         private float currentScore;
 
-        ChildScorer(Weight weight, LongHash parentIdxs, FloatArray scores, DocIdSetIterator childrenIterator, SortedDocValues ordinals) {
+        ChildScorer(Weight weight, ParentIdxs parentIdxs, FloatArray scores, DocIdSetIterator childrenIterator, SortedDocValues ordinals) {
             super(weight);
             this.parentIdxs = parentIdxs;
             this.scores = scores;
@@ -47,21 +47,30 @@ public class SearchStats implements Streamable, ToXContent {
         private long fetchTimeInMillis;
         private long fetchCurrent;
 
+        private long parsedQueryCacheHitCount;
+        private long parsedQueryCacheMissCount;
+        private long parsedQueryCacheSavedTimeInMillis;
+
         Stats() {
 
         }
 
-        public Stats(long queryCount, long queryTimeInMillis, long queryCurrent, long fetchCount, long fetchTimeInMillis, long fetchCurrent) {
+        public Stats(long queryCount, long queryTimeInMillis, long queryCurrent, long fetchCount, long fetchTimeInMillis, long fetchCurrent,
+                     long parsedQueryCacheHitCount, long parsedQueryCacheMissCount, long parsedQueryCacheSavedTimeInMillis) {
             this.queryCount = queryCount;
             this.queryTimeInMillis = queryTimeInMillis;
             this.queryCurrent = queryCurrent;
             this.fetchCount = fetchCount;
             this.fetchTimeInMillis = fetchTimeInMillis;
             this.fetchCurrent = fetchCurrent;
+            this.parsedQueryCacheHitCount = parsedQueryCacheHitCount;
+            this.parsedQueryCacheMissCount = parsedQueryCacheMissCount;
+            this.parsedQueryCacheSavedTimeInMillis = parsedQueryCacheSavedTimeInMillis;
         }
 
         public Stats(Stats stats) {
-            this(stats.queryCount, stats.queryTimeInMillis, stats.queryCurrent, stats.fetchCount, stats.fetchTimeInMillis, stats.fetchCurrent);
+            this(stats.queryCount, stats.queryTimeInMillis, stats.queryCurrent, stats.fetchCount, stats.fetchTimeInMillis, stats.fetchCurrent,
+                    stats.parsedQueryCacheHitCount, stats.parsedQueryCacheMissCount, stats.parsedQueryCacheSavedTimeInMillis);
         }
 
         public void add(Stats stats) {
@@ -72,6 +81,10 @@ public class SearchStats implements Streamable, ToXContent {
             fetchCount += stats.fetchCount;
             fetchTimeInMillis += stats.fetchTimeInMillis;
             fetchCurrent += stats.fetchCurrent;
+
+            parsedQueryCacheHitCount += stats.parsedQueryCacheHitCount;
+            parsedQueryCacheMissCount += stats.parsedQueryCacheMissCount;
+            parsedQueryCacheSavedTimeInMillis += stats.parsedQueryCacheSavedTimeInMillis;
         }
 
         public long getQueryCount() {
@@ -106,6 +119,29 @@ public class SearchStats implements Streamable, ToXContent {
             return fetchCurrent;
         }
 
+        /**
+         * The number of queries that were reused from the parsed query cache instead of being parsed.
+         */
+        public long getParsedQueryCacheHitCount() {
+            return parsedQueryCacheHitCount;
+        }
+
+        public long getParsedQueryCacheMissCount() {
+            return parsedQueryCacheMissCount;
+        }
+
+        /**
+         * The time it took to parse the queries that were reused from the parsed query cache, which is the time that
+         * reusing them saved.
+         */
+        public TimeValue getParsedQueryCacheSavedTime() {
+            return new TimeValue(parsedQueryCacheSavedTimeInMillis);
+        }
+
+        public long getParsedQueryCacheSavedTimeInMillis() {
+            return parsedQueryCacheSavedTimeInMillis;
+        }
+
 
         public static Stats readStats(StreamInput in) throws IOException {
             Stats stats = new Stats();
@@ -122,6 +158,10 @@ public class SearchStats implements Streamable, ToXContent {
             fetchCount = in.readVLong();
             fetchTimeInMillis = in.readVLong();
             fetchCurrent = in.readVLong();
+
+            parsedQueryCacheHitCount = in.readVLong();
+            parsedQueryCacheMissCount = in.readVLong();
+            parsedQueryCacheSavedTimeInMillis = in.readVLong();
         }
 
         @Override
@@ -133,6 +173,10 @@ public class SearchStats implements Streamable, ToXContent {
             out.writeVLong(fetchCount);
             out.writeVLong(fetchTimeInMillis);
             out.writeVLong(fetchCurrent);
+
+            out.writeVLong(parsedQueryCacheHitCount);
+            out.writeVLong(parsedQueryCacheMissCount);
+            out.writeVLong(parsedQueryCacheSavedTimeInMillis);
         }
 
         @Override
@@ -145,6 +189,10 @@ public class SearchStats implements Streamable, ToXContent {
             builder.timeValueField(Fields.FETCH_TIME_IN_MILLIS, Fields.FETCH_TIME, fetchTimeInMillis);
             builder.field(Fields.FETCH_CURRENT, fetchCurrent);
 
+            builder.field(Fields.PARSED_QUERY_CACHE_HIT_COUNT, parsedQueryCacheHitCount);
+            builder.field(Fields.PARSED_QUERY_CACHE_MISS_COUNT, parsedQueryCacheMissCount);
+            builder.timeValueField(Fields.PARSED_QUERY_CACHE_SAVED_TIME_IN_MILLIS, Fields.PARSED_QUERY_CACHE_SAVED_TIME, parsedQueryCacheSavedTimeInMillis);
+
             return builder;
         }
     }
@@ -233,6 +281,10 @@ public class SearchStats implements Streamable, ToXContent {
         static final XContentBuilderString FETCH_TIME = new XContentBuilderString("fetch_time");
         static final XContentBuilderString FETCH_TIME_IN_MILLIS = new XContentBuilderString("fetch_time_in_millis");
         static final XContentBuilderString FETCH_CURRENT = new XContentBuilderString("fetch_current");
+        static final XContentBuilderString PARSED_QUERY_CACHE_HIT_COUNT = new XContentBuilderString("parsed_query_cache_hit_count");
+        static final XContentBuilderString PARSED_QUERY_CACHE_MISS_COUNT = new XContentBuilderString("parsed_query_cache_miss_count");
+        static final XContentBuilderString PARSED_QUERY_CACHE_SAVED_TIME = new XContentBuilderString("parsed_query_cache_saved_time");
+        static final XContentBuilderString PARSED_QUERY_CACHE_SAVED_TIME_IN_MILLIS = new XContentBuilderString("parsed_query_cache_saved_time_in_millis");
     }
 
     public static SearchStats readSearchStats(StreamInput in) throws IOException {
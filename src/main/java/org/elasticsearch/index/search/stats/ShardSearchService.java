@@ -26,6 +26,7 @@ import org.elasticsearch.common.metrics.CounterMetric;
 import org.elasticsearch.common.metrics.MeanMetric;
 import org.elasticsearch.common.regex.Regex;
 import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.index.query.ParsedQueryCache;
 import org.elasticsearch.index.search.slowlog.ShardSlowLogSearchService;
 import org.elasticsearch.index.settings.IndexSettings;
 import org.elasticsearch.index.shard.AbstractIndexShardComponent;
@@ -140,6 +141,33 @@ public class ShardSearchService extends AbstractIndexShardComponent {
         slowLogSearchService.onFetchPhase(searchContext, tookInNanos);
     }
 
+    /**
+     * Returns a listener that records the parsed query cache lookups of the given search in the stats.
+     */
+    public ParsedQueryCache.Listener parsedQueryCacheListener(final SearchContext searchContext) {
+        return new ParsedQueryCache.Listener() {
+            @Override
+            public void onHit(long savedNanos) {
+                totalStats.parsedQueryCacheHits.inc(savedNanos);
+                if (searchContext.groupStats() != null) {
+                    for (int i = 0; i < searchContext.groupStats().size(); i++) {
+                        groupStats(searchContext.groupStats().get(i)).parsedQueryCacheHits.inc(savedNanos);
+                    }
+                }
+            }
+
+            @Override
+            public void onMiss() {
+                totalStats.parsedQueryCacheMisses.inc();
+                if (searchContext.groupStats() != null) {
+                    for (int i = 0; i < searchContext.groupStats().size(); i++) {
+                        groupStats(searchContext.groupStats().get(i)).parsedQueryCacheMisses.inc();
+                    }
+                }
+            }
+        };
+    }
+
     public void clear() {
         totalStats.clear();
         synchronized (this) {
@@ -183,10 +211,13 @@ public class ShardSearchService extends AbstractIndexShardComponent {
         public final MeanMetric fetchMetric = new MeanMetric();
         public final CounterMetric queryCurrent = new CounterMetric();
         public final CounterMetric fetchCurrent = new CounterMetric();
+        public final MeanMetric parsedQueryCacheHits = new MeanMetric();
+        public final CounterMetric parsedQueryCacheMisses = new CounterMetric();
 
         public SearchStats.Stats stats() {
             return new SearchStats.Stats(queryMetric.count(), TimeUnit.NANOSECONDS.toMillis(queryMetric.sum()), queryCurrent.count(),
-                    fetchMetric.count(), TimeUnit.NANOSECONDS.toMillis(fetchMetric.sum()), fetchCurrent.count());
+                    fetchMetric.count(), TimeUnit.NANOSECONDS.toMillis(fetchMetric.sum()), fetchCurrent.count(),
+                    parsedQueryCacheHits.count(), parsedQueryCacheMisses.count(), TimeUnit.NANOSECONDS.toMillis(parsedQueryCacheHits.sum()));
         }
 
         public long totalCurrent() {
@@ -196,6 +227,8 @@ public class ShardSearchService extends AbstractIndexShardComponent {
         public void clear() {
             queryMetric.clear();
             fetchMetric.clear();
+            parsedQueryCacheHits.clear();
+            parsedQueryCacheMisses.clear();
         }
     }
 }
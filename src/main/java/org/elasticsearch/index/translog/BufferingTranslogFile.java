@@ -98,18 +98,6 @@ public final class BufferingTranslogFile extends TranslogFile {
         return totalOffset != lastSyncedOffset;
     }
 
-    @Override
-    public void sync() throws IOException {
-        if (!syncNeeded()) {
-            return;
-        }
-        try (ReleasableLock lock = writeLock.acquire()) {
-            flush();
-            lastSyncedOffset = totalOffset;
-        }
-        channelReference.channel().force(false);
-    }
-
     @Override
     public void reuse(TranslogFile other) {
         if (!(other instanceof BufferingTranslogFile)) {
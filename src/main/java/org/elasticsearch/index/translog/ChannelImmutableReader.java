@@ -83,4 +83,9 @@ public final class ChannelImmutableReader extends ChannelReader {
     public ChannelSnapshot newSnapshot() {
         return new ChannelSnapshot(clone());
     }
+
+    @Override
+    public ChannelSnapshot newMappedSnapshot() {
+        return new MMapChannelSnapshot(clone());
+    }
 }
@@ -107,6 +107,9 @@ public abstract class ChannelReader implements Closeable, Comparable<ChannelRead
     /** create snapshot for this channel */
     abstract public ChannelSnapshot newSnapshot();
 
+    /** create snapshot for this channel that reads operations from a memory mapped view of the file */
+    abstract public ChannelSnapshot newMappedSnapshot();
+
     @Override
     public void close() throws IOException {
         if (closed.compareAndSet(false, true)) {
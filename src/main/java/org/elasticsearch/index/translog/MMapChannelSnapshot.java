@@ -0,0 +1,98 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.index.translog;
+
+import org.elasticsearch.common.io.stream.ByteBufferStreamInput;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * A {@link ChannelSnapshot} that deserializes operations straight from a read only memory mapped view of the
+ * translog file instead of copying every operation into a heap buffer with a positional read. Files are mapped in
+ * regions of at most {@link #DEFAULT_MAX_MAP_SIZE} bytes, each starting at an operation, so that no operation
+ * crosses a region boundary. Mapped regions are released by the garbage collector. This class is NOT thread-safe.
+ */
+public class MMapChannelSnapshot extends ChannelSnapshot {
+
+    static final int DEFAULT_MAX_MAP_SIZE = 1 << 30;
+
+    private final int maxMapSize;
+    private MappedByteBuffer mapped;
+    private ByteBufferStreamInput mappedIn;
+    private long mappedStart;
+    private long mappedEnd;
+
+    public MMapChannelSnapshot(ChannelReader reader) {
+        this(reader, DEFAULT_MAX_MAP_SIZE);
+    }
+
+    MMapChannelSnapshot(ChannelReader reader, int maxMapSize) {
+        super(reader);
+        this.maxMapSize = maxMapSize;
+    }
+
+    @Override
+    public Translog.Operation next(ByteBuffer reusableBuffer) throws IOException {
+        final long length = reader.sizeInBytes();
+        if (position >= length) {
+            return null;
+        }
+        ensureMapped(position, 4, length);
+        // the limit was moved to the end of the previous operation
+        mapped.clear();
+        final int offset = (int) (position - mappedStart);
+        // Add an extra 4 to account for the operation size integer itself
+        final int opSize = mapped.getInt(offset) + 4;
+        if (opSize <= 4 || opSize > maxMapSize) {
+            throw new TranslogCorruptedException("invalid operation size [" + opSize + "] at position [" + position + "] of " + reader);
+        }
+        ensureMapped(position, opSize, length);
+        final int opOffset = (int) (position - mappedStart);
+        mapped.limit(opOffset + opSize);
+        mapped.position(opOffset);
+        Translog.Operation op = reader.channelReference.stream().read(mappedIn);
+        position += opSize;
+        return op;
+    }
+
+    /** makes sure the given range is mapped, mapping a new region starting at the given position if it is not */
+    private void ensureMapped(long from, int size, long length) throws IOException {
+        if (from + size > length) {
+            throw new EOFException("read requested past EOF. pos [" + from + "] size [" + size + "] end: [" + length + "]");
+        }
+        if (mapped == null || from < mappedStart || from + size > mappedEnd) {
+            mappedStart = from;
+            mappedEnd = Math.min(length, from + maxMapSize);
+            mapped = reader.channel.map(FileChannel.MapMode.READ_ONLY, mappedStart, mappedEnd - mappedStart);
+            mappedIn = new ByteBufferStreamInput(mapped);
+        }
+    }
+
+    @Override
+    public void close() {
+        mapped = null;
+        mappedIn = null;
+        super.close();
+    }
+}
@@ -23,6 +23,7 @@ import com.google.common.collect.Iterables;
 import org.apache.lucene.index.Term;
 import org.apache.lucene.util.Accountable;
 import org.apache.lucene.util.CollectionUtil;
+import org.apache.lucene.util.Constants;
 import org.apache.lucene.util.IOUtils;
 import org.apache.lucene.util.RamUsageEstimator;
 import org.elasticsearch.ElasticsearchException;
@@ -78,6 +79,7 @@ public class Translog extends AbstractIndexShardComponent implements IndexShardC
     public static final String INDEX_TRANSLOG_FS_TYPE = "index.translog.fs.type";
     public static final String INDEX_TRANSLOG_BUFFER_SIZE = "index.translog.fs.buffer_size";
     public static final String INDEX_TRANSLOG_SYNC_INTERVAL = "index.translog.sync_interval";
+    public static final String INDEX_TRANSLOG_MMAP_SNAPSHOTS = "index.translog.fs.mmap_snapshots";
     public static final String TRANSLOG_FILE_PREFIX = "translog-";
     static final Pattern PARSE_ID_PATTERN = Pattern.compile(TRANSLOG_FILE_PREFIX + "(\\d+)(\\.recovering)?$");
     private final TimeValue syncInterval;
@@ -104,6 +106,12 @@ public class Translog extends AbstractIndexShardComponent implements IndexShardC
                 logger.info("updating durability from [{}] to [{}]", Translog.this.durabilty, durabilty);
                 Translog.this.durabilty = durabilty;
             }
+
+            final boolean mmapSnapshots = settings.getAsBoolean(INDEX_TRANSLOG_MMAP_SNAPSHOTS, Translog.this.mmapSnapshots);
+            if (mmapSnapshots != Translog.this.mmapSnapshots) {
+                logger.info("updating mmap_snapshots from [{}] to [{}]", Translog.this.mmapSnapshots, mmapSnapshots);
+                Translog.this.mmapSnapshots = mmapSnapshots;
+            }
         }
     }
 
@@ -122,6 +130,9 @@ public class Translog extends AbstractIndexShardComponent implements IndexShardC
     // ordered by age
     private final List<ChannelImmutableReader> uncommittedTranslogs = new ArrayList<>();
     private long lastCommittedTranslogId = -1; // -1 is safe as it will not cause an translog deletion.
+    // sync stats of the translog files that were already rolled over
+    private long previousSyncCount = 0;
+    private long previousSyncedOperationsCount = 0;
 
     private TranslogFile.Type type;
 
@@ -129,6 +140,9 @@ public class Translog extends AbstractIndexShardComponent implements IndexShardC
 
     private volatile int bufferSize;
 
+    // mapped files can't be deleted on windows until the mapping is garbage collected
+    private volatile boolean mmapSnapshots;
+
     private final ApplySettings applySettings = new ApplySettings();
 
     private final AtomicBoolean closed = new AtomicBoolean();
@@ -159,6 +173,8 @@ public class Translog extends AbstractIndexShardComponent implements IndexShardC
         this.type = TranslogFile.Type.fromString(indexSettings.get(INDEX_TRANSLOG_FS_TYPE, TranslogFile.Type.BUFFERED.name()));
         this.bufferSize = (int) indexSettings.getAsBytesSize(INDEX_TRANSLOG_BUFFER_SIZE, ByteSizeValue.parseBytesSizeValue("64k")).bytes(); // Not really interesting, updated by IndexingMemoryController...
 
+        this.mmapSnapshots = indexSettings.getAsBoolean(INDEX_TRANSLOG_MMAP_SNAPSHOTS, Constants.JRE_IS_64BIT && Constants.WINDOWS == false);
+
         syncInterval = indexSettings.getAsTime(INDEX_TRANSLOG_SYNC_INTERVAL, TimeValue.timeValueSeconds(5));
         if (syncInterval.millis() > 0 && threadPool != null) {
             this.syncOnEachOperation = false;
@@ -373,6 +389,9 @@ public class Translog extends AbstractIndexShardComponent implements IndexShardC
                 view.onNewTranslog(old.immutableReader(), current.reader());
             }
             IOUtils.close(old);
+            // closing syncs the old file so we take its counts only now
+            previousSyncCount += old.syncCount();
+            previousSyncedOperationsCount += old.syncedOperationsCount();
             logger.trace("current translog set to [{}]", current.translogId());
             return current.translogId();
         }
@@ -458,8 +477,9 @@ public class Translog extends AbstractIndexShardComponent implements IndexShardC
         ArrayList<ChannelSnapshot> channelSnapshots = new ArrayList<>();
         boolean success = false;
         try {
+            final boolean mmap = mmapSnapshots;
             for (ChannelReader translog : translogs) {
-                channelSnapshots.add(translog.newSnapshot());
+                channelSnapshots.add(mmap ? translog.newMappedSnapshot() : translog.newSnapshot());
             }
             Snapshot snapshot = new TranslogSnapshot(channelSnapshots, logger);
             success = true;
@@ -540,7 +560,8 @@ public class Translog extends AbstractIndexShardComponent implements IndexShardC
     public TranslogStats stats() {
         // acquire lock to make the two numbers roughly consistent (no file change half way)
         try (ReleasableLock lock = readLock.acquire()) {
-            return new TranslogStats(totalOperations(), sizeInBytes());
+            return new TranslogStats(totalOperations(), sizeInBytes(),
+                    previousSyncCount + current.syncCount(), previousSyncedOperationsCount + current.syncedOperationsCount());
         }
     }
 
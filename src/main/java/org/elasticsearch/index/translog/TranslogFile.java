@@ -22,6 +22,7 @@ package org.elasticsearch.index.translog;
 import org.elasticsearch.common.bytes.BytesArray;
 import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.io.Channels;
+import org.elasticsearch.common.metrics.CounterMetric;
 import org.elasticsearch.common.util.concurrent.ReleasableLock;
 import org.elasticsearch.index.shard.ShardId;
 
@@ -41,6 +42,12 @@ public class TranslogFile extends ChannelReader {
     protected volatile int operationCounter;
     /* the offset in bytes written to the file */
     protected volatile long writtenOffset;
+    /* the number of translog operations that were covered by the last sync */
+    protected volatile int lastSyncedOperationCounter;
+    /* serializes fsyncs such that concurrent callers of syncUpTo are covered by a single fsync */
+    private final Object syncLock = new Object();
+    private final CounterMetric syncCounter = new CounterMetric();
+    private final CounterMetric syncedOperationsCounter = new CounterMetric();
 
     public TranslogFile(ShardId shardId, long id, ChannelReference channelReference) throws IOException {
         super(id, channelReference);
@@ -100,17 +107,41 @@ public class TranslogFile extends ChannelReader {
     /** change the size of the internal buffer if relevant */
     public void updateBufferSize(int bufferSize) throws TranslogException {}
 
-    /** write all buffered ops to disk and fsync file */
+    /**
+     * write all buffered ops to disk and fsync file. The fsync itself is done outside of the write lock
+     * such that concurrent writers can continue to add operations which will be covered by the next sync.
+     */
     public void sync() throws IOException {
-        // check if we really need to sync here...
-        if (syncNeeded()) {
+        synchronized (syncLock) {
+            // check if we really need to sync here...
+            if (syncNeeded() == false) {
+                return;
+            }
+            final long offset;
+            final int operations;
             try (ReleasableLock lock = writeLock.acquire()) {
-                lastSyncedOffset = writtenOffset;
-                channelReference.channel().force(false);
+                flush();
+                offset = writtenOffset;
+                operations = operationCounter;
             }
+            channelReference.channel().force(false);
+            syncCounter.inc();
+            syncedOperationsCounter.inc(operations - lastSyncedOperationCounter);
+            lastSyncedOperationCounter = operations;
+            lastSyncedOffset = offset;
         }
     }
 
+    /** returns the number of fsyncs performed on this file */
+    public long syncCount() {
+        return syncCounter.count();
+    }
+
+    /** returns the number of operations that were made durable by the fsyncs performed on this file */
+    public long syncedOperationsCount() {
+        return syncedOperationsCounter.count();
+    }
+
     /** returns true if there are buffered ops */
     public boolean syncNeeded() {
         return writtenOffset != lastSyncedOffset; // by default nothing is buffered
@@ -131,6 +162,11 @@ public class TranslogFile extends ChannelReader {
         return new ChannelSnapshot(immutableReader());
     }
 
+    @Override
+    public ChannelSnapshot newMappedSnapshot() {
+        return new MMapChannelSnapshot(immutableReader());
+    }
+
     /**
      * Flushes the buffer if the translog is buffered.
      */
@@ -208,16 +244,29 @@ public class TranslogFile extends ChannelReader {
         public ChannelSnapshot newSnapshot() {
             return TranslogFile.this.newSnapshot();
         }
+
+        @Override
+        public ChannelSnapshot newMappedSnapshot() {
+            return TranslogFile.this.newMappedSnapshot();
+        }
     }
 
     /**
-     * Syncs the translog up to at least the given offset unless already synced
+     * Syncs the translog up to at least the given offset unless already synced. Concurrent callers are
+     * grouped: while one thread fsyncs, the others wait for it and only sync again if their offset was
+     * written after the pending fsync started. This way a single fsync covers all operations that were
+     * added by the waiting threads.
      * @return <code>true</code> if this call caused an actual sync operation
      */
     public boolean syncUpTo(long offset) throws IOException {
         if (lastSyncedOffset < offset) {
-            sync();
-            return true;
+            synchronized (syncLock) {
+                // re-check, another thread might have synced our offset while we were waiting
+                if (lastSyncedOffset < offset) {
+                    sync();
+                    return true;
+                }
+            }
         }
         return false;
     }
@@ -35,14 +35,22 @@ public class TranslogStats implements ToXContent, Streamable {
 
     private long translogSizeInBytes = 0;
     private int estimatedNumberOfOperations = -1;
+    private long syncCount = 0;
+    private long syncedOperations = 0;
 
     public TranslogStats() {
     }
 
     public TranslogStats(int estimatedNumberOfOperations, long translogSizeInBytes) {
+        this(estimatedNumberOfOperations, translogSizeInBytes, 0, 0);
+    }
+
+    public TranslogStats(int estimatedNumberOfOperations, long translogSizeInBytes, long syncCount, long syncedOperations) {
         assert translogSizeInBytes >= 0 : "translogSizeInBytes must be >= 0, got [" + translogSizeInBytes + "]";
         this.estimatedNumberOfOperations = estimatedNumberOfOperations;
         this.translogSizeInBytes = translogSizeInBytes;
+        this.syncCount = syncCount;
+        this.syncedOperations = syncedOperations;
     }
 
     public void add(TranslogStats translogStats) {
@@ -51,7 +59,9 @@ public class TranslogStats implements ToXContent, Streamable {
         }
 
         this.estimatedNumberOfOperations += translogStats.estimatedNumberOfOperations;
-        this.translogSizeInBytes = +translogStats.translogSizeInBytes;
+        this.translogSizeInBytes += translogStats.translogSizeInBytes;
+        this.syncCount += translogStats.syncCount;
+        this.syncedOperations += translogStats.syncedOperations;
     }
 
     public ByteSizeValue translogSizeInBytes() {
@@ -62,11 +72,28 @@ public class TranslogStats implements ToXContent, Streamable {
         return estimatedNumberOfOperations;
     }
 
+    /**
+     * The number of fsyncs performed on the translog
+     */
+    public long syncCount() {
+        return syncCount;
+    }
+
+    /**
+     * The number of operations that were made durable by the fsyncs. Compared to {@link #syncCount()} this
+     * shows how many operations were grouped into a single fsync on average.
+     */
+    public long syncedOperations() {
+        return syncedOperations;
+    }
+
     @Override
     public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
         builder.startObject(Fields.TRANSLOG);
         builder.field(Fields.OPERATIONS, estimatedNumberOfOperations);
         builder.byteSizeField(Fields.SIZE_IN_BYTES, Fields.SIZE, translogSizeInBytes);
+        builder.field(Fields.SYNCS, syncCount);
+        builder.field(Fields.SYNCED_OPERATIONS, syncedOperations);
         builder.endObject();
         return builder;
     }
@@ -76,17 +103,23 @@ public class TranslogStats implements ToXContent, Streamable {
         static final XContentBuilderString OPERATIONS = new XContentBuilderString("operations");
         static final XContentBuilderString SIZE = new XContentBuilderString("size");
         static final XContentBuilderString SIZE_IN_BYTES = new XContentBuilderString("size_in_bytes");
+        static final XContentBuilderString SYNCS = new XContentBuilderString("syncs");
+        static final XContentBuilderString SYNCED_OPERATIONS = new XContentBuilderString("synced_operations");
     }
 
     @Override
     public void readFrom(StreamInput in) throws IOException {
         estimatedNumberOfOperations = in.readVInt();
         translogSizeInBytes = in.readVLong();
+        syncCount = in.readVLong();
+        syncedOperations = in.readVLong();
     }
 
     @Override
     public void writeTo(StreamOutput out) throws IOException {
         out.writeVInt(estimatedNumberOfOperations);
         out.writeVLong(translogSizeInBytes);
+        out.writeVLong(syncCount);
+        out.writeVLong(syncedOperations);
     }
 }
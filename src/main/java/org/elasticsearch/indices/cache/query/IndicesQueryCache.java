@@ -29,11 +29,14 @@ import com.google.common.cache.Weigher;
 
 import org.apache.lucene.index.DirectoryReader;
 import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.LeafReader;
+import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.util.Accountable;
 import org.apache.lucene.util.RamUsageEstimator;
 import org.elasticsearch.action.search.SearchType;
 import org.elasticsearch.cluster.ClusterService;
 import org.elasticsearch.cluster.metadata.IndexMetaData;
+import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.component.AbstractComponent;
 import org.elasticsearch.common.inject.Inject;
@@ -43,6 +46,7 @@ import org.elasticsearch.common.unit.MemorySizeValue;
 import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
 import org.elasticsearch.common.util.concurrent.EsRejectedExecutionException;
+import org.elasticsearch.index.mapper.DocumentMapper;
 import org.elasticsearch.index.shard.IndexShard;
 import org.elasticsearch.index.shard.IndexShardState;
 import org.elasticsearch.search.internal.SearchContext;
@@ -51,10 +55,12 @@ import org.elasticsearch.search.query.QueryPhase;
 import org.elasticsearch.search.query.QuerySearchResult;
 import org.elasticsearch.threadpool.ThreadPool;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.EnumSet;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Set;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentMap;
@@ -72,6 +78,10 @@ import static org.elasticsearch.common.Strings.hasLength;
  * Currently, the cache is only enabled for {@link SearchType#COUNT}, and can only be opted in on an index
  * level setting that can be dynamically changed and defaults to false.
  * <p/>
+ * Indices that refresh often can additionally opt in to caching the results per segment, see
+ * {@link #INDEX_CACHE_QUERY_SEGMENTS}. The result of each segment is then keyed on the segment core and its
+ * number of deletes, so a refresh only requires to compute the results of the new segments.
+ * <p/>
  * There are still several TODOs left in this class, some easily addressable, some more complex, but the support
  * is functional.
  */
@@ -82,6 +92,13 @@ public class IndicesQueryCache extends AbstractComponent implements RemovalListe
      * since we are checking on the cluster state IndexMetaData always.
      */
     public static final String INDEX_CACHE_QUERY_ENABLED = "index.cache.query.enable";
+    /**
+     * A setting to cache the query results per segment instead of per shard reader. The segment results are
+     * partially reduced into the shard result, which means that aggregations that prune per shard (like the
+     * <code>shard_size</code> of terms) prune per segment instead. Indices with parent/child mappings always
+     * use the shard level cache since their queries need the whole shard reader.
+     */
+    public static final String INDEX_CACHE_QUERY_SEGMENTS = "index.cache.query.segments";
     public static final String INDICES_CACHE_QUERY_CLEAN_INTERVAL = "indices.cache.query.clean_interval";
 
     public static final String INDICES_CACHE_QUERY_SIZE = "indices.cache.query.size";
@@ -98,6 +115,8 @@ public class IndicesQueryCache extends AbstractComponent implements RemovalListe
 
     final ConcurrentMap<CleanupKey, Boolean> registeredClosedListeners = ConcurrentCollections.newConcurrentMap();
     final Set<CleanupKey> keysToClean = ConcurrentCollections.newConcurrentSet();
+    final ConcurrentMap<Object, Boolean> registeredCoreClosedListeners = ConcurrentCollections.newConcurrentMap();
+    final Set<Object> segmentsToClean = ConcurrentCollections.newConcurrentSet();
 
 
     //TODO make these changes configurable on the cluster level
@@ -217,6 +236,88 @@ public class IndicesQueryCache extends AbstractComponent implements RemovalListe
         return true;
     }
 
+    /**
+     * Can the shard request be cached per segment? Only requests that {@link #canCache can be cached} and for which
+     * the index opted in to {@link #INDEX_CACHE_QUERY_SEGMENTS segment level caching}.
+     */
+    public boolean canCacheSegments(ShardSearchRequest request, SearchContext context) {
+        if (!canCache(request, context)) {
+            return false;
+        }
+        // suggestions and terminate_after are applied to the whole shard reader
+        if (context.suggest() != null || context.terminateAfter() != SearchContext.DEFAULT_TERMINATE_AFTER) {
+            return false;
+        }
+        // empty shards have no segment results to reduce
+        if (context.searcher().getIndexReader().leaves().isEmpty()) {
+            return false;
+        }
+        IndexMetaData index = clusterService.state().getMetaData().index(request.index());
+        if (index == null || !index.settings().getAsBoolean(INDEX_CACHE_QUERY_SEGMENTS, Boolean.FALSE)) {
+            return false;
+        }
+        // parent/child queries join documents across segments
+        for (DocumentMapper documentMapper : context.mapperService().docMappers(false)) {
+            if (documentMapper.parentFieldMapper().active()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Creates the search context that executes the query phase of the request against a single segment.
+     */
+    public interface SegmentContextFactory {
+
+        SearchContext createContext(LeafReaderContext leaf);
+    }
+
+    /**
+     * Loads the query result of every segment of the context's reader, computing the results of segments that are not
+     * cached yet by executing the query phase on a {@link SegmentContextFactory#createContext segment context}. The
+     * returned results are in segment order and are meant to be partially reduced into the shard result by the caller.
+     */
+    public List<QuerySearchResult> loadSegments(final ShardSearchRequest request, final SearchContext context, final QueryPhase queryPhase,
+                                                final SegmentContextFactory contextFactory) throws Exception {
+        assert canCacheSegments(request, context);
+        final BytesReference cacheKey = request.cacheKey();
+        final List<LeafReaderContext> leaves = context.searcher().getIndexReader().leaves();
+        final List<QuerySearchResult> results = new ArrayList<>(leaves.size());
+        for (LeafReaderContext leaf : leaves) {
+            final LeafReader reader = leaf.reader();
+            Key key = new Key(context.indexShard(), reader.getCoreCacheKey(), reader.numDeletedDocs(), cacheKey);
+            SegmentLoader loader = new SegmentLoader(queryPhase, contextFactory, leaf, key);
+            Value value = cache.get(key, loader);
+            if (loader.isLoaded()) {
+                key.shard.queryCache().onSegmentMiss();
+                // see if its the first time we see this segment, and make sure to clean its entries once it is closed
+                final Object coreKey = reader.getCoreCacheKey();
+                if (!registeredCoreClosedListeners.containsKey(coreKey)) {
+                    Boolean previous = registeredCoreClosedListeners.putIfAbsent(coreKey, Boolean.TRUE);
+                    if (previous == null) {
+                        reader.addCoreClosedListener(new LeafReader.CoreClosedListener() {
+                            @Override
+                            public void onClose(Object ownerCoreCacheKey) {
+                                Boolean remove = registeredCoreClosedListeners.remove(ownerCoreCacheKey);
+                                if (remove != null) {
+                                    segmentsToClean.add(ownerCoreCacheKey);
+                                }
+                            }
+                        });
+                    }
+                }
+            } else {
+                key.shard.queryCache().onSegmentHit();
+            }
+            final QuerySearchResult result = new QuerySearchResult();
+            result.readFromWithId(context.id(), value.reference.streamInput());
+            result.shardTarget(context.shardTarget());
+            results.add(result);
+        }
+        return results;
+    }
+
     /**
      * Loads the cache result, computing it if needed by executing the query phase and otherwise deserializing the cached
      * value into the {@link SearchContext#queryResult() context's query result}. The combination of load + compute allows
@@ -289,6 +390,45 @@ public class IndicesQueryCache extends AbstractComponent implements RemovalListe
         }
     }
 
+    private static class SegmentLoader implements Callable<Value> {
+
+        private final QueryPhase queryPhase;
+        private final SegmentContextFactory contextFactory;
+        private final LeafReaderContext leaf;
+        private final IndicesQueryCache.Key key;
+        private boolean loaded;
+
+        SegmentLoader(QueryPhase queryPhase, SegmentContextFactory contextFactory, LeafReaderContext leaf, IndicesQueryCache.Key key) {
+            this.queryPhase = queryPhase;
+            this.contextFactory = contextFactory;
+            this.leaf = leaf;
+            this.key = key;
+        }
+
+        public boolean isLoaded() {
+            return this.loaded;
+        }
+
+        @Override
+        public Value call() throws Exception {
+            final SearchContext segmentContext = contextFactory.createContext(leaf);
+            try {
+                queryPhase.execute(segmentContext);
+                // segment results are usually small, see Loader for the expected size
+                try (BytesStreamOutput out = new BytesStreamOutput(512)) {
+                    segmentContext.queryResult().writeToNoId(out);
+                    final BytesReference reference = out.bytes();
+                    loaded = true;
+                    Value value = new Value(reference, out.ramBytesUsed());
+                    key.shard.queryCache().onCached(key, value);
+                    return value;
+                }
+            } finally {
+                segmentContext.close();
+            }
+        }
+    }
+
     public static class Value implements Accountable {
         final BytesReference reference;
         final long ramBytesUsed;
@@ -312,17 +452,31 @@ public class IndicesQueryCache extends AbstractComponent implements RemovalListe
     public static class Key implements Accountable {
         public final IndexShard shard; // use as identity equality
         public final long readerVersion; // use the reader version to now keep a reference to a "short" lived reader until its reaped
+        @Nullable
+        public final Object segmentCoreKey; // the core of the segment for segment level entries, use as identity equality
         public final BytesReference value;
 
         Key(IndexShard shard, long readerVersion, BytesReference value) {
+            this(shard, readerVersion, null, value);
+        }
+
+        /**
+         * A segment level key, the number of deletes identifies the live docs since deletes only grow for a given segment core.
+         */
+        Key(IndexShard shard, Object segmentCoreKey, int numDeletedDocs, BytesReference value) {
+            this(shard, numDeletedDocs, segmentCoreKey, value);
+        }
+
+        private Key(IndexShard shard, long readerVersion, Object segmentCoreKey, BytesReference value) {
             this.shard = shard;
             this.readerVersion = readerVersion;
+            this.segmentCoreKey = segmentCoreKey;
             this.value = value;
         }
 
         @Override
         public long ramBytesUsed() {
-            return RamUsageEstimator.NUM_BYTES_OBJECT_REF + RamUsageEstimator.NUM_BYTES_LONG + value.length();
+            return 2 * RamUsageEstimator.NUM_BYTES_OBJECT_REF + RamUsageEstimator.NUM_BYTES_LONG + value.length();
         }
 
         @Override
@@ -336,6 +490,7 @@ public class IndicesQueryCache extends AbstractComponent implements RemovalListe
             if (this == o) return true;
             Key key = (Key) o;
             if (readerVersion != key.readerVersion) return false;
+            if (segmentCoreKey != key.segmentCoreKey) return false;
             if (!shard.equals(key.shard)) return false;
             if (!value.equals(key.value)) return false;
             return true;
@@ -345,6 +500,7 @@ public class IndicesQueryCache extends AbstractComponent implements RemovalListe
         public int hashCode() {
             int result = shard.hashCode();
             result = 31 * result + (int) (readerVersion ^ (readerVersion >>> 32));
+            result = 31 * result + System.identityHashCode(segmentCoreKey);
             result = 31 * result + value.hashCode();
             return result;
         }
@@ -388,6 +544,7 @@ public class IndicesQueryCache extends AbstractComponent implements RemovalListe
 
         private final ObjectSet<CleanupKey> currentKeysToClean = ObjectOpenHashSet.newInstance();
         private final ObjectSet<IndexShard> currentFullClean = ObjectOpenHashSet.newInstance();
+        private final ObjectSet<Object> currentSegmentsToClean = ObjectOpenHashSet.newInstance();
 
         private volatile boolean closed;
 
@@ -400,7 +557,7 @@ public class IndicesQueryCache extends AbstractComponent implements RemovalListe
             if (closed) {
                 return;
             }
-            if (keysToClean.isEmpty()) {
+            if (keysToClean.isEmpty() && segmentsToClean.isEmpty()) {
                 schedule();
                 return;
             }
@@ -438,13 +595,21 @@ public class IndicesQueryCache extends AbstractComponent implements RemovalListe
                     currentKeysToClean.add(cleanupKey);
                 }
             }
+            for (Iterator<Object> iterator = segmentsToClean.iterator(); iterator.hasNext(); ) {
+                currentSegmentsToClean.add(iterator.next());
+                iterator.remove();
+            }
 
-            if (!currentKeysToClean.isEmpty() || !currentFullClean.isEmpty()) {
+            if (!currentKeysToClean.isEmpty() || !currentFullClean.isEmpty() || !currentSegmentsToClean.isEmpty()) {
                 CleanupKey lookupKey = new CleanupKey(null, -1);
                 for (Iterator<Key> iterator = cache.asMap().keySet().iterator(); iterator.hasNext(); ) {
                     Key key = iterator.next();
                     if (currentFullClean.contains(key.shard)) {
                         iterator.remove();
+                    } else if (key.segmentCoreKey != null) {
+                        if (currentSegmentsToClean.contains(key.segmentCoreKey)) {
+                            iterator.remove();
+                        }
                     } else {
                         lookupKey.indexShard = key.shard;
                         lookupKey.readerVersion = key.readerVersion;
@@ -458,6 +623,7 @@ public class IndicesQueryCache extends AbstractComponent implements RemovalListe
             cache.cleanUp();
             currentKeysToClean.clear();
             currentFullClean.clear();
+            currentSegmentsToClean.clear();
         }
     }
 
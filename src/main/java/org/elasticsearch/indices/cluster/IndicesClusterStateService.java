@@ -68,10 +68,13 @@ import org.elasticsearch.indices.recovery.RecoveryStatus;
 import org.elasticsearch.indices.recovery.RecoveryTarget;
 import org.elasticsearch.threadpool.ThreadPool;
 
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentMap;
 
 import static com.google.common.collect.Maps.newHashMap;
@@ -175,14 +178,17 @@ public class IndicesClusterStateService extends AbstractLifecycleComponent<Indic
                 return;
             }
 
-            cleanFailedShards(event);
+            // only the shards of this node are of interest, and they are cached on the routing tables of unchanged indices
+            final List<ShardRouting> localShards = event.state().routingTable().shardsOnNode(event.state().nodes().localNodeId());
+
+            cleanFailedShards(event, localShards);
 
             applyDeletedIndices(event);
-            applyNewIndices(event);
-            applyMappings(event);
-            applyAliases(event);
-            applyNewOrUpdatedShards(event);
-            applyDeletedShards(event);
+            final Set<String> createdIndices = applyNewIndices(event, localShards);
+            applyMappings(event, createdIndices);
+            applyAliases(event, createdIndices);
+            applyNewOrUpdatedShards(event, localShards);
+            applyDeletedShards(event, localShards);
             applyCleanedIndices(event);
             applySettings(event);
         }
@@ -257,21 +263,21 @@ public class IndicesClusterStateService extends AbstractLifecycleComponent<Indic
 
     }
 
-    private void applyDeletedShards(final ClusterChangedEvent event) {
-        RoutingNodes.RoutingNodeIterator routingNode = event.state().readOnlyRoutingNodes().routingNodeIter(event.state().nodes().localNodeId());
-        if (routingNode == null) {
+    private void applyDeletedShards(final ClusterChangedEvent event, final List<ShardRouting> localShards) {
+        if (localShards.isEmpty()) {
             return;
         }
         IntOpenHashSet newShardIds = new IntOpenHashSet();
         for (IndexService indexService : indicesService) {
             String index = indexService.index().name();
             IndexMetaData indexMetaData = event.state().metaData().index(index);
-            if (indexMetaData == null) {
+            // shards only go away when the routing or the state of their index changes
+            if (indexMetaData == null || !event.indexChanged(index)) {
                 continue;
             }
             // now, go over and delete shards that needs to get deleted
             newShardIds.clear();
-            for (MutableShardRouting shard : routingNode) {
+            for (ShardRouting shard : localShards) {
                 if (shard.index().equals(index)) {
                     newShardIds.add(shard.id());
                 }
@@ -296,13 +302,13 @@ public class IndicesClusterStateService extends AbstractLifecycleComponent<Indic
         }
     }
 
-    private void applyNewIndices(final ClusterChangedEvent event) {
+    /**
+     * Creates the indices of the shards allocated on this node, and returns the names of the created indices.
+     */
+    private Set<String> applyNewIndices(final ClusterChangedEvent event, final List<ShardRouting> localShards) {
         // we only create indices for shards that are allocated
-        RoutingNodes.RoutingNodeIterator routingNode = event.state().readOnlyRoutingNodes().routingNodeIter(event.state().nodes().localNodeId());
-        if (routingNode == null) {
-            return;
-        }
-        for (MutableShardRouting shard : routingNode) {
+        Set<String> createdIndices = null;
+        for (ShardRouting shard : localShards) {
             if (!indicesService.hasIndex(shard.index())) {
                 final IndexMetaData indexMetaData = event.state().metaData().index(shard.index());
                 if (logger.isDebugEnabled()) {
@@ -310,30 +316,27 @@ public class IndicesClusterStateService extends AbstractLifecycleComponent<Indic
                 }
                 try {
                     indicesService.createIndex(indexMetaData.index(), indexMetaData.settings(), event.state().nodes().localNode().id());
+                    if (createdIndices == null) {
+                        createdIndices = new HashSet<>();
+                    }
+                    createdIndices.add(indexMetaData.index());
                 } catch (Throwable e) {
                     sendFailShard(shard, indexMetaData.getUUID(), "failed to create index", e);
                 }
             }
         }
+        return createdIndices == null ? Collections.<String>emptySet() : createdIndices;
     }
 
     private void applySettings(ClusterChangedEvent event) {
         if (!event.metaDataChanged()) {
             return;
         }
-        for (IndexMetaData indexMetaData : event.state().metaData()) {
-            if (!indicesService.hasIndex(indexMetaData.index())) {
-                // we only create / update here
-                continue;
-            }
+        // we only update here, so only look at the indices of this node
+        for (IndexService indexService : indicesService) {
+            IndexMetaData indexMetaData = event.state().metaData().index(indexService.index().name());
             // if the index meta data didn't change, no need check for refreshed settings
-            if (!event.indexMetaDataChanged(indexMetaData)) {
-                continue;
-            }
-            String index = indexMetaData.index();
-            IndexService indexService = indicesService.indexService(index);
-            if (indexService == null) {
-                // already deleted on us, ignore it
+            if (indexMetaData == null || !event.indexMetaDataChanged(indexMetaData)) {
                 continue;
             }
             IndexSettingsService indexSettingsService = indexService.injector().getInstance(IndexSettingsService.class);
@@ -342,20 +345,16 @@ public class IndicesClusterStateService extends AbstractLifecycleComponent<Indic
     }
 
 
-    private void applyMappings(ClusterChangedEvent event) {
-        // go over and update mappings
-        for (IndexMetaData indexMetaData : event.state().metaData()) {
-            if (!indicesService.hasIndex(indexMetaData.index())) {
-                // we only create / update here
+    private void applyMappings(ClusterChangedEvent event, Set<String> createdIndices) {
+        // go over and update mappings, we only create / update here so only look at the indices of this node
+        for (IndexService indexService : indicesService) {
+            String index = indexService.index().name();
+            IndexMetaData indexMetaData = event.state().metaData().index(index);
+            // mappings are part of the index meta data, only new indices and changed meta data need to be looked at
+            if (indexMetaData == null || (!createdIndices.contains(index) && !event.indexMetaDataChanged(indexMetaData))) {
                 continue;
             }
             List<String> typesToRefresh = Lists.newArrayList();
-            String index = indexMetaData.index();
-            IndexService indexService = indicesService.indexService(index);
-            if (indexService == null) {
-                // got deleted on us, ignore (closing the node)
-                return;
-            }
             try {
                 MapperService mapperService = indexService.mapperService();
                 // first, go over and update the _default_ mapping (if exists)
@@ -451,30 +450,25 @@ public class IndicesClusterStateService extends AbstractLifecycleComponent<Indic
         return requiresRefresh;
     }
 
-    private boolean aliasesChanged(ClusterChangedEvent event) {
-        return !event.state().metaData().aliases().equals(event.previousState().metaData().aliases()) ||
-                !event.state().routingTable().equals(event.previousState().routingTable());
-    }
-
-    private void applyAliases(ClusterChangedEvent event) {
-        // check if aliases changed
-        if (aliasesChanged(event)) {
-            // go over and update aliases
-            for (IndexMetaData indexMetaData : event.state().metaData()) {
-                String index = indexMetaData.index();
-                IndexService indexService = indicesService.indexService(index);
-                if (indexService == null) {
-                    // we only create / update here
-                    continue;
-                }
-                IndexAliasesService indexAliasesService = indexService.aliasesService();
-                processAliases(index, indexMetaData.aliases().values(), indexAliasesService);
-                // go over and remove aliases
-                for (IndexAlias indexAlias : indexAliasesService) {
-                    if (!indexMetaData.aliases().containsKey(indexAlias.alias())) {
-                        // we have it in our aliases, but not in the metadata, remove it
-                        indexAliasesService.remove(indexAlias.alias());
-                    }
+    private void applyAliases(ClusterChangedEvent event, Set<String> createdIndices) {
+        // aliases are part of the index meta data, only new indices and changed meta data need to be looked at
+        if (createdIndices.isEmpty() && !event.metaDataChanged()) {
+            return;
+        }
+        // go over and update aliases, we only create / update here so only look at the indices of this node
+        for (IndexService indexService : indicesService) {
+            String index = indexService.index().name();
+            IndexMetaData indexMetaData = event.state().metaData().index(index);
+            if (indexMetaData == null || (!createdIndices.contains(index) && !event.indexMetaDataChanged(indexMetaData))) {
+                continue;
+            }
+            IndexAliasesService indexAliasesService = indexService.aliasesService();
+            processAliases(index, indexMetaData.aliases().values(), indexAliasesService);
+            // go over and remove aliases
+            for (IndexAlias indexAlias : indexAliasesService) {
+                if (!indexMetaData.aliases().containsKey(indexAlias.alias())) {
+                    // we have it in our aliases, but not in the metadata, remove it
+                    indexAliasesService.remove(indexAlias.alias());
                 }
             }
         }
@@ -508,21 +502,20 @@ public class IndicesClusterStateService extends AbstractLifecycleComponent<Indic
         indexAliasesService.addAll(newAliases);
     }
 
-    private void applyNewOrUpdatedShards(final ClusterChangedEvent event) {
+    private void applyNewOrUpdatedShards(final ClusterChangedEvent event, final List<ShardRouting> localShards) {
         if (!indicesService.changesAllowed()) {
             return;
         }
 
         RoutingTable routingTable = event.state().routingTable();
-        RoutingNodes.RoutingNodeIterator routingNode = event.state().readOnlyRoutingNodes().routingNodeIter(event.state().nodes().localNodeId());
 
-        if (routingNode == null) {
+        if (localShards.isEmpty()) {
             failedShards.clear();
             return;
         }
         DiscoveryNodes nodes = event.state().nodes();
 
-        for (final ShardRouting shardRouting : routingNode) {
+        for (final ShardRouting shardRouting : localShards) {
             final IndexService indexService = indicesService.indexService(shardRouting.index());
             if (indexService == null) {
                 // got deleted on us, ignore
@@ -598,10 +591,9 @@ public class IndicesClusterStateService extends AbstractLifecycleComponent<Indic
         }
     }
 
-    private void cleanFailedShards(final ClusterChangedEvent event) {
+    private void cleanFailedShards(final ClusterChangedEvent event, final List<ShardRouting> localShards) {
         RoutingTable routingTable = event.state().routingTable();
-        RoutingNodes.RoutingNodeIterator routingNode = event.state().readOnlyRoutingNodes().routingNodeIter(event.state().nodes().localNodeId());
-        if (routingNode == null) {
+        if (localShards.isEmpty()) {
             failedShards.clear();
             return;
         }
@@ -24,17 +24,20 @@ import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.index.SegmentReader;
 import org.apache.lucene.util.Accountable;
+import org.elasticsearch.ExceptionsHelper;
 import org.elasticsearch.common.component.AbstractComponent;
 import org.elasticsearch.common.inject.Inject;
 import org.elasticsearch.common.logging.ESLogger;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.unit.ByteSizeValue;
 import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.common.util.concurrent.EsExecutors;
 import org.elasticsearch.index.Index;
 import org.elasticsearch.index.fielddata.AtomicFieldData;
 import org.elasticsearch.index.fielddata.FieldDataType;
 import org.elasticsearch.index.fielddata.IndexFieldData;
 import org.elasticsearch.index.fielddata.IndexFieldDataCache;
+import org.elasticsearch.index.fielddata.plain.SortedSetDVOrdinalsIndexFieldData;
 import org.elasticsearch.index.mapper.FieldMapper;
 import org.elasticsearch.index.IndexService;
 import org.elasticsearch.index.shard.ShardId;
@@ -45,7 +48,11 @@ import org.elasticsearch.threadpool.ThreadPool;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  */
@@ -55,12 +62,14 @@ public class IndicesFieldDataCache extends AbstractComponent implements RemovalL
     public static final String FIELDDATA_CACHE_CONCURRENCY_LEVEL = "indices.fielddata.cache.concurrency_level";
     public static final String INDICES_FIELDDATA_CACHE_SIZE_KEY = "indices.fielddata.cache.size";
     public static final String INDICES_FIELDDATA_CACHE_EXPIRE_KEY = "indices.fielddata.cache.expire";
+    public static final String FIELDDATA_GLOBAL_ORDINALS_BUILD_CONCURRENCY = "indices.fielddata.global_ordinals.build_concurrency";
 
 
     private final IndicesFieldDataCacheListener indicesFieldDataCacheListener;
     private final Cache<Key, Accountable> cache;
     private final TimeValue cleanInterval;
     private final ThreadPool threadPool;
+    private final int globalOrdinalsBuildConcurrency;
     private volatile boolean closed = false;
 
     @Inject
@@ -85,7 +94,12 @@ public class IndicesFieldDataCache extends AbstractComponent implements RemovalL
         if (expire != null && expire.millis() > 0) {
             cacheBuilder.expireAfterAccess(expire.millis(), TimeUnit.MILLISECONDS);
         }
-        logger.debug("using size [{}] [{}], expire [{}]", size, new ByteSizeValue(sizeInBytes), expire);
+        this.globalOrdinalsBuildConcurrency = settings.getAsInt(FIELDDATA_GLOBAL_ORDINALS_BUILD_CONCURRENCY,
+                Math.min(4, EsExecutors.boundedNumberOfProcessors(settings)));
+        if (globalOrdinalsBuildConcurrency <= 0) {
+            throw new IllegalArgumentException("global_ordinals.build_concurrency must be > 0 but was: " + globalOrdinalsBuildConcurrency);
+        }
+        logger.debug("using size [{}] [{}], expire [{}], global_ordinals.build_concurrency [{}]", size, new ByteSizeValue(sizeInBytes), expire, globalOrdinalsBuildConcurrency);
         cache = cacheBuilder.build();
 
         this.cleanInterval = settings.getAsTime(FIELDDATA_CLEAN_INTERVAL_SETTING, TimeValue.timeValueMinutes(1));
@@ -100,7 +114,7 @@ public class IndicesFieldDataCache extends AbstractComponent implements RemovalL
     }
 
     public IndexFieldDataCache buildIndexFieldDataCache(IndexService indexService, Index index, FieldMapper.Names fieldNames, FieldDataType fieldDataType) {
-        return new IndexFieldCache(logger, cache, indicesFieldDataCacheListener, indexService, index, fieldNames, fieldDataType);
+        return new IndexFieldCache(logger, cache, indicesFieldDataCacheListener, threadPool, globalOrdinalsBuildConcurrency, indexService, index, fieldNames, fieldDataType);
     }
 
     public Cache<Key, Accountable> getCache() {
@@ -115,7 +129,7 @@ public class IndicesFieldDataCache extends AbstractComponent implements RemovalL
         final Accountable value = notification.getValue();
         for (IndexFieldDataCache.Listener listener : key.listeners) {
             try {
-                listener.onUnload(indexCache.fieldNames, indexCache.fieldDataType, notification.wasEvicted(), value.ramBytesUsed());
+                listener.onUnload(indexCache.fieldNames, indexCache.fieldDataType, notification.wasEvicted(), value);
             } catch (Throwable e) {
                 // load anyway since listeners should not throw exceptions
                 logger.error("Failed to call listener on field data cache unloading", e);
@@ -143,9 +157,14 @@ public class IndicesFieldDataCache extends AbstractComponent implements RemovalL
         final FieldDataType fieldDataType;
         private final Cache<Key, Accountable> cache;
         private final IndicesFieldDataCacheListener indicesFieldDataCacheListener;
+        private final ThreadPool threadPool;
+        private final int globalOrdinalsBuildConcurrency;
 
-        IndexFieldCache(ESLogger logger,final Cache<Key, Accountable> cache, IndicesFieldDataCacheListener indicesFieldDataCacheListener, IndexService indexService, Index index, FieldMapper.Names fieldNames, FieldDataType fieldDataType) {
+        IndexFieldCache(ESLogger logger,final Cache<Key, Accountable> cache, IndicesFieldDataCacheListener indicesFieldDataCacheListener,
+                        ThreadPool threadPool, int globalOrdinalsBuildConcurrency, IndexService indexService, Index index, FieldMapper.Names fieldNames, FieldDataType fieldDataType) {
             this.logger = logger;
+            this.threadPool = threadPool;
+            this.globalOrdinalsBuildConcurrency = globalOrdinalsBuildConcurrency;
             this.indexService = indexService;
             this.index = index;
             this.fieldNames = fieldNames;
@@ -203,10 +222,14 @@ public class IndicesFieldDataCache extends AbstractComponent implements RemovalL
                             key.listeners.add(shard.fieldData());
                         }
                     }
+                    final long startTime = System.nanoTime();
+                    loadSegments(indexReader, indexFieldData);
                     final Accountable ifd = (Accountable) indexFieldData.localGlobalDirect(indexReader);
+                    final long took = System.nanoTime() - startTime;
                     for (Listener listener : key.listeners) {
                         try {
                             listener.onLoad(fieldNames, fieldDataType, ifd);
+                            listener.onGlobalOrdinalsBuilt(fieldNames, fieldDataType, took);
                         } catch (Throwable e) {
                             // load anyway since listeners should not throw exceptions
                             logger.error("Failed to call listener on global ordinals loading", e);
@@ -218,6 +241,58 @@ public class IndicesFieldDataCache extends AbstractComponent implements RemovalL
             return (IFD) accountable;
         }
 
+        /**
+         * Loads the field data of all segments of the given reader on up to <code>globalOrdinalsBuildConcurrency</code>
+         * threads, so that building global ordinals on top of them only has to merge their terms. Segments that are
+         * cached already, because they did not change since the last refresh, are not loaded again. The calling thread
+         * takes part and loads every segment that no other thread picked up, so it never waits for a busy thread pool.
+         */
+        private void loadSegments(IndexReader indexReader, final IndexFieldData<?> indexFieldData) throws Exception {
+            final List<LeafReaderContext> leaves = indexReader.leaves();
+            final int forkedThreads = Math.min(globalOrdinalsBuildConcurrency, leaves.size()) - 1;
+            if (forkedThreads <= 0 || indexFieldData instanceof SortedSetDVOrdinalsIndexFieldData) {
+                // doc values are read straight from the segments, there is nothing to load up front
+                return;
+            }
+            final AtomicInteger nextLeaf = new AtomicInteger();
+            final AtomicReference<Throwable> failure = new AtomicReference<>();
+            final CountDownLatch latch = new CountDownLatch(forkedThreads);
+            final Runnable loader = new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        for (int leaf = nextLeaf.getAndIncrement(); leaf < leaves.size() && failure.get() == null; leaf = nextLeaf.getAndIncrement()) {
+                            indexFieldData.load(leaves.get(leaf));
+                        }
+                    } catch (Throwable t) {
+                        failure.compareAndSet(null, t);
+                    }
+                }
+            };
+            for (int i = 0; i < forkedThreads; i++) {
+                try {
+                    threadPool.executor(ThreadPool.Names.GENERIC).execute(new Runnable() {
+                        @Override
+                        public void run() {
+                            try {
+                                loader.run();
+                            } finally {
+                                latch.countDown();
+                            }
+                        }
+                    });
+                } catch (RejectedExecutionException e) {
+                    latch.countDown();
+                }
+            }
+            loader.run();
+            latch.await();
+            final Throwable t = failure.get();
+            if (t != null) {
+                throw ExceptionsHelper.convertToElastic(t);
+            }
+        }
+
         @Override
         public void onClose(Object coreKey) {
             cache.invalidate(new Key(this, coreKey));
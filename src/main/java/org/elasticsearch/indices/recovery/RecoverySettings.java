@@ -46,6 +46,10 @@ public class RecoverySettings extends AbstractComponent implements Closeable {
     public static final String INDICES_RECOVERY_COMPRESS = "indices.recovery.compress";
     public static final String INDICES_RECOVERY_CONCURRENT_STREAMS = "indices.recovery.concurrent_streams";
     public static final String INDICES_RECOVERY_CONCURRENT_SMALL_FILE_STREAMS = "indices.recovery.concurrent_small_file_streams";
+    /**
+     * how many chunks of a single file may be in flight to the recovery target at once
+     */
+    public static final String INDICES_RECOVERY_MAX_CONCURRENT_FILE_CHUNKS = "indices.recovery.max_concurrent_file_chunks";
     public static final String INDICES_RECOVERY_MAX_BYTES_PER_SEC = "indices.recovery.max_bytes_per_sec";
 
     /**
@@ -89,6 +93,7 @@ public class RecoverySettings extends AbstractComponent implements Closeable {
 
     private volatile int concurrentStreams;
     private volatile int concurrentSmallFileStreams;
+    private volatile int maxConcurrentFileChunks;
     private final ThreadPoolExecutor concurrentStreamPool;
     private final ThreadPoolExecutor concurrentSmallFileStreamPool;
 
@@ -129,6 +134,8 @@ public class RecoverySettings extends AbstractComponent implements Closeable {
         this.concurrentSmallFileStreams = settings.getAsInt("indices.recovery.concurrent_small_file_streams", settings.getAsInt("index.shard.recovery.concurrent_small_file_streams", 2));
         this.concurrentSmallFileStreamPool = EsExecutors.newScaling(0, concurrentSmallFileStreams, 60, TimeUnit.SECONDS, EsExecutors.daemonThreadFactory(settings, "[small_file_recovery_stream]"));
 
+        this.maxConcurrentFileChunks = settings.getAsInt(INDICES_RECOVERY_MAX_CONCURRENT_FILE_CHUNKS, 2);
+
         this.maxBytesPerSec = settings.getAsBytesSize("indices.recovery.max_bytes_per_sec", settings.getAsBytesSize("indices.recovery.max_size_per_sec", new ByteSizeValue(40, ByteSizeUnit.MB)));
         if (maxBytesPerSec.bytes() <= 0) {
             rateLimiter = null;
@@ -136,8 +143,8 @@ public class RecoverySettings extends AbstractComponent implements Closeable {
             rateLimiter = new SimpleRateLimiter(maxBytesPerSec.mbFrac());
         }
 
-        logger.debug("using max_bytes_per_sec[{}], concurrent_streams [{}], file_chunk_size [{}], translog_size [{}], translog_ops [{}], and compress [{}]",
-                maxBytesPerSec, concurrentStreams, fileChunkSize, translogSize, translogOps, compress);
+        logger.debug("using max_bytes_per_sec[{}], concurrent_streams [{}], max_concurrent_file_chunks [{}], file_chunk_size [{}], translog_size [{}], translog_ops [{}], and compress [{}]",
+                maxBytesPerSec, concurrentStreams, maxConcurrentFileChunks, fileChunkSize, translogSize, translogOps, compress);
 
         nodeSettingsService.addListener(new ApplySettings());
     }
@@ -168,6 +175,14 @@ public class RecoverySettings extends AbstractComponent implements Closeable {
         return concurrentStreams;
     }
 
+    /**
+     * The number of chunks of a file that are sent to the recovery target without waiting for the previous ones to be
+     * acknowledged.
+     */
+    public int maxConcurrentFileChunks() {
+        return maxConcurrentFileChunks;
+    }
+
     public ThreadPoolExecutor concurrentStreamPool() {
         return concurrentStreamPool;
     }
@@ -255,6 +270,12 @@ public class RecoverySettings extends AbstractComponent implements Closeable {
                 RecoverySettings.this.concurrentSmallFileStreamPool.setMaximumPoolSize(concurrentSmallFileStreams);
             }
 
+            int maxConcurrentFileChunks = settings.getAsInt(INDICES_RECOVERY_MAX_CONCURRENT_FILE_CHUNKS, RecoverySettings.this.maxConcurrentFileChunks);
+            if (maxConcurrentFileChunks != RecoverySettings.this.maxConcurrentFileChunks) {
+                logger.info("updating [indices.recovery.max_concurrent_file_chunks] from [{}] to [{}]", RecoverySettings.this.maxConcurrentFileChunks, maxConcurrentFileChunks);
+                RecoverySettings.this.maxConcurrentFileChunks = maxConcurrentFileChunks;
+            }
+
             RecoverySettings.this.retryDelayNetwork = maybeUpdate(RecoverySettings.this.retryDelayNetwork, settings, INDICES_RECOVERY_RETRY_DELAY_NETWORK);
             RecoverySettings.this.retryDelayStateSync = maybeUpdate(RecoverySettings.this.retryDelayStateSync, settings, INDICES_RECOVERY_RETRY_DELAY_STATE_SYNC);
             RecoverySettings.this.activityTimeout = maybeUpdate(RecoverySettings.this.activityTimeout, settings, INDICES_RECOVERY_ACTIVITY_TIMEOUT);
@@ -63,9 +63,12 @@ import org.elasticsearch.index.store.Store;
 import org.elasticsearch.index.store.StoreFileMetaData;
 import org.elasticsearch.index.translog.Translog;
 import org.elasticsearch.indices.IndicesService;
+import org.elasticsearch.threadpool.ThreadPool;
 import org.elasticsearch.transport.EmptyTransportResponseHandler;
 import org.elasticsearch.transport.RemoteTransportException;
+import org.elasticsearch.transport.TransportException;
 import org.elasticsearch.transport.TransportRequestOptions;
+import org.elasticsearch.transport.TransportResponse;
 import org.elasticsearch.transport.TransportService;
 
 import java.io.IOException;
@@ -294,7 +297,10 @@ public class RecoverySourceHandler {
                         final StoreFileMetaData md = recoverySourceMetadata.get(name);
                         try (final IndexInput indexInput = store.directory().openInput(name, IOContext.READONCE)) {
                             final int BUFFER_SIZE = (int) recoverySettings.fileChunkSize().bytes();
-                            final byte[] buf = new byte[BUFFER_SIZE];
+                            // up to this many chunks of the file are in flight at once, the target puts them back in order
+                            final int maxConcurrentChunks = recoverySettings.maxConcurrentFileChunks();
+                            final Semaphore inFlightChunks = new Semaphore(maxConcurrentChunks);
+                            final AtomicReference<Throwable> chunkFailure = new AtomicReference<>();
                             boolean shouldCompressRequest = recoverySettings.compress();
                             if (CompressorFactory.isCompressed(indexInput)) {
                                 shouldCompressRequest = false;
@@ -307,7 +313,7 @@ public class RecoverySourceHandler {
                                     .withType(TransportRequestOptions.Type.RECOVERY)
                                     .withTimeout(recoverySettings.internalActionTimeout());
 
-                            while (readCount < len) {
+                            while (readCount < len && chunkFailure.get() == null) {
                                 if (shard.state() == IndexShardState.CLOSED) { // check if the shard got closed on us
                                     throw new IndexShardClosedException(shard.shardId());
                                 }
@@ -326,6 +332,8 @@ public class RecoverySourceHandler {
                                         shard.recoveryStats().addThrottleTime(throttleTimeInNanos);
                                     }
                                 }
+                                // every chunk needs its own buffer as it may still be in flight while the next one is read
+                                final byte[] buf = new byte[toRead];
                                 indexInput.readBytes(buf, 0, toRead, false);
                                 final BytesArray content = new BytesArray(buf, 0, toRead);
                                 readCount += toRead;
@@ -335,12 +343,34 @@ public class RecoverySourceHandler {
                                 cancellableThreads.execute(new Interruptable() {
                                     @Override
                                     public void run() throws InterruptedException {
-                                        // Actually send the file chunk to the target node, waiting for it to complete
-                                        transportService.submitRequest(request.targetNode(), RecoveryTarget.Actions.FILE_CHUNK,
-                                                fileChunkRequest, requestOptions, EmptyTransportResponseHandler.INSTANCE_SAME).txGet();
+                                        // wait for a free slot in the window of outstanding chunks
+                                        inFlightChunks.acquire();
                                     }
                                 });
-
+                                // Actually send the file chunk to the target node, the slot is freed once it is acknowledged
+                                transportService.sendRequest(request.targetNode(), RecoveryTarget.Actions.FILE_CHUNK,
+                                        fileChunkRequest, requestOptions, new EmptyTransportResponseHandler(ThreadPool.Names.SAME) {
+                                            @Override
+                                            public void handleResponse(TransportResponse.Empty response) {
+                                                inFlightChunks.release();
+                                            }
+
+                                            @Override
+                                            public void handleException(TransportException exp) {
+                                                chunkFailure.compareAndSet(null, exp);
+                                                inFlightChunks.release();
+                                            }
+                                        });
+                            }
+                            cancellableThreads.execute(new Interruptable() {
+                                @Override
+                                public void run() throws InterruptedException {
+                                    // wait for all chunks of the file to be acknowledged
+                                    inFlightChunks.acquire(maxConcurrentChunks);
+                                }
+                            });
+                            if (chunkFailure.get() != null) {
+                                throw chunkFailure.get();
                             }
                         } catch (Throwable e) {
                             final Throwable corruptIndexException;
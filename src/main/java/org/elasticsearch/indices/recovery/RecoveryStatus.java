@@ -34,9 +34,14 @@ import org.elasticsearch.index.store.Store;
 import org.elasticsearch.index.store.StoreFileMetaData;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.PriorityQueue;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
@@ -65,6 +70,7 @@ public class RecoveryStatus extends AbstractRefCounted {
     private final AtomicBoolean finished = new AtomicBoolean();
 
     private final ConcurrentMap<String, IndexOutput> openIndexOutputs = ConcurrentCollections.newConcurrentMap();
+    private final ConcurrentMap<String, FileChunkReorderer> fileChunkReorderers = ConcurrentCollections.newConcurrentMap();
     private final Store.LegacyChecksums legacyChecksums = new Store.LegacyChecksums();
 
     private final CancellableThreads cancellableThreads = new CancellableThreads();
@@ -228,6 +234,27 @@ public class RecoveryStatus extends AbstractRefCounted {
         return indexOutput;
     }
 
+    /**
+     * Returns the object that puts the chunks of the given file back in order, see {@link FileChunkReorderer}.
+     */
+    public FileChunkReorderer fileChunkReorderer(String fileName) {
+        ensureRefCount();
+        FileChunkReorderer reorderer = fileChunkReorderers.get(fileName);
+        if (reorderer == null) {
+            reorderer = new FileChunkReorderer();
+            FileChunkReorderer existing = fileChunkReorderers.putIfAbsent(fileName, reorderer);
+            if (existing != null) {
+                reorderer = existing;
+            }
+        }
+        return reorderer;
+    }
+
+    public void removeFileChunkReorderer(String fileName) {
+        ensureRefCount();
+        fileChunkReorderers.remove(fileName);
+    }
+
     public void resetRecovery() throws IOException {
         cleanOpenFiles();
         indexShard().performRecoveryRestart();
@@ -257,6 +284,7 @@ public class RecoveryStatus extends AbstractRefCounted {
             }
             iterator.remove();
         }
+        fileChunkReorderers.clear();
         // trash temporary files
         for (String file : tempFileNames.keySet()) {
             logger.trace("cleaning temporary file [{}]", file);
@@ -276,4 +304,41 @@ public class RecoveryStatus extends AbstractRefCounted {
         }
     }
 
+    /**
+     * The source sends several chunks of a file without waiting for the previous ones to be acknowledged (see
+     * {@link RecoverySettings#maxConcurrentFileChunks()}), so they may arrive out of order. Chunks ahead of the write
+     * position are held back until all chunks before them have arrived. Callers must synchronize on this object while
+     * they call {@link #ready(RecoveryFileChunkRequest)} and write the returned chunks.
+     */
+    public static final class FileChunkReorderer {
+
+        private final PriorityQueue<RecoveryFileChunkRequest> pendingChunks = new PriorityQueue<>(4, new Comparator<RecoveryFileChunkRequest>() {
+            @Override
+            public int compare(RecoveryFileChunkRequest o1, RecoveryFileChunkRequest o2) {
+                return Long.compare(o1.position(), o2.position());
+            }
+        });
+        private long nextPosition = 0;
+
+        /**
+         * Adds the given chunk and returns the chunks that can be written now, in order.
+         */
+        public List<RecoveryFileChunkRequest> ready(RecoveryFileChunkRequest chunk) {
+            assert Thread.holdsLock(this);
+            if (chunk.position() != nextPosition) {
+                assert chunk.position() > nextPosition : "chunk at [" + chunk.position() + "] was already written, next is [" + nextPosition + "]";
+                pendingChunks.add(chunk);
+                return Collections.emptyList();
+            }
+            List<RecoveryFileChunkRequest> ready = new ArrayList<>(1 + pendingChunks.size());
+            ready.add(chunk);
+            nextPosition += chunk.content().length();
+            while (pendingChunks.isEmpty() == false && pendingChunks.peek().position() == nextPosition) {
+                RecoveryFileChunkRequest next = pendingChunks.poll();
+                ready.add(next);
+                nextPosition += next.content().length();
+            }
+            return ready;
+        }
+    }
 }
@@ -384,19 +384,9 @@ public class RecoveryTarget extends AbstractComponent {
                 if (request.sourceThrottleTimeInNanos() != RecoveryState.Index.UNKNOWN) {
                     indexState.addSourceThrottling(request.sourceThrottleTimeInNanos());
                 }
-                IndexOutput indexOutput;
-                if (request.position() == 0) {
-                    indexOutput = recoveryStatus.openAndPutIndexOutput(request.name(), request.metadata(), store);
-                } else {
-                    indexOutput = recoveryStatus.getOpenIndexOutput(request.name());
-                }
-                BytesReference content = request.content();
-                if (!content.hasArray()) {
-                    content = content.toBytesArray();
-                }
                 RateLimiter rl = recoverySettings.rateLimiter();
                 if (rl != null) {
-                    long bytes = bytesSinceLastPause.addAndGet(content.length());
+                    long bytes = bytesSinceLastPause.addAndGet(request.content().length());
                     if (bytes > rl.getMinPauseCheckBytes()) {
                         // Time to pause
                         bytesSinceLastPause.addAndGet(-bytes);
@@ -405,26 +395,47 @@ public class RecoveryTarget extends AbstractComponent {
                         recoveryStatus.indexShard().recoveryStats().addThrottleTime(throttleTimeInNanos);
                     }
                 }
-                indexOutput.writeBytes(content.array(), content.arrayOffset(), content.length());
-                indexState.addRecoveredBytesToFile(request.name(), content.length());
-                if (indexOutput.getFilePointer() >= request.length() || request.lastChunk()) {
-                    try {
-                        Store.verify(indexOutput);
-                    } finally {
-                        // we are done
-                        indexOutput.close();
+                // chunks of the same file may arrive out of order, write them in order
+                final RecoveryStatus.FileChunkReorderer reorderer = recoveryStatus.fileChunkReorderer(request.name());
+                synchronized (reorderer) {
+                    for (RecoveryFileChunkRequest chunk : reorderer.ready(request)) {
+                        writeFileChunk(recoveryStatus, store, indexState, chunk);
                     }
-                    // write the checksum
-                    recoveryStatus.legacyChecksums().add(request.metadata());
-                    final String temporaryFileName = recoveryStatus.getTempNameForFile(request.name());
-                    assert Arrays.asList(store.directory().listAll()).contains(temporaryFileName);
-                    store.directory().sync(Collections.singleton(temporaryFileName));
-                    IndexOutput remove = recoveryStatus.removeOpenIndexOutputs(request.name());
-                    assert remove == null || remove == indexOutput; // remove maybe null if we got finished
                 }
             }
             channel.sendResponse(TransportResponse.Empty.INSTANCE);
         }
+
+        private void writeFileChunk(RecoveryStatus recoveryStatus, Store store, RecoveryState.Index indexState, RecoveryFileChunkRequest request) throws IOException {
+            IndexOutput indexOutput;
+            if (request.position() == 0) {
+                indexOutput = recoveryStatus.openAndPutIndexOutput(request.name(), request.metadata(), store);
+            } else {
+                indexOutput = recoveryStatus.getOpenIndexOutput(request.name());
+            }
+            BytesReference content = request.content();
+            if (!content.hasArray()) {
+                content = content.toBytesArray();
+            }
+            indexOutput.writeBytes(content.array(), content.arrayOffset(), content.length());
+            indexState.addRecoveredBytesToFile(request.name(), content.length());
+            if (indexOutput.getFilePointer() >= request.length() || request.lastChunk()) {
+                try {
+                    Store.verify(indexOutput);
+                } finally {
+                    // we are done
+                    indexOutput.close();
+                }
+                // write the checksum
+                recoveryStatus.legacyChecksums().add(request.metadata());
+                final String temporaryFileName = recoveryStatus.getTempNameForFile(request.name());
+                assert Arrays.asList(store.directory().listAll()).contains(temporaryFileName);
+                store.directory().sync(Collections.singleton(temporaryFileName));
+                IndexOutput remove = recoveryStatus.removeOpenIndexOutputs(request.name());
+                assert remove == null || remove == indexOutput; // remove maybe null if we got finished
+                recoveryStatus.removeFileChunkReorderer(request.name());
+            }
+        }
     }
 
     class RecoveryRunner extends AbstractRunnable {
@@ -25,6 +25,7 @@ import org.elasticsearch.Version;
 import org.elasticsearch.action.admin.cluster.node.info.NodeInfo;
 import org.elasticsearch.action.admin.cluster.node.stats.NodeStats;
 import org.elasticsearch.action.admin.indices.stats.CommonStatsFlags;
+import org.elasticsearch.cluster.routing.ResponseCollectorService;
 import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.collect.MapBuilder;
 import org.elasticsearch.common.component.AbstractComponent;
@@ -51,6 +52,7 @@ public class NodeService extends AbstractComponent {
     private final IndicesService indicesService;
     private final PluginsService pluginService;
     private final CircuitBreakerService circuitBreakerService;
+    private final ResponseCollectorService responseCollectorService;
     @Nullable
     private HttpServer httpServer;
 
@@ -63,7 +65,8 @@ public class NodeService extends AbstractComponent {
     @Inject
     public NodeService(Settings settings, ThreadPool threadPool, MonitorService monitorService, Discovery discovery,
                        TransportService transportService, IndicesService indicesService,
-                       PluginsService pluginService, CircuitBreakerService circuitBreakerService, Version version) {
+                       PluginsService pluginService, CircuitBreakerService circuitBreakerService,
+                       ResponseCollectorService responseCollectorService, Version version) {
         super(settings);
         this.threadPool = threadPool;
         this.monitorService = monitorService;
@@ -74,6 +77,7 @@ public class NodeService extends AbstractComponent {
         this.version = version;
         this.pluginService = pluginService;
         this.circuitBreakerService = circuitBreakerService;
+        this.responseCollectorService = responseCollectorService;
     }
 
     public void setHttpServer(@Nullable HttpServer httpServer) {
@@ -147,12 +151,13 @@ public class NodeService extends AbstractComponent {
                 monitorService.fsService().stats(),
                 transportService.stats(),
                 httpServer == null ? null : httpServer.stats(),
-                circuitBreakerService.stats()
+                circuitBreakerService.stats(),
+                responseCollectorService.stats()
         );
     }
 
     public NodeStats stats(CommonStatsFlags indices, boolean os, boolean process, boolean jvm, boolean threadPool, boolean network,
-                           boolean fs, boolean transport, boolean http, boolean circuitBreaker) {
+                           boolean fs, boolean transport, boolean http, boolean circuitBreaker, boolean adaptiveSelection) {
         // for indices stats we want to include previous allocated shards stats as well (it will
         // only be applied to the sensible ones to use, like refresh/merge/flush/indexing stats)
         return new NodeStats(discovery.localNode(), System.currentTimeMillis(),
@@ -165,7 +170,8 @@ public class NodeService extends AbstractComponent {
                 fs ? monitorService.fsService().stats() : null,
                 transport ? transportService.stats() : null,
                 http ? (httpServer == null ? null : httpServer.stats()) : null,
-                circuitBreaker ? circuitBreakerService.stats() : null
+                circuitBreaker ? circuitBreakerService.stats() : null,
+                adaptiveSelection ? responseCollectorService.stats() : null
         );
     }
 }
@@ -76,6 +76,7 @@ import org.elasticsearch.search.suggest.SuggestionSearchContext;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentMap;
 
 /**
@@ -96,6 +97,7 @@ public class PercolateContext extends SearchContext {
     private final BigArrays bigArrays;
     private final ScriptService scriptService;
     private final ConcurrentMap<BytesRef, Query> percolateQueries;
+    private Set<BytesRef> candidateQueries;
     private final int numberOfShards;
     private final Query aliasFilter;
     private String[] types;
@@ -170,6 +172,17 @@ public class PercolateContext extends SearchContext {
         return percolateQueries;
     }
 
+    /**
+     * The ids of the queries that may match the document being percolated, queries with other ids can be skipped.
+     */
+    public Set<BytesRef> candidateQueries() {
+        return candidateQueries;
+    }
+
+    public void candidateQueries(Set<BytesRef> candidateQueries) {
+        this.candidateQueries = candidateQueries;
+    }
+
     public Query percolateQuery() {
         return percolateQuery;
     }
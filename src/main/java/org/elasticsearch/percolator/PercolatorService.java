@@ -240,6 +240,11 @@ public class PercolatorService extends AbstractComponent {
             context.percolatorTypeId = action.id();
 
             percolatorIndex.prepare(context, parsedDocument);
+            try {
+                context.candidateQueries(indexShard.percolateRegistry().candidateQueries(context.docSearcher().getIndexReader()));
+            } catch (IOException e) {
+                throw new PercolateException(indexShard.shardId(), "failed to select candidate queries", e);
+            }
             return action.doPercolate(request, context, isNested);
         } finally {
             context.close();
@@ -450,15 +455,20 @@ public class PercolatorService extends AbstractComponent {
         public PercolateShardResponse doPercolate(PercolateShardRequest request, PercolateContext context, boolean isNested) {
             long count = 0;
             Lucene.EarlyTerminatingCollector collector = Lucene.createExistsCollector();
-            for (Map.Entry<BytesRef, Query> entry : context.percolateQueries().entrySet()) {
+            for (BytesRef id : context.candidateQueries()) {
+                Query query = context.percolateQueries().get(id);
+                if (query == null) {
+                    // removed since the candidates were selected
+                    continue;
+                }
                 try {
                     if (isNested) {
-                        Lucene.exists(context.docSearcher(), entry.getValue(), Queries.newNonNestedFilter(), collector);
+                        Lucene.exists(context.docSearcher(), query, Queries.newNonNestedFilter(), collector);
                     } else {
-                        Lucene.exists(context.docSearcher(), entry.getValue(), collector);
+                        Lucene.exists(context.docSearcher(), query, collector);
                     }
                 } catch (Throwable e) {
-                    logger.debug("[" + entry.getKey() + "] failed to execute query", e);
+                    logger.debug("[" + id + "] failed to execute query", e);
                     throw new PercolateException(context.indexShard().shardId(), "failed to execute", e);
                 }
 
@@ -546,25 +556,30 @@ public class PercolatorService extends AbstractComponent {
             List<Map<String, HighlightField>> hls = new ArrayList<>();
             Lucene.EarlyTerminatingCollector collector = Lucene.createExistsCollector();
 
-            for (Map.Entry<BytesRef, Query> entry : context.percolateQueries().entrySet()) {
+            for (BytesRef id : context.candidateQueries()) {
+                Query query = context.percolateQueries().get(id);
+                if (query == null) {
+                    // removed since the candidates were selected
+                    continue;
+                }
                 if (context.highlight() != null) {
-                    context.parsedQuery(new ParsedQuery(entry.getValue()));
+                    context.parsedQuery(new ParsedQuery(query));
                     context.hitContext().cache().clear();
                 }
                 try {
                     if (isNested) {
-                        Lucene.exists(context.docSearcher(), entry.getValue(), Queries.newNonNestedFilter(), collector);
+                        Lucene.exists(context.docSearcher(), query, Queries.newNonNestedFilter(), collector);
                     } else {
-                        Lucene.exists(context.docSearcher(), entry.getValue(), collector);
+                        Lucene.exists(context.docSearcher(), query, collector);
                     }
                 } catch (Throwable e) {
-                    logger.debug("[" + entry.getKey() + "] failed to execute query", e);
+                    logger.debug("[" + id + "] failed to execute query", e);
                     throw new PercolateException(context.indexShard().shardId(), "failed to execute", e);
                 }
 
                 if (collector.exists()) {
                     if (!context.limit || count < context.size()) {
-                        matches.add(entry.getKey());
+                        matches.add(id);
                         if (context.highlight() != null) {
                             highlightPhase.hitExecute(context, context.hitContext());
                             hls.add(context.hitContext().hit().getHighlightFields());
@@ -49,6 +49,7 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentMap;
 
 /**
@@ -58,6 +59,7 @@ abstract class QueryCollector extends SimpleCollector {
     final IndexFieldData<?> uidFieldData;
     final IndexSearcher searcher;
     final ConcurrentMap<BytesRef, Query> queries;
+    final Set<BytesRef> candidateQueries;
     final ESLogger logger;
     boolean isNestedDoc = false;
 
@@ -72,6 +74,7 @@ abstract class QueryCollector extends SimpleCollector {
     QueryCollector(ESLogger logger, PercolateContext context, boolean isNestedDoc) throws IOException {
         this.logger = logger;
         this.queries = context.percolateQueries();
+        this.candidateQueries = context.candidateQueries();
         this.searcher = context.docSearcher();
         final FieldMapper<?> uidMapper = context.mapperService().smartNameFieldMapper(UidFieldMapper.NAME);
         this.uidFieldData = context.fieldData().getForField(uidMapper);
@@ -142,6 +145,10 @@ abstract class QueryCollector extends SimpleCollector {
         }
         assert numValues == 1;
         current = Uid.splitUidIntoTypeAndId(values.valueAt(0))[1];
+        if (candidateQueries.contains(current) == false) {
+            // shares no terms with the document, so it can't match
+            return null;
+        }
         return queries.get(current);
     }
 
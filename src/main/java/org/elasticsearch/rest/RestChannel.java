@@ -19,6 +19,7 @@
 
 package org.elasticsearch.rest;
 
+import org.elasticsearch.action.ActionListener;
 import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.io.stream.BytesStreamOutput;
@@ -103,4 +104,35 @@ public abstract class RestChannel {
     }
 
     public abstract void sendResponse(RestResponse response);
+
+    /**
+     * Returns <tt>true</tt> if this channel can stream a response in chunks instead of sending it at once, see
+     * {@link #startChunkedResponse(RestStatus, String)}.
+     */
+    public boolean supportsChunkedResponses() {
+        return false;
+    }
+
+    /**
+     * Starts a chunked response, which is followed by any number of {@link #sendChunk(BytesReference, ActionListener)}
+     * calls and ends with {@link #endChunkedResponse()}. Only one response can be sent per channel, chunked or not.
+     */
+    public void startChunkedResponse(RestStatus status, String contentType) {
+        throw new UnsupportedOperationException("chunked responses are not supported by [" + getClass().getSimpleName() + "]");
+    }
+
+    /**
+     * Sends the next chunk of a chunked response. The listener is notified once the chunk was written, so that
+     * callers can hold off producing the next chunk until the client consumed this one.
+     */
+    public void sendChunk(BytesReference chunk, ActionListener<Void> listener) {
+        throw new UnsupportedOperationException("chunked responses are not supported by [" + getClass().getSimpleName() + "]");
+    }
+
+    /**
+     * Ends a chunked response.
+     */
+    public void endChunkedResponse() {
+        throw new UnsupportedOperationException("chunked responses are not supported by [" + getClass().getSimpleName() + "]");
+    }
 }
\ No newline at end of file
@@ -95,6 +95,7 @@ import org.elasticsearch.rest.action.script.RestDeleteIndexedScriptAction;
 import org.elasticsearch.rest.action.script.RestGetIndexedScriptAction;
 import org.elasticsearch.rest.action.script.RestPutIndexedScriptAction;
 import org.elasticsearch.rest.action.search.RestClearScrollAction;
+import org.elasticsearch.rest.action.search.RestExportAction;
 import org.elasticsearch.rest.action.search.RestMultiSearchAction;
 import org.elasticsearch.rest.action.search.RestSearchAction;
 import org.elasticsearch.rest.action.search.RestSearchScrollAction;
@@ -204,6 +205,7 @@ public class RestActionModule extends AbstractModule {
         bind(RestSearchAction.class).asEagerSingleton();
         bind(RestSearchScrollAction.class).asEagerSingleton();
         bind(RestClearScrollAction.class).asEagerSingleton();
+        bind(RestExportAction.class).asEagerSingleton();
         bind(RestMultiSearchAction.class).asEagerSingleton();
 
         bind(RestValidateQueryAction.class).asEagerSingleton();
@@ -76,6 +76,7 @@ public class RestNodesStatsAction extends BaseRestHandler {
             nodesStatsRequest.indices(metrics.contains("indices"));
             nodesStatsRequest.process(metrics.contains("process"));
             nodesStatsRequest.breaker(metrics.contains("breaker"));
+            nodesStatsRequest.adaptiveSelection(metrics.contains("adaptive_selection"));
 
             // check for index specific metrics
             if (metrics.contains("indices")) {
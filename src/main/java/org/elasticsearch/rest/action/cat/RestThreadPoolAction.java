@@ -60,6 +60,7 @@ public class RestThreadPoolAction extends AbstractCatAction {
             ThreadPool.Names.PERCOLATE,
             ThreadPool.Names.REFRESH,
             ThreadPool.Names.SEARCH,
+            ThreadPool.Names.SEGMENT_SEARCH,
             ThreadPool.Names.SNAPSHOT,
             ThreadPool.Names.SUGGEST,
             ThreadPool.Names.WARMER
@@ -76,6 +77,7 @@ public class RestThreadPoolAction extends AbstractCatAction {
             "p",
             "r",
             "s",
+            "ss",
             "sn",
             "su",
             "w"
@@ -0,0 +1,213 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.rest.action.search;
+
+import org.elasticsearch.ExceptionsHelper;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.search.ClearScrollRequest;
+import org.elasticsearch.action.search.ClearScrollResponse;
+import org.elasticsearch.action.search.SearchRequest;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.action.search.SearchScrollRequest;
+import org.elasticsearch.action.search.SearchType;
+import org.elasticsearch.client.Client;
+import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.common.xcontent.XContentFactory;
+import org.elasticsearch.rest.*;
+import org.elasticsearch.search.Scroll;
+import org.elasticsearch.search.SearchHit;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import static org.elasticsearch.rest.RestRequest.Method.GET;
+import static org.elasticsearch.rest.RestRequest.Method.POST;
+
+/**
+ * Exports the documents matching a search as a single chunked HTTP response with one line of JSON per document.
+ * The export scans the matching documents and only requests the next batch once the previous one was written to
+ * the client, so a slow client holds back the scan instead of having the batches buffered on the node.
+ */
+public class RestExportAction extends BaseRestHandler {
+
+    public static final String CONTENT_TYPE = "application/x-ndjson";
+
+    private static final TimeValue DEFAULT_KEEP_ALIVE = TimeValue.timeValueMinutes(1);
+
+    @Inject
+    public RestExportAction(Settings settings, RestController controller, Client client) {
+        super(settings, controller, client);
+        controller.registerHandler(GET, "/_export", this);
+        controller.registerHandler(POST, "/_export", this);
+        controller.registerHandler(GET, "/{index}/_export", this);
+        controller.registerHandler(POST, "/{index}/_export", this);
+        controller.registerHandler(GET, "/{index}/{type}/_export", this);
+        controller.registerHandler(POST, "/{index}/{type}/_export", this);
+    }
+
+    @Override
+    public void handleRequest(final RestRequest request, final RestChannel channel, final Client client) {
+        if (channel.supportsChunkedResponses() == false) {
+            channel.sendResponse(new BytesRestResponse(RestStatus.BAD_REQUEST, "exports are streamed as a chunked response, which requires HTTP/1.1"));
+            return;
+        }
+        SearchRequest searchRequest = RestSearchAction.parseSearchRequest(request);
+        searchRequest.searchType(SearchType.SCAN);
+        final TimeValue keepAlive = request.paramAsTime("scroll", DEFAULT_KEEP_ALIVE);
+        searchRequest.scroll(new Scroll(keepAlive));
+        client.search(searchRequest, new ActionListener<SearchResponse>() {
+            @Override
+            public void onResponse(SearchResponse response) {
+                // the scan itself doesn't return any hits, only the scroll to read them with
+                channel.startChunkedResponse(RestStatus.OK, CONTENT_TYPE);
+                new Export(channel, client, keepAlive).next(response.getScrollId());
+            }
+
+            @Override
+            public void onFailure(Throwable e) {
+                try {
+                    channel.sendResponse(new BytesRestResponse(channel, e));
+                } catch (Throwable e1) {
+                    logger.error("failed to send failure response", e1);
+                }
+            }
+        });
+    }
+
+    /**
+     * Reads the batches of a scan and writes them to the channel one after the other.
+     */
+    private class Export implements ActionListener<SearchResponse> {
+
+        private final RestChannel channel;
+        private final Client client;
+        private final TimeValue keepAlive;
+        private String scrollId;
+
+        Export(RestChannel channel, Client client, TimeValue keepAlive) {
+            this.channel = channel;
+            this.client = client;
+            this.keepAlive = keepAlive;
+        }
+
+        void next(String scrollId) {
+            this.scrollId = scrollId;
+            client.searchScroll(new SearchScrollRequest(scrollId).scroll(keepAlive), this);
+        }
+
+        @Override
+        public void onResponse(final SearchResponse response) {
+            scrollId = response.getScrollId();
+            if (response.getFailedShards() > 0) {
+                // an export that silently misses documents is worse than a failed one
+                onFailure(new IllegalStateException("failed to export the documents of [" + response.getFailedShards() + "] shards: "
+                        + Arrays.toString(response.getShardFailures())));
+                return;
+            }
+            SearchHit[] hits = response.getHits().hits();
+            if (hits.length == 0) {
+                channel.endChunkedResponse();
+                clearScroll(scrollId);
+                return;
+            }
+            BytesStreamOutput out = new BytesStreamOutput();
+            try {
+                for (SearchHit hit : hits) {
+                    XContentBuilder builder = XContentFactory.jsonBuilder(out);
+                    builder.startObject();
+                    builder.field("_index", hit.index());
+                    builder.field("_type", hit.type());
+                    builder.field("_id", hit.id());
+                    if (hit.sourceRef() != null) {
+                        builder.rawField("_source", hit.sourceRef());
+                    }
+                    builder.endObject();
+                    builder.flush();
+                    out.write('\n');
+                }
+            } catch (IOException e) {
+                onFailure(e);
+                return;
+            }
+            channel.sendChunk(out.bytes(), new ActionListener<Void>() {
+                @Override
+                public void onResponse(Void written) {
+                    next(scrollId);
+                }
+
+                @Override
+                public void onFailure(Throwable e) {
+                    // the client went away, there is no one left to report the failure to
+                    logger.debug("failed to write export chunk", e);
+                    clearScroll(scrollId);
+                }
+            });
+        }
+
+        @Override
+        public void onFailure(Throwable e) {
+            // the response has already started, so the failure can only be reported as the last line of the export
+            logger.debug("export failed", e);
+            try {
+                BytesStreamOutput out = new BytesStreamOutput();
+                XContentBuilder builder = XContentFactory.jsonBuilder(out);
+                builder.startObject().field("error", ExceptionsHelper.detailedMessage(e)).endObject();
+                builder.flush();
+                out.write('\n');
+                channel.sendChunk(out.bytes(), new ActionListener<Void>() {
+                    @Override
+                    public void onResponse(Void written) {
+                        channel.endChunkedResponse();
+                    }
+
+                    @Override
+                    public void onFailure(Throwable e) {
+                        logger.debug("failed to write export failure", e);
+                    }
+                });
+            } catch (Throwable e1) {
+                logger.error("failed to send export failure", e1);
+            } finally {
+                if (scrollId != null) {
+                    clearScroll(scrollId);
+                }
+            }
+        }
+
+        private void clearScroll(String scrollId) {
+            ClearScrollRequest clearRequest = new ClearScrollRequest();
+            clearRequest.addScrollId(scrollId);
+            client.clearScroll(clearRequest, new ActionListener<ClearScrollResponse>() {
+                @Override
+                public void onResponse(ClearScrollResponse response) {
+                }
+
+                @Override
+                public void onFailure(Throwable e) {
+                    logger.debug("failed to clear export scroll", e);
+                }
+            });
+        }
+    }
+}
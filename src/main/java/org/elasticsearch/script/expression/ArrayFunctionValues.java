@@ -0,0 +1,41 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.script.expression;
+
+import org.apache.lucene.queries.function.ValueSource;
+import org.apache.lucene.queries.function.docvalues.DoubleDocValues;
+
+/**
+ * A {@link org.apache.lucene.queries.function.FunctionValues} over a block of values that were read ahead of time,
+ * indexed by the position of the document in the block rather than by its id.
+ */
+class ArrayFunctionValues extends DoubleDocValues {
+    final double[] values;
+
+    ArrayFunctionValues(ValueSource parent, double[] values) {
+        super(parent);
+        this.values = values;
+    }
+
+    @Override
+    public double doubleVal(int i) {
+        return values[i];
+    }
+}
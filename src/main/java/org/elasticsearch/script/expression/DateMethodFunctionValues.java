@@ -43,4 +43,12 @@ class DateMethodFunctionValues extends FieldDataFunctionValues {
         calendar.setTimeInMillis(millis);
         return calendar.get(calendarType);
     }
+
+    @Override
+    void fill(int doc, double[] values, int length) {
+        for (int i = 0; i < length; ++i) {
+            calendar.setTimeInMillis((long)dataAccessor.get(doc + i));
+            values[i] = calendar.get(calendarType);
+        }
+    }
 }
@@ -0,0 +1,140 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.script.expression;
+
+import org.apache.lucene.expressions.Expression;
+import org.apache.lucene.expressions.SimpleBindings;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.queries.function.FunctionValues;
+import org.apache.lucene.queries.function.ValueSource;
+import org.apache.lucene.queries.function.valuesource.DoubleConstValueSource;
+
+import java.io.IOException;
+import java.util.Collections;
+
+/**
+ * Evaluates an {@link Expression} over blocks of consecutive documents of a segment. The field data of every
+ * variable is read into a primitive array in one tight loop per block, then the compiled expression runs over
+ * these arrays, so the per document cost of going through the {@link FunctionValues} of each variable is only
+ * paid once per block. Results are served from the block until a document outside of it is asked for.
+ *
+ * Consumers like script sorts and function score visit the documents that match a query in order, but not all
+ * documents of a segment: blocks grow while most of their documents end up being used and shrink otherwise, so
+ * that sparse matches do not pay for evaluating documents they never look at.
+ *
+ * Only expressions whose variables are all fields or constants can be evaluated this way, <code>_score</code> and
+ * <code>_value</code> change for every document.
+ */
+class ExpressionBlockEvaluator {
+
+    static final int INITIAL_BLOCK_SIZE = 16;
+
+    private final Expression expression;
+    private final int maxDoc;
+    private final int maxBlockSize;
+    // null for variables that don't depend on the document
+    private final FieldDataFunctionValues[] fields;
+    private final ValueSource[] sources;
+    private final FunctionValues[] functionValues;
+    // allocated at the size of the first block that needs them, since many leaves only ever evaluate a few documents
+    private final double[][] columns;
+    private double[] results = new double[0];
+
+    private int blockSize;
+    private int base;
+    private int length;
+    private int used;
+    private int lastDoc = -1;
+
+    ExpressionBlockEvaluator(Expression expression, SimpleBindings bindings, LeafReaderContext leaf, int maxBlockSize) throws IOException {
+        this.expression = expression;
+        this.maxDoc = leaf.reader().maxDoc();
+        this.maxBlockSize = Math.max(1, Math.min(maxBlockSize, maxDoc));
+        this.blockSize = Math.min(INITIAL_BLOCK_SIZE, this.maxBlockSize);
+        final int numVariables = expression.variables.length;
+        fields = new FieldDataFunctionValues[numVariables];
+        sources = new ValueSource[numVariables];
+        columns = new double[numVariables][];
+        functionValues = new FunctionValues[numVariables];
+        for (int i = 0; i < numVariables; ++i) {
+            sources[i] = bindings.getValueSource(expression.variables[i]);
+            FunctionValues values = sources[i].getValues(Collections.emptyMap(), leaf);
+            if (values instanceof FieldDataFunctionValues) {
+                fields[i] = (FieldDataFunctionValues) values;
+            } else {
+                functionValues[i] = values;
+            }
+        }
+    }
+
+    /**
+     * Returns whether an expression with the given bindings can be evaluated over blocks of documents.
+     */
+    static boolean supports(Expression expression, SimpleBindings bindings) {
+        for (String variable : expression.variables) {
+            ValueSource source = bindings.getValueSource(variable);
+            if (source instanceof FieldDataValueSource == false && source instanceof DoubleConstValueSource == false) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    double evaluate(int doc) {
+        if (doc < base || doc >= base + length) {
+            nextBlock(doc);
+        }
+        if (doc != lastDoc) {
+            lastDoc = doc;
+            ++used;
+        }
+        return results[doc - base];
+    }
+
+    private void nextBlock(int doc) {
+        if (length > 0) {
+            if (used * 2 >= length) {
+                blockSize = Math.min(maxBlockSize, blockSize * 2);
+            } else {
+                blockSize = Math.max(1, blockSize / 2);
+            }
+        }
+        base = doc;
+        length = Math.min(blockSize, maxDoc - doc);
+        used = 0;
+        if (results.length < length) {
+            results = new double[length];
+            for (int i = 0; i < fields.length; ++i) {
+                if (fields[i] != null) {
+                    columns[i] = new double[length];
+                    functionValues[i] = new ArrayFunctionValues(sources[i], columns[i]);
+                }
+            }
+        }
+        for (int i = 0; i < fields.length; ++i) {
+            if (fields[i] != null) {
+                fields[i].fill(doc, columns[i], length);
+            }
+        }
+        for (int i = 0; i < length; ++i) {
+            results[i] = expression.evaluate(i, functionValues);
+        }
+    }
+}
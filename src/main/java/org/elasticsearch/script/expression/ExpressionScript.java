@@ -44,23 +44,34 @@ class ExpressionScript implements SearchScript {
     final SimpleBindings bindings;
     final ValueSource source;
     final ReplaceableConstValueSource specialValue; // _value
+    final int blockSize; // 0 to always evaluate one document at a time
     Scorer scorer;
     int docid;
 
-    ExpressionScript(Expression e, SimpleBindings b, ReplaceableConstValueSource v) {
+    ExpressionScript(Expression e, SimpleBindings b, ReplaceableConstValueSource v, int maxBlockSize) {
         expression = e;
         bindings = b;
         source = expression.getValueSource(bindings);
         specialValue = v;
+        blockSize = maxBlockSize > 1 && ExpressionBlockEvaluator.supports(e, b) ? maxBlockSize : 0;
     }
 
     @Override
     public LeafSearchScript getLeafSearchScript(final LeafReaderContext leaf) throws IOException {
         return new LeafSearchScript() {
 
-            FunctionValues values = source.getValues(Collections.singletonMap("scorer", Lucene.illegalScorer("Scores are not available in the current context")), leaf);
+            // blocks only pay off for consumers that walk the documents of the leaf, like sorts or function score, so
+            // they are only used once the leaf moves on to a later document: fetching a script field, which uses a
+            // leaf script per hit, evaluates just the one document
+            ExpressionBlockEvaluator block;
+            int firstDoc = -1;
+            FunctionValues values =
+                    source.getValues(Collections.singletonMap("scorer", Lucene.illegalScorer("Scores are not available in the current context")), leaf);
 
             double evaluate() {
+                if (block != null) {
+                    return block.evaluate(docid);
+                }
                 return values.doubleVal(docid);
             }
 
@@ -82,11 +93,26 @@ class ExpressionScript implements SearchScript {
             @Override
             public void setDocument(int d) {
                 docid = d;
+                if (blockSize > 0 && block == null) {
+                    if (firstDoc == -1) {
+                        firstDoc = d;
+                    } else if (d > firstDoc) {
+                        try {
+                            block = new ExpressionBlockEvaluator(expression, bindings, leaf, blockSize);
+                        } catch (IOException e) {
+                            throw new IllegalStateException("Can't get values", e);
+                        }
+                    }
+                }
             }
 
             @Override
             public void setScorer(Scorer s) {
                 scorer = s;
+                if (blockSize > 0) {
+                    // the expression doesn't use the score
+                    return;
+                }
                 try {
                     // We have a new binding for the scorer so we need to reset the values
                     values = source.getValues(Collections.singletonMap("scorer", scorer), leaf);
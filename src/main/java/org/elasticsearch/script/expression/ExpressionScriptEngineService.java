@@ -60,9 +60,22 @@ public class ExpressionScriptEngineService extends AbstractComponent implements
     protected static final String GET_MINUTES_METHOD      = "getMinutes";
     protected static final String GET_SECONDS_METHOD      = "getSeconds";
 
+    /**
+     * The maximum number of documents of a segment that expressions are evaluated over at once, 0 or 1 to evaluate
+     * one document at a time.
+     */
+    public static final String BLOCK_SIZE = "script.expression.block_size";
+    public static final int DEFAULT_BLOCK_SIZE = 256;
+
+    private final int blockSize;
+
     @Inject
     public ExpressionScriptEngineService(Settings settings) {
         super(settings);
+        this.blockSize = settings.getAsInt(BLOCK_SIZE, DEFAULT_BLOCK_SIZE);
+        if (blockSize < 0) {
+            throw new IllegalArgumentException("[" + BLOCK_SIZE + "] must not be negative, got [" + blockSize + "]");
+        }
     }
 
     @Override
@@ -163,7 +176,7 @@ public class ExpressionScriptEngineService extends AbstractComponent implements
             }
         }
 
-        return new ExpressionScript((Expression)compiledScript, bindings, specialValue);
+        return new ExpressionScript((Expression)compiledScript, bindings, specialValue, blockSize);
     }
 
     protected ValueSource getMethodValueSource(FieldMapper<?> field, IndexFieldData<?> fieldData, String fieldName, String methodName) {
@@ -40,4 +40,13 @@ class FieldDataFunctionValues extends DoubleDocValues {
     public double doubleVal(int i) {
         return dataAccessor.get(i);
     }
+
+    /**
+     * Reads the values of the <code>length</code> documents starting at <code>doc</code> into <code>values</code>.
+     */
+    void fill(int doc, double[] values, int length) {
+        for (int i = 0; i < length; ++i) {
+            values[i] = dataAccessor.get(doc + i);
+        }
+    }
 }
@@ -0,0 +1,89 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.script.groovy;
+
+import groovy.lang.MissingPropertyException;
+import org.codehaus.groovy.runtime.InvokerHelper;
+import org.elasticsearch.index.fielddata.ScriptDocValues;
+import org.elasticsearch.search.lookup.LeafDocLookup;
+
+import java.util.Map;
+
+/**
+ * Reads the first value of a field for the current document. Groovy scripts are compiled with every
+ * <code>doc['field'].value</code> expression whose field name is a literal rewritten to read the
+ * <code>value</code> of one of these instead, so that the field is looked up in the <code>doc</code> map
+ * once per segment rather than on every access, and numeric values are read from the primitive
+ * accessors of {@link ScriptDocValues} without resolving the <code>value</code> property of a list.
+ *
+ * When the variable the expression was written against does not hold the doc lookup of a segment, for
+ * instance because a parameter masks it, the original expression is evaluated dynamically.
+ */
+public final class DocValueAccessor {
+
+    private final Map<String, Object> variables;
+    private final String docVariable;
+    private final String field;
+
+    private ScriptDocValues<?> values;
+    private int doc = -1;
+    private int valuesDoc = -1;
+
+    DocValueAccessor(Map<String, Object> variables, String docVariable, String field) {
+        this.variables = variables;
+        this.docVariable = docVariable;
+        this.field = field;
+    }
+
+    /**
+     * Forgets the values of the field, the doc lookup is read again from the variables on the next access.
+     */
+    void reset() {
+        values = null;
+    }
+
+    void setDocument(int doc) {
+        this.doc = doc;
+    }
+
+    public Object getValue() {
+        if (values == null) {
+            Object docs = variables.get(docVariable);
+            if (docs instanceof LeafDocLookup == false) {
+                if (docs == null && variables.containsKey(docVariable) == false) {
+                    throw new MissingPropertyException(docVariable, DocValueAccessor.class);
+                }
+                return InvokerHelper.getProperty(InvokerHelper.invokeMethod(docs, "getAt", field), "value");
+            }
+            // the lookup positions the values on its current document, which is ours
+            values = (ScriptDocValues<?>) ((LeafDocLookup) docs).get(field);
+            valuesDoc = doc;
+        } else if (valuesDoc != doc) {
+            values.setNextDocId(doc);
+            valuesDoc = doc;
+        }
+        if (values instanceof ScriptDocValues.Longs) {
+            return ((ScriptDocValues.Longs) values).getValue();
+        } else if (values instanceof ScriptDocValues.Doubles) {
+            return ((ScriptDocValues.Doubles) values).getValue();
+        }
+        return InvokerHelper.getProperty(values, "value");
+    }
+}
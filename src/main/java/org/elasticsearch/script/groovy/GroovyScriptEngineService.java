@@ -26,8 +26,12 @@ import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.search.Scorer;
 import org.codehaus.groovy.ast.ClassCodeExpressionTransformer;
 import org.codehaus.groovy.ast.ClassNode;
+import org.codehaus.groovy.ast.DynamicVariable;
+import org.codehaus.groovy.ast.expr.BinaryExpression;
 import org.codehaus.groovy.ast.expr.ConstantExpression;
 import org.codehaus.groovy.ast.expr.Expression;
+import org.codehaus.groovy.ast.expr.PropertyExpression;
+import org.codehaus.groovy.ast.expr.VariableExpression;
 import org.codehaus.groovy.classgen.GeneratorContext;
 import org.codehaus.groovy.control.CompilationFailedException;
 import org.codehaus.groovy.control.CompilePhase;
@@ -35,20 +39,27 @@ import org.codehaus.groovy.control.CompilerConfiguration;
 import org.codehaus.groovy.control.SourceUnit;
 import org.codehaus.groovy.control.customizers.CompilationCustomizer;
 import org.codehaus.groovy.control.customizers.ImportCustomizer;
+import org.codehaus.groovy.syntax.Types;
 import org.elasticsearch.ExceptionsHelper;
 import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.component.AbstractComponent;
 import org.elasticsearch.common.inject.Inject;
 import org.elasticsearch.common.logging.ESLogger;
 import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
 import org.elasticsearch.script.*;
 import org.elasticsearch.search.lookup.LeafSearchLookup;
 import org.elasticsearch.search.lookup.SearchLookup;
 
 import java.io.IOException;
 import java.math.BigDecimal;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.atomic.AtomicLong;
 
 /**
@@ -57,8 +68,14 @@ import java.util.concurrent.atomic.AtomicLong;
 public class GroovyScriptEngineService extends AbstractComponent implements ScriptEngineService {
 
     public static final String NAME = "groovy";
+    /**
+     * Prefix of the variables that the {@link DocValueAccessor}s of a script are bound to.
+     */
+    static final String DOC_VALUE_ACCESSOR_PREFIX = "_doc_value_accessor_";
     private final AtomicLong counter = new AtomicLong();
     private final GroovyClassLoader loader;
+    // the doc values read by the scripts being compiled, by script name
+    private final ConcurrentMap<String, DocValueFields> compilingDocValueFields = ConcurrentCollections.newConcurrentMap();
 
     @Inject
     public GroovyScriptEngineService(Settings settings) {
@@ -70,6 +87,8 @@ public class GroovyScriptEngineService extends AbstractComponent implements Scri
         config.addCompilationCustomizers(imports);
         // Add BigDecimal -> Double transformer
         config.addCompilationCustomizers(new GroovyBigDecimalTransformer(CompilePhase.CONVERSION));
+        // Rewrite doc['field'].value into reads of per field accessors, once variables are resolved
+        config.addCompilationCustomizers(new GroovyDocValueAccessTransformer(CompilePhase.CANONICALIZATION));
         this.loader = new GroovyClassLoader(settings.getClassLoader(), config);
     }
 
@@ -110,13 +129,18 @@ public class GroovyScriptEngineService extends AbstractComponent implements Scri
 
     @Override
     public Object compile(String script) {
+        String scriptName = generateScriptName();
+        DocValueFields docValueFields = new DocValueFields();
+        compilingDocValueFields.put(scriptName, docValueFields);
         try {
-            return loader.parseClass(script, generateScriptName());
+            return new CompiledGroovyScript(loader.parseClass(script, scriptName), docValueFields);
         } catch (Throwable e) {
             if (logger.isTraceEnabled()) {
                 logger.trace("exception compiling Groovy script:", e);
             }
             throw new GroovyScriptCompilationException(ExceptionsHelper.detailedMessage(e));
+        } finally {
+            compilingDocValueFields.remove(scriptName);
         }
     }
 
@@ -125,10 +149,14 @@ public class GroovyScriptEngineService extends AbstractComponent implements Scri
      */
     @SuppressWarnings("unchecked")
     private Script createScript(Object compiledScript, Map<String, Object> vars) throws InstantiationException, IllegalAccessException {
-        Class scriptClass = (Class) compiledScript;
-        Script scriptObject = (Script) scriptClass.newInstance();
+        CompiledGroovyScript compiled = (CompiledGroovyScript) compiledScript;
+        Script scriptObject = compiled.scriptClass.newInstance();
         Binding binding = new Binding();
         binding.getVariables().putAll(vars);
+        for (int i = 0; i < compiled.docVariables.length; i++) {
+            binding.setVariable(DOC_VALUE_ACCESSOR_PREFIX + i,
+                    new DocValueAccessor(binding.getVariables(), compiled.docVariables[i], compiled.fields[i]));
+        }
         scriptObject.setBinding(binding);
         return scriptObject;
     }
@@ -147,28 +175,9 @@ public class GroovyScriptEngineService extends AbstractComponent implements Scri
         }
     }
 
-    @SuppressWarnings({"unchecked"})
     @Override
     public SearchScript search(final Object compiledScript, final SearchLookup lookup, @Nullable final Map<String, Object> vars) {
-        return new SearchScript() {
-
-            @Override
-            public LeafSearchScript getLeafSearchScript(LeafReaderContext context) throws IOException {
-                final LeafSearchLookup leafLookup = lookup.getLeafSearchLookup(context);
-                Map<String, Object> allVars = new HashMap<>();
-                allVars.putAll(leafLookup.asMap());
-                if (vars != null) {
-                    allVars.putAll(vars);
-                }
-                Script scriptObject;
-                try {
-                    scriptObject = createScript(compiledScript, allVars);
-                } catch (InstantiationException | IllegalAccessException e) {
-                    throw new ScriptException("failed to build search script", e);
-                }
-                return new GroovyScript(scriptObject, leafLookup, logger);
-            }
-        };
+        return new GroovySearchScript(compiledScript, lookup, vars);
     }
 
     @Override
@@ -194,40 +203,171 @@ public class GroovyScriptEngineService extends AbstractComponent implements Scri
         return "Script" + counter.incrementAndGet() + ".groovy";
     }
 
+    /**
+     * A {@link SearchScript} that creates a single {@link Script} instance and binding per search thread for all the
+     * segments that thread visits, instead of one per segment. Consumers move from one segment to the next on a
+     * thread, and the slices of a concurrent search each run on a thread of their own. Leaf scripts are used by the
+     * thread that created them: they bind the instance of their thread to their segment when they are created, and
+     * again whenever they find that another leaf script used it last.
+     */
+    private final class GroovySearchScript implements SearchScript {
+
+        private final Object compiledScript;
+        private final SearchLookup lookup;
+        @Nullable
+        private final Map<String, Object> vars;
+        private final ConcurrentMap<Thread, SharedScript> sharedScripts = ConcurrentCollections.newConcurrentMap();
+
+        GroovySearchScript(Object compiledScript, SearchLookup lookup, @Nullable Map<String, Object> vars) {
+            this.compiledScript = compiledScript;
+            this.lookup = lookup;
+            this.vars = vars;
+        }
+
+        @Override
+        public LeafSearchScript getLeafSearchScript(LeafReaderContext context) throws IOException {
+            final LeafSearchLookup leafLookup = lookup.getLeafSearchLookup(context);
+            final Thread thread = Thread.currentThread();
+            SharedScript shared = sharedScripts.get(thread);
+            if (shared == null) {
+                Script scriptObject;
+                try {
+                    scriptObject = createScript(compiledScript, leafLookup.asMap());
+                } catch (InstantiationException | IllegalAccessException e) {
+                    throw new ScriptException("failed to build search script", e);
+                }
+                shared = new SharedScript(scriptObject, vars);
+                // only this thread adds its own entry
+                sharedScripts.put(thread, shared);
+            }
+            return new GroovyScript(shared.script, leafLookup, logger, shared.docValueAccessors, shared);
+        }
+    }
+
+    /**
+     * The script instance that the leaf scripts created by a thread share.
+     */
+    private static final class SharedScript {
+
+        final Script script;
+        final DocValueAccessor[] docValueAccessors;
+        @Nullable
+        final Map<String, Object> vars;
+        // the variables of a fresh binding, anything else was assigned by the script or set by an earlier leaf script
+        final Set<String> initialVariables;
+        // the leaf script the instance is bound to
+        GroovyScript bound;
+
+        @SuppressWarnings("unchecked")
+        SharedScript(Script script, @Nullable Map<String, Object> vars) {
+            this.script = script;
+            this.docValueAccessors = GroovyScript.docValueAccessors(script);
+            this.vars = vars;
+            Set<String> initialVariables = new HashSet<String>(script.getBinding().getVariables().keySet());
+            if (vars != null) {
+                initialVariables.addAll(vars.keySet());
+            }
+            this.initialVariables = initialVariables;
+        }
+    }
+
     public static final class GroovyScript implements ExecutableScript, LeafSearchScript {
 
         private final Script script;
         private final LeafSearchLookup lookup;
         private final Map<String, Object> variables;
         private final ESLogger logger;
+        private final DocValueAccessor[] docValueAccessors;
+        @Nullable
+        private final SharedScript owner;
+        private ScoreAccessor score;
+        private int doc = -1;
 
         public GroovyScript(Script script, ESLogger logger) {
             this(script, null, logger);
         }
 
-        @SuppressWarnings("unchecked")
         public GroovyScript(Script script, @Nullable LeafSearchLookup lookup, ESLogger logger) {
+            this(script, lookup, logger, docValueAccessors(script), null);
+        }
+
+        @SuppressWarnings("unchecked")
+        private GroovyScript(Script script, @Nullable LeafSearchLookup lookup, ESLogger logger, DocValueAccessor[] docValueAccessors,
+                             @Nullable SharedScript owner) {
             this.script = script;
             this.lookup = lookup;
             this.logger = logger;
             this.variables = script.getBinding().getVariables();
+            this.docValueAccessors = docValueAccessors;
+            this.owner = owner;
+            if (owner != null) {
+                bind();
+            }
+        }
+
+        /**
+         * Returns the {@link DocValueAccessor}s bound to the given script.
+         */
+        static DocValueAccessor[] docValueAccessors(Script script) {
+            List<DocValueAccessor> accessors = new ArrayList<>();
+            Map<?, ?> variables = script.getBinding().getVariables();
+            for (Object accessor = variables.get(DOC_VALUE_ACCESSOR_PREFIX + 0); accessor instanceof DocValueAccessor;
+                    accessor = variables.get(DOC_VALUE_ACCESSOR_PREFIX + accessors.size())) {
+                accessors.add((DocValueAccessor) accessor);
+            }
+            return accessors.toArray(new DocValueAccessor[accessors.size()]);
+        }
+
+        /**
+         * Binds the script instance shared with the other segments this thread searches to this segment, if another
+         * leaf script used it last.
+         */
+        private void ensureBound() {
+            if (owner != null && owner.bound != this) {
+                bind();
+            }
+        }
+
+        private void bind() {
+            // start from a fresh binding, variables the script assigned for another segment or hit must not leak
+            variables.keySet().retainAll(owner.initialVariables);
+            variables.putAll(lookup.asMap());
+            if (owner.vars != null) {
+                variables.putAll(owner.vars);
+            }
+            if (score != null) {
+                variables.put("_score", score);
+            }
+            for (DocValueAccessor accessor : docValueAccessors) {
+                accessor.reset();
+                accessor.setDocument(doc);
+            }
+            owner.bound = this;
         }
 
         @Override
         public void setScorer(Scorer scorer) {
-            this.variables.put("_score", new ScoreAccessor(scorer));
+            ensureBound();
+            this.score = new ScoreAccessor(scorer);
+            this.variables.put("_score", score);
         }
 
         @Override
         public void setDocument(int doc) {
+            ensureBound();
+            this.doc = doc;
             if (lookup != null) {
                 lookup.setDocument(doc);
             }
+            for (DocValueAccessor accessor : docValueAccessors) {
+                accessor.setDocument(doc);
+            }
         }
 
         @SuppressWarnings({"unchecked"})
         @Override
         public void setNextVar(String name, Object value) {
+            ensureBound();
             variables.put(name, value);
         }
 
@@ -240,6 +380,7 @@ public class GroovyScriptEngineService extends AbstractComponent implements Scri
 
         @Override
         public Object run() {
+            ensureBound();
             try {
                 return script.run();
             } catch (Throwable e) {
@@ -272,6 +413,115 @@ public class GroovyScriptEngineService extends AbstractComponent implements Scri
 
     }
 
+    /**
+     * A compiled Groovy script, along with the fields its {@link DocValueAccessor}s read.
+     */
+    private static final class CompiledGroovyScript {
+
+        final Class<? extends Script> scriptClass;
+        final String[] docVariables;
+        final String[] fields;
+
+        @SuppressWarnings("unchecked")
+        CompiledGroovyScript(Class<?> scriptClass, DocValueFields docValueFields) {
+            this.scriptClass = (Class<? extends Script>) scriptClass;
+            synchronized (docValueFields) {
+                this.docVariables = docValueFields.docVariables.toArray(new String[docValueFields.docVariables.size()]);
+                this.fields = docValueFields.fields.toArray(new String[docValueFields.fields.size()]);
+            }
+        }
+    }
+
+    /**
+     * The <code>doc['field'].value</code> expressions of a script being compiled, the n-th distinct one is
+     * read through the accessor bound to {@link #DOC_VALUE_ACCESSOR_PREFIX}n.
+     */
+    private static final class DocValueFields {
+
+        final List<String> docVariables = new ArrayList<>();
+        final List<String> fields = new ArrayList<>();
+
+        synchronized String accessorName(String docVariable, String field) {
+            for (int i = 0; i < fields.size(); i++) {
+                if (fields.get(i).equals(field) && docVariables.get(i).equals(docVariable)) {
+                    return DOC_VALUE_ACCESSOR_PREFIX + i;
+                }
+            }
+            docVariables.add(docVariable);
+            fields.add(field);
+            return DOC_VALUE_ACCESSOR_PREFIX + (fields.size() - 1);
+        }
+    }
+
+    /**
+     * A compilation customizer that rewrites the <code>doc['field'].value</code> expressions of a script,
+     * see {@link DocValueAccessor}.
+     */
+    private class GroovyDocValueAccessTransformer extends CompilationCustomizer {
+
+        private GroovyDocValueAccessTransformer(CompilePhase phase) {
+            super(phase);
+        }
+
+        @Override
+        public void call(final SourceUnit source, final GeneratorContext context, final ClassNode classNode) throws CompilationFailedException {
+            DocValueFields docValueFields = compilingDocValueFields.get(source.getName());
+            if (docValueFields != null) {
+                new DocValueAccessExpressionTransformer(source, docValueFields).visitClass(classNode);
+            }
+        }
+    }
+
+    /**
+     * Groovy expression transformer that replaces <code>doc['field'].value</code> and <code>_doc['field'].value</code>,
+     * with a literal field name and <code>doc</code> not declared by the script, with the <code>value</code> of a
+     * {@link DocValueAccessor}
+     */
+    private class DocValueAccessExpressionTransformer extends ClassCodeExpressionTransformer {
+
+        private final SourceUnit source;
+        private final DocValueFields docValueFields;
+
+        private DocValueAccessExpressionTransformer(SourceUnit source, DocValueFields docValueFields) {
+            this.source = source;
+            this.docValueFields = docValueFields;
+        }
+
+        @Override
+        protected SourceUnit getSourceUnit() {
+            return this.source;
+        }
+
+        @Override
+        public Expression transform(Expression expr) {
+            if (expr.getClass() == PropertyExpression.class) {
+                PropertyExpression property = (PropertyExpression) expr;
+                if ("value".equals(property.getPropertyAsString()) && property.isSafe() == false && property.isSpreadSafe() == false
+                        && property.getObjectExpression() instanceof BinaryExpression) {
+                    BinaryExpression index = (BinaryExpression) property.getObjectExpression();
+                    if (index.getOperation().getType() == Types.LEFT_SQUARE_BRACKET
+                            && index.getLeftExpression() instanceof VariableExpression
+                            && index.getRightExpression() instanceof ConstantExpression
+                            && ((ConstantExpression) index.getRightExpression()).getValue() instanceof String) {
+                        VariableExpression docs = (VariableExpression) index.getLeftExpression();
+                        if (("doc".equals(docs.getName()) || "_doc".equals(docs.getName()))
+                                && docs.getAccessedVariable() instanceof DynamicVariable) {
+                            String field = (String) ((ConstantExpression) index.getRightExpression()).getValue();
+                            String name = docValueFields.accessorName(docs.getName(), field);
+                            VariableExpression accessor = new VariableExpression(name);
+                            accessor.setAccessedVariable(new DynamicVariable(name, false));
+                            accessor.setSourcePosition(docs);
+                            PropertyExpression value = new PropertyExpression(accessor, "value");
+                            value.setSourcePosition(expr);
+                            return value;
+                        }
+                    }
+                }
+            }
+            return super.transform(expr);
+        }
+    }
+
     /**
      * A compilation customizer that is used to transform a number like 1.23,
      * which would normally be a BigDecimal, into a double value.
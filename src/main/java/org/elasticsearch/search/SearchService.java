@@ -28,11 +28,17 @@ import com.google.common.collect.ImmutableMap;
 import org.apache.lucene.index.IndexOptions;
 import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.index.NumericDocValues;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.index.TermContext;
+import org.apache.lucene.search.CollectionStatistics;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.TermStatistics;
 import org.apache.lucene.search.TopDocs;
 import org.elasticsearch.ElasticsearchException;
 import org.elasticsearch.ElasticsearchParseException;
 import org.elasticsearch.ExceptionsHelper;
 import org.elasticsearch.action.search.SearchType;
+import org.elasticsearch.action.support.PlainActionFuture;
 import org.elasticsearch.cache.recycler.PageCacheRecycler;
 import org.elasticsearch.cluster.ClusterService;
 import org.elasticsearch.cluster.metadata.IndexMetaData;
@@ -41,11 +47,13 @@ import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.component.AbstractLifecycleComponent;
 import org.elasticsearch.common.inject.Inject;
 import org.elasticsearch.common.lease.Releasables;
+import org.elasticsearch.common.lucene.Lucene;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.common.util.BigArrays;
 import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
 import org.elasticsearch.common.util.concurrent.ConcurrentMapLong;
+import org.elasticsearch.common.util.concurrent.EsRejectedExecutionException;
 import org.elasticsearch.common.util.concurrent.FutureUtils;
 import org.elasticsearch.common.xcontent.XContentFactory;
 import org.elasticsearch.common.xcontent.XContentHelper;
@@ -54,6 +62,7 @@ import org.elasticsearch.index.Index;
 import org.elasticsearch.index.IndexService;
 import org.elasticsearch.index.cache.IndexCache;
 import org.elasticsearch.index.engine.Engine;
+import org.elasticsearch.index.engine.EngineConfig;
 import org.elasticsearch.index.fielddata.FieldDataType;
 import org.elasticsearch.index.fielddata.IndexFieldData;
 import org.elasticsearch.index.fielddata.IndexFieldDataService;
@@ -76,6 +85,8 @@ import org.elasticsearch.script.Script;
 import org.elasticsearch.script.ScriptContext;
 import org.elasticsearch.script.ScriptService;
 import org.elasticsearch.script.mustache.MustacheScriptEngineService;
+import org.elasticsearch.search.aggregations.InternalAggregation.ReduceContext;
+import org.elasticsearch.search.aggregations.InternalAggregations;
 import org.elasticsearch.search.dfs.CachedDfSource;
 import org.elasticsearch.search.dfs.DfsPhase;
 import org.elasticsearch.search.dfs.DfsSearchResult;
@@ -84,6 +95,7 @@ import org.elasticsearch.search.fetch.FetchSearchResult;
 import org.elasticsearch.search.fetch.QueryFetchSearchResult;
 import org.elasticsearch.search.fetch.ScrollQueryFetchSearchResult;
 import org.elasticsearch.search.fetch.ShardFetchRequest;
+import org.elasticsearch.search.internal.ContextIndexSearcher;
 import org.elasticsearch.search.internal.DefaultSearchContext;
 import org.elasticsearch.search.internal.InternalScrollSearchRequest;
 import org.elasticsearch.search.internal.SearchContext;
@@ -100,12 +112,16 @@ import org.elasticsearch.search.warmer.IndexWarmersMetaData;
 import org.elasticsearch.threadpool.ThreadPool;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.atomic.AtomicLong;
 
 import static org.elasticsearch.common.Strings.hasLength;
@@ -119,6 +135,8 @@ public class SearchService extends AbstractLifecycleComponent<SearchService> {
     public static final String NORMS_LOADING_KEY = "index.norms.loading";
     public static final String DEFAULT_KEEPALIVE_KEY = "search.default_keep_alive";
     public static final String KEEPALIVE_INTERVAL_KEY = "search.keep_alive_interval";
+    public static final String CONCURRENT_SEARCH_KEY = "index.search.concurrent";
+    public static final String SCAN_PREFETCH_KEY = "search.scan.prefetch";
 
 
     private final ThreadPool threadPool;
@@ -145,12 +163,17 @@ public class SearchService extends AbstractLifecycleComponent<SearchService> {
 
     private final long defaultKeepAlive;
 
+    private final boolean scanPrefetch;
+
     private final ScheduledFuture<?> keepAliveReaper;
 
     private final AtomicLong idGenerator = new AtomicLong();
 
     private final ConcurrentMapLong<SearchContext> activeContexts = ConcurrentCollections.newConcurrentMapLongWithAggressiveConcurrency();
 
+    // the next page of each scan, computed while the previous page is consumed
+    private final ConcurrentMapLong<ScanPrefetch> prefetchedScanPages = ConcurrentCollections.newConcurrentMapLongWithAggressiveConcurrency();
+
     private final ImmutableMap<String, SearchParseElement> elementParsers;
 
     @Inject
@@ -182,6 +205,7 @@ public class SearchService extends AbstractLifecycleComponent<SearchService> {
         TimeValue keepAliveInterval = settings.getAsTime(KEEPALIVE_INTERVAL_KEY, timeValueMinutes(1));
         // we can have 5 minutes here, since we make sure to clean with search requests and when shard/index closes
         this.defaultKeepAlive = settings.getAsTime(DEFAULT_KEEPALIVE_KEY, timeValueMinutes(5)).millis();
+        this.scanPrefetch = settings.getAsBoolean(SCAN_PREFETCH_KEY, false);
 
         Map<String, SearchParseElement> elementParsers = new HashMap<>();
         elementParsers.putAll(dfsPhase.parseElements());
@@ -272,23 +296,39 @@ public class SearchService extends AbstractLifecycleComponent<SearchService> {
 
     public ScrollQueryFetchSearchResult executeScan(InternalScrollSearchRequest request) {
         final SearchContext context = findContext(request.id());
-        contextProcessing(context);
+        ScanPrefetch prefetchedPage = prefetchedScanPages.get(context.id());
+        if (prefetchedPage != null && prefetchedPage.cancel()) {
+            // the prefetch is still queued behind other searches, possibly behind this very thread, so waiting for
+            // it could deadlock the search pool: compute the page here instead
+            prefetchedScanPages.remove(context.id(), prefetchedPage);
+            prefetchedPage = null;
+        }
+        final ScrollQueryFetchSearchResult result;
+        boolean prefetch = false;
         try {
-            processScroll(request, context);
-            if (context.searchType() == SearchType.QUERY_THEN_FETCH) {
-                // first scanning, reset the from to 0
-                context.searchType(SearchType.SCAN);
-                context.from(0);
+            if (prefetchedPage != null) {
+                // the prefetch is running or done, so this only waits for a thread that makes progress
+                result = prefetchedPage.page.actionGet();
+                prefetchedScanPages.remove(context.id(), prefetchedPage);
+                if (prefetchedPage.freed()) {
+                    // the context was freed while its page was prefetched, and closed by the prefetch
+                    throw new SearchContextMissingException(context.id());
+                }
+                contextProcessing(context);
+                updateScroll(request, context);
+            } else {
+                contextProcessing(context);
+                processScroll(request, context);
+                result = executeScanPage(context);
             }
-            queryPhase.execute(context);
-            shortcutDocIdsToLoadForScanning(context);
-            fetchPhase.execute(context);
-            if (context.scroll() == null || context.fetchResult().hits().hits().length < context.size()) {
+            if (context.scroll() == null || result.result().fetchResult().hits().hits().length < context.size()) {
                 freeContext(request.id());
+            } else if (scanPrefetch) {
+                // the context is left marked as being processed, so that it isn't reaped while prefetching
+                prefetch = true;
             } else {
                 contextProcessedSuccessfully(context);
             }
-            return new ScrollQueryFetchSearchResult(new QueryFetchSearchResult(context.queryResult(), context.fetchResult()), context.shardTarget());
         } catch (Throwable e) {
             logger.trace("Scan phase failed", e);
             freeContext(context.id());
@@ -296,6 +336,132 @@ public class SearchService extends AbstractLifecycleComponent<SearchService> {
         } finally {
             cleanContext(context);
         }
+        if (prefetch) {
+            prefetchScanPage(context);
+        }
+        return result;
+    }
+
+    private ScrollQueryFetchSearchResult executeScanPage(SearchContext context) {
+        if (context.searchType() == SearchType.QUERY_THEN_FETCH) {
+            // first scanning, reset the from to 0
+            context.searchType(SearchType.SCAN);
+            context.from(0);
+        }
+        queryPhase.execute(context);
+        shortcutDocIdsToLoadForScanning(context);
+        fetchPhase.execute(context);
+        // the results of the context are reused by the next page, which may be prefetched while this one is being sent
+        QuerySearchResult queryResult = new QuerySearchResult(context.id(), context.shardTarget());
+        queryResult.from(context.queryResult().from()).size(context.queryResult().size());
+        queryResult.topDocs(context.queryResult().topDocs());
+        queryResult.searchTimedOut(context.queryResult().searchTimedOut());
+        FetchSearchResult fetchResult = new FetchSearchResult(context.id(), context.shardTarget());
+        fetchResult.hits(context.fetchResult().hits());
+        return new ScrollQueryFetchSearchResult(new QueryFetchSearchResult(queryResult, fetchResult), context.shardTarget());
+    }
+
+    /**
+     * Computes the next page of a scan in the background, so that it is ready by the time the next scroll request
+     * comes in. At most one page per scan is prefetched.
+     */
+    private void prefetchScanPage(final SearchContext context) {
+        final ScanPrefetch prefetch = new ScanPrefetch();
+        prefetchedScanPages.put(context.id(), prefetch);
+        try {
+            threadPool.executor(ThreadPool.Names.SEARCH).execute(new Runnable() {
+                @Override
+                public void run() {
+                    if (prefetch.start() == false) {
+                        // the page was computed by the scroll request itself, or the context was freed
+                        return;
+                    }
+                    ScrollQueryFetchSearchResult result = null;
+                    Throwable failure = null;
+                    SearchContext.setCurrent(context);
+                    try {
+                        context.from(context.from() + context.size());
+                        result = executeScanPage(context);
+                    } catch (Throwable t) {
+                        logger.trace("Prefetching scan page failed", t);
+                        failure = t;
+                    } finally {
+                        cleanContext(context);
+                        contextProcessedSuccessfully(context);
+                    }
+                    if (prefetch.done()) {
+                        closeContext(context);
+                    }
+                    // only hand the page over once this thread is done with the context
+                    if (failure != null) {
+                        prefetch.page.onFailure(failure);
+                    } else {
+                        prefetch.page.onResponse(result);
+                    }
+                }
+            });
+        } catch (EsRejectedExecutionException e) {
+            // fall back to computing the page when it is requested
+            prefetchedScanPages.remove(context.id(), prefetch);
+            if (prefetch.cancel()) {
+                contextProcessedSuccessfully(context);
+            } // else the context was freed and closed in the meantime
+        }
+    }
+
+    /**
+     * The prefetched next page of a scan. Nothing ever waits for a prefetch that is still queued: the next scroll
+     * request cancels it and computes the page itself, and freeing the context cancels it as well. Freeing a scan
+     * doesn't wait for a running prefetch either, the context is only marked as freed and the prefetch closes it
+     * once it is done with it.
+     */
+    private static final class ScanPrefetch {
+
+        private static final int QUEUED = 0;
+        private static final int RUNNING = 1;
+        private static final int DONE = 2;
+        private static final int CANCELLED = 3;
+
+        final PlainActionFuture<ScrollQueryFetchSearchResult> page = PlainActionFuture.newFuture();
+
+        private int state = QUEUED;
+
+        private boolean freed = false;
+
+        /** Cancels the prefetch if it hasn't started yet, returns <tt>true</tt> if it was cancelled. */
+        synchronized boolean cancel() {
+            if (state == QUEUED) {
+                state = CANCELLED;
+                return true;
+            }
+            return false;
+        }
+
+        /** Starts the prefetch, returns <tt>false</tt> if it was cancelled and must not touch the context. */
+        synchronized boolean start() {
+            if (state == QUEUED) {
+                state = RUNNING;
+                return true;
+            }
+            return false;
+        }
+
+        /** Marks the context as freed, returns <tt>true</tt> if the caller has to close it. */
+        synchronized boolean free() {
+            freed = true;
+            cancel();
+            return state != RUNNING;
+        }
+
+        /** Marks the prefetch as done with the context, returns <tt>true</tt> if it has to close it. */
+        synchronized boolean done() {
+            state = DONE;
+            return freed;
+        }
+
+        synchronized boolean freed() {
+            return freed;
+        }
     }
 
     /**
@@ -304,13 +470,71 @@ public class SearchService extends AbstractLifecycleComponent<SearchService> {
     private void loadOrExecuteQueryPhase(final ShardSearchRequest request, final SearchContext context,
             final QueryPhase queryPhase) throws Exception {
         final boolean canCache = indicesQueryCache.canCache(request, context);
-        if (canCache) {
+        if (canCache && indicesQueryCache.canCacheSegments(request, context)) {
+            loadSegmentsIntoContext(request, context, queryPhase);
+        } else if (canCache) {
             indicesQueryCache.loadIntoContext(request, context, queryPhase);
         } else {
             queryPhase.execute(context);
         }
     }
 
+    /**
+     * Loads the query results of the segments from the cache, executing the query phase only on the segments that are not
+     * cached yet, and partially reduces them into the context's query result.
+     */
+    private void loadSegmentsIntoContext(final ShardSearchRequest request, final SearchContext context,
+            final QueryPhase queryPhase) throws Exception {
+        final EngineConfig engineConfig = context.indexShard().engine().config();
+        final List<QuerySearchResult> segmentResults;
+        try {
+            segmentResults = indicesQueryCache.loadSegments(request, context, queryPhase, new IndicesQueryCache.SegmentContextFactory() {
+                @Override
+                public SearchContext createContext(LeafReaderContext leaf) {
+                    IndexSearcher searcher = new SegmentSearcher(leaf, context.searcher());
+                    searcher.setQueryCache(engineConfig.getFilterCache());
+                    searcher.setQueryCachingPolicy(engineConfig.getFilterCachingPolicy());
+                    return SearchService.this.createContext(request, new Engine.Searcher("segment_query_cache", searcher));
+                }
+            });
+        } finally {
+            // creating a segment context sets it as the current one
+            SearchContext.setCurrent(context);
+        }
+
+        long totalHits = 0;
+        boolean timedOut = false;
+        List<InternalAggregations> aggregationsList = new ArrayList<>(segmentResults.size());
+        for (QuerySearchResult segmentResult : segmentResults) {
+            totalHits += segmentResult.topDocs().totalHits;
+            timedOut |= segmentResult.searchTimedOut();
+            if (segmentResult.aggregations() != null) {
+                aggregationsList.add((InternalAggregations) segmentResult.aggregations());
+            }
+        }
+        final QuerySearchResult result = context.queryResult();
+        result.from(context.from());
+        result.size(context.size());
+        result.topDocs(new TopDocs(totalHits, Lucene.EMPTY_SCORE_DOCS, 0));
+        result.searchTimedOut(timedOut);
+        if (aggregationsList.isEmpty() == false) {
+            // the shard result is reduced again with the other shard results, so leave pruning and reducers to that reduce
+            result.aggregations(InternalAggregations.reduce(aggregationsList, new ReduceContext(bigArrays, scriptService, false)));
+            result.reducers(segmentResults.get(0).reducers());
+        }
+    }
+
+    /**
+     * Reports the load of this node with the query result, coordinating nodes rank shard copies by it.
+     */
+    private void reportNodeLoad(SearchContext context, long serviceTimeNanos) {
+        Executor executor = threadPool.executor(ThreadPool.Names.SEARCH);
+        if (executor instanceof ThreadPoolExecutor) {
+            context.queryResult().nodeQueueSize(((ThreadPoolExecutor) executor).getQueue().size());
+        }
+        context.queryResult().serviceTimeNanos(serviceTimeNanos);
+    }
+
     public QuerySearchResultProvider executeQueryPhase(ShardSearchRequest request) {
         final SearchContext context = createAndPutContext(request);
         try {
@@ -325,7 +549,9 @@ public class SearchService extends AbstractLifecycleComponent<SearchService> {
             } else {
                 contextProcessedSuccessfully(context);
             }
-            context.indexShard().searchService().onQueryPhase(context, System.nanoTime() - time);
+            final long took = System.nanoTime() - time;
+            context.indexShard().searchService().onQueryPhase(context, took);
+            reportNodeLoad(context, took);
 
             return context.queryResult();
         } catch (Throwable e) {
@@ -411,6 +637,7 @@ public class SearchService extends AbstractLifecycleComponent<SearchService> {
             }
             long time2 = System.nanoTime();
             context.indexShard().searchService().onQueryPhase(context, time2 - time);
+            reportNodeLoad(context, time2 - time);
             context.indexShard().searchService().onPreFetchPhase(context);
             try {
                 shortcutDocIdsToLoad(context);
@@ -580,7 +807,16 @@ public class SearchService extends AbstractLifecycleComponent<SearchService> {
         SearchShardTarget shardTarget = new SearchShardTarget(clusterService.localNode().id(), request.index(), request.shardId());
 
         Engine.Searcher engineSearcher = searcher == null ? indexShard.acquireSearcher("search") : searcher;
-        SearchContext context = new DefaultSearchContext(idGenerator.incrementAndGet(), request, shardTarget, engineSearcher, indexService, indexShard, scriptService, pageCacheRecycler, bigArrays, threadPool.estimatedTimeInMillisCounter());
+        // warmers and per segment searches provide their own searcher and always search serially
+        ExecutorService sliceExecutor = null;
+        if (searcher == null && concurrentSearch(indexService, engineSearcher)) {
+            Executor executor = threadPool.executor(ThreadPool.Names.SEGMENT_SEARCH);
+            // a segment_search pool configured as "same" has no threads of its own to search slices
+            if (executor instanceof ExecutorService) {
+                sliceExecutor = (ExecutorService) executor;
+            }
+        }
+        SearchContext context = new DefaultSearchContext(idGenerator.incrementAndGet(), request, shardTarget, engineSearcher, indexService, indexShard, scriptService, pageCacheRecycler, bigArrays, threadPool.estimatedTimeInMillisCounter(), sliceExecutor);
         SearchContext.setCurrent(context);
         try {
             context.scroll(request.scroll());
@@ -621,6 +857,42 @@ public class SearchService extends AbstractLifecycleComponent<SearchService> {
         return context;
     }
 
+    /**
+     * Whether the main query should search slices of the segments concurrently, which only pays off if the index
+     * enables it and the reader has more than a single slice.
+     */
+    private static boolean concurrentSearch(IndexService indexService, Engine.Searcher searcher) {
+        if (indexService.settingsService().getSettings().getAsBoolean(CONCURRENT_SEARCH_KEY, false) == false) {
+            return false;
+        }
+        return ContextIndexSearcher.numSlices(searcher.reader().leaves()) > 1;
+    }
+
+    /**
+     * Searches a single segment with the term and collection statistics of the whole shard reader, so that segment
+     * results score documents the same way as the shard reader does.
+     */
+    private static class SegmentSearcher extends IndexSearcher {
+
+        private final IndexSearcher shardSearcher;
+
+        SegmentSearcher(LeafReaderContext leaf, IndexSearcher shardSearcher) {
+            super(leaf.reader());
+            this.shardSearcher = shardSearcher;
+            setSimilarity(shardSearcher.getSimilarity());
+        }
+
+        @Override
+        public TermStatistics termStatistics(Term term, TermContext context) throws IOException {
+            return shardSearcher.termStatistics(term, TermContext.build(shardSearcher.getTopReaderContext(), term));
+        }
+
+        @Override
+        public CollectionStatistics collectionStatistics(String field) throws IOException {
+            return shardSearcher.collectionStatistics(field);
+        }
+    }
+
     private void freeAllContextForIndex(Index index) {
         assert index != null;
         for (SearchContext ctx : activeContexts.values()) {
@@ -632,16 +904,25 @@ public class SearchService extends AbstractLifecycleComponent<SearchService> {
 
 
     public boolean freeContext(long id) {
+        final ScanPrefetch prefetch = prefetchedScanPages.remove(id);
         final SearchContext context = removeContext(id);
-        if (context != null) {
-            try {
-                context.indexShard().searchService().onFreeContext(context);
-            } finally {
-                context.close();
-            }
+        if (context == null) {
+            return false;
+        }
+        if (prefetch != null && prefetch.free() == false) {
+            // the context is closed by its prefetch once that is done, freeing must not wait for it
             return true;
         }
-        return false;
+        closeContext(context);
+        return true;
+    }
+
+    private void closeContext(SearchContext context) {
+        try {
+            context.indexShard().searchService().onFreeContext(context);
+        } finally {
+            context.close();
+        }
     }
 
     public void freeAllScrollContexts() {
@@ -816,6 +1097,10 @@ public class SearchService extends AbstractLifecycleComponent<SearchService> {
     private void processScroll(InternalScrollSearchRequest request, SearchContext context) {
         // process scroll
         context.from(context.from() + context.size());
+        updateScroll(request, context);
+    }
+
+    private void updateScroll(InternalScrollSearchRequest request, SearchContext context) {
         context.scroll(request.scroll());
         // update the context keep alive based on the new scroll value
         if (request.scroll() != null && request.scroll().keepAlive() != null) {
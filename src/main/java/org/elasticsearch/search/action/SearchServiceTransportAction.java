@@ -27,6 +27,7 @@ import org.elasticsearch.action.search.ClearScrollRequest;
 import org.elasticsearch.action.search.SearchRequest;
 import org.elasticsearch.action.support.IndicesOptions;
 import org.elasticsearch.cluster.node.DiscoveryNode;
+import org.elasticsearch.cluster.routing.ResponseCollectorService;
 import org.elasticsearch.common.component.AbstractComponent;
 import org.elasticsearch.common.inject.Inject;
 import org.elasticsearch.common.io.stream.StreamInput;
@@ -69,12 +70,15 @@ public class SearchServiceTransportAction extends AbstractComponent {
 
     private final TransportService transportService;
     private final SearchService searchService;
+    private final ResponseCollectorService responseCollectorService;
 
     @Inject
-    public SearchServiceTransportAction(Settings settings, TransportService transportService, SearchService searchService) {
+    public SearchServiceTransportAction(Settings settings, TransportService transportService, SearchService searchService,
+                                        ResponseCollectorService responseCollectorService) {
         super(settings);
         this.transportService = transportService;
         this.searchService = searchService;
+        this.responseCollectorService = responseCollectorService;
 
         transportService.registerRequestHandler(FREE_CONTEXT_SCROLL_ACTION_NAME, ScrollFreeContextRequest.class, ThreadPool.Names.SAME, new FreeContextTransportHandler<>());
         transportService.registerRequestHandler(FREE_CONTEXT_ACTION_NAME, SearchFreeContextRequest.class, ThreadPool.Names.SAME, new FreeContextTransportHandler<SearchFreeContextRequest>());
@@ -92,6 +96,41 @@ public class SearchServiceTransportAction extends AbstractComponent {
         transportService.registerRequestHandler(SCAN_SCROLL_ACTION_NAME, InternalScrollSearchRequest.class, ThreadPool.Names.SEARCH, new SearchScanScrollTransportHandler());
     }
 
+    /**
+     * The statistics about the responses of the initial search phase of every node, used to rank shard copies.
+     */
+    public ResponseCollectorService responseCollectorService() {
+        return responseCollectorService;
+    }
+
+    /**
+     * Records the response time of the node, and the load it reported along with query results, for adaptive replica
+     * selection.
+     */
+    private <Response extends TransportResponse> ActionListener<Response> collectResponseStats(final DiscoveryNode node, final ActionListener<Response> listener) {
+        final long startTime = System.nanoTime();
+        responseCollectorService.onRequestSent(node.id());
+        return new ActionListener<Response>() {
+            @Override
+            public void onResponse(Response response) {
+                final long responseTime = System.nanoTime() - startTime;
+                if (response instanceof QuerySearchResultProvider) {
+                    QuerySearchResult queryResult = ((QuerySearchResultProvider) response).queryResult();
+                    responseCollectorService.onResponse(node.id(), responseTime, queryResult.nodeQueueSize(), queryResult.serviceTimeNanos());
+                } else {
+                    responseCollectorService.onResponse(node.id(), responseTime, -1, -1);
+                }
+                listener.onResponse(response);
+            }
+
+            @Override
+            public void onFailure(Throwable e) {
+                responseCollectorService.onFailure(node.id());
+                listener.onFailure(e);
+            }
+        };
+    }
+
     public void sendFreeContext(DiscoveryNode node, final long contextId, SearchRequest request) {
         transportService.sendRequest(node, FREE_CONTEXT_ACTION_NAME, new SearchFreeContextRequest(request, contextId), new ActionListenerResponseHandler<SearchFreeContextResponse>(new ActionListener<SearchFreeContextResponse>() {
             @Override
@@ -130,7 +169,7 @@ public class SearchServiceTransportAction extends AbstractComponent {
     }
 
     public void sendExecuteDfs(DiscoveryNode node, final ShardSearchTransportRequest request, final ActionListener<DfsSearchResult> listener) {
-        transportService.sendRequest(node, DFS_ACTION_NAME, request, new ActionListenerResponseHandler<DfsSearchResult>(listener) {
+        transportService.sendRequest(node, DFS_ACTION_NAME, request, new ActionListenerResponseHandler<DfsSearchResult>(collectResponseStats(node, listener)) {
             @Override
             public DfsSearchResult newInstance() {
                 return new DfsSearchResult();
@@ -139,7 +178,7 @@ public class SearchServiceTransportAction extends AbstractComponent {
     }
 
     public void sendExecuteQuery(DiscoveryNode node, final ShardSearchTransportRequest request, final ActionListener<QuerySearchResultProvider> listener) {
-        transportService.sendRequest(node, QUERY_ACTION_NAME, request, new ActionListenerResponseHandler<QuerySearchResultProvider>(listener) {
+        transportService.sendRequest(node, QUERY_ACTION_NAME, request, new ActionListenerResponseHandler<QuerySearchResultProvider>(collectResponseStats(node, listener)) {
             @Override
             public QuerySearchResult newInstance() {
                 return new QuerySearchResult();
@@ -166,7 +205,7 @@ public class SearchServiceTransportAction extends AbstractComponent {
     }
 
     public void sendExecuteFetch(DiscoveryNode node, final ShardSearchTransportRequest request, final ActionListener<QueryFetchSearchResult> listener) {
-        transportService.sendRequest(node, QUERY_FETCH_ACTION_NAME, request, new ActionListenerResponseHandler<QueryFetchSearchResult>(listener) {
+        transportService.sendRequest(node, QUERY_FETCH_ACTION_NAME, request, new ActionListenerResponseHandler<QueryFetchSearchResult>(collectResponseStats(node, listener)) {
             @Override
             public QueryFetchSearchResult newInstance() {
                 return new QueryFetchSearchResult();
@@ -210,7 +249,7 @@ public class SearchServiceTransportAction extends AbstractComponent {
     }
 
     public void sendExecuteScan(DiscoveryNode node, final ShardSearchTransportRequest request, final ActionListener<QuerySearchResult> listener) {
-        transportService.sendRequest(node, SCAN_ACTION_NAME, request, new ActionListenerResponseHandler<QuerySearchResult>(listener) {
+        transportService.sendRequest(node, SCAN_ACTION_NAME, request, new ActionListenerResponseHandler<QuerySearchResult>(collectResponseStats(node, listener)) {
             @Override
             public QuerySearchResult newInstance() {
                 return new QuerySearchResult();
@@ -85,9 +85,14 @@ public class AggregationPhase implements SearchPhase {
                 }
                 context.aggregations().aggregators(aggregators);
                 if (!collectors.isEmpty()) {
-                    final BucketCollector collector = BucketCollector.wrap(collectors);
-                    collector.preCollection();
-                    context.searcher().queryCollectors().put(AggregationPhase.class, collector);
+                    if (context.searcher().concurrent()) {
+                        // every slice collects into aggregators of its own, these ones never collect
+                        context.searcher().sliceCollectors().put(AggregationPhase.class, new SliceAggregators(context));
+                    } else {
+                        final BucketCollector collector = BucketCollector.wrap(collectors);
+                        collector.preCollection();
+                        context.searcher().queryCollectors().put(AggregationPhase.class, collector);
+                    }
                 }
             } catch (IOException e) {
                 throw new AggregationInitializationException("Could not initialize aggregators", e);
@@ -134,8 +139,24 @@ public class AggregationPhase implements SearchPhase {
             }
         }
 
+        List<InternalAggregation> sliceAggregations = null;
+        SliceAggregators sliceAggregators = (SliceAggregators) context.searcher().sliceCollectors().remove(AggregationPhase.class);
+        if (sliceAggregators != null) {
+            try {
+                sliceAggregations = sliceAggregators.buildAggregations();
+            } catch (IOException e) {
+                throw new AggregationExecutionException("Failed to build aggregations of concurrent slices", e);
+            }
+        }
+
         List<InternalAggregation> aggregations = new ArrayList<>(aggregators.length);
+        int sliceAggregation = 0;
         for (Aggregator aggregator : context.aggregations().aggregators()) {
+            if (sliceAggregators != null && aggregator instanceof GlobalAggregator == false) {
+                // the aggregators of the context didn't collect, they only provide empty aggregations if no slice got searched
+                aggregations.add(sliceAggregations != null ? sliceAggregations.get(sliceAggregation++) : aggregator.buildEmptyAggregation());
+                continue;
+            }
             try {
                 aggregator.postCollection();
                 aggregations.add(aggregator.buildAggregation(0));
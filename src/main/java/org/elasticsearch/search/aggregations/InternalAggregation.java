@@ -95,10 +95,25 @@ public abstract class InternalAggregation implements Aggregation, ToXContent, St
 
         private final BigArrays bigArrays;
         private ScriptService scriptService;
+        private final boolean finalReduce;
 
         public ReduceContext(BigArrays bigArrays, ScriptService scriptService) {
+            this(bigArrays, scriptService, true);
+        }
+
+        public ReduceContext(BigArrays bigArrays, ScriptService scriptService, boolean finalReduce) {
             this.bigArrays = bigArrays;
             this.scriptService = scriptService;
+            this.finalReduce = finalReduce;
+        }
+
+        /**
+         * Returns <code>true</code> iff this is the final reduce phase. Partial reduce phases combine a subset of the shard results
+         * into an intermediate result that will be reduced again, so they must not prune buckets (size, min_doc_count) nor
+         * run reducers.
+         */
+        public boolean isFinalReduce() {
+            return finalReduce;
         }
 
         public BigArrays bigArrays() {
@@ -149,8 +164,10 @@ public abstract class InternalAggregation implements Aggregation, ToXContent, St
      */
     public final InternalAggregation reduce(List<InternalAggregation> aggregations, ReduceContext reduceContext) {
         InternalAggregation aggResult = doReduce(aggregations, reduceContext);
-        for (Reducer reducer : reducers) {
-            aggResult = reducer.reduce(aggResult, reduceContext);
+        if (reduceContext.isFinalReduce()) {
+            for (Reducer reducer : reducers) {
+                aggResult = reducer.reduce(aggResult, reduceContext);
+            }
         }
         return aggResult;
     }
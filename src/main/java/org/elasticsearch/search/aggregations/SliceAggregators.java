@@ -0,0 +1,94 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.search.aggregations;
+
+import org.apache.lucene.search.Collector;
+import org.elasticsearch.search.aggregations.InternalAggregation.ReduceContext;
+import org.elasticsearch.search.aggregations.bucket.global.GlobalAggregator;
+import org.elasticsearch.search.internal.ContextIndexSearcher;
+import org.elasticsearch.search.internal.SearchContext;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Creates the top level aggregators, except for global aggregators, for every slice of a
+ * {@link ContextIndexSearcher#concurrent() concurrent} search and combines their aggregations once all slices are done.
+ */
+class SliceAggregators implements ContextIndexSearcher.SliceCollectorFactory {
+
+    private final SearchContext context;
+    private final List<List<Aggregator>> slices = new ArrayList<>();
+
+    SliceAggregators(SearchContext context) {
+        this.context = context;
+    }
+
+    @Override
+    public synchronized Collector newCollector() throws IOException {
+        // aggregators are created under the lock since the aggregation context is not thread-safe
+        Aggregator[] aggregators = context.aggregations().factories().createTopLevelAggregators(context.aggregations().aggregationContext());
+        List<Aggregator> collectors = new ArrayList<>(aggregators.length);
+        for (Aggregator aggregator : aggregators) {
+            if (aggregator instanceof GlobalAggregator == false) {
+                collectors.add(aggregator);
+            }
+        }
+        BucketCollector collector = BucketCollector.wrap(collectors);
+        collector.preCollection();
+        slices.add(collectors);
+        return collector;
+    }
+
+    /**
+     * Builds the aggregations of every slice and reduces them into a single, partially reduced, aggregation per top
+     * level aggregator. Returns <code>null</code> if no slice has been searched.
+     */
+    synchronized List<InternalAggregation> buildAggregations() throws IOException {
+        if (slices.isEmpty()) {
+            return null;
+        }
+        List<List<InternalAggregation>> sliceAggregations = new ArrayList<>(slices.size());
+        for (List<Aggregator> aggregators : slices) {
+            List<InternalAggregation> aggregations = new ArrayList<>(aggregators.size());
+            for (Aggregator aggregator : aggregators) {
+                aggregator.postCollection();
+                aggregations.add(aggregator.buildAggregation(0));
+            }
+            sliceAggregations.add(aggregations);
+        }
+        if (sliceAggregations.size() == 1) {
+            return sliceAggregations.get(0);
+        }
+
+        // the shard result is reduced again on the coordinating node, so buckets must not be pruned yet
+        final ReduceContext reduceContext = new ReduceContext(context.bigArrays(), context.scriptService(), false);
+        final int numAggregations = sliceAggregations.get(0).size();
+        List<InternalAggregation> reduced = new ArrayList<>(numAggregations);
+        for (int i = 0; i < numAggregations; i++) {
+            List<InternalAggregation> toReduce = new ArrayList<>(sliceAggregations.size());
+            for (List<InternalAggregation> aggregations : sliceAggregations) {
+                toReduce.add(aggregations.get(i));
+            }
+            reduced.add(toReduce.get(0).reduce(toReduce, reduceContext));
+        }
+        return reduced;
+    }
+}
@@ -20,19 +20,23 @@
 package org.elasticsearch.search.aggregations.bucket;
 
 import org.apache.lucene.index.LeafReaderContext;
-import org.apache.lucene.util.packed.PackedInts;
-import org.apache.lucene.util.packed.PackedLongValues;
+import org.elasticsearch.common.lease.Releasable;
+import org.elasticsearch.common.lease.Releasables;
 import org.elasticsearch.common.lucene.Lucene;
 import org.elasticsearch.common.util.BigArrays;
+import org.elasticsearch.common.util.ByteArray;
 import org.elasticsearch.common.util.LongHash;
 import org.elasticsearch.search.aggregations.Aggregator;
 import org.elasticsearch.search.aggregations.Aggregator.SubAggCollectionMode;
 import org.elasticsearch.search.aggregations.BucketCollector;
 import org.elasticsearch.search.aggregations.InternalAggregation;
 import org.elasticsearch.search.aggregations.LeafBucketCollector;
+import org.elasticsearch.search.aggregations.support.AggregationContext;
+import org.elasticsearch.search.internal.SearchContext.Lifetime;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 /**
@@ -40,31 +44,56 @@ import java.util.List;
  * matches and then is able to replay a given subset of buckets which represent
  * the survivors from a pruning process performed by the aggregator that owns
  * this collector.
+ * <p/>
+ * Matches are recorded per segment as variable-length encoded doc deltas and
+ * buckets in {@link BigArrays} pages, so that the memory they take is accounted
+ * for by the request circuit breaker: a request that records more than the
+ * breaker allows fails instead of exhausting the heap. The recorded matches of a
+ * segment are released as soon as the segment has been replayed, and segments
+ * that recorded none of the selected buckets are not replayed at all.
  */
-public class BestBucketsDeferringCollector extends DeferringBucketCollector {
-    private static class Entry {
+public class BestBucketsDeferringCollector extends DeferringBucketCollector implements Releasable {
+
+    // a vint doc delta and a vlong bucket take at most 15 bytes
+    private static final int MAX_BYTES_PER_MATCH = 5 + 10;
+
+    private static class Entry implements Releasable {
         final LeafReaderContext context;
-        final PackedLongValues docDeltas;
-        final PackedLongValues buckets;
+        final ByteArray docsAndBuckets;
+        final long numMatches;
+        final long minBucket;
+        final long maxBucket;
 
-        public Entry(LeafReaderContext context, PackedLongValues docDeltas, PackedLongValues buckets) {
+        public Entry(LeafReaderContext context, ByteArray docsAndBuckets, long numMatches, long minBucket, long maxBucket) {
             this.context = context;
-            this.docDeltas = docDeltas;
-            this.buckets = buckets;
+            this.docsAndBuckets = docsAndBuckets;
+            this.numMatches = numMatches;
+            this.minBucket = minBucket;
+            this.maxBucket = maxBucket;
+        }
+
+        @Override
+        public void close() {
+            Releasables.close(docsAndBuckets);
         }
     }
 
     final List<Entry> entries = new ArrayList<>();
+    final BigArrays bigArrays;
     BucketCollector collector;
     LeafReaderContext context;
-    PackedLongValues.Builder docDeltas;
-    PackedLongValues.Builder buckets;
-    long maxBucket = -1;
+    ByteArray docsAndBuckets;
+    long numBytes;
+    long numMatches;
+    long minSegmentBucket;
+    long maxSegmentBucket;
     boolean finished = false;
     LongHash selectedBuckets;
 
     /** Sole constructor. */
-    public BestBucketsDeferringCollector() {
+    public BestBucketsDeferringCollector(AggregationContext context) {
+        this.bigArrays = context.bigArrays();
+        context.searchContext().addReleasable(this, Lifetime.PHASE);
     }
 
     @Override
@@ -82,11 +111,14 @@ public class BestBucketsDeferringCollector extends DeferringBucketCollector {
 
     private void finishLeaf() {
         if (context != null) {
-            entries.add(new Entry(context, docDeltas.build(), buckets.build()));
+            if (numMatches > 0) {
+                entries.add(new Entry(context, docsAndBuckets, numMatches, minSegmentBucket, maxSegmentBucket));
+            } else {
+                Releasables.close(docsAndBuckets);
+            }
         }
         context = null;
-        docDeltas = null;
-        buckets = null;
+        docsAndBuckets = null;
     }
 
     @Override
@@ -94,22 +126,36 @@ public class BestBucketsDeferringCollector extends DeferringBucketCollector {
         finishLeaf();
 
         context = ctx;
-        docDeltas = PackedLongValues.packedBuilder(PackedInts.DEFAULT);
-        buckets = PackedLongValues.packedBuilder(PackedInts.DEFAULT);
+        docsAndBuckets = bigArrays.newByteArray(MAX_BYTES_PER_MATCH, false);
+        numBytes = 0;
+        numMatches = 0;
+        minSegmentBucket = Long.MAX_VALUE;
+        maxSegmentBucket = -1;
 
         return new LeafBucketCollector() {
             int lastDoc = 0;
 
             @Override
             public void collect(int doc, long bucket) throws IOException {
-                docDeltas.add(doc - lastDoc);
-                buckets.add(bucket);
+                docsAndBuckets = bigArrays.grow(docsAndBuckets, numBytes + MAX_BYTES_PER_MATCH);
+                writeVLong(doc - lastDoc);
+                writeVLong(bucket);
                 lastDoc = doc;
-                maxBucket = Math.max(maxBucket, bucket);
+                numMatches++;
+                minSegmentBucket = Math.min(minSegmentBucket, bucket);
+                maxSegmentBucket = Math.max(maxSegmentBucket, bucket);
             }
         };
     }
 
+    private void writeVLong(long i) {
+        while ((i & ~0x7FL) != 0L) {
+            docsAndBuckets.set(numBytes++, (byte) ((i & 0x7f) | 0x80));
+            i >>>= 7;
+        }
+        docsAndBuckets.set(numBytes++, (byte) i);
+    }
+
     @Override
     public void preCollection() throws IOException {
     }
@@ -137,32 +183,77 @@ public class BestBucketsDeferringCollector extends DeferringBucketCollector {
             hash.add(bucket);
         }
         this.selectedBuckets = hash;
+        final long[] sortedBuckets = selectedBuckets.clone();
+        Arrays.sort(sortedBuckets);
 
         collector.preCollection();
         if (collector.needsScores()) {
             throw new IllegalStateException("Cannot defer if scores are needed");
         }
 
-        for (Entry entry : entries) {
-            final LeafBucketCollector leafCollector = collector.getLeafCollector(entry.context);
-            leafCollector.setScorer(Lucene.illegalScorer("A limitation of the " + SubAggCollectionMode.BREADTH_FIRST
-                    + " collection mode is that scores cannot be buffered along with document IDs"));
-            final PackedLongValues.Iterator docDeltaIterator = entry.docDeltas.iterator();
-            final PackedLongValues.Iterator buckets = entry.buckets.iterator();
-            int doc = 0;
-            for (long i = 0, end = entry.docDeltas.size(); i < end; ++i) {
-                doc += docDeltaIterator.next();
-                final long bucket = buckets.next();
-                final long rebasedBucket = hash.find(bucket);
-                if (rebasedBucket != -1) {
-                    leafCollector.collect(doc, rebasedBucket);
+        for (int e = 0; e < entries.size(); ++e) {
+            final Entry entry = entries.get(e);
+            // the matches of this segment are not needed anymore once it has been replayed
+            entries.set(e, null);
+            try {
+                if (containsAny(sortedBuckets, entry.minBucket, entry.maxBucket) == false) {
+                    // none of the surviving buckets has a match in this segment
+                    continue;
+                }
+                final LeafBucketCollector leafCollector = collector.getLeafCollector(entry.context);
+                leafCollector.setScorer(Lucene.illegalScorer("A limitation of the " + SubAggCollectionMode.BREADTH_FIRST
+                        + " collection mode is that scores cannot be buffered along with document IDs"));
+                final ByteArray bytes = entry.docsAndBuckets;
+                long offset = 0;
+                int doc = 0;
+                for (long i = 0; i < entry.numMatches; ++i) {
+                    // inlined vlong decoding of the doc delta and the bucket
+                    byte b = bytes.get(offset++);
+                    int docDelta = b & 0x7F;
+                    for (int shift = 7; b < 0; shift += 7) {
+                        b = bytes.get(offset++);
+                        docDelta |= (b & 0x7F) << shift;
+                    }
+                    b = bytes.get(offset++);
+                    long bucket = b & 0x7FL;
+                    for (int shift = 7; b < 0; shift += 7) {
+                        b = bytes.get(offset++);
+                        bucket |= (b & 0x7FL) << shift;
+                    }
+                    doc += docDelta;
+                    final long rebasedBucket = hash.find(bucket);
+                    if (rebasedBucket != -1) {
+                        leafCollector.collect(doc, rebasedBucket);
+                    }
                 }
+            } finally {
+                entry.close();
             }
         }
+        entries.clear();
 
         collector.postCollection();
     }
 
+    /**
+     * Whether the given sorted buckets contain a bucket between <code>min</code> and <code>max</code>, both inclusive.
+     */
+    private static boolean containsAny(long[] sortedBuckets, long min, long max) {
+        int index = Arrays.binarySearch(sortedBuckets, min);
+        if (index < 0) {
+            index = -1 - index;
+        }
+        return index < sortedBuckets.length && sortedBuckets[index] <= max;
+    }
+
+    @Override
+    public void close() {
+        Releasables.close(entries);
+        entries.clear();
+        Releasables.close(docsAndBuckets);
+        docsAndBuckets = null;
+    }
+
     /**
      * Wrap the provided aggregator so that it behaves (almost) as if it had
      * been collected directly.
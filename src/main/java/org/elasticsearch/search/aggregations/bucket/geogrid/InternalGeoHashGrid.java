@@ -218,7 +218,8 @@ public class InternalGeoHashGrid extends InternalMultiBucketAggregation<Internal
             }
         }
 
-        final int size = (int) Math.min(requiredSize, buckets.size());
+        // partial reduces keep all buckets, pruning is left to the final reduce
+        final int size = (int) (reduceContext.isFinalReduce() ? Math.min(requiredSize, buckets.size()) : buckets.size());
         BucketPriorityQueue ordered = new BucketPriorityQueue(size);
         for (LongObjectPagedHashMap.Cursor<List<Bucket>> cursor : buckets) {
             List<Bucket> sameCellBuckets = cursor.value;
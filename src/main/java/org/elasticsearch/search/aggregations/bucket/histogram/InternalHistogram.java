@@ -363,7 +363,7 @@ public class InternalHistogram<B extends InternalHistogram.Bucket> extends Inter
                 if (top.current.key != key) {
                     // the key changes, reduce what we already buffered and reset the buffer for current buckets
                     final B reduced = currentBuckets.get(0).reduce(currentBuckets, reduceContext);
-                    if (reduced.getDocCount() >= minDocCount) {
+                    if (reduceContext.isFinalReduce() == false || reduced.getDocCount() >= minDocCount) {
                         reducedBuckets.add(reduced);
                     }
                     currentBuckets.clear();
@@ -384,7 +384,7 @@ public class InternalHistogram<B extends InternalHistogram.Bucket> extends Inter
 
             if (currentBuckets.isEmpty() == false) {
                 final B reduced = currentBuckets.get(0).reduce(currentBuckets, reduceContext);
-                if (reduced.getDocCount() >= minDocCount) {
+                if (reduceContext.isFinalReduce() == false || reduced.getDocCount() >= minDocCount) {
                     reducedBuckets.add(reduced);
                 }
             }
@@ -453,21 +453,25 @@ public class InternalHistogram<B extends InternalHistogram.Bucket> extends Inter
     public InternalAggregation doReduce(List<InternalAggregation> aggregations, ReduceContext reduceContext) {
         List<B> reducedBuckets = reduceBuckets(aggregations, reduceContext);
 
-        // adding empty buckets if needed
-        if (minDocCount == 0) {
-            addEmptyBuckets(reducedBuckets);
-        }
+        // partial reduces keep the buckets sorted by key, which is what reduceBuckets expects, empty buckets and
+        // ordering are left to the final reduce
+        if (reduceContext.isFinalReduce()) {
+            // adding empty buckets if needed
+            if (minDocCount == 0) {
+                addEmptyBuckets(reducedBuckets);
+            }
 
-        if (order == InternalOrder.KEY_ASC) {
-            // nothing to do, data are already sorted since shards return
-            // sorted buckets and the merge-sort performed by reduceBuckets
-            // maintains order
-        } else if (order == InternalOrder.KEY_DESC) {
-            // we just need to reverse here...
-            reducedBuckets = Lists.reverse(reducedBuckets);
-        } else {
-            // sorted by sub-aggregation, need to fall back to a costly n*log(n) sort
-            CollectionUtil.introSort(reducedBuckets, order.comparator());
+            if (order == InternalOrder.KEY_ASC) {
+                // nothing to do, data are already sorted since shards return
+                // sorted buckets and the merge-sort performed by reduceBuckets
+                // maintains order
+            } else if (order == InternalOrder.KEY_DESC) {
+                // we just need to reverse here...
+                reducedBuckets = Lists.reverse(reducedBuckets);
+            } else {
+                // sorted by sub-aggregation, need to fall back to a costly n*log(n) sort
+                CollectionUtil.introSort(reducedBuckets, order.comparator());
+            }
         }
 
         return getFactory().create(getName(), reducedBuckets, order, minDocCount, emptyBucketInfo, formatter, keyed, reducers(),
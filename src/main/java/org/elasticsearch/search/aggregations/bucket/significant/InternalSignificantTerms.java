@@ -186,6 +186,15 @@ public abstract class InternalSignificantTerms<A extends InternalSignificantTerm
             }
         }
 
+        if (reduceContext.isFinalReduce() == false) {
+            // partial reduces only merge the buckets, scoring and pruning are left to the final reduce
+            List<InternalSignificantTerms.Bucket> reducedBuckets = new ArrayList<>(buckets.size());
+            for (List<Bucket> sameTermBuckets : buckets.values()) {
+                reducedBuckets.add(sameTermBuckets.get(0).reduce(sameTermBuckets, reduceContext));
+            }
+            return create(globalSubsetSize, globalSupersetSize, reducedBuckets, this);
+        }
+
         significanceHeuristic.initialize(reduceContext);
         final int size = Math.min(requiredSize, buckets.size());
         BucketSignificancePriorityQueue ordered = new BucketSignificancePriorityQueue(size);
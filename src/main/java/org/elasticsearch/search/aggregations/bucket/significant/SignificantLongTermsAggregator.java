@@ -124,7 +124,8 @@ public class SignificantLongTermsAggregator extends LongTermsAggregator {
 
     @Override
     public void doClose() {
-        Releasables.close(bucketOrds, termsAggFactory);
+        super.doClose();
+        Releasables.close(termsAggFactory);
     }
 
 }
@@ -207,6 +207,7 @@ public class DoubleTerms extends InternalTerms<DoubleTerms, DoubleTerms.Bucket>
         this.showTermDocCountError = in.readBoolean();
         this.minDocCount = in.readVLong();
         this.otherDocCount = in.readVLong();
+        this.partiallyReduced = in.readBoolean();
         int size = in.readVInt();
         List<InternalTerms.Bucket> buckets = new ArrayList<>(size);
         for (int i = 0; i < size; i++) {
@@ -230,6 +231,7 @@ public class DoubleTerms extends InternalTerms<DoubleTerms, DoubleTerms.Bucket>
         out.writeBoolean(showTermDocCountError);
         out.writeVLong(minDocCount);
         out.writeVLong(otherDocCount);
+        out.writeBoolean(partiallyReduced);
         out.writeVInt(buckets.size());
         for (InternalTerms.Bucket bucket : buckets) {
             bucket.writeTo(out);
@@ -55,6 +55,12 @@ public class DoubleTermsAggregator extends LongTermsAggregator {
         return FieldData.toSortableLongBits(valuesSource.doubleValues(ctx));
     }
 
+    @Override
+    protected long[] getBounds(Numeric valuesSource, LeafReaderContext ctx) throws IOException {
+        // the values are the sortable bits of doubles, which the bounds of the field do not apply to
+        return null;
+    }
+
     @Override
     public DoubleTerms buildAggregation(long owningBucketOrdinal) throws IOException {
         final LongTerms terms = (LongTerms) super.buildAggregation(owningBucketOrdinal);
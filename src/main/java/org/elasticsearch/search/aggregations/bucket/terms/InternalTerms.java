@@ -120,6 +120,8 @@ public abstract class InternalTerms<A extends InternalTerms, B extends InternalT
     protected long docCountError;
     protected boolean showTermDocCountError;
     protected long otherDocCount;
+    /* true if this is the intermediate result of a partial reduce, like the shard result of per segment cached results */
+    protected boolean partiallyReduced;
 
     protected InternalTerms() {} // for serialization
 
@@ -174,7 +176,10 @@ public abstract class InternalTerms<A extends InternalTerms, B extends InternalT
             InternalTerms<A, B> terms = (InternalTerms<A, B>) aggregation;
             otherDocCount += terms.getSumOfOtherDocCounts();
             final long thisAggDocCountError;
-            if (terms.buckets.size() < this.shardSize || this.order == InternalOrder.TERM_ASC || this.order == InternalOrder.TERM_DESC) {
+            if (terms.partiallyReduced) {
+                // the error of a partial result is the sum of the errors of the shard results it was reduced from
+                thisAggDocCountError = terms.docCountError;
+            } else if (terms.buckets.size() < this.shardSize || this.order == InternalOrder.TERM_ASC || this.order == InternalOrder.TERM_DESC) {
                 thisAggDocCountError = 0;
             } else if (InternalOrder.isCountDesc(this.order)) {
                 thisAggDocCountError = terms.buckets.get(terms.buckets.size() - 1).docCount;
@@ -190,12 +195,21 @@ public abstract class InternalTerms<A extends InternalTerms, B extends InternalT
             }
             terms.docCountError = thisAggDocCountError;
             for (Bucket bucket : terms.buckets) {
-                bucket.docCountError = thisAggDocCountError;
+                if (terms.partiallyReduced == false) {
+                    bucket.docCountError = thisAggDocCountError;
+                } else if (thisAggDocCountError == -1 || bucket.docCountError == -1) {
+                    bucket.docCountError = -1;
+                } else {
+                    // the error of a partially reduced bucket comes from the shards that did not return it, so only the
+                    // errors of the shards that did return it are accounted to this bucket
+                    bucket.docCountError = thisAggDocCountError - bucket.docCountError;
+                }
                 buckets.put(bucket.getKey(), bucket);
             }
         }
 
-        final int size = Math.min(requiredSize, buckets.size());
+        // partial reduces keep all buckets, pruning is left to the final reduce
+        final int size = reduceContext.isFinalReduce() ? Math.min(requiredSize, buckets.size()) : buckets.size();
         BucketPriorityQueue ordered = new BucketPriorityQueue(size, order.comparator(null));
         for (Collection<Bucket> l : buckets.asMap().values()) {
             List<Bucket> sameTermBuckets = (List<Bucket>) l; // cast is ok according to javadocs
@@ -207,7 +221,7 @@ public abstract class InternalTerms<A extends InternalTerms, B extends InternalT
                     b.docCountError = sumDocCountError - b.docCountError;
                 }
             }
-            if (b.docCount >= minDocCount) {
+            if (reduceContext.isFinalReduce() == false || b.docCount >= minDocCount) {
                 Terms.Bucket removed = ordered.insertWithOverflow(b);
                 if (removed != null) {
                     otherDocCount += removed.getDocCount();
@@ -222,9 +236,12 @@ public abstract class InternalTerms<A extends InternalTerms, B extends InternalT
         if (sumDocCountError == -1) {
             docCountError = -1;
         } else {
-            docCountError = aggregations.size() == 1 ? 0 : sumDocCountError;
+            boolean singleShardResult = aggregations.size() == 1 && ((InternalTerms) aggregations.get(0)).partiallyReduced == false;
+            docCountError = singleShardResult && reduceContext.isFinalReduce() ? 0 : sumDocCountError;
         }
-        return create(name, Arrays.asList(list), docCountError, otherDocCount, this);
+        A reduced = create(name, Arrays.asList(list), docCountError, otherDocCount, this);
+        reduced.partiallyReduced = reduceContext.isFinalReduce() == false;
+        return reduced;
     }
 
     protected abstract A create(String name, List<InternalTerms.Bucket> buckets, long docCountError, long otherDocCount,
@@ -199,6 +199,7 @@ public class LongTerms extends InternalTerms<LongTerms, LongTerms.Bucket> {
         this.showTermDocCountError = in.readBoolean();
         this.minDocCount = in.readVLong();
         this.otherDocCount = in.readVLong();
+        this.partiallyReduced = in.readBoolean();
         int size = in.readVInt();
         List<InternalTerms.Bucket> buckets = new ArrayList<>(size);
         for (int i = 0; i < size; i++) {
@@ -220,6 +221,7 @@ public class LongTerms extends InternalTerms<LongTerms, LongTerms.Bucket> {
         out.writeBoolean(showTermDocCountError);
         out.writeVLong(minDocCount);
         out.writeVLong(otherDocCount);
+        out.writeBoolean(partiallyReduced);
         out.writeVInt(buckets.size());
         for (InternalTerms.Bucket bucket : buckets) {
             bucket.writeTo(out);
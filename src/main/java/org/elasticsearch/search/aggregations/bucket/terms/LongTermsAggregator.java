@@ -18,10 +18,15 @@
  */
 package org.elasticsearch.search.aggregations.bucket.terms;
 
+import org.apache.lucene.index.DocValues;
 import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.NumericDocValues;
 import org.apache.lucene.index.SortedNumericDocValues;
+import org.apache.lucene.util.Bits;
 import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.lease.Releasables;
+import org.elasticsearch.common.util.IntArray;
+import org.elasticsearch.common.util.LongArray;
 import org.elasticsearch.common.util.LongHash;
 import org.elasticsearch.search.aggregations.Aggregator;
 import org.elasticsearch.search.aggregations.AggregatorFactories;
@@ -48,12 +53,24 @@ import java.util.Map;
  */
 public class LongTermsAggregator extends TermsAggregator {
 
+    /**
+     * Segments whose values are all within a range of at most this many longs are collected into arrays indexed by
+     * <code>value - min</code> rather than by looking up every value in the {@link LongHash}.
+     */
+    static final int MAX_DENSE_RANGE = 1 << 16;
+
     protected final ValuesSource.Numeric valuesSource;
     protected final @Nullable ValueFormatter formatter;
     protected final LongHash bucketOrds;
     private boolean showTermDocCountError;
     private LongFilter longFilter;
 
+    // per segment state of the dense collection modes, the arrays are reused across segments
+    private IntArray segmentDocCounts;
+    private LongArray segmentBucketOrds;
+    private long segmentMin;
+    private long pendingSegmentRange;
+
     public LongTermsAggregator(String name, AggregatorFactories factories, ValuesSource.Numeric valuesSource, @Nullable ValueFormat format,
             Terms.Order order, BucketCountThresholds bucketCountThresholds, AggregationContext aggregationContext, Aggregator parent,
             SubAggCollectionMode subAggCollectMode, boolean showTermDocCountError, IncludeExclude.LongFilter longFilter,
@@ -75,10 +92,119 @@ public class LongTermsAggregator extends TermsAggregator {
         return valuesSource.longValues(ctx);
     }
 
+    /**
+     * Returns the smallest and the largest of the values that {@link #getValues} returns for the given segment, or
+     * <code>null</code> if they are unknown.
+     */
+    protected long[] getBounds(ValuesSource.Numeric valuesSource, LeafReaderContext ctx) throws IOException {
+        return valuesSource.longBounds(ctx);
+    }
+
     @Override
     public LeafBucketCollector getLeafCollector(LeafReaderContext ctx,
             final LeafBucketCollector sub) throws IOException {
+        if (pendingSegmentRange > 0) {
+            flushSegmentDocCounts();
+        }
         final SortedNumericDocValues values = getValues(valuesSource, ctx);
+        final long[] bounds = getBounds(valuesSource, ctx);
+        if (bounds != null) {
+            // overflows to a value <= 0 if the bounds are too far apart
+            final long range = bounds[1] - bounds[0] + 1;
+            // the dense arrays need to be reset or flushed for every segment, which only pays off if there are enough docs
+            if (range > 0 && range <= Math.min(MAX_DENSE_RANGE, 2L * ctx.reader().maxDoc())) {
+                if (subAggregators.length == 0) {
+                    return newCountingCollector(values, bounds[0], range, sub);
+                } else {
+                    return newCachingCollector(values, bounds[0], range, sub);
+                }
+            }
+        }
+        return newHashCollector(values, sub);
+    }
+
+    private LeafBucketCollector newHashCollector(final SortedNumericDocValues values, final LeafBucketCollector sub) {
+        return new LeafBucketCollectorBase(sub, values) {
+            @Override
+            public void collect(int doc, long owningBucketOrdinal) throws IOException {
+                assert owningBucketOrdinal == 0;
+                values.setDocument(doc);
+                final int valuesCount = values.count();
+
+                long previous = Long.MAX_VALUE;
+                for (int i = 0; i < valuesCount; ++i) {
+                    final long val = values.valueAt(i);
+                    if (previous != val || i == 0) {
+                        collectValue(sub, doc, val);
+                        previous = val;
+                    }
+                }
+            }
+        };
+    }
+
+    /**
+     * Counts values in a segment array and only adds them to the {@link LongHash} once the segment is done. This
+     * requires that there are no sub aggregations, which would need the bucket ordinal of every document.
+     */
+    private LeafBucketCollector newCountingCollector(final SortedNumericDocValues values, final long min, final long range,
+            final LeafBucketCollector sub) {
+        assert sub == LeafBucketCollector.NO_OP_COLLECTOR;
+        segmentDocCounts = segmentDocCounts == null ? context.bigArrays().newIntArray(range, true) : context.bigArrays().grow(segmentDocCounts, range);
+        segmentMin = min;
+        pendingSegmentRange = range;
+        final NumericDocValues singleValues = DocValues.unwrapSingleton(values);
+        if (singleValues != null) {
+            // read the column directly rather than going through setDocument and count for every document
+            final Bits docsWithField = DocValues.unwrapSingletonBits(values);
+            return new LeafBucketCollectorBase(sub, values) {
+                @Override
+                public void collect(int doc, long owningBucketOrdinal) throws IOException {
+                    assert owningBucketOrdinal == 0;
+                    if (docsWithField.get(doc)) {
+                        final long index = singleValues.get(doc) - min;
+                        if (index >= 0 && index < range) {
+                            segmentDocCounts.increment(index, 1);
+                        } else {
+                            collectValue(sub, doc, index + min);
+                        }
+                    }
+                }
+            };
+        }
+        return new LeafBucketCollectorBase(sub, values) {
+            @Override
+            public void collect(int doc, long owningBucketOrdinal) throws IOException {
+                assert owningBucketOrdinal == 0;
+                values.setDocument(doc);
+                final int valuesCount = values.count();
+
+                long previous = Long.MAX_VALUE;
+                for (int i = 0; i < valuesCount; ++i) {
+                    final long val = values.valueAt(i);
+                    if (previous != val || i == 0) {
+                        final long index = val - min;
+                        if (index >= 0 && index < range) {
+                            segmentDocCounts.increment(index, 1);
+                        } else {
+                            collectValue(sub, doc, val);
+                        }
+                        previous = val;
+                    }
+                }
+            }
+        };
+    }
+
+    /**
+     * Caches the bucket ordinal of every value of the segment in an array, so that the {@link LongHash} is only
+     * looked up once per distinct value and segment.
+     */
+    private LeafBucketCollector newCachingCollector(final SortedNumericDocValues values, final long min, final long range,
+            final LeafBucketCollector sub) {
+        segmentBucketOrds = segmentBucketOrds == null ? context.bigArrays().newLongArray(range, false) : context.bigArrays().grow(segmentBucketOrds, range);
+        // bucket ordinals are stored + 1, so that 0 means that the value has not been seen in this segment yet
+        segmentBucketOrds.fill(0, range, 0);
         return new LeafBucketCollectorBase(sub, values) {
             @Override
             public void collect(int doc, long owningBucketOrdinal) throws IOException {
@@ -90,16 +216,17 @@ public class LongTermsAggregator extends TermsAggregator {
                 for (int i = 0; i < valuesCount; ++i) {
                     final long val = values.valueAt(i);
                     if (previous != val || i == 0) {
-                        if ((longFilter == null) || (longFilter.accept(val))) {
-                            long bucketOrdinal = bucketOrds.add(val);
-                            if (bucketOrdinal < 0) { // already seen
-                                bucketOrdinal = - 1 - bucketOrdinal;
+                        final long index = val - min;
+                        if (index < 0 || index >= range) {
+                            collectValue(sub, doc, val);
+                        } else if ((longFilter == null) || (longFilter.accept(val))) {
+                            final long bucketOrdinal = segmentBucketOrds.get(index) - 1;
+                            if (bucketOrdinal >= 0) {
                                 collectExistingBucket(sub, doc, bucketOrdinal);
                             } else {
-                                collectBucket(sub, doc, bucketOrdinal);
+                                segmentBucketOrds.set(index, 1 + collectValue(sub, doc, val));
                             }
                         }
-
                         previous = val;
                     }
                 }
@@ -107,6 +234,50 @@ public class LongTermsAggregator extends TermsAggregator {
         };
     }
 
+    /**
+     * Collects the given value of the given doc through the {@link LongHash} and returns its bucket ordinal, or -1 if
+     * the value is filtered out.
+     */
+    private long collectValue(LeafBucketCollector sub, int doc, long val) throws IOException {
+        if ((longFilter == null) || (longFilter.accept(val))) {
+            long bucketOrdinal = bucketOrds.add(val);
+            if (bucketOrdinal < 0) { // already seen
+                bucketOrdinal = - 1 - bucketOrdinal;
+                collectExistingBucket(sub, doc, bucketOrdinal);
+            } else {
+                collectBucket(sub, doc, bucketOrdinal);
+            }
+            return bucketOrdinal;
+        }
+        return -1;
+    }
+
+    private void flushSegmentDocCounts() {
+        for (long i = 0; i < pendingSegmentRange; i++) {
+            // set(...) resets the slot, since the counts are reused for the next segment
+            final int inc = segmentDocCounts.set(i, 0);
+            if (inc == 0) {
+                continue;
+            }
+            final long val = segmentMin + i;
+            if ((longFilter == null) || (longFilter.accept(val))) {
+                long bucketOrdinal = bucketOrds.add(val);
+                if (bucketOrdinal < 0) { // already seen
+                    bucketOrdinal = - 1 - bucketOrdinal;
+                }
+                incrementBucketDocCount(bucketOrdinal, inc);
+            }
+        }
+        pendingSegmentRange = 0;
+    }
+
+    @Override
+    protected void doPostCollection() throws IOException {
+        if (pendingSegmentRange > 0) {
+            flushSegmentDocCounts();
+        }
+    }
+
     @Override
     public InternalAggregation buildAggregation(long owningBucketOrdinal) throws IOException {
         assert owningBucketOrdinal == 0;
@@ -175,7 +346,7 @@ public class LongTermsAggregator extends TermsAggregator {
 
     @Override
     public void doClose() {
-        Releasables.close(bucketOrds);
+        Releasables.close(bucketOrds, segmentDocCounts, segmentBucketOrds);
     }
 
 }
@@ -20,7 +20,7 @@
 package org.elasticsearch.search.aggregations.metrics.cardinality;
 
 import com.google.common.base.Preconditions;
-import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.Accountable;
 import org.apache.lucene.util.LongBitSet;
 import org.apache.lucene.util.RamUsageEstimator;
 import org.apache.lucene.util.packed.PackedInts;
@@ -31,13 +31,14 @@ import org.elasticsearch.common.lease.Releasable;
 import org.elasticsearch.common.lease.Releasables;
 import org.elasticsearch.common.util.BigArrays;
 import org.elasticsearch.common.util.ByteArray;
-import org.elasticsearch.common.util.ByteUtils;
 import org.elasticsearch.common.util.IntArray;
+import org.elasticsearch.common.util.LongArray;
+import org.elasticsearch.common.util.ObjectArray;
 
 import java.io.IOException;
-import java.nio.ByteBuffer;
-import java.nio.ByteOrder;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 
 /**
  * Hyperloglog++ counter, implemented based on pseudo code from
@@ -50,10 +51,16 @@ import java.util.Arrays;
  * requires more space and makes hyperloglog (which is less accurate) used sooner,
  * this is also considerably faster.
  *
+ * Buckets start with a sparse representation: a hash table of encoded hashes that
+ * grows with the number of distinct values of the bucket. The dense registers of
+ * a bucket are only allocated once its hash table would take as much memory as
+ * the registers, so that aggregations with many small buckets don't need to
+ * allocate <code>2^precision</code> bytes per bucket.
+ *
  * Trying to understand what this class does whithout having read the paper is
  * considered adventurous.
  */
-public final class HyperLogLogPlusPlus implements Releasable {
+public final class HyperLogLogPlusPlus implements Releasable, Accountable {
 
     public static final int MIN_PRECISION = 4;
     public static final int DEFAULT_PRECISION = 14;
@@ -62,6 +69,7 @@ public final class HyperLogLogPlusPlus implements Releasable {
     private static final boolean HYPERLOGLOG = true;
     private static final float MAX_LOAD_FACTOR = 0.75f;
     private static final int P2 = 25;
+    private static final int MIN_HASH_TABLE_CAPACITY = 16;
 
     /**
      * Compute the required precision so that <code>count</code> distinct entries
@@ -155,6 +163,9 @@ public final class HyperLogLogPlusPlus implements Releasable {
 
     private final BigArrays bigArrays;
     private final OpenBitSet algorithm;
+    // 1 + the index of the registers of a bucket in runLens, 0 if the bucket doesn't have registers yet
+    private LongArray registerSlots;
+    private long numRegisterSlots;
     private ByteArray runLens;
     private final Hashset hashSet;
     private final int p, m;
@@ -167,7 +178,8 @@ public final class HyperLogLogPlusPlus implements Releasable {
         m = 1 << p;
         this.bigArrays = bigArrays;
         algorithm = new OpenBitSet();
-        runLens = bigArrays.newByteArray(initialBucketCount << p);
+        registerSlots = bigArrays.newLongArray(initialBucketCount);
+        runLens = bigArrays.newByteArray(0);
         hashSet = new Hashset(initialBucketCount);
         final double alpha;
         switch (p) {
@@ -189,11 +201,20 @@ public final class HyperLogLogPlusPlus implements Releasable {
     }
 
     public long maxBucket() {
-        return runLens.size() >>> p;
+        return registerSlots.size();
     }
 
     private void ensureCapacity(long numBuckets) {
-        runLens = bigArrays.grow(runLens, numBuckets << p);
+        registerSlots = bigArrays.grow(registerSlots, numBuckets);
+    }
+
+    /**
+     * Return the index of the first register of the given bucket, which must be using hyperloglog.
+     */
+    private long registersStart(long bucket) {
+        final long slot = registerSlots.get(bucket) - 1;
+        assert slot >= 0;
+        return slot << p;
     }
 
     public void merge(long thisBucket, HyperLogLogPlusPlus other, long otherBucket) {
@@ -217,14 +238,44 @@ public final class HyperLogLogPlusPlus implements Releasable {
             if (algorithm.get(thisBucket) != HYPERLOGLOG) {
                 upgradeToHll(thisBucket);
             }
-            final long thisStart = thisBucket << p;
-            final long otherStart = otherBucket << p;
+            final long thisStart = registersStart(thisBucket);
+            final long otherStart = other.registersStart(otherBucket);
             for (int i = 0; i < m; ++i) {
                 runLens.set(thisStart + i, (byte) Math.max(runLens.get(thisStart + i), other.runLens.get(otherStart + i)));
             }
         }
     }
 
+    /**
+     * Merge counts that have been serialized with {@link #writeTo} into <code>thisBucket</code>. Unlike
+     * {@link #readFrom}, this reads the serialized hashes or registers one by one and doesn't need to
+     * build a counter for them.
+     */
+    public void merge(long thisBucket, StreamInput in) throws IOException {
+        final int precision = in.readVInt();
+        Preconditions.checkArgument(p == precision);
+        ensureCapacity(thisBucket + 1);
+        if (in.readBoolean() == LINEAR_COUNTING) {
+            final long size = in.readVLong();
+            for (long i = 0; i < size; ++i) {
+                final int encoded = in.readInt();
+                if (algorithm.get(thisBucket) == LINEAR_COUNTING) {
+                    collectLcEncoded(thisBucket, encoded);
+                } else {
+                    collectHllEncoded(thisBucket, encoded);
+                }
+            }
+        } else {
+            if (algorithm.get(thisBucket) != HYPERLOGLOG) {
+                upgradeToHll(thisBucket);
+            }
+            final long thisStart = registersStart(thisBucket);
+            for (int i = 0; i < m; ++i) {
+                runLens.set(thisStart + i, (byte) Math.max(runLens.get(thisStart + i), in.readByte()));
+            }
+        }
+    }
+
     public void collect(long bucket, long hash) {
         ensureCapacity(bucket + 1);
         if (algorithm.get(bucket) == LINEAR_COUNTING) {
@@ -259,7 +310,7 @@ public final class HyperLogLogPlusPlus implements Releasable {
     }
 
     private void collectHll(long bucket, long index, int runLen) {
-        final long bucketIndex = (bucket << p) + index;
+        final long bucketIndex = registersStart(bucket) + index;
         runLens.set(bucketIndex, (byte) Math.max(runLen, runLens.get(bucketIndex)));
     }
 
@@ -280,7 +331,7 @@ public final class HyperLogLogPlusPlus implements Releasable {
     private long cardinalityHll(long bucket) {
         double inverseSum = 0;
         int zeros = 0;
-        for (long i = bucket << p, end = i + m; i < end; ++i) {
+        for (long i = registersStart(bucket), end = i + m; i < end; ++i) {
             final int runLen = runLens.get(i);
             inverseSum += 1. / (1L << runLen);
             if (runLen == 0) {
@@ -306,17 +357,28 @@ public final class HyperLogLogPlusPlus implements Releasable {
         ensureCapacity(bucket + 1);
         final IntArray values = hashSet.values(bucket);
         try {
-            runLens.fill(bucket << p, (bucket << p) + m, (byte) 0);
+            allocateRegisters(bucket);
             for (long i = 0; i < values.size(); ++i) {
                 final int encoded = values.get(i);
                 collectHllEncoded(bucket, encoded);
             }
             algorithm.set(bucket);
+            hashSet.clear(bucket);
         } finally {
             Releasables.close(values);
         }
     }
 
+    private void allocateRegisters(long bucket) {
+        if (registerSlots.get(bucket) == 0) {
+            final long slot = numRegisterSlots++;
+            runLens = bigArrays.grow(runLens, numRegisterSlots << p);
+            registerSlots.set(bucket, slot + 1);
+        }
+        final long start = registersStart(bucket);
+        runLens.fill(start, start + m, (byte) 0);
+    }
+
     static long linearCounting(long m, long v) {
         return Math.round(m * Math.log((double) m / v));
     }
@@ -405,53 +467,56 @@ public final class HyperLogLogPlusPlus implements Releasable {
         return THRESHOLDS[p - 4];
     }
 
+    @Override
+    public long ramBytesUsed() {
+        return registerSlots.ramBytesUsed() + runLens.ramBytesUsed() + hashSet.ramBytesUsed();
+    }
+
+    @Override
+    public Collection<Accountable> getChildResources() {
+        return Collections.emptyList();
+    }
+
     @Override
     public void close() {
-        Releasables.close(runLens, hashSet.sizes);
+        Releasables.close(registerSlots, runLens, hashSet);
     }
 
     /**
-     * We are actually using HyperLogLog's runLens array but interpreting it as a hash set
-     * for linear counting.
+     * Per-bucket hash sets for linear counting. Each hash table starts small and doubles
+     * until it reaches the size of the registers, at which point the bucket is upgraded
+     * to hyperloglog.
      */
-    private class Hashset {
+    private class Hashset implements Releasable {
 
-        private final int capacity;
+        private final int maxCapacity;
         private final int threshold;
-        private final int mask;
         private IntArray sizes;
-        private final BytesRef readSpare;
-        private final ByteBuffer writeSpare;
+        private ObjectArray<IntArray> tables;
+        private long tablesRamBytesUsed;
 
         public Hashset(long initialBucketCount) {
-            capacity = m / 4; // because ints take 4 bytes
-            threshold = (int) (capacity * MAX_LOAD_FACTOR);
-            mask = capacity - 1;
+            maxCapacity = m / 4; // because ints take 4 bytes
+            threshold = (int) (maxCapacity * MAX_LOAD_FACTOR);
             sizes = bigArrays.newIntArray(initialBucketCount);
-            readSpare = new BytesRef();
-            writeSpare = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN);
-        }
-
-        private long index (long bucket, int index) {
-            return (bucket << p) + (index << 2);
+            tables = bigArrays.newObjectArray(initialBucketCount);
         }
 
-        private int get(long bucket, int index) {
-            runLens.get(index(bucket, index), 4, readSpare);
-            return ByteUtils.readIntLE(readSpare.bytes, readSpare.offset);
-        }
-
-        private void set(long bucket, int index, int value) {
-            writeSpare.putInt(0, value);
-            runLens.set(index(bucket, index), writeSpare.array(), 0, 4);
+        private IntArray table(long bucket) {
+            if (bucket >= tables.size()) {
+                return null;
+            }
+            return tables.get(bucket);
         }
 
         private int recomputedSize(long bucket) {
+            final IntArray table = table(bucket);
             int size = 0;
-            for (int i = 0; i <= mask; ++i) {
-                final int v = get(bucket, i);
-                if (v != 0) {
-                    ++size;
+            if (table != null) {
+                for (long i = 0; i < table.size(); ++i) {
+                    if (table.get(i) != 0) {
+                        ++size;
+                    }
                 }
             }
             return size;
@@ -472,17 +537,79 @@ public final class HyperLogLogPlusPlus implements Releasable {
          */
         public int add(long bucket, int k) {
             sizes = bigArrays.grow(sizes, bucket + 1);
+            tables = bigArrays.grow(tables, bucket + 1);
+            IntArray table = tables.get(bucket);
+            if (table == null) {
+                table = newTable(Math.min(MIN_HASH_TABLE_CAPACITY, maxCapacity));
+                tables.set(bucket, table);
+            }
+            if (add(table, k) == false) {
+                // k is already in the set
+                return -1;
+            }
+            final int size = sizes.increment(bucket, 1);
+            if (size > table.size() * MAX_LOAD_FACTOR && table.size() < maxCapacity) {
+                tables.set(bucket, rehash(table, table.size() << 1));
+            }
+            return size;
+        }
+
+        private boolean add(IntArray table, int k) {
             assert k != 0;
+            final int mask = (int) table.size() - 1;
             for (int i = (k & mask); ; i = (i + 1) & mask) {
-                final int v = get(bucket, i);
+                final int v = table.get(i);
                 if (v == 0) {
                     // means unused, take it!
-                    set(bucket, i, k);
-                    return sizes.increment(bucket, 1);
+                    table.set(i, k);
+                    return true;
                 } else if (v == k) {
-                    // k is already in the set
-                    return -1;
+                    return false;
+                }
+            }
+        }
+
+        private IntArray newTable(long capacity) {
+            final IntArray table = bigArrays.newIntArray(capacity);
+            tablesRamBytesUsed += table.ramBytesUsed();
+            return table;
+        }
+
+        private void releaseTable(IntArray table) {
+            tablesRamBytesUsed -= table.ramBytesUsed();
+            Releasables.close(table);
+        }
+
+        private IntArray rehash(IntArray table, long newCapacity) {
+            final IntArray newTable = newTable(newCapacity);
+            boolean success = false;
+            try {
+                for (long i = 0; i < table.size(); ++i) {
+                    final int k = table.get(i);
+                    if (k != 0) {
+                        add(newTable, k);
+                    }
                 }
+                success = true;
+            } finally {
+                if (success) {
+                    releaseTable(table);
+                } else {
+                    releaseTable(newTable);
+                }
+            }
+            return newTable;
+        }
+
+        /**
+         * Release the hash table of a bucket that has been upgraded to hyperloglog.
+         */
+        public void clear(long bucket) {
+            final IntArray table = table(bucket);
+            if (table != null) {
+                tables.set(bucket, null);
+                sizes.set(bucket, 0);
+                releaseTable(table);
             }
         }
 
@@ -492,9 +619,10 @@ public final class HyperLogLogPlusPlus implements Releasable {
             if (size == 0) {
                 return values;
             }
+            final IntArray table = table(bucket);
             int i = 0;
-            for (int j = 0; j < capacity; ++j) {
-                final int k = get(bucket, j);
+            for (long j = 0; j < table.size(); ++j) {
+                final int k = table.get(j);
                 if (k != 0) {
                     values.set(i++, k);
                 }
@@ -503,6 +631,23 @@ public final class HyperLogLogPlusPlus implements Releasable {
             return values;
         }
 
+        public long ramBytesUsed() {
+            return sizes.ramBytesUsed() + tables.ramBytesUsed() + tablesRamBytesUsed;
+        }
+
+        @Override
+        public void close() {
+            try {
+                for (long i = 0; i < tables.size(); ++i) {
+                    final IntArray table = tables.get(i);
+                    if (table != null) {
+                        Releasables.close(table);
+                    }
+                }
+            } finally {
+                Releasables.close(sizes, tables);
+            }
+        }
     }
 
     public void writeTo(long bucket, StreamOutput out) throws IOException {
@@ -517,7 +662,7 @@ public final class HyperLogLogPlusPlus implements Releasable {
             }
         } else {
             out.writeBoolean(HYPERLOGLOG);
-            for (long i = bucket << p, end = i + m; i < end; ++i) {
+            for (long i = registersStart(bucket), end = i + m; i < end; ++i) {
                 out.writeByte(runLens.get(i));
             }
         }
@@ -535,9 +680,11 @@ public final class HyperLogLogPlusPlus implements Releasable {
                 counts.hashSet.add(0, encoded);
             }
         } else {
+            counts.allocateRegisters(0);
             counts.algorithm.set(0);
+            final long start = counts.registersStart(0);
             for (int i = 0; i < counts.m; ++i) {
-                counts.runLens.set(i, in.readByte());
+                counts.runLens.set(start + i, in.readByte());
             }
         }
         return counts;
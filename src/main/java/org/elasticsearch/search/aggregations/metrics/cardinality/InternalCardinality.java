@@ -19,7 +19,10 @@
 
 package org.elasticsearch.search.aggregations.metrics.cardinality;
 
+import org.elasticsearch.ElasticsearchException;
+import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.inject.internal.Nullable;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.util.BigArrays;
@@ -53,6 +56,8 @@ public final class InternalCardinality extends InternalNumericMetricsAggregation
     }
 
     private HyperLogLogPlusPlus counts;
+    // counts read from a stream are only built if the value is needed, reduces merge them without building them
+    private BytesReference serializedCounts;
 
     InternalCardinality(String name, HyperLogLogPlusPlus counts, @Nullable ValueFormatter formatter, List<Reducer> reducers,
             Map<String, Object> metaData) {
@@ -71,9 +76,38 @@ public final class InternalCardinality extends InternalNumericMetricsAggregation
 
     @Override
     public long getValue() {
+        final HyperLogLogPlusPlus counts = counts();
         return counts == null ? 0 : counts.cardinality(0);
     }
 
+    private boolean hasCounts() {
+        return counts != null || serializedCounts != null;
+    }
+
+    private HyperLogLogPlusPlus counts() {
+        if (counts == null && serializedCounts != null) {
+            try {
+                counts = HyperLogLogPlusPlus.readFrom(serializedCounts.streamInput(), BigArrays.NON_RECYCLING_INSTANCE);
+            } catch (IOException e) {
+                throw new ElasticsearchException("failed to read the counts of cardinality aggregation [" + getName() + "]", e);
+            }
+            serializedCounts = null;
+        }
+        return counts;
+    }
+
+    private int precision() {
+        if (counts != null) {
+            return counts.precision();
+        }
+        try {
+            // the precision is the first value of serialized counts
+            return serializedCounts.streamInput().readVInt();
+        } catch (IOException e) {
+            throw new ElasticsearchException("failed to read the counts of cardinality aggregation [" + getName() + "]", e);
+        }
+    }
+
     @Override
     public Type type() {
         return TYPE;
@@ -82,10 +116,11 @@ public final class InternalCardinality extends InternalNumericMetricsAggregation
     @Override
     protected void doReadFrom(StreamInput in) throws IOException {
         valueFormatter = ValueFormatterStreams.readOptional(in);
+        counts = null;
         if (in.readBoolean()) {
-            counts = HyperLogLogPlusPlus.readFrom(in, BigArrays.NON_RECYCLING_INSTANCE);
+            serializedCounts = in.readBytesReference();
         } else {
-            counts = null;
+            serializedCounts = null;
         }
     }
 
@@ -94,7 +129,13 @@ public final class InternalCardinality extends InternalNumericMetricsAggregation
         ValueFormatterStreams.writeOptional(valueFormatter, out);
         if (counts != null) {
             out.writeBoolean(true);
-            counts.writeTo(0, out);
+            try (BytesStreamOutput countsOut = new BytesStreamOutput()) {
+                counts.writeTo(0, countsOut);
+                out.writeBytesReference(countsOut.bytes());
+            }
+        } else if (serializedCounts != null) {
+            out.writeBoolean(true);
+            out.writeBytesReference(serializedCounts);
         } else {
             out.writeBoolean(false);
         }
@@ -105,9 +146,9 @@ public final class InternalCardinality extends InternalNumericMetricsAggregation
         InternalCardinality reduced = null;
         for (InternalAggregation aggregation : aggregations) {
             final InternalCardinality cardinality = (InternalCardinality) aggregation;
-            if (cardinality.counts != null) {
+            if (cardinality.hasCounts()) {
                 if (reduced == null) {
-                    reduced = new InternalCardinality(name, new HyperLogLogPlusPlus(cardinality.counts.precision(),
+                    reduced = new InternalCardinality(name, new HyperLogLogPlusPlus(cardinality.precision(),
                             BigArrays.NON_RECYCLING_INSTANCE, 1), this.valueFormatter, reducers(), getMetaData());
                 }
                 reduced.merge(cardinality);
@@ -123,7 +164,15 @@ public final class InternalCardinality extends InternalNumericMetricsAggregation
 
     public void merge(InternalCardinality other) {
         assert counts != null && other != null;
-        counts.merge(0, other.counts, 0);
+        if (other.counts != null) {
+            counts.merge(0, other.counts, 0);
+        } else {
+            try {
+                counts.merge(0, other.serializedCounts.streamInput());
+            } catch (IOException e) {
+                throw new ElasticsearchException("failed to merge the counts of cardinality aggregation [" + getName() + "]", e);
+            }
+        }
     }
 
     @Override
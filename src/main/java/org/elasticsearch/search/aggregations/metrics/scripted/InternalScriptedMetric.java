@@ -59,6 +59,8 @@ public class InternalScriptedMetric extends InternalMetricsAggregation implement
     private String reduceScript;
     private Map<String, Object> reduceParams;
     private Object aggregation;
+    /* true if this is the intermediate result of a partial reduce, its aggregation is then the list of shard aggregation objects */
+    private boolean partiallyReduced;
 
     private InternalScriptedMetric() {
     }
@@ -87,11 +89,15 @@ public class InternalScriptedMetric extends InternalMetricsAggregation implement
         List<Object> aggregationObjects = new ArrayList<>();
         for (InternalAggregation aggregation : aggregations) {
             InternalScriptedMetric mapReduceAggregation = (InternalScriptedMetric) aggregation;
-            aggregationObjects.add(mapReduceAggregation.aggregation());
+            if (mapReduceAggregation.partiallyReduced) {
+                aggregationObjects.addAll((List<?>) mapReduceAggregation.aggregation());
+            } else {
+                aggregationObjects.add(mapReduceAggregation.aggregation());
+            }
         }
         InternalScriptedMetric firstAggregation = ((InternalScriptedMetric) aggregations.get(0));
         Object aggregation;
-        if (firstAggregation.reduceScript != null) {
+        if (firstAggregation.reduceScript != null && reduceContext.isFinalReduce()) {
             Map<String, Object> params;
             if (firstAggregation.reduceParams != null) {
                 params = new HashMap<>(firstAggregation.reduceParams);
@@ -105,8 +111,11 @@ public class InternalScriptedMetric extends InternalMetricsAggregation implement
         } else {
             aggregation = aggregationObjects;
         }
-        return new InternalScriptedMetric(firstAggregation.getName(), aggregation, firstAggregation.scriptLang, firstAggregation.scriptType,
-                firstAggregation.reduceScript, firstAggregation.reduceParams, reducers(), getMetaData());
+        InternalScriptedMetric reduced = new InternalScriptedMetric(firstAggregation.getName(), aggregation, firstAggregation.scriptLang,
+                firstAggregation.scriptType, firstAggregation.reduceScript, firstAggregation.reduceParams, reducers(), getMetaData());
+        // the reduce script only runs in the final reduce, until then we just collect the shard aggregation objects
+        reduced.partiallyReduced = reduceContext.isFinalReduce() == false;
+        return reduced;
 
     }
 
@@ -133,6 +142,7 @@ public class InternalScriptedMetric extends InternalMetricsAggregation implement
         reduceScript = in.readOptionalString();
         reduceParams = in.readMap();
         aggregation = in.readGenericValue();
+        partiallyReduced = in.readBoolean();
     }
 
     @Override
@@ -142,6 +152,7 @@ public class InternalScriptedMetric extends InternalMetricsAggregation implement
         out.writeOptionalString(reduceScript);
         out.writeMap(reduceParams);
         out.writeGenericValue(aggregation);
+        out.writeBoolean(partiallyReduced);
     }
 
     @Override
@@ -24,10 +24,12 @@ import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.index.RandomAccessOrds;
 import org.apache.lucene.index.SortedDocValues;
 import org.apache.lucene.index.SortedNumericDocValues;
+import org.apache.lucene.index.Terms;
 import org.apache.lucene.search.IndexSearcher;
 import org.apache.lucene.search.Scorer;
 import org.apache.lucene.util.Bits;
 import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.NumericUtils;
 import org.elasticsearch.common.lucene.ScorerAware;
 import org.elasticsearch.index.fielddata.AtomicOrdinalsFieldData;
 import org.elasticsearch.index.fielddata.AtomicParentChildFieldData;
@@ -221,6 +223,14 @@ public abstract class ValuesSource {
         /** Get the current {@link SortedNumericDoubleValues}. */
         public abstract SortedNumericDoubleValues doubleValues(LeafReaderContext context) throws IOException;
 
+        /**
+         * Get the smallest and the largest of the {@link #longValues(LeafReaderContext) long values} of the given segment,
+         * or <code>null</code> if they are not known without going over all documents.
+         */
+        public long[] longBounds(LeafReaderContext context) throws IOException {
+            return null;
+        }
+
         @Override
         public Bits docsWithValue(LeafReaderContext context) throws IOException {
             if (isFloatingPoint()) {
@@ -360,6 +370,26 @@ public abstract class ValuesSource {
             public SortedNumericDoubleValues doubleValues(LeafReaderContext context) {
                 return indexFieldData.load(context).getDoubleValues();
             }
+
+            @Override
+            public long[] longBounds(LeafReaderContext context) throws IOException {
+                final IndexNumericFieldData.NumericType numericType = indexFieldData.getNumericType();
+                if (numericType.isFloatingPoint()) {
+                    return null;
+                }
+                // the terms dictionary is sorted, so this only needs to look at its first and last full precision term
+                final Terms terms = context.reader().terms(indexFieldData.getFieldNames().indexName());
+                if (terms == null) {
+                    return null;
+                }
+                if (numericType.requiredBits() == 1) {
+                    return new long[] { 0, 1 };
+                } else if (numericType.requiredBits() > 32) {
+                    return new long[] { NumericUtils.getMinLong(terms), NumericUtils.getMaxLong(terms) };
+                } else {
+                    return new long[] { NumericUtils.getMinInt(terms), NumericUtils.getMaxInt(terms) };
+                }
+            }
         }
 
         public static class Script extends Numeric {
@@ -0,0 +1,106 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.search.controller;
+
+import org.elasticsearch.ExceptionsHelper;
+import org.elasticsearch.common.util.BigArrays;
+import org.elasticsearch.script.ScriptService;
+import org.elasticsearch.search.aggregations.InternalAggregation.ReduceContext;
+import org.elasticsearch.search.aggregations.InternalAggregations;
+import org.elasticsearch.search.query.QuerySearchResult;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reduces the aggregations of shard query results while they arrive on the coordinating node. Shard aggregations are
+ * buffered until the buffer holds <code>batchSize</code> of them, they are then partially reduced into a single intermediate
+ * result and released. This bounds the memory used by searches over many shards, the final reduce only sees the last
+ * intermediate result and the shard results that arrived after it.
+ */
+public class BatchedAggregationReducer {
+
+    private final int batchSize;
+    private final ReduceContext partialReduceContext;
+    private final List<InternalAggregations> buffer;
+    private Throwable failure;
+    private int numPartialReduces;
+
+    BatchedAggregationReducer(int batchSize, BigArrays bigArrays, ScriptService scriptService) {
+        if (batchSize < 2) {
+            throw new IllegalArgumentException("batch size must be >= 2 but was [" + batchSize + "]");
+        }
+        this.batchSize = batchSize;
+        this.partialReduceContext = new ReduceContext(bigArrays, scriptService, false);
+        this.buffer = new ArrayList<>(batchSize);
+    }
+
+    /**
+     * Takes over the aggregations of the given shard result, the result doesn't hold on to them anymore afterwards.
+     */
+    public void consume(QuerySearchResult result) {
+        final InternalAggregations aggregations = (InternalAggregations) result.aggregations();
+        if (aggregations == null) {
+            return;
+        }
+        result.aggregations(null);
+        synchronized (this) {
+            if (failure != null) {
+                // the search is going to fail anyway, no need to keep anything around
+                return;
+            }
+            buffer.add(aggregations);
+            if (buffer.size() == batchSize) {
+                try {
+                    InternalAggregations reduced = InternalAggregations.reduce(buffer, partialReduceContext);
+                    buffer.clear();
+                    buffer.add(reduced);
+                    numPartialReduces++;
+                } catch (Throwable t) {
+                    // we fail the search in the final reduce phase
+                    failure = t;
+                    buffer.clear();
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the aggregations that are left for the final reduce phase or <code>null</code> if no shard returned aggregations.
+     */
+    synchronized List<InternalAggregations> drain() {
+        if (failure != null) {
+            throw ExceptionsHelper.convertToElastic(failure);
+        }
+        if (buffer.isEmpty()) {
+            return null;
+        }
+        List<InternalAggregations> aggregations = new ArrayList<>(buffer);
+        buffer.clear();
+        return aggregations;
+    }
+
+    /**
+     * Returns the number of partial reduces that were executed so far.
+     */
+    public synchronized int numPartialReduces() {
+        return numPartialReduces;
+    }
+}
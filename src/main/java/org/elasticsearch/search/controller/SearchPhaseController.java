@@ -33,6 +33,7 @@ import org.apache.lucene.search.TermStatistics;
 import org.apache.lucene.search.TopDocs;
 import org.apache.lucene.search.TopFieldDocs;
 import org.elasticsearch.action.search.SearchRequest;
+import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.collect.HppcMaps;
 import org.elasticsearch.common.component.AbstractComponent;
 import org.elasticsearch.common.inject.Inject;
@@ -83,9 +84,11 @@ public class SearchPhaseController extends AbstractComponent {
 
     public static final ScoreDoc[] EMPTY_DOCS = new ScoreDoc[0];
     public static final String SEARCH_CONTROLLER_OPTIMIZE_SINGLE_SHARD_KEY = "search.controller.optimize_single_shard";
+    public static final String SEARCH_CONTROLLER_BATCHED_REDUCE_SIZE_KEY = "search.controller.batched_reduce_size";
 
     private final BigArrays bigArrays;
     private final boolean optimizeSingleShard;
+    private final int batchedReduceSize;
 
     private ScriptService scriptService;
 
@@ -95,6 +98,22 @@ public class SearchPhaseController extends AbstractComponent {
         this.bigArrays = bigArrays;
         this.scriptService = scriptService;
         this.optimizeSingleShard = settings.getAsBoolean(SEARCH_CONTROLLER_OPTIMIZE_SINGLE_SHARD_KEY, true);
+        this.batchedReduceSize = settings.getAsInt(SEARCH_CONTROLLER_BATCHED_REDUCE_SIZE_KEY, 512);
+        if (batchedReduceSize < 2) {
+            throw new IllegalArgumentException("[" + SEARCH_CONTROLLER_BATCHED_REDUCE_SIZE_KEY + "] must be >= 2 but was [" + batchedReduceSize + "]");
+        }
+    }
+
+    /**
+     * Returns a reducer that reduces the shard aggregations in batches while the shard results arrive, or <code>null</code> if
+     * the given number of shards fits into a single batch in which case all aggregations are reduced at once by {@link #merge}.
+     */
+    @Nullable
+    public BatchedAggregationReducer newBatchedAggregationReducer(int numShards) {
+        if (numShards <= batchedReduceSize) {
+            return null;
+        }
+        return new BatchedAggregationReducer(batchedReduceSize, bigArrays, scriptService);
     }
 
     public boolean optimizeSingleShard() {
@@ -296,6 +315,16 @@ public class SearchPhaseController extends AbstractComponent {
     }
 
     public InternalSearchResponse merge(ScoreDoc[] sortedDocs, AtomicArray<? extends QuerySearchResultProvider> queryResultsArr, AtomicArray<? extends FetchSearchResultProvider> fetchResultsArr) {
+        return merge(sortedDocs, queryResultsArr, fetchResultsArr, null);
+    }
+
+    /**
+     * Merges the query and fetch results. If an aggregation reducer is given, the shard aggregations were handed over to it while
+     * the query results arrived and the final reduce is executed on what it has not reduced yet.
+     */
+    public InternalSearchResponse merge(ScoreDoc[] sortedDocs, AtomicArray<? extends QuerySearchResultProvider> queryResultsArr,
+                                        AtomicArray<? extends FetchSearchResultProvider> fetchResultsArr,
+                                        @Nullable BatchedAggregationReducer aggregationReducer) {
 
         List<? extends AtomicArray.Entry<? extends QuerySearchResultProvider>> queryResults = queryResultsArr.asList();
         List<? extends AtomicArray.Entry<? extends FetchSearchResultProvider>> fetchResults = fetchResultsArr.asList();
@@ -398,11 +427,16 @@ public class SearchPhaseController extends AbstractComponent {
         // merge addAggregation
         InternalAggregations aggregations = null;
         if (!queryResults.isEmpty()) {
-            if (firstResult.aggregations() != null && firstResult.aggregations().asList() != null) {
-                List<InternalAggregations> aggregationsList = new ArrayList<>(queryResults.size());
+            List<InternalAggregations> aggregationsList = null;
+            if (aggregationReducer != null) {
+                aggregationsList = aggregationReducer.drain();
+            } else if (firstResult.aggregations() != null && firstResult.aggregations().asList() != null) {
+                aggregationsList = new ArrayList<>(queryResults.size());
                 for (AtomicArray.Entry<? extends QuerySearchResultProvider> entry : queryResults) {
                     aggregationsList.add((InternalAggregations) entry.value.queryResult().aggregations());
                 }
+            }
+            if (aggregationsList != null) {
                 aggregations = InternalAggregations.reduce(aggregationsList, new ReduceContext(bigArrays, scriptService));
             }
         }
@@ -168,10 +168,18 @@ public class FetchPhase implements SearchPhase {
 
         InternalSearchHit[] hits = new InternalSearchHit[context.docIdsToLoadSize()];
         FetchSubPhase.HitContext hitContext = new FetchSubPhase.HitContext();
-        for (int index = 0; index < context.docIdsToLoadSize(); index++) {
+        List<LeafReaderContext> leaves = context.searcher().getIndexReader().leaves();
+        LeafReaderContext subReaderContext = null;
+        int subReaderEnd = 0;
+        // hits are loaded in doc id order, so that every segment is visited once and its stored fields are read
+        // sequentially, which lets the stored fields reader reuse the block it decompressed last
+        for (int index : docIdsInDocOrder(context.docIdsToLoad(), context.docIdsToLoadFrom(), context.docIdsToLoadSize())) {
             int docId = context.docIdsToLoad()[context.docIdsToLoadFrom() + index];
-            int readerIndex = ReaderUtil.subIndex(docId, context.searcher().getIndexReader().leaves());
-            LeafReaderContext subReaderContext = context.searcher().getIndexReader().leaves().get(readerIndex);
+            if (docId >= subReaderEnd) {
+                int readerIndex = ReaderUtil.subIndex(docId, leaves);
+                subReaderContext = leaves.get(readerIndex);
+                subReaderEnd = subReaderContext.docBase + subReaderContext.reader().maxDoc();
+            }
             int subDocId = docId - subReaderContext.docBase;
 
             final InternalSearchHit searchHit;
@@ -204,6 +212,23 @@ public class FetchPhase implements SearchPhase {
         context.fetchResult().hits(new InternalSearchHits(hits, context.queryResult().topDocs().totalHits, context.queryResult().topDocs().getMaxScore()));
     }
 
+    /**
+     * Returns the indices, relative to <code>from</code>, of the given doc ids sorted by doc id.
+     */
+    static int[] docIdsInDocOrder(int[] docIds, int from, int size) {
+        // pack the doc id and the index into a long, doc ids are never negative so these sort by doc id
+        final long[] docsAndIndices = new long[size];
+        for (int index = 0; index < size; index++) {
+            docsAndIndices[index] = ((long) docIds[from + index]) << 32 | index;
+        }
+        Arrays.sort(docsAndIndices);
+        final int[] indices = new int[size];
+        for (int i = 0; i < size; i++) {
+            indices[i] = (int) docsAndIndices[i];
+        }
+        return indices;
+    }
+
     private int findRootDocumentIfNested(SearchContext context, LeafReaderContext subReaderContext, int subDocId) throws IOException {
         if (context.mapperService().hasNested()) {
             BitDocIdSet nonNested = context.bitsetFilterCache().getBitDocIdSetFilter(Queries.newNonNestedFilter()).getDocIdSet(subReaderContext);
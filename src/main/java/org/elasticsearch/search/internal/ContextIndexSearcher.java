@@ -28,26 +28,56 @@ import org.apache.lucene.search.IndexSearcher;
 import org.apache.lucene.search.MultiCollector;
 import org.apache.lucene.search.Query;
 import org.apache.lucene.search.TimeLimitingCollector;
+import org.apache.lucene.search.TotalHitCountCollector;
 import org.apache.lucene.search.Weight;
+import org.apache.lucene.util.ThreadInterruptedException;
+import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.lease.Releasable;
 import org.elasticsearch.common.lucene.Lucene;
 import org.elasticsearch.common.lucene.MinimumScoreCollector;
 import org.elasticsearch.common.lucene.search.FilteredCollector;
+import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
 import org.elasticsearch.index.engine.Engine;
 import org.elasticsearch.search.dfs.CachedDfSource;
 import org.elasticsearch.search.internal.SearchContext.Lifetime;
 
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Context-aware extension of {@link IndexSearcher}.
+ * <p/>
+ * When created with an executor, the main query searches slices of the segments concurrently on that executor.
+ * Every slice collects into its own collectors, which is why query collectors that cannot be shared across threads
+ * need to be registered as {@link #sliceCollectors() slice collectors} in that case.
  */
 public class ContextIndexSearcher extends IndexSearcher implements Releasable {
 
+    /** Segments with at least that many documents are searched in their own slice. */
+    public static final int MAX_DOCS_PER_SLICE = 250000;
+    /** The maximum number of smaller segments that are grouped into a single slice. */
+    public static final int MAX_SEGMENTS_PER_SLICE = 5;
+
+    /**
+     * Creates a new query collector for every slice that is searched concurrently.
+     */
+    public interface SliceCollectorFactory {
+
+        Collector newCollector() throws IOException;
+    }
+
     public static enum Stage {
         NA,
         MAIN_QUERY
@@ -64,15 +94,136 @@ public class ContextIndexSearcher extends IndexSearcher implements Releasable {
 
     private Map<Class<?>, Collector> queryCollectors;
 
+    private final boolean concurrent;
+
+    @Nullable
+    private final ExecutorService sliceExecutor;
+
+    private Map<Class<?>, SliceCollectorFactory> sliceCollectors;
+
+    // documents collected by all slices, for terminate_after
+    private final AtomicInteger mainQueryCollectedDocs = new AtomicInteger();
+
     private Stage currentState = Stage.NA;
 
     public ContextIndexSearcher(SearchContext searchContext, Engine.Searcher searcher) {
-        super(searcher.reader());
+        this(searchContext, searcher, null);
+    }
+
+    public ContextIndexSearcher(SearchContext searchContext, Engine.Searcher searcher, @Nullable ExecutorService sliceExecutor) {
+        this(searcher, searchContext, sliceExecutor == null ? null : contextExecutor(searchContext, sliceExecutor));
+    }
+
+    private ContextIndexSearcher(Engine.Searcher searcher, SearchContext searchContext, @Nullable ExecutorService sliceExecutor) {
+        super(searcher.reader(), sliceExecutor);
         in = searcher.searcher();
         this.searchContext = searchContext;
+        this.sliceExecutor = sliceExecutor;
+        this.concurrent = sliceExecutor != null;
         setSimilarity(searcher.searcher().getSimilarity());
     }
 
+    /**
+     * Makes the search context available to the threads that search the slices. The returned executor is a view
+     * of the given one, it can't be shut down.
+     */
+    private static ExecutorService contextExecutor(final SearchContext searchContext, final ExecutorService executor) {
+        return new AbstractExecutorService() {
+            @Override
+            public void execute(final Runnable command) {
+                executor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        SearchContext.setCurrent(searchContext);
+                        try {
+                            command.run();
+                        } finally {
+                            SearchContext.removeCurrent();
+                        }
+                    }
+                });
+            }
+
+            @Override
+            public void shutdown() {
+                throw new UnsupportedOperationException("the slice executor of a search can't be shut down");
+            }
+
+            @Override
+            public List<Runnable> shutdownNow() {
+                throw new UnsupportedOperationException("the slice executor of a search can't be shut down");
+            }
+
+            @Override
+            public boolean isShutdown() {
+                return executor.isShutdown();
+            }
+
+            @Override
+            public boolean isTerminated() {
+                return executor.isTerminated();
+            }
+
+            @Override
+            public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+                return executor.awaitTermination(timeout, unit);
+            }
+        };
+    }
+
+    /**
+     * Segments with at least {@link #MAX_DOCS_PER_SLICE} documents get their own slice, smaller segments are
+     * grouped until a slice has {@link #MAX_DOCS_PER_SLICE} documents or {@link #MAX_SEGMENTS_PER_SLICE} segments.
+     */
+    @Override
+    protected LeafSlice[] slices(List<LeafReaderContext> leaves) {
+        return slices(leaves, MAX_DOCS_PER_SLICE, MAX_SEGMENTS_PER_SLICE);
+    }
+
+    /**
+     * The number of slices a concurrent search would search the given leaves in.
+     */
+    public static int numSlices(List<LeafReaderContext> leaves) {
+        return slices(leaves, MAX_DOCS_PER_SLICE, MAX_SEGMENTS_PER_SLICE).length;
+    }
+
+    static LeafSlice[] slices(List<LeafReaderContext> leaves, int maxDocsPerSlice, int maxSegmentsPerSlice) {
+        List<LeafReaderContext> sortedLeaves = new ArrayList<>(leaves);
+        Collections.sort(sortedLeaves, new Comparator<LeafReaderContext>() {
+            @Override
+            public int compare(LeafReaderContext o1, LeafReaderContext o2) {
+                return Integer.compare(o2.reader().maxDoc(), o1.reader().maxDoc());
+            }
+        });
+        List<LeafSlice> slices = new ArrayList<>();
+        List<LeafReaderContext> group = new ArrayList<>();
+        long groupDocs = 0;
+        for (LeafReaderContext leaf : sortedLeaves) {
+            if (leaf.reader().maxDoc() >= maxDocsPerSlice) {
+                slices.add(new LeafSlice(leaf));
+                continue;
+            }
+            group.add(leaf);
+            groupDocs += leaf.reader().maxDoc();
+            if (groupDocs >= maxDocsPerSlice || group.size() >= maxSegmentsPerSlice) {
+                slices.add(new LeafSlice(group.toArray(new LeafReaderContext[group.size()])));
+                group.clear();
+                groupDocs = 0;
+            }
+        }
+        if (group.isEmpty() == false) {
+            slices.add(new LeafSlice(group.toArray(new LeafReaderContext[group.size()])));
+        }
+        return slices.toArray(new LeafSlice[slices.size()]);
+    }
+
+    /**
+     * Whether the main query searches slices of the segments concurrently.
+     */
+    public boolean concurrent() {
+        return concurrent;
+    }
+
     @Override
     public void close() {
     }
@@ -88,18 +239,39 @@ public class ContextIndexSearcher extends IndexSearcher implements Releasable {
      */
     public Map<Class<?>, Collector> queryCollectors() {
         if (queryCollectors == null) {
-            queryCollectors = new HashMap<>();
+            queryCollectors = ConcurrentCollections.newConcurrentMap();
         }
         return queryCollectors;
     }
 
+    /**
+     * Adds a query level collector that runs at {@link Stage#MAIN_QUERY} with its own collector for every
+     * slice of a {@link #concurrent()} search.
+     */
+    public Map<Class<?>, SliceCollectorFactory> sliceCollectors() {
+        if (sliceCollectors == null) {
+            sliceCollectors = ConcurrentCollections.newConcurrentMap();
+        }
+        return sliceCollectors;
+    }
+
     public void inStage(Stage stage) {
         this.currentState = stage;
+        if (stage == Stage.MAIN_QUERY) {
+            mainQueryCollectedDocs.set(0);
+        }
     }
 
     public void finishStage(Stage stage) {
         assert currentState == stage : "Expected stage " + stage + " but was stage " + currentState;
         this.currentState = Stage.NA;
+        if (concurrent && stage == Stage.MAIN_QUERY) {
+            if (searchContext.terminateAfter() != SearchContext.DEFAULT_TERMINATE_AFTER && searchContext.queryResult().terminatedEarly() == null) {
+                searchContext.queryResult().terminatedEarly(false);
+            }
+            // slices don't release collection resources as other slices might still use them
+            searchContext.clearReleasables(Lifetime.COLLECTION);
+        }
     }
 
     @Override
@@ -143,9 +315,15 @@ public class ContextIndexSearcher extends IndexSearcher implements Releasable {
             // throws TimeLimitingCollector.TimeExceededException when timeout has reached
             collector = Lucene.wrapTimeLimitingCollector(collector, searchContext.timeEstimateCounter(), searchContext.timeoutInMillis());
         }
+        final boolean concurrentSlice = concurrent && currentState == Stage.MAIN_QUERY;
         if (terminateAfterSet) {
             // throws Lucene.EarlyTerminationException when given count is reached
-            collector = Lucene.wrapCountBasedEarlyTerminatingCollector(collector, searchContext.terminateAfter());
+            if (concurrentSlice) {
+                // the count is for the shard, not the slice
+                collector = Lucene.wrapCountBasedEarlyTerminatingCollector(collector, searchContext.terminateAfter(), mainQueryCollectedDocs);
+            } else {
+                collector = Lucene.wrapCountBasedEarlyTerminatingCollector(collector, searchContext.terminateAfter());
+            }
         }
         if (currentState == Stage.MAIN_QUERY) {
             if (searchContext.parsedPostFilter() != null) {
@@ -155,8 +333,16 @@ public class ContextIndexSearcher extends IndexSearcher implements Releasable {
                 final Weight filterWeight = createNormalizedWeight(searchContext.parsedPostFilter().query(), false);
                 collector = new FilteredCollector(collector, filterWeight);
             }
-            if (queryCollectors != null && !queryCollectors.isEmpty()) {
-                ArrayList<Collector> allCollectors = new ArrayList<>(queryCollectors.values());
+            if ((queryCollectors != null && !queryCollectors.isEmpty()) || (sliceCollectors != null && !sliceCollectors.isEmpty())) {
+                ArrayList<Collector> allCollectors = new ArrayList<>();
+                if (queryCollectors != null) {
+                    allCollectors.addAll(queryCollectors.values());
+                }
+                if (sliceCollectors != null) {
+                    for (SliceCollectorFactory sliceCollector : sliceCollectors.values()) {
+                        allCollectors.add(sliceCollector.newCollector());
+                    }
+                }
                 allCollectors.add(collector);
                 collector = MultiCollector.wrap(allCollectors);
             }
@@ -179,15 +365,55 @@ public class ContextIndexSearcher extends IndexSearcher implements Releasable {
                     assert terminateAfterSet : "EarlyTerminationException thrown even though terminateAfter wasn't set";
                     searchContext.queryResult().terminatedEarly(true);
                 }
-                if (terminateAfterSet && searchContext.queryResult().terminatedEarly() == null) {
+                // with concurrent slices this is decided once all slices are done
+                if (terminateAfterSet && concurrentSlice == false && searchContext.queryResult().terminatedEarly() == null) {
                     searchContext.queryResult().terminatedEarly(false);
                 }
             } else {
                 super.search(leaves, weight, collector);
             }
         } finally {
-            searchContext.clearReleasables(Lifetime.COLLECTION);
+            if (concurrentSlice == false) {
+                searchContext.clearReleasables(Lifetime.COLLECTION);
+            }
+        }
+    }
+
+    /**
+     * Counts the matches of the main query of a {@link #concurrent()} search slice by slice, like top docs searches do,
+     * so that the aggregations of a search without hits are collected concurrently too.
+     */
+    @Override
+    public int count(Query query) throws IOException {
+        if (concurrent == false || currentState != Stage.MAIN_QUERY || leafSlices.length < 2) {
+            return super.count(query);
+        }
+        final Weight weight = createNormalizedWeight(query, false);
+        List<Future<Integer>> sliceCounts = new ArrayList<>(leafSlices.length);
+        for (final LeafSlice slice : leafSlices) {
+            sliceCounts.add(sliceExecutor.submit(new Callable<Integer>() {
+                @Override
+                public Integer call() throws Exception {
+                    TotalHitCountCollector collector = new TotalHitCountCollector();
+                    search(Arrays.asList(slice.leaves), weight, collector);
+                    return collector.getTotalHits();
+                }
+            }));
+        }
+        int count = 0;
+        for (Future<Integer> sliceCount : sliceCounts) {
+            try {
+                count += sliceCount.get();
+            } catch (InterruptedException e) {
+                throw new ThreadInterruptedException(e);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof IOException) {
+                    throw (IOException) e.getCause();
+                }
+                throw new RuntimeException(e.getCause());
+            }
         }
+        return count;
     }
 
     @Override
@@ -72,6 +72,7 @@ import org.elasticsearch.search.suggest.SuggestionSearchContext;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
 
 /**
  *
@@ -180,6 +181,13 @@ public class DefaultSearchContext extends SearchContext {
                          Engine.Searcher engineSearcher, IndexService indexService, IndexShard indexShard,
                          ScriptService scriptService, PageCacheRecycler pageCacheRecycler,
                          BigArrays bigArrays, Counter timeEstimateCounter) {
+        this(id, request, shardTarget, engineSearcher, indexService, indexShard, scriptService, pageCacheRecycler, bigArrays, timeEstimateCounter, null);
+    }
+
+    public DefaultSearchContext(long id, ShardSearchRequest request, SearchShardTarget shardTarget,
+                         Engine.Searcher engineSearcher, IndexService indexService, IndexShard indexShard,
+                         ScriptService scriptService, PageCacheRecycler pageCacheRecycler,
+                         BigArrays bigArrays, Counter timeEstimateCounter, @Nullable ExecutorService sliceExecutor) {
         this.id = id;
         this.request = request;
         this.searchType = request.searchType();
@@ -195,7 +203,7 @@ public class DefaultSearchContext extends SearchContext {
         this.indexShard = indexShard;
         this.indexService = indexService;
 
-        this.searcher = new ContextIndexSearcher(this, engineSearcher);
+        this.searcher = new ContextIndexSearcher(this, engineSearcher, sliceExecutor);
 
         // initialize the filtering alias based on the provided filters
         aliasFilter = indexService.aliasesService().aliasFilter(request.filteringAliases());
@@ -318,14 +318,14 @@ public abstract class SearchContext implements Releasable {
      * Schedule the release of a resource. The time when {@link Releasable#release()} will be called on this object
      * is function of the provided {@link Lifetime}.
      */
-    public void addReleasable(Releasable releasable, Lifetime lifetime) {
+    public synchronized void addReleasable(Releasable releasable, Lifetime lifetime) {
         if (clearables == null) {
             clearables = MultimapBuilder.enumKeys(Lifetime.class).arrayListValues().build();
         }
         clearables.put(lifetime, releasable);
     }
 
-    public void clearReleasables(Lifetime lifetime) {
+    public synchronized void clearReleasables(Lifetime lifetime) {
         if (clearables != null) {
             List<Collection<Releasable>> releasables = new ArrayList<>();
             for (Lifetime lc : Lifetime.values()) {
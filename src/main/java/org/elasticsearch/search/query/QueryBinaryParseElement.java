@@ -19,8 +19,10 @@
 
 package org.elasticsearch.search.query;
 
+import org.elasticsearch.common.bytes.BytesArray;
 import org.elasticsearch.common.xcontent.XContentFactory;
 import org.elasticsearch.common.xcontent.XContentParser;
+import org.elasticsearch.index.query.IndexQueryParserService;
 import org.elasticsearch.search.SearchParseElement;
 import org.elasticsearch.search.internal.SearchContext;
 
@@ -32,8 +34,13 @@ public class QueryBinaryParseElement implements SearchParseElement {
     @Override
     public void parse(XContentParser parser, SearchContext context) throws Exception {
         byte[] querySource = parser.binaryValue();
+        IndexQueryParserService queryParserService = context.queryParserService();
+        if (queryParserService.isParsedQueryCacheEnabled()) {
+            context.parsedQuery(queryParserService.parseCached(new BytesArray(querySource), context.indexShard().searchService().parsedQueryCacheListener(context)));
+            return;
+        }
         try (XContentParser qSourceParser = XContentFactory.xContent(querySource).createParser(querySource)) {
-            context.parsedQuery(context.queryParserService().parse(qSourceParser));
+            context.parsedQuery(queryParserService.parse(qSourceParser));
         }
     }
 }
\ No newline at end of file
@@ -19,7 +19,10 @@
 
 package org.elasticsearch.search.query;
 
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.common.xcontent.XContentFactory;
 import org.elasticsearch.common.xcontent.XContentParser;
+import org.elasticsearch.index.query.IndexQueryParserService;
 import org.elasticsearch.search.SearchParseElement;
 import org.elasticsearch.search.internal.SearchContext;
 
@@ -30,6 +33,14 @@ public class QueryParseElement implements SearchParseElement {
 
     @Override
     public void parse(XContentParser parser, SearchContext context) throws Exception {
-        context.parsedQuery(context.queryParserService().parse(parser));
+        IndexQueryParserService queryParserService = context.queryParserService();
+        if (queryParserService.isParsedQueryCacheEnabled()) {
+            // the copy normalizes the query source, so that the cache doesn't depend on whitespaces
+            XContentBuilder source = XContentFactory.contentBuilder(parser.contentType());
+            source.copyCurrentStructure(parser);
+            context.parsedQuery(queryParserService.parseCached(source.bytes(), context.indexShard().searchService().parsedQueryCacheListener(context)));
+        } else {
+            context.parsedQuery(queryParserService.parse(parser));
+        }
     }
 }
\ No newline at end of file
@@ -53,6 +53,8 @@ public class QuerySearchResult extends QuerySearchResultProvider {
     private Suggest suggest;
     private boolean searchTimedOut;
     private Boolean terminatedEarly = null;
+    private int nodeQueueSize = -1;
+    private long serviceTimeNanos = -1;
 
     public QuerySearchResult() {
 
@@ -104,6 +106,28 @@ public class QuerySearchResult extends QuerySearchResultProvider {
         return this.terminatedEarly;
     }
 
+    /**
+     * The size of the search queue of the node that executed the query, or <tt>-1</tt> if unknown.
+     */
+    public int nodeQueueSize() {
+        return nodeQueueSize;
+    }
+
+    public void nodeQueueSize(int nodeQueueSize) {
+        this.nodeQueueSize = nodeQueueSize;
+    }
+
+    /**
+     * The time the node spent executing the query, or <tt>-1</tt> if unknown.
+     */
+    public long serviceTimeNanos() {
+        return serviceTimeNanos;
+    }
+
+    public void serviceTimeNanos(long serviceTimeNanos) {
+        this.serviceTimeNanos = serviceTimeNanos;
+    }
+
     public TopDocs topDocs() {
         return topDocs;
     }
@@ -191,6 +215,8 @@ public class QuerySearchResult extends QuerySearchResultProvider {
         }
         searchTimedOut = in.readBoolean();
         terminatedEarly = in.readOptionalBoolean();
+        nodeQueueSize = in.readInt();
+        serviceTimeNanos = in.readLong();
     }
 
     @Override
@@ -229,5 +255,7 @@ public class QuerySearchResult extends QuerySearchResultProvider {
         }
         out.writeBoolean(searchTimedOut);
         out.writeOptionalBoolean(terminatedEarly);
+        out.writeInt(nodeQueueSize);
+        out.writeLong(serviceTimeNanos);
     }
 }
@@ -34,6 +34,9 @@ public interface Transport extends LifecycleComponent<Transport> {
 
     public static class TransportSettings {
         public static final String TRANSPORT_TCP_COMPRESS = "transport.tcp.compress";
+        public static final String TRANSPORT_COMPRESS_TYPE = "transport.compress.type";
+        public static final String TRANSPORT_COMPRESS_ACTIONS = "transport.compress.actions";
+        public static final String TRANSPORT_COMPRESS_MIN_SIZE = "transport.compress.min_size";
     }
 
     void transportServiceAdapter(TransportServiceAdapter service);
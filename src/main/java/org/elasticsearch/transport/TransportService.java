@@ -30,6 +30,7 @@ import org.elasticsearch.common.component.AbstractLifecycleComponent;
 import org.elasticsearch.common.inject.Inject;
 import org.elasticsearch.common.logging.ESLogger;
 import org.elasticsearch.common.logging.Loggers;
+import org.elasticsearch.common.metrics.CounterMetric;
 import org.elasticsearch.common.metrics.MeanMetric;
 import org.elasticsearch.common.regex.Regex;
 import org.elasticsearch.common.settings.Settings;
@@ -44,6 +45,7 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -214,7 +216,21 @@ public class TransportService extends AbstractLifecycleComponent<TransportServic
     }
 
     public TransportStats stats() {
-        return new TransportStats(transport.serverOpen(), adapter.rxMetric.count(), adapter.rxMetric.sum(), adapter.txMetric.count(), adapter.txMetric.sum());
+        ImmutableMap.Builder<String, TransportStats.CompressionStats> compression = ImmutableMap.builder();
+        for (Map.Entry<String, CompressionMetric> entry : adapter.compressionMetrics.entrySet()) {
+            CompressionMetric metric = entry.getValue();
+            compression.put(entry.getKey(), new TransportStats.CompressionStats(metric.count.count(), metric.uncompressedSize.count(),
+                    metric.compressedSize.count(), metric.time.count()));
+        }
+        return new TransportStats(transport.serverOpen(), adapter.rxMetric.count(), adapter.rxMetric.sum(), adapter.txMetric.count(), adapter.txMetric.sum(),
+                compression.build());
+    }
+
+    static class CompressionMetric {
+        final CounterMetric count = new CounterMetric();
+        final CounterMetric uncompressedSize = new CounterMetric();
+        final CounterMetric compressedSize = new CounterMetric();
+        final CounterMetric time = new CounterMetric();
     }
 
     public BoundTransportAddress boundAddress() {
@@ -431,6 +447,7 @@ public class TransportService extends AbstractLifecycleComponent<TransportServic
 
         final MeanMetric rxMetric = new MeanMetric();
         final MeanMetric txMetric = new MeanMetric();
+        final ConcurrentMap<String, CompressionMetric> compressionMetrics = ConcurrentCollections.newConcurrentMap();
 
         @Override
         public void received(long size) {
@@ -442,6 +459,22 @@ public class TransportService extends AbstractLifecycleComponent<TransportServic
             txMetric.inc(size);
         }
 
+        @Override
+        public void compressed(String action, long uncompressedSize, long compressedSize, long tookInNanos) {
+            CompressionMetric metric = compressionMetrics.get(action);
+            if (metric == null) {
+                metric = new CompressionMetric();
+                CompressionMetric existing = compressionMetrics.putIfAbsent(action, metric);
+                if (existing != null) {
+                    metric = existing;
+                }
+            }
+            metric.count.inc();
+            metric.uncompressedSize.inc(uncompressedSize);
+            metric.compressedSize.inc(compressedSize);
+            metric.time.inc(tookInNanos);
+        }
+
         @Override
         public void onRequestSent(DiscoveryNode node, long requestId, String action, TransportRequest request, TransportRequestOptions options) {
             if (traceEnabled() && shouldTraceAction(action)) {
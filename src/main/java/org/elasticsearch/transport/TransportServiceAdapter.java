@@ -30,6 +30,9 @@ public interface TransportServiceAdapter {
 
     void sent(long size);
 
+    /** called by the {@link Transport} implementation when it compressed an outgoing message of the given action */
+    void compressed(String action, long uncompressedSize, long compressedSize, long tookInNanos);
+
     /** called by the {@link Transport} implementation once a request has been sent */
     void onRequestSent(DiscoveryNode node, long requestId, String action, TransportRequest request, TransportRequestOptions options);
 
@@ -19,15 +19,18 @@
 
 package org.elasticsearch.transport;
 
+import com.google.common.collect.ImmutableMap;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.io.stream.Streamable;
 import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.common.xcontent.ToXContent;
 import org.elasticsearch.common.xcontent.XContentBuilder;
 import org.elasticsearch.common.xcontent.XContentBuilderString;
 
 import java.io.IOException;
+import java.util.Map;
 
 public class TransportStats implements Streamable, ToXContent {
 
@@ -36,17 +39,23 @@ public class TransportStats implements Streamable, ToXContent {
     private long rxSize;
     private long txCount;
     private long txSize;
+    private Map<String, CompressionStats> compression = ImmutableMap.of();
 
     TransportStats() {
 
     }
 
     public TransportStats(long serverOpen, long rxCount, long rxSize, long txCount, long txSize) {
+        this(serverOpen, rxCount, rxSize, txCount, txSize, ImmutableMap.<String, CompressionStats>of());
+    }
+
+    public TransportStats(long serverOpen, long rxCount, long rxSize, long txCount, long txSize, Map<String, CompressionStats> compression) {
         this.serverOpen = serverOpen;
         this.rxCount = rxCount;
         this.rxSize = rxSize;
         this.txCount = txCount;
         this.txSize = txSize;
+        this.compression = compression;
     }
 
     public long serverOpen() {
@@ -89,6 +98,17 @@ public class TransportStats implements Streamable, ToXContent {
         return txSize();
     }
 
+    /**
+     * The compression of the messages this node sent, per action.
+     */
+    public Map<String, CompressionStats> compression() {
+        return compression;
+    }
+
+    public Map<String, CompressionStats> getCompression() {
+        return compression();
+    }
+
     public static TransportStats readTransportStats(StreamInput in) throws IOException {
         TransportStats stats = new TransportStats();
         stats.readFrom(in);
@@ -102,6 +122,15 @@ public class TransportStats implements Streamable, ToXContent {
         rxSize = in.readVLong();
         txCount = in.readVLong();
         txSize = in.readVLong();
+        int size = in.readVInt();
+        ImmutableMap.Builder<String, CompressionStats> compression = ImmutableMap.builder();
+        for (int i = 0; i < size; i++) {
+            String action = in.readString();
+            CompressionStats stats = new CompressionStats();
+            stats.readFrom(in);
+            compression.put(action, stats);
+        }
+        this.compression = compression.build();
     }
 
     @Override
@@ -111,6 +140,11 @@ public class TransportStats implements Streamable, ToXContent {
         out.writeVLong(rxSize);
         out.writeVLong(txCount);
         out.writeVLong(txSize);
+        out.writeVInt(compression.size());
+        for (Map.Entry<String, CompressionStats> entry : compression.entrySet()) {
+            out.writeString(entry.getKey());
+            entry.getValue().writeTo(out);
+        }
     }
 
     @Override
@@ -121,10 +155,95 @@ public class TransportStats implements Streamable, ToXContent {
         builder.byteSizeField(Fields.RX_SIZE_IN_BYTES, Fields.RX_SIZE, rxSize);
         builder.field(Fields.TX_COUNT, txCount);
         builder.byteSizeField(Fields.TX_SIZE_IN_BYTES, Fields.TX_SIZE, txSize);
+        if (!compression.isEmpty()) {
+            builder.startObject(Fields.COMPRESSION);
+            for (Map.Entry<String, CompressionStats> entry : compression.entrySet()) {
+                builder.startObject(entry.getKey(), XContentBuilder.FieldCaseConversion.NONE);
+                entry.getValue().toXContent(builder, params);
+                builder.endObject();
+            }
+            builder.endObject();
+        }
         builder.endObject();
         return builder;
     }
 
+    /**
+     * How much the messages of an action were compressed, and how long it took.
+     */
+    public static class CompressionStats implements Streamable, ToXContent {
+
+        private long count;
+        private long uncompressedSize;
+        private long compressedSize;
+        private long timeInNanos;
+
+        CompressionStats() {
+        }
+
+        public CompressionStats(long count, long uncompressedSize, long compressedSize, long timeInNanos) {
+            this.count = count;
+            this.uncompressedSize = uncompressedSize;
+            this.compressedSize = compressedSize;
+            this.timeInNanos = timeInNanos;
+        }
+
+        /**
+         * The number of compressed messages.
+         */
+        public long getCount() {
+            return count;
+        }
+
+        public ByteSizeValue getUncompressedSize() {
+            return new ByteSizeValue(uncompressedSize);
+        }
+
+        public ByteSizeValue getCompressedSize() {
+            return new ByteSizeValue(compressedSize);
+        }
+
+        /**
+         * The compressed size divided by the uncompressed size.
+         */
+        public double getRatio() {
+            return uncompressedSize == 0 ? 1 : (double) compressedSize / uncompressedSize;
+        }
+
+        /**
+         * The time spent compressing.
+         */
+        public TimeValue getTime() {
+            return TimeValue.timeValueNanos(timeInNanos);
+        }
+
+        @Override
+        public void readFrom(StreamInput in) throws IOException {
+            count = in.readVLong();
+            uncompressedSize = in.readVLong();
+            compressedSize = in.readVLong();
+            timeInNanos = in.readVLong();
+        }
+
+        @Override
+        public void writeTo(StreamOutput out) throws IOException {
+            out.writeVLong(count);
+            out.writeVLong(uncompressedSize);
+            out.writeVLong(compressedSize);
+            out.writeVLong(timeInNanos);
+        }
+
+        @Override
+        public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
+            builder.field(Fields.COUNT, count);
+            builder.byteSizeField(Fields.UNCOMPRESSED_SIZE_IN_BYTES, Fields.UNCOMPRESSED_SIZE, uncompressedSize);
+            builder.byteSizeField(Fields.COMPRESSED_SIZE_IN_BYTES, Fields.COMPRESSED_SIZE, compressedSize);
+            builder.field(Fields.RATIO, getRatio());
+            builder.timeValueField(Fields.TIME_IN_MILLIS, Fields.TIME, getTime());
+            return builder;
+        }
+    }
+
     static final class Fields {
         static final XContentBuilderString TRANSPORT = new XContentBuilderString("transport");
         static final XContentBuilderString SERVER_OPEN = new XContentBuilderString("server_open");
@@ -134,5 +253,14 @@ public class TransportStats implements Streamable, ToXContent {
         static final XContentBuilderString TX_COUNT = new XContentBuilderString("tx_count");
         static final XContentBuilderString TX_SIZE = new XContentBuilderString("tx_size");
         static final XContentBuilderString TX_SIZE_IN_BYTES = new XContentBuilderString("tx_size_in_bytes");
+        static final XContentBuilderString COMPRESSION = new XContentBuilderString("compression");
+        static final XContentBuilderString COUNT = new XContentBuilderString("count");
+        static final XContentBuilderString UNCOMPRESSED_SIZE = new XContentBuilderString("uncompressed_size");
+        static final XContentBuilderString UNCOMPRESSED_SIZE_IN_BYTES = new XContentBuilderString("uncompressed_size_in_bytes");
+        static final XContentBuilderString COMPRESSED_SIZE = new XContentBuilderString("compressed_size");
+        static final XContentBuilderString COMPRESSED_SIZE_IN_BYTES = new XContentBuilderString("compressed_size_in_bytes");
+        static final XContentBuilderString RATIO = new XContentBuilderString("ratio");
+        static final XContentBuilderString TIME = new XContentBuilderString("time");
+        static final XContentBuilderString TIME_IN_MILLIS = new XContentBuilderString("time_in_millis");
     }
 }
\ No newline at end of file
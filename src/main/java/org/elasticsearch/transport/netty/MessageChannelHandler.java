@@ -22,7 +22,6 @@ package org.elasticsearch.transport.netty;
 import org.elasticsearch.Version;
 import org.elasticsearch.common.component.Lifecycle;
 import org.elasticsearch.common.compress.Compressor;
-import org.elasticsearch.common.compress.CompressorFactory;
 import org.elasticsearch.common.io.ThrowableObjectInputStream;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.logging.ESLogger;
@@ -91,7 +90,7 @@ public class MessageChannelHandler extends SimpleChannelUpstreamHandler {
 
         StreamInput wrappedStream;
         if (TransportStatus.isCompress(status) && hasMessageBytesToRead && buffer.readable()) {
-            Compressor compressor = CompressorFactory.compressor(buffer);
+            Compressor compressor = NettyTransport.messageCompressor(buffer);
             if (compressor == null) {
                 int maxToRead = Math.min(buffer.readableBytes(), 10);
                 int offset = buffer.readerIndex();
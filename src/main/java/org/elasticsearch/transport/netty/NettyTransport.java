@@ -27,10 +27,15 @@ import com.google.common.collect.Maps;
 import org.elasticsearch.*;
 import org.elasticsearch.cluster.node.DiscoveryNode;
 import org.elasticsearch.common.Booleans;
+import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.Strings;
+import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.bytes.ReleasablePagedBytesReference;
 import org.elasticsearch.common.component.AbstractLifecycleComponent;
+import org.elasticsearch.common.compress.Compressor;
 import org.elasticsearch.common.compress.CompressorFactory;
+import org.elasticsearch.common.compress.lz4.LZ4Compressor;
+import org.elasticsearch.common.compress.lzf.LZFCompressor;
 import org.elasticsearch.common.inject.Inject;
 import org.elasticsearch.common.io.stream.ReleasableBytesStreamOutput;
 import org.elasticsearch.common.io.stream.StreamOutput;
@@ -42,12 +47,14 @@ import org.elasticsearch.common.netty.OpenChannelsHandler;
 import org.elasticsearch.common.netty.ReleaseChannelFutureListener;
 import org.elasticsearch.common.network.NetworkService;
 import org.elasticsearch.common.network.NetworkUtils;
+import org.elasticsearch.common.regex.Regex;
 import org.elasticsearch.common.settings.ImmutableSettings;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.transport.BoundTransportAddress;
 import org.elasticsearch.common.transport.InetSocketTransportAddress;
 import org.elasticsearch.common.transport.PortsRange;
 import org.elasticsearch.common.transport.TransportAddress;
+import org.elasticsearch.common.unit.ByteSizeUnit;
 import org.elasticsearch.common.unit.ByteSizeValue;
 import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.common.util.BigArrays;
@@ -124,6 +131,11 @@ public class NettyTransport extends AbstractLifecycleComponent<Transport> implem
     protected final ByteSizeValue maxCumulationBufferCapacity;
     protected final int maxCompositeBufferComponents;
     protected final boolean compress;
+    private static final LZ4Compressor LZ4 = new LZ4Compressor();
+
+    protected final Compressor compressor;
+    protected final String[] compressActions;
+    protected final ByteSizeValue compressMinSize;
     protected final ReceiveBufferSizePredictorFactory receiveBufferSizePredictorFactory;
     protected final int workerCount;
     protected final ByteSizeValue receivePredictorMin;
@@ -175,6 +187,13 @@ public class NettyTransport extends AbstractLifecycleComponent<Transport> implem
         this.maxCumulationBufferCapacity = this.settings.getAsBytesSize("transport.netty.max_cumulation_buffer_capacity", null);
         this.maxCompositeBufferComponents = this.settings.getAsInt("transport.netty.max_composite_buffer_components", -1);
         this.compress = settings.getAsBoolean(TransportSettings.TRANSPORT_TCP_COMPRESS, false);
+        String compressType = settings.get(TransportSettings.TRANSPORT_COMPRESS_TYPE, CompressorFactory.defaultCompressor().type());
+        this.compressor = LZ4Compressor.TYPE.equals(compressType) ? LZ4 : CompressorFactory.compressor(compressType);
+        if (this.compressor == null) {
+            throw new IllegalArgumentException("unknown compression type [" + compressType + "] for [" + TransportSettings.TRANSPORT_COMPRESS_TYPE + "]");
+        }
+        this.compressActions = settings.getAsArray(TransportSettings.TRANSPORT_COMPRESS_ACTIONS, Strings.EMPTY_ARRAY);
+        this.compressMinSize = settings.getAsBytesSize(TransportSettings.TRANSPORT_COMPRESS_MIN_SIZE, new ByteSizeValue(1, ByteSizeUnit.KB));
 
         this.connectionsPerNodeRecovery = this.settings.getAsInt("transport.netty.connections_per_node.recovery", settings.getAsInt(CONNECTIONS_PER_NODE_RECOVERY, 2));
         this.connectionsPerNodeBulk = this.settings.getAsInt("transport.netty.connections_per_node.bulk", settings.getAsInt(CONNECTIONS_PER_NODE_BULK, 3));
@@ -446,8 +465,8 @@ public class NettyTransport extends AbstractLifecycleComponent<Transport> implem
         ByteSizeValue tcpSendBufferSize = settings.getAsBytesSize("tcp_send_buffer_size", TCP_DEFAULT_SEND_BUFFER_SIZE);
         ByteSizeValue tcpReceiveBufferSize = settings.getAsBytesSize("tcp_receive_buffer_size", TCP_DEFAULT_RECEIVE_BUFFER_SIZE);
 
-        logger.debug("using profile[{}], worker_count[{}], port[{}], bind_host[{}], publish_host[{}], compress[{}], connect_timeout[{}], connections_per_node[{}/{}/{}/{}/{}], receive_predictor[{}->{}]",
-                name, workerCount, port, bindHost, publishHost, compress, connectTimeout, connectionsPerNodeRecovery, connectionsPerNodeBulk, connectionsPerNodeReg, connectionsPerNodeState, connectionsPerNodePing, receivePredictorMin, receivePredictorMax);
+        logger.debug("using profile[{}], worker_count[{}], port[{}], bind_host[{}], publish_host[{}], compress[{}], compress_type[{}], connect_timeout[{}], connections_per_node[{}/{}/{}/{}/{}], receive_predictor[{}->{}]",
+                name, workerCount, port, bindHost, publishHost, compress, compressor.type(), connectTimeout, connectionsPerNodeRecovery, connectionsPerNodeBulk, connectionsPerNodeReg, connectionsPerNodeState, connectionsPerNodePing, receivePredictorMin, receivePredictorMax);
 
         final ThreadFactory bossFactory = daemonThreadFactory(this.settings, HTTP_SERVER_BOSS_THREAD_NAME_PREFIX, name);
         final ThreadFactory workerFactory = daemonThreadFactory(this.settings, HTTP_SERVER_WORKER_THREAD_NAME_PREFIX, name);
@@ -659,10 +678,6 @@ public class NettyTransport extends AbstractLifecycleComponent<Transport> implem
 
         Channel targetChannel = nodeChannel(node, options);
 
-        if (compress) {
-            options.withCompress(true);
-        }
-
         byte status = 0;
         status = TransportStatus.setRequest(status);
 
@@ -670,40 +685,43 @@ public class NettyTransport extends AbstractLifecycleComponent<Transport> implem
         boolean addedReleaseListener = false;
         try {
             bStream.skip(NettyHeader.HEADER_SIZE);
-            StreamOutput stream = bStream;
-            // only compress if asked, and, the request is not bytes, since then only
-            // the header part is compressed, and the "body" can't be extracted as compressed
-            if (options.compress() && (!(request instanceof BytesTransportRequest))) {
-                status = TransportStatus.setCompress(status);
-                stream = CompressorFactory.defaultCompressor().streamOutput(stream);
-            }
 
             // we pick the smallest of the 2, to support both backward and forward compatibility
             // note, this is the only place we need to do this, since from here on, we use the serialized version
             // as the version to use also when the node receiving this request will send the response with
             Version version = Version.smallest(this.version, node.version());
 
-            stream.setVersion(version);
-            stream.writeString(action);
+            bStream.setVersion(version);
+            bStream.writeString(action);
 
-            ReleasablePagedBytesReference bytes;
-            ChannelBuffer buffer;
             // it might be nice to somehow generalize this optimization, maybe a smart "paged" bytes output
             // that create paged channel buffers, but its tricky to know when to do it (where this option is
             // more explicit).
+            BytesReference content = null;
             if (request instanceof BytesTransportRequest) {
                 BytesTransportRequest bRequest = (BytesTransportRequest) request;
                 assert node.version().equals(bRequest.version());
-                bRequest.writeThin(stream);
-                stream.close();
-                bytes = bStream.bytes();
-                ChannelBuffer headerBuffer = bytes.toChannelBuffer();
-                ChannelBuffer contentBuffer = bRequest.bytes().toChannelBuffer();
-                buffer = ChannelBuffers.wrappedBuffer(NettyUtils.DEFAULT_GATHERING, headerBuffer, contentBuffer);
+                bRequest.writeThin(bStream);
+                content = bRequest.bytes();
+            } else {
+                request.writeTo(bStream);
+            }
+
+            // bytes that are compressed already, like published cluster states, are sent as they are
+            boolean compressible = content == null || CompressorFactory.isCompressed(content) == false;
+            if (compressible && shouldCompress(action, options.compress(), bStream.size() - NettyHeader.HEADER_SIZE + (content == null ? 0 : content.length()))) {
+                ReleasableBytesStreamOutput compressed = compressMessage(action, version, bStream, content);
+                Releasables.close(bStream.bytes());
+                bStream = compressed;
+                content = null;
+                status = TransportStatus.setCompress(status);
+            }
+
+            ReleasablePagedBytesReference bytes = bStream.bytes();
+            ChannelBuffer buffer;
+            if (content != null) {
+                buffer = ChannelBuffers.wrappedBuffer(NettyUtils.DEFAULT_GATHERING, bytes.toChannelBuffer(), content.toChannelBuffer());
             } else {
-                request.writeTo(stream);
-                stream.close();
-                bytes = bStream.bytes();
                 buffer = bytes.toChannelBuffer();
             }
             NettyHeader.writeHeader(buffer, requestId, status, version);
@@ -719,6 +737,71 @@ public class NettyTransport extends AbstractLifecycleComponent<Transport> implem
         }
     }
 
+    /**
+     * Whether the message of the given action and size, not counting the header, should be compressed. Messages are
+     * compressed if the sender asks for it, if {@link TransportSettings#TRANSPORT_TCP_COMPRESS} is set or if the action
+     * matches one of the {@link TransportSettings#TRANSPORT_COMPRESS_ACTIONS} patterns, but never when they are smaller
+     * than {@link TransportSettings#TRANSPORT_COMPRESS_MIN_SIZE}, since small messages hardly compress.
+     */
+    boolean shouldCompress(String action, boolean compressRequested, long messageSize) {
+        if (messageSize < compressMinSize.bytes()) {
+            return false;
+        }
+        return compressRequested || compress || (compressActions.length > 0 && Regex.simpleMatch(compressActions, action));
+    }
+
+    /**
+     * Compresses the message held by the given stream after its header, followed by the given content if any, into a
+     * new stream. The given stream is left as is, the caller is responsible for releasing both.
+     */
+    ReleasableBytesStreamOutput compressMessage(String action, Version version, ReleasableBytesStreamOutput bStream, @Nullable BytesReference content) throws IOException {
+        final long startTime = System.nanoTime();
+        final ReleasableBytesStreamOutput compressedStream = new ReleasableBytesStreamOutput(bigArrays);
+        boolean success = false;
+        try {
+            compressedStream.skip(NettyHeader.HEADER_SIZE);
+            BytesReference message = bStream.bytes().slice(NettyHeader.HEADER_SIZE, bStream.size() - NettyHeader.HEADER_SIZE);
+            StreamOutput stream = compressor(version).streamOutput(compressedStream);
+            message.writeTo(stream);
+            long uncompressedSize = message.length();
+            if (content != null) {
+                content.writeTo(stream);
+                uncompressedSize += content.length();
+            }
+            stream.close();
+            transportServiceAdapter.compressed(action, uncompressedSize, compressedStream.size() - NettyHeader.HEADER_SIZE, System.nanoTime() - startTime);
+            success = true;
+            return compressedStream;
+        } finally {
+            if (!success) {
+                Releasables.close(compressedStream.bytes());
+            }
+        }
+    }
+
+    /**
+     * The compressor for messages of the given version. Nodes before 2.0.0 can't read lz4, so they get lzf instead
+     * while a cluster is upgraded.
+     */
+    Compressor compressor(Version version) {
+        if (compressor == LZ4 && version.before(Version.V_2_0_0)) {
+            return CompressorFactory.compressor(LZFCompressor.TYPE);
+        }
+        return compressor;
+    }
+
+    /**
+     * The compressor of a compressed message. lz4 isn't one of the {@link CompressorFactory} compressors since it
+     * can't read compressed index inputs, it is only used for transport messages.
+     */
+    @Nullable
+    static Compressor messageCompressor(ChannelBuffer buffer) {
+        if (LZ4.isCompressed(buffer)) {
+            return LZ4;
+        }
+        return CompressorFactory.compressor(buffer);
+    }
+
     @Override
     public boolean nodeConnected(DiscoveryNode node) {
         return connectedNodes.containsKey(node);
@@ -22,11 +22,9 @@ package org.elasticsearch.transport.netty;
 import org.elasticsearch.Version;
 import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.bytes.ReleasablePagedBytesReference;
-import org.elasticsearch.common.compress.CompressorFactory;
 import org.elasticsearch.common.io.ThrowableObjectOutputStream;
 import org.elasticsearch.common.io.stream.BytesStreamOutput;
 import org.elasticsearch.common.io.stream.ReleasableBytesStreamOutput;
-import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.lease.Releasables;
 import org.elasticsearch.common.netty.ReleaseChannelFutureListener;
 import org.elasticsearch.transport.*;
@@ -77,10 +75,6 @@ public class NettyTransportChannel implements TransportChannel {
 
     @Override
     public void sendResponse(TransportResponse response, TransportResponseOptions options) throws IOException {
-        if (transport.compress) {
-            options.withCompress(true);
-        }
-
         byte status = 0;
         status = TransportStatus.setResponse(status);
 
@@ -88,14 +82,15 @@ public class NettyTransportChannel implements TransportChannel {
         boolean addedReleaseListener = false;
         try {
             bStream.skip(NettyHeader.HEADER_SIZE);
-            StreamOutput stream = bStream;
-            if (options.compress()) {
+            bStream.setVersion(version);
+            response.writeTo(bStream);
+
+            if (transport.shouldCompress(action, options.compress(), bStream.size() - NettyHeader.HEADER_SIZE)) {
+                ReleasableBytesStreamOutput compressed = transport.compressMessage(action, version, bStream, null);
+                Releasables.close(bStream.bytes());
+                bStream = compressed;
                 status = TransportStatus.setCompress(status);
-                stream = CompressorFactory.defaultCompressor().streamOutput(stream);
             }
-            stream.setVersion(version);
-            response.writeTo(stream);
-            stream.close();
 
             ReleasablePagedBytesReference bytes = bStream.bytes();
             ChannelBuffer buffer = bytes.toChannelBuffer();
@@ -28,15 +28,21 @@ import org.elasticsearch.action.update.UpdateRequest;
 import org.elasticsearch.client.Requests;
 import org.elasticsearch.common.Strings;
 import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.bytes.ChannelBufferBytesReference;
 import org.elasticsearch.test.ElasticsearchTestCase;
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.buffer.ChannelBuffers;
 import org.junit.Test;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import static org.elasticsearch.common.io.Streams.copyToStringFromClasspath;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.sameInstance;
 
 public class BulkRequestTests extends ElasticsearchTestCase {
 
@@ -104,6 +110,33 @@ public class BulkRequestTests extends ElasticsearchTestCase {
         new BulkRequest().add(new BytesArray(bulkAction.getBytes(Charsets.UTF_8)), "test", null, false);
     }
 
+    @Test
+    public void testBulkOverCompositeBuffer() throws Exception {
+        String bulkAction = copyToStringFromClasspath("/org/elasticsearch/action/bulk/simple-bulk.json");
+        if (Constants.WINDOWS) {
+            bulkAction = Strings.replace(bulkAction, "\r\n", "\n");
+        }
+        byte[] bytes = bulkAction.getBytes(Charsets.UTF_8);
+        // the first chunk ends within the delete action, like a chunked http request could
+        int split = bulkAction.indexOf("delete");
+        byte[] first = Arrays.copyOfRange(bytes, 0, split);
+        byte[] second = Arrays.copyOfRange(bytes, split, bytes.length);
+        ChannelBuffer composite = ChannelBuffers.wrappedBuffer(ChannelBuffers.wrappedBuffer(first), ChannelBuffers.wrappedBuffer(second));
+
+        BulkRequest bulkRequest = new BulkRequest();
+        bulkRequest.add(new ChannelBufferBytesReference(composite), null, null);
+        assertThat(bulkRequest.numberOfActions(), equalTo(3));
+        assertThat(bulkRequest.requests().get(1), instanceOf(DeleteRequest.class));
+        BytesReference source = ((IndexRequest) bulkRequest.requests().get(0)).source();
+        assertThat(source.toBytes(), equalTo(new BytesArray("{ \"field1\" : \"value1\" }").toBytes()));
+        // sources are slices of the request body, not copies
+        assertThat(source.hasArray(), equalTo(true));
+        assertThat(source.array(), sameInstance(first));
+        source = ((IndexRequest) bulkRequest.requests().get(2)).source();
+        assertThat(source.toBytes(), equalTo(new BytesArray("{ \"field1\" : \"value3\" }").toBytes()));
+        assertThat(source.array(), sameInstance(second));
+    }
+
     @Test
     public void testBulkAddIterable() {
         BulkRequest bulkRequest = Requests.bulkRequest();
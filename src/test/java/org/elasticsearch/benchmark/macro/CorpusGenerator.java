@@ -0,0 +1,256 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.benchmark.macro;
+
+import org.elasticsearch.ElasticsearchParseException;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.joda.time.DateTimeZone;
+import org.joda.time.format.ISODateTimeFormat;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+
+import static org.elasticsearch.common.xcontent.XContentFactory.jsonBuilder;
+import static org.elasticsearch.common.xcontent.support.XContentMapValues.*;
+
+/**
+ * Generates the documents of a {@link Workload} corpus. Every document is derived from the workload seed and its id
+ * only, so that the same corpus is produced no matter how many bulk clients index it or in which order.
+ */
+class CorpusGenerator {
+
+    private final long seed;
+    private final List<Field> fields;
+
+    CorpusGenerator(long seed, Map<String, Object> fieldSpecs) {
+        this.seed = seed;
+        this.fields = new ArrayList<>(fieldSpecs.size());
+        for (Map.Entry<String, Object> entry : fieldSpecs.entrySet()) {
+            fields.add(parseField(entry.getKey(), nodeMapValue(entry.getValue(), entry.getKey())));
+        }
+    }
+
+    /**
+     * The mapping of the generated fields, for the given type.
+     */
+    XContentBuilder mapping(String type) throws IOException {
+        XContentBuilder builder = jsonBuilder().startObject().startObject(type).startObject("properties");
+        for (Field field : fields) {
+            builder.startObject(field.name);
+            field.mapping(builder);
+            builder.endObject();
+        }
+        return builder.endObject().endObject().endObject();
+    }
+
+    /**
+     * The source of the document with the given id.
+     */
+    XContentBuilder document(long id) throws IOException {
+        // a fresh generator per document keeps documents independent of each other
+        final Random random = new Random(seed * 31 + id);
+        XContentBuilder builder = jsonBuilder().startObject();
+        for (Field field : fields) {
+            field.value(id, random, builder);
+        }
+        return builder.endObject();
+    }
+
+    private static Field parseField(String name, Map<String, Object> spec) {
+        String type = nodeStringValue(spec.get("type"), null);
+        if (type == null) {
+            throw new ElasticsearchParseException("field [" + name + "] has no type");
+        }
+        switch (type) {
+            case "keyword":
+                return new KeywordField(name, nodeIntegerValue(spec.get("cardinality"), 100), nodeDoubleValue(spec.get("skew"), 0));
+            case "text":
+                return new TextField(name, nodeIntegerValue(spec.get("words"), 20), nodeIntegerValue(spec.get("vocabulary"), 10000),
+                        nodeDoubleValue(spec.get("skew"), 1));
+            case "long":
+                return new LongField(name, nodeLongValue(spec.get("min"), 0), nodeLongValue(spec.get("max"), Integer.MAX_VALUE));
+            case "double":
+                return new DoubleField(name, nodeDoubleValue(spec.get("min"), 0), nodeDoubleValue(spec.get("max"), 1));
+            case "date":
+                final String start = nodeStringValue(spec.get("start"), "2015-01-01");
+                return new DateField(name, ISODateTimeFormat.dateOptionalTimeParser().withZone(DateTimeZone.UTC).parseMillis(start),
+                        nodeTimeValue(spec.get("interval"), TimeValue.timeValueSeconds(1)).millis());
+            default:
+                throw new ElasticsearchParseException("field [" + name + "] has unknown type [" + type + "]");
+        }
+    }
+
+    /**
+     * Picks a value in {@code [0, cardinality)}, uniformly if {@code skew} is 0 and with more and more weight on the
+     * lowest values as it grows.
+     */
+    static int skewed(Random random, int cardinality, double skew) {
+        return (int) (Math.pow(random.nextDouble(), 1 + skew) * cardinality);
+    }
+
+    private static abstract class Field {
+
+        final String name;
+
+        Field(String name) {
+            this.name = name;
+        }
+
+        abstract void mapping(XContentBuilder builder) throws IOException;
+
+        abstract void value(long id, Random random, XContentBuilder builder) throws IOException;
+    }
+
+    private static class KeywordField extends Field {
+
+        private final int cardinality;
+        private final double skew;
+
+        KeywordField(String name, int cardinality, double skew) {
+            super(name);
+            this.cardinality = cardinality;
+            this.skew = skew;
+        }
+
+        @Override
+        void mapping(XContentBuilder builder) throws IOException {
+            builder.field("type", "string").field("index", "not_analyzed");
+        }
+
+        @Override
+        void value(long id, Random random, XContentBuilder builder) throws IOException {
+            builder.field(name, name + "_" + skewed(random, cardinality, skew));
+        }
+    }
+
+    private static class TextField extends Field {
+
+        private final int words;
+        private final int vocabulary;
+        private final double skew;
+
+        TextField(String name, int words, int vocabulary, double skew) {
+            super(name);
+            this.words = words;
+            this.vocabulary = vocabulary;
+            this.skew = skew;
+        }
+
+        @Override
+        void mapping(XContentBuilder builder) throws IOException {
+            builder.field("type", "string");
+        }
+
+        @Override
+        void value(long id, Random random, XContentBuilder builder) throws IOException {
+            StringBuilder text = new StringBuilder();
+            for (int i = 0; i < words; i++) {
+                if (i > 0) {
+                    text.append(' ');
+                }
+                word(skewed(random, vocabulary, skew), text);
+            }
+            builder.field(name, text.toString());
+        }
+
+        /** Spells out the given word number with the letters of the alphabet, the most frequent words are the shortest. */
+        static void word(int number, StringBuilder text) {
+            do {
+                text.append((char) ('a' + number % 26));
+                number /= 26;
+            } while (number > 0);
+        }
+    }
+
+    private static class LongField extends Field {
+
+        private final long min;
+        private final long max;
+
+        LongField(String name, long min, long max) {
+            super(name);
+            if (max < min) {
+                throw new ElasticsearchParseException(String.format(Locale.ROOT, "field [%s] has max [%d] < min [%d]", name, max, min));
+            }
+            this.min = min;
+            this.max = max;
+        }
+
+        @Override
+        void mapping(XContentBuilder builder) throws IOException {
+            builder.field("type", "long");
+        }
+
+        @Override
+        void value(long id, Random random, XContentBuilder builder) throws IOException {
+            builder.field(name, min + (long) (random.nextDouble() * (max - min)));
+        }
+    }
+
+    private static class DoubleField extends Field {
+
+        private final double min;
+        private final double max;
+
+        DoubleField(String name, double min, double max) {
+            super(name);
+            this.min = min;
+            this.max = max;
+        }
+
+        @Override
+        void mapping(XContentBuilder builder) throws IOException {
+            builder.field("type", "double");
+        }
+
+        @Override
+        void value(long id, Random random, XContentBuilder builder) throws IOException {
+            builder.field(name, min + random.nextDouble() * (max - min));
+        }
+    }
+
+    private static class DateField extends Field {
+
+        private final long start;
+        private final long interval;
+
+        DateField(String name, long start, long interval) {
+            super(name);
+            this.start = start;
+            this.interval = interval;
+        }
+
+        @Override
+        void mapping(XContentBuilder builder) throws IOException {
+            builder.field("type", "date");
+        }
+
+        @Override
+        void value(long id, Random random, XContentBuilder builder) throws IOException {
+            // documents arrive in order, like the events of a log
+            builder.field(name, start + id * interval);
+        }
+    }
+}
@@ -0,0 +1,312 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.benchmark.macro;
+
+import com.google.common.base.Charsets;
+import org.apache.lucene.util.IOUtils;
+import org.elasticsearch.Build;
+import org.elasticsearch.action.bulk.BulkRequestBuilder;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.client.Client;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.common.xcontent.XContentHelper;
+import org.elasticsearch.index.merge.MergeStats;
+import org.elasticsearch.search.aggregations.metrics.percentiles.tdigest.TDigestState;
+import org.elasticsearch.test.InternalTestCluster;
+import org.elasticsearch.test.SettingsSource;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.elasticsearch.common.xcontent.XContentFactory.jsonBuilder;
+
+/**
+ * Runs a {@link Workload} end to end: starts an in-JVM cluster, indexes the generated corpus and then sends each of
+ * the workload queries, reporting indexing and search throughput, search latency percentiles, GC and merge stats.
+ * <p/>
+ * <pre>
+ * MacroBenchmark run &lt;workload.yml&gt; [results.json]
+ * MacroBenchmark compare &lt;baseline.json&gt; &lt;contender.json&gt;
+ * </pre>
+ * The results of two runs, for example of two commits, can be compared with {@code compare} which prints the relative
+ * difference of every metric. Node settings are not randomized and mock modules are disabled so that runs of the same
+ * workload are comparable. Nodes talk over the network transport unless {@code es.node.mode} says otherwise.
+ */
+public class MacroBenchmark {
+
+    private static final double[] PERCENTILES = {50, 90, 99};
+
+    public static void main(String[] args) throws Exception {
+        if (args.length >= 2 && "run".equals(args[0])) {
+            run(Paths.get(args[1]), args.length > 2 ? Paths.get(args[2]) : null);
+        } else if (args.length == 3 && "compare".equals(args[0])) {
+            compare(Paths.get(args[1]), Paths.get(args[2]));
+        } else {
+            System.err.println("usage: MacroBenchmark run <workload> [results] | compare <baseline results> <contender results>");
+            System.exit(1);
+        }
+    }
+
+    static void run(Path workloadPath, Path resultsPath) throws Exception {
+        System.setProperty("es.logger.prefix", "");
+        // must be set before the test cluster class is initialized
+        System.setProperty(InternalTestCluster.TESTS_ENABLE_MOCK_MODULES, "false");
+        System.setProperty(InternalTestCluster.TESTS_RANDOMIZE_NODE_SETTINGS, "false");
+        if (System.getProperty("es.node.mode") == null && System.getProperty("es.node.local") == null) {
+            System.setProperty("es.node.mode", "network");
+        }
+
+        final Workload workload = Workload.parse(workloadPath);
+        final Map<String, Object> results = new LinkedHashMap<>();
+        results.put("workload", workload.name);
+        results.put("build", Build.CURRENT.hashShort());
+
+        final Path baseDir = Files.createTempDirectory("macro-benchmark");
+        final InternalTestCluster cluster = new InternalTestCluster(workload.seed, baseDir, workload.dataNodes, workload.dataNodes,
+                "macro-benchmark-" + workload.name, new SettingsSource() {
+            @Override
+            public Settings node(int nodeOrdinal) {
+                return workload.nodeSettings;
+            }
+
+            @Override
+            public Settings transportClient() {
+                return null;
+            }
+        }, 0, false, "node_");
+        try {
+            cluster.beforeTest(new Random(workload.seed), 0.0);
+            final Client client = cluster.client();
+            client.admin().indices().prepareCreate(workload.index)
+                    .setSettings(workload.indexSettings)
+                    .addMapping(Workload.TYPE, workload.corpus.mapping(Workload.TYPE))
+                    .get();
+            client.admin().cluster().prepareHealth(workload.index).setWaitForGreenStatus().get();
+
+            final Map<String, long[]> gcBefore = gcStats();
+            results.put("ingest", ingest(client, workload));
+            Map<String, Object> queries = new LinkedHashMap<>();
+            for (Workload.Query query : workload.queries) {
+                queries.put(query.name, search(client, workload, query));
+            }
+            results.put("queries", queries);
+            results.put("gc", gcDelta(gcBefore, gcStats()));
+
+            MergeStats merges = client.admin().indices().prepareStats(workload.index).clear().setMerge(true).get().getTotal().getMerge();
+            Map<String, Object> mergeResults = new LinkedHashMap<>();
+            mergeResults.put("count", merges.getTotal());
+            mergeResults.put("millis", merges.getTotalTimeInMillis());
+            mergeResults.put("bytes", merges.getTotalSizeInBytes());
+            mergeResults.put("throttled_millis", merges.getTotalThrottledTimeInMillis());
+            results.put("merges", mergeResults);
+        } finally {
+            cluster.close();
+            IOUtils.rm(baseDir);
+        }
+
+        final String json = jsonBuilder().prettyPrint().map(results).string();
+        if (resultsPath != null) {
+            Files.write(resultsPath, json.getBytes(Charsets.UTF_8));
+        }
+        System.out.println(json);
+    }
+
+    private static Map<String, Object> ingest(final Client client, final Workload workload) throws Exception {
+        final AtomicLong nextDoc = new AtomicLong();
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread[] threads = new Thread[workload.bulkClients];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread("bulk-" + i) {
+                @Override
+                public void run() {
+                    try {
+                        long from;
+                        while ((from = nextDoc.getAndAdd(workload.bulkSize)) < workload.docs && failure.get() == null) {
+                            BulkRequestBuilder bulk = client.prepareBulk();
+                            for (long id = from; id < Math.min(from + workload.bulkSize, workload.docs); id++) {
+                                bulk.add(client.prepareIndex(workload.index, Workload.TYPE, Long.toString(id)).setSource(workload.corpus.document(id)));
+                            }
+                            BulkResponse response = bulk.get();
+                            if (response.hasFailures()) {
+                                throw new IllegalStateException("bulk failed: " + response.buildFailureMessage());
+                            }
+                        }
+                    } catch (Throwable t) {
+                        failure.compareAndSet(null, t);
+                    }
+                }
+            };
+        }
+        final long start = System.nanoTime();
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        if (failure.get() != null) {
+            throw new RuntimeException("indexing the corpus failed", failure.get());
+        }
+        client.admin().indices().prepareRefresh(workload.index).get();
+        final long took = System.nanoTime() - start;
+
+        Map<String, Object> results = new LinkedHashMap<>();
+        results.put("docs", workload.docs);
+        results.put("millis", TimeValue.timeValueNanos(took).millis());
+        results.put("docs_per_sec", workload.docs / (took / 1e9));
+        if (workload.optimizeMaxNumSegments > 0) {
+            final long optimizeStart = System.nanoTime();
+            client.admin().indices().prepareOptimize(workload.index).setMaxNumSegments(workload.optimizeMaxNumSegments).get();
+            results.put("optimize_millis", TimeValue.timeValueNanos(System.nanoTime() - optimizeStart).millis());
+        }
+        return results;
+    }
+
+    private static Map<String, Object> search(Client client, Workload workload, Workload.Query query) throws Exception {
+        // warm up caches and the JIT, then measure
+        send(client, workload, query, query.warmup);
+        final TDigestState latencies = new TDigestState(100);
+        final long start = System.nanoTime();
+        send(client, workload, query, query.iterations, latencies);
+        final long took = System.nanoTime() - start;
+
+        Map<String, Object> results = new LinkedHashMap<>();
+        results.put("iterations", query.iterations);
+        results.put("clients", query.clients);
+        results.put("ops_per_sec", query.iterations / (took / 1e9));
+        Map<String, Object> latency = new LinkedHashMap<>();
+        latency.put("min", latencies.quantile(0));
+        for (double percentile : PERCENTILES) {
+            latency.put("p" + (int) percentile, latencies.quantile(percentile / 100));
+        }
+        latency.put("max", latencies.quantile(1));
+        results.put("latency_millis", latency);
+        return results;
+    }
+
+    private static void send(Client client, Workload workload, Workload.Query query, int iterations) throws Exception {
+        send(client, workload, query, iterations, null);
+    }
+
+    /**
+     * Sends the query {@code iterations} times from {@link Workload.Query#clients} threads, recording the latency of
+     * every request into {@code latencies} if it is not null.
+     */
+    private static void send(final Client client, final Workload workload, final Workload.Query query, int iterations,
+                             final TDigestState latencies) throws Exception {
+        final AtomicInteger remaining = new AtomicInteger(iterations);
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread[] threads = new Thread[query.clients];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread(query.name + "-" + i) {
+                @Override
+                public void run() {
+                    final TDigestState local = new TDigestState(100);
+                    try {
+                        while (remaining.decrementAndGet() >= 0 && failure.get() == null) {
+                            final long start = System.nanoTime();
+                            client.prepareSearch(workload.index).setSource(query.body).get();
+                            local.add((System.nanoTime() - start) / 1e6);
+                        }
+                    } catch (Throwable t) {
+                        failure.compareAndSet(null, t);
+                    }
+                    if (latencies != null) {
+                        synchronized (latencies) {
+                            latencies.add(local);
+                        }
+                    }
+                }
+            };
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        if (failure.get() != null) {
+            throw new RuntimeException("query [" + query.name + "] failed", failure.get());
+        }
+    }
+
+    private static Map<String, long[]> gcStats() {
+        Map<String, long[]> stats = new LinkedHashMap<>();
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            stats.put(gc.getName(), new long[] {gc.getCollectionCount(), gc.getCollectionTime()});
+        }
+        return stats;
+    }
+
+    private static Map<String, Object> gcDelta(Map<String, long[]> before, Map<String, long[]> after) {
+        Map<String, Object> delta = new LinkedHashMap<>();
+        for (Map.Entry<String, long[]> entry : after.entrySet()) {
+            long[] previous = before.containsKey(entry.getKey()) ? before.get(entry.getKey()) : new long[2];
+            Map<String, Object> collector = new LinkedHashMap<>();
+            collector.put("count", entry.getValue()[0] - previous[0]);
+            collector.put("millis", entry.getValue()[1] - previous[1]);
+            delta.put(entry.getKey(), collector);
+        }
+        return delta;
+    }
+
+    static void compare(Path baselinePath, Path contenderPath) throws Exception {
+        Map<String, Object> baseline = XContentHelper.convertToMap(Files.readAllBytes(baselinePath), true).v2();
+        Map<String, Object> contender = XContentHelper.convertToMap(Files.readAllBytes(contenderPath), true).v2();
+        System.out.println(String.format(Locale.ROOT, "workload [%s], baseline [%s], contender [%s]",
+                baseline.get("workload"), baseline.get("build"), contender.get("build")));
+        Map<String, Double> baselineMetrics = new LinkedHashMap<>();
+        Map<String, Double> contenderMetrics = new LinkedHashMap<>();
+        flatten("", baseline, baselineMetrics);
+        flatten("", contender, contenderMetrics);
+        System.out.println(String.format(Locale.ROOT, "%-60s  %14s  %14s  %9s", "metric", "baseline", "contender", "diff"));
+        for (Map.Entry<String, Double> entry : baselineMetrics.entrySet()) {
+            final Double other = contenderMetrics.get(entry.getKey());
+            if (other == null) {
+                continue;
+            }
+            final double base = entry.getValue();
+            final String diff = base == 0 ? "n/a" : String.format(Locale.ROOT, "%+8.1f%%", 100 * (other - base) / base);
+            System.out.println(String.format(Locale.ROOT, "%-60s  %14.2f  %14.2f  %9s", entry.getKey(), base, other, diff));
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void flatten(String prefix, Map<String, Object> map, Map<String, Double> metrics) {
+        for (Map.Entry<String, Object> entry : map.entrySet()) {
+            if (entry.getValue() instanceof Map) {
+                flatten(prefix + entry.getKey() + ".", (Map<String, Object>) entry.getValue(), metrics);
+            } else if (entry.getValue() instanceof Number) {
+                metrics.put(prefix + entry.getKey(), ((Number) entry.getValue()).doubleValue());
+            }
+        }
+    }
+}
@@ -0,0 +1,162 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.benchmark.macro;
+
+import org.elasticsearch.ElasticsearchParseException;
+import org.elasticsearch.common.settings.ImmutableSettings;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.xcontent.XContentHelper;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.elasticsearch.common.xcontent.XContentFactory.jsonBuilder;
+import static org.elasticsearch.common.xcontent.support.XContentMapValues.*;
+
+/**
+ * A macro benchmark workload, read from a json or yaml spec (yaml specs must start with {@code ---}):
+ * <pre>
+ * ---
+ * name: logs
+ * seed: 42
+ * cluster:
+ *   data_nodes: 2
+ *   settings: { ... node settings ... }
+ * index:
+ *   name: logs
+ *   settings: { ... index settings ... }
+ * corpus:
+ *   docs: 1000000
+ *   bulk_size: 1000
+ *   bulk_clients: 4
+ *   optimize: 1        # optional, max number of segments to optimize to once indexed
+ *   fields:
+ *     status: { type: keyword, cardinality: 10, skew: 2 }
+ *     ...
+ * queries:
+ *   - name: match
+ *     clients: 4
+ *     warmup: 100
+ *     iterations: 1000
+ *     body: { ... search request ... }
+ * </pre>
+ * See {@link CorpusGenerator} for the supported field types.
+ */
+class Workload {
+
+    static final String TYPE = "doc";
+
+    final String name;
+    final long seed;
+    final int dataNodes;
+    final Settings nodeSettings;
+    final String index;
+    final Settings indexSettings;
+    final long docs;
+    final int bulkSize;
+    final int bulkClients;
+    final int optimizeMaxNumSegments;
+    final CorpusGenerator corpus;
+    final List<Query> queries;
+
+    private Workload(Map<String, Object> spec) throws IOException {
+        name = nodeStringValue(spec.get("name"), null);
+        if (name == null) {
+            throw new ElasticsearchParseException("workload has no name");
+        }
+        seed = nodeLongValue(spec.get("seed"), 0);
+
+        Map<String, Object> cluster = section(spec, "cluster");
+        dataNodes = nodeIntegerValue(cluster.get("data_nodes"), 1);
+        nodeSettings = settings(cluster.get("settings"));
+
+        Map<String, Object> index = section(spec, "index");
+        this.index = nodeStringValue(index.get("name"), name);
+        indexSettings = settings(index.get("settings"));
+
+        Map<String, Object> corpus = section(spec, "corpus");
+        docs = nodeLongValue(corpus.get("docs"), 100000);
+        bulkSize = nodeIntegerValue(corpus.get("bulk_size"), 1000);
+        bulkClients = nodeIntegerValue(corpus.get("bulk_clients"), 1);
+        optimizeMaxNumSegments = nodeIntegerValue(corpus.get("optimize"), -1);
+        if (corpus.get("fields") == null) {
+            throw new ElasticsearchParseException("workload [" + name + "] has no corpus fields");
+        }
+        this.corpus = new CorpusGenerator(seed, nodeMapValue(corpus.get("fields"), "fields"));
+
+        queries = new ArrayList<>();
+        if (spec.get("queries") instanceof List) {
+            for (Object query : (List<?>) spec.get("queries")) {
+                queries.add(new Query(nodeMapValue(query, "query")));
+            }
+        }
+    }
+
+    static Workload parse(Path path) throws IOException {
+        return new Workload(XContentHelper.convertToMap(Files.readAllBytes(path), true).v2());
+    }
+
+    private static Map<String, Object> section(Map<String, Object> spec, String name) {
+        Object section = spec.get(name);
+        if (section == null) {
+            return Collections.emptyMap();
+        }
+        return nodeMapValue(section, name);
+    }
+
+    private static Settings settings(Object settings) throws IOException {
+        if (settings == null) {
+            return ImmutableSettings.EMPTY;
+        }
+        return ImmutableSettings.settingsBuilder()
+                .loadFromSource(jsonBuilder().map(nodeMapValue(settings, "settings")).string()).build();
+    }
+
+    /**
+     * A search request that is sent {@link #iterations} times, spread over {@link #clients} concurrent clients.
+     */
+    static class Query {
+
+        final String name;
+        final int clients;
+        final int warmup;
+        final int iterations;
+        final Map<String, Object> body;
+
+        Query(Map<String, Object> spec) {
+            name = nodeStringValue(spec.get("name"), null);
+            if (name == null) {
+                throw new ElasticsearchParseException("query has no name");
+            }
+            clients = nodeIntegerValue(spec.get("clients"), 1);
+            warmup = nodeIntegerValue(spec.get("warmup"), 100);
+            iterations = nodeIntegerValue(spec.get("iterations"), 1000);
+            if (spec.get("body") == null) {
+                throw new ElasticsearchParseException("query [" + name + "] has no body");
+            }
+            body = nodeMapValue(spec.get("body"), "body");
+        }
+    }
+}
@@ -29,6 +29,7 @@ import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.index.query.QueryBuilders;
 import org.elasticsearch.node.Node;
+import org.elasticsearch.script.expression.ExpressionScriptEngineService;
 import org.elasticsearch.search.sort.ScriptSortBuilder;
 import org.elasticsearch.search.sort.SortBuilders;
 import org.joda.time.PeriodType;
@@ -73,22 +74,41 @@ public class ScriptComparisonBenchmark {
         }
     };
 
+    // expressions are evaluated one document at a time with a block size of 0, the node is restarted for every size
+    static int[] expressionBlockSizes = {
+        0,
+        ExpressionScriptEngineService.DEFAULT_BLOCK_SIZE
+    };
+
     public static void main(String[] args) throws Exception {
         int numDocs = 1000000;
         int numQueries = 1000;
-        Client client = setupIndex();
+        Node node = startNode(expressionBlockSizes[0]);
+        Client client = setupIndex(node);
         indexDocs(client, numDocs);
 
         for (int scriptNum = 0; scriptNum < scripts.length; ++scriptNum) {
-            runBenchmark(client, scriptNum, numQueries);
+            runBenchmark(client, scriptNum, numQueries, langs.length);
+        }
+
+        for (int i = 1; i < expressionBlockSizes.length; ++i) {
+            node.close();
+            node = startNode(expressionBlockSizes[i]);
+            client = node.client();
+            client.admin().cluster().prepareHealth(indexName).setWaitForGreenStatus().setTimeout("1m").execute().actionGet();
+            for (int scriptNum = 0; scriptNum < scripts.length; ++scriptNum) {
+                // only expressions depend on the block size
+                runBenchmark(client, scriptNum, numQueries, 1);
+            }
         }
+        node.close();
     }
 
-    static void runBenchmark(Client client, int scriptNum, int numQueries) {
+    static void runBenchmark(Client client, int scriptNum, int numQueries, int numLangs) {
         System.out.println("");
         System.out.println("Script: " + scripts[scriptNum][0]);
         System.out.println("--------------------------------");
-        for (int langNum = 0; langNum < langs.length; ++langNum) {
+        for (int langNum = 0; langNum < numLangs; ++langNum) {
             String lang = langs[langNum];
             String script = scripts[scriptNum][langNum + 1];
 
@@ -98,12 +118,19 @@ public class ScriptComparisonBenchmark {
         }
     }
 
-    static Client setupIndex() throws Exception {
-        // create cluster
+    static Node startNode(int expressionBlockSize) {
+        System.out.println("");
+        System.out.println("Expression block size: " + expressionBlockSize);
         Settings settings = settingsBuilder().put("plugin.types", NativeScriptPlugin.class.getName())
                                              .put("name", "node1")
+                                             .put("gateway.type", "local")
+                                             .put(ExpressionScriptEngineService.BLOCK_SIZE, expressionBlockSize)
                                              .build();
-        Node node1 = nodeBuilder().clusterName(clusterName).settings(settings).node();
+        return nodeBuilder().clusterName(clusterName).settings(settings).node();
+    }
+
+    static Client setupIndex(Node node1) throws Exception {
+        // create cluster
         Client client = node1.client();
         client.admin().cluster().prepareHealth(indexName).setWaitForGreenStatus().setTimeout("10s").execute().actionGet();
 
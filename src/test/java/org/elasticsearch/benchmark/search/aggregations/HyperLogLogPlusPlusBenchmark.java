@@ -0,0 +1,96 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.benchmark.search.aggregations;
+
+import com.carrotsearch.hppc.hash.MurmurHash3;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.common.util.BigArrays;
+import org.elasticsearch.search.aggregations.metrics.cardinality.HyperLogLogPlusPlus;
+
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Reports, for every precision, the memory usage and accuracy of {@link HyperLogLogPlusPlus} when counting many
+ * buckets of very different cardinalities, as a terms aggregation with a cardinality sub aggregation would, and the
+ * time it takes to merge serialized counts.
+ */
+public class HyperLogLogPlusPlusBenchmark {
+
+    private static final int NUM_BUCKETS = 10000;
+    private static final int MAX_CARDINALITY = 100000;
+    private static final int NUM_SHARDS = 5;
+
+    public static void main(String[] args) throws Exception {
+        final Random random = new Random(0);
+        // most buckets are small, a few are large
+        final int[] cardinalities = new int[NUM_BUCKETS];
+        long totalValues = 0;
+        for (int i = 0; i < NUM_BUCKETS; ++i) {
+            cardinalities[i] = 1 + (int) (Math.pow(random.nextDouble(), 8) * MAX_CARDINALITY);
+            totalValues += cardinalities[i];
+        }
+        System.out.println(String.format(Locale.ROOT, "%d buckets, %d values", NUM_BUCKETS, totalValues));
+        System.out.println(String.format(Locale.ROOT, "%9s  %12s  %12s  %10s  %10s  %10s  %12s",
+                "precision", "memory", "dense memory", "mean error", "max error", "collect", "stream merge"));
+
+        for (int p = HyperLogLogPlusPlus.MIN_PRECISION; p <= HyperLogLogPlusPlus.MAX_PRECISION; ++p) {
+            final HyperLogLogPlusPlus counts = new HyperLogLogPlusPlus(p, BigArrays.NON_RECYCLING_INSTANCE, 1);
+            long start = System.nanoTime();
+            long value = 0;
+            for (int bucket = 0; bucket < NUM_BUCKETS; ++bucket) {
+                for (int i = 0; i < cardinalities[bucket]; ++i) {
+                    counts.collect(bucket, MurmurHash3.hash(value++));
+                }
+            }
+            final long collectTime = System.nanoTime() - start;
+
+            double sumError = 0;
+            double maxError = 0;
+            for (int bucket = 0; bucket < NUM_BUCKETS; ++bucket) {
+                final double error = Math.abs(counts.cardinality(bucket) - cardinalities[bucket]) / (double) cardinalities[bucket];
+                sumError += error;
+                maxError = Math.max(maxError, error);
+            }
+
+            // merge the serialized counts of every bucket as if each bucket had been returned by NUM_SHARDS shards
+            start = System.nanoTime();
+            final HyperLogLogPlusPlus merged = new HyperLogLogPlusPlus(p, BigArrays.NON_RECYCLING_INSTANCE, NUM_BUCKETS);
+            for (int bucket = 0; bucket < NUM_BUCKETS; ++bucket) {
+                try (BytesStreamOutput out = new BytesStreamOutput()) {
+                    counts.writeTo(bucket, out);
+                    for (int shard = 0; shard < NUM_SHARDS; ++shard) {
+                        merged.merge(bucket, out.bytes().streamInput());
+                    }
+                }
+            }
+            final long mergeTime = System.nanoTime() - start;
+
+            System.out.println(String.format(Locale.ROOT, "%9d  %12s  %12s  %9.3f%%  %9.3f%%  %10s  %12s",
+                    p, new ByteSizeValue(counts.ramBytesUsed()), new ByteSizeValue(NUM_BUCKETS * HyperLogLogPlusPlus.memoryUsage(p)),
+                    100 * sumError / NUM_BUCKETS, 100 * maxError,
+                    TimeValue.timeValueNanos(collectTime), TimeValue.timeValueNanos(mergeTime)));
+            counts.close();
+            merged.close();
+        }
+    }
+}
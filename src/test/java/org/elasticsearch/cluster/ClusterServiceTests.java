@@ -37,6 +37,7 @@ import org.elasticsearch.common.inject.Singleton;
 import org.elasticsearch.common.settings.ImmutableSettings;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
 import org.elasticsearch.plugins.AbstractPlugin;
 import org.elasticsearch.test.ElasticsearchIntegrationTest;
 import org.elasticsearch.test.ElasticsearchIntegrationTest.ClusterScope;
@@ -46,9 +47,11 @@ import org.elasticsearch.threadpool.ThreadPool;
 import org.junit.Test;
 
 import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.elasticsearch.common.settings.ImmutableSettings.settingsBuilder;
 import static org.elasticsearch.test.ElasticsearchIntegrationTest.Scope;
@@ -726,6 +729,70 @@ public class ClusterServiceTests extends ElasticsearchIntegrationTest {
         }
     }
 
+    @Test
+    public void testBatchedUpdateTasks() throws Exception {
+        Settings settings = settingsBuilder()
+                .put("discovery.type", "local")
+                .build();
+        internalCluster().startNode(settings);
+        ClusterService clusterService = internalCluster().getInstance(ClusterService.class);
+
+        final AtomicInteger publishedStates = new AtomicInteger();
+        clusterService.add(new ClusterStateListener() {
+            @Override
+            public void clusterChanged(ClusterChangedEvent event) {
+                if (event.source().startsWith("batched")) {
+                    publishedStates.incrementAndGet();
+                }
+            }
+        });
+
+        final List<List<Integer>> batches = new CopyOnWriteArrayList<>();
+        ClusterStateTaskExecutor<Integer> executor = new ClusterStateTaskExecutor<Integer>() {
+            @Override
+            public ClusterState execute(ClusterState currentState, List<Integer> tasks) {
+                batches.add(new ArrayList<>(tasks));
+                return ClusterState.builder(currentState).build();
+            }
+
+            @Override
+            public boolean runOnlyOnMaster() {
+                return true;
+            }
+        };
+
+        // hold the update thread so that all tasks are pending when the first of them runs
+        BlockingTask block = new BlockingTask();
+        clusterService.submitStateUpdateTask("block", Priority.IMMEDIATE, block);
+        int taskCount = randomIntBetween(2, 50);
+        final CountDownLatch processed = new CountDownLatch(taskCount);
+        final Set<String> processedSources = ConcurrentCollections.newConcurrentSet();
+        for (int i = 0; i < taskCount; i++) {
+            clusterService.submitStateUpdateTask("batched " + i, Priority.NORMAL, i, executor, new ClusterStateTaskListener() {
+                @Override
+                public void onFailure(String source, Throwable t) {
+                    fail();
+                }
+
+                @Override
+                public void clusterStateProcessed(String source, ClusterState oldState, ClusterState newState) {
+                    processedSources.add(source);
+                    processed.countDown();
+                }
+            });
+        }
+        block.release();
+        assertThat(processed.await(10, TimeUnit.SECONDS), equalTo(true));
+
+        assertThat(batches.size(), equalTo(1));
+        assertThat(batches.get(0).size(), equalTo(taskCount));
+        for (int i = 0; i < taskCount; i++) {
+            assertThat(batches.get(0).get(i), equalTo(i));
+            assertThat(processedSources.contains("batched " + i), equalTo(true));
+        }
+        assertThat(publishedStates.get(), equalTo(1));
+    }
+
     @Test
     @TestLogging("cluster:TRACE") // To ensure that we log cluster state events on TRACE level
     public void testClusterStateUpdateLogging() throws Exception {
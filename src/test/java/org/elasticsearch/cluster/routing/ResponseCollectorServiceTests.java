@@ -0,0 +1,143 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.cluster.routing;
+
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.settings.ImmutableSettings;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.test.ElasticsearchTestCase;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.hamcrest.Matchers.*;
+
+public class ResponseCollectorServiceTests extends ElasticsearchTestCase {
+
+    @Test
+    public void testMovingAverages() {
+        ResponseCollectorService collector = new ResponseCollectorService(ImmutableSettings.EMPTY);
+        assertThat(collector.getNodeStatistics("node1"), nullValue());
+
+        collector.onRequestSent("node1");
+        collector.onRequestSent("node1");
+        assertThat(collector.getOutstandingRequests("node1"), equalTo(2L));
+        assertThat(collector.getNodeStatistics("node1"), nullValue());
+
+        collector.onResponse("node1", 100, 10, 50);
+        assertThat(collector.getOutstandingRequests("node1"), equalTo(1L));
+        ComputedNodeStats stats = collector.getNodeStatistics("node1");
+        assertThat(stats.getResponseTime(), equalTo(100d));
+        assertThat(stats.getQueueSize(), equalTo(10d));
+        assertThat(stats.getServiceTime(), equalTo(50d));
+
+        // unknown queue size and service time leave the averages alone
+        collector.onResponse("node1", 200, -1, -1);
+        assertThat(collector.getOutstandingRequests("node1"), equalTo(0L));
+        stats = collector.getNodeStatistics("node1");
+        assertThat(stats.getResponseTime(), closeTo(100 + ResponseCollectorService.ALPHA * 100, 0.0001));
+        assertThat(stats.getQueueSize(), equalTo(10d));
+        assertThat(stats.getServiceTime(), equalTo(50d));
+
+        collector.onRequestSent("node2");
+        collector.onFailure("node2");
+        assertThat(collector.getOutstandingRequests("node2"), equalTo(0L));
+        assertThat(collector.getNodeStatistics("node2"), nullValue());
+        assertThat(collector.getAllNodeStatistics().keySet(), contains("node1"));
+    }
+
+    @Test
+    public void testRank() {
+        ComputedNodeStats fast = new ComputedNodeStats("fast", 1, 0, 100, 50);
+        ComputedNodeStats slow = new ComputedNodeStats("slow", 1, 0, 400, 200);
+        ComputedNodeStats busy = new ComputedNodeStats("busy", 1, 5, 100, 50);
+        assertThat(fast.rank(0), lessThan(slow.rank(0)));
+        assertThat(fast.rank(0), lessThan(busy.rank(0)));
+        // outstanding requests are penalized cubically
+        assertThat(fast.rank(3), greaterThan(slow.rank(0)));
+    }
+
+    @Test
+    public void testAdjustTowardsWinner() {
+        ResponseCollectorService collector = new ResponseCollectorService(ImmutableSettings.EMPTY);
+        collector.onResponse("fast", 100, 0, 100);
+        collector.onResponse("slow", 300, 4, 300);
+        collector.adjustTowards("slow", collector.getNodeStatistics("fast"));
+        ComputedNodeStats slow = collector.getNodeStatistics("slow");
+        assertThat(slow.getResponseTime(), equalTo(200d));
+        assertThat(slow.getQueueSize(), equalTo(2d));
+        assertThat(slow.getServiceTime(), equalTo(200d));
+    }
+
+    @Test
+    public void testRankedIterator() {
+        ShardId shardId = new ShardId("test", 0);
+        IndexShardRoutingTable shardTable = new IndexShardRoutingTable.Builder(shardId, true)
+                .addShard(new ImmutableShardRouting("test", 0, "node1", true, ShardRoutingState.STARTED, 1))
+                .addShard(new ImmutableShardRouting("test", 0, "node2", false, ShardRoutingState.STARTED, 1))
+                .addShard(new ImmutableShardRouting("test", 0, "node3", false, ShardRoutingState.INITIALIZING, 1))
+                .build();
+
+        ResponseCollectorService collector = new ResponseCollectorService(ImmutableSettings.EMPTY);
+        collector.onResponse("node1", 1000, 10, 1000);
+        Map<String, Long> searchCounts = new HashMap<>();
+        // node2 has no statistics yet, so it is tried first to get some
+        ShardIterator it = shardTable.activeInitializingShardsRankedIt(collector, searchCounts);
+        assertThat(it.size(), equalTo(3));
+        assertThat(it.nextOrNull().currentNodeId(), equalTo("node2"));
+        assertThat(it.nextOrNull().currentNodeId(), equalTo("node1"));
+        assertThat(it.nextOrNull().currentNodeId(), equalTo("node3"));
+        assertThat(searchCounts.get("node2"), equalTo(1L));
+
+        collector.onResponse("node2", 100, 0, 100);
+        searchCounts.clear();
+        it = shardTable.activeInitializingShardsRankedIt(collector, searchCounts);
+        assertThat(it.nextOrNull().currentNodeId(), equalTo("node2"));
+        assertThat(it.nextOrNull().currentNodeId(), equalTo("node1"));
+        assertThat(it.nextOrNull().currentNodeId(), equalTo("node3"));
+        // the loser moved towards the winner
+        assertThat(collector.getNodeStatistics("node1").getResponseTime(), equalTo(550d));
+
+        // with enough shards of the same search routed to node2 the other copy wins
+        searchCounts.put("node2", 10L);
+        it = shardTable.activeInitializingShardsRankedIt(collector, searchCounts);
+        assertThat(it.nextOrNull().currentNodeId(), equalTo("node1"));
+        assertThat(searchCounts.get("node1"), equalTo(1L));
+    }
+
+    @Test
+    public void testSerialization() throws Exception {
+        ResponseCollectorService collector = new ResponseCollectorService(ImmutableSettings.EMPTY);
+        collector.onRequestSent("node1");
+        collector.onRequestSent("node2");
+        collector.onResponse("node2", 200, 3, 100);
+        AdaptiveSelectionStats stats = collector.stats();
+
+        BytesStreamOutput out = new BytesStreamOutput();
+        stats.writeTo(out);
+        StreamInput in = StreamInput.wrap(out.bytes());
+        AdaptiveSelectionStats read = AdaptiveSelectionStats.readAdaptiveSelectionStats(in);
+        assertThat(read.getOutgoingConnections(), equalTo(stats.getOutgoingConnections()));
+        assertThat(read.getComputedStats().keySet(), contains("node2"));
+        assertThat(read.getRanks().get("node2"), equalTo(stats.getRanks().get("node2")));
+    }
+}
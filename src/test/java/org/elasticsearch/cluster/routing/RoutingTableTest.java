@@ -20,6 +20,7 @@
 package org.elasticsearch.cluster.routing;
 
 import org.elasticsearch.Version;
+import org.elasticsearch.cluster.ClusterChangedEvent;
 import org.elasticsearch.cluster.ClusterState;
 import org.elasticsearch.cluster.metadata.IndexMetaData;
 import org.elasticsearch.cluster.metadata.MetaData;
@@ -29,16 +30,25 @@ import org.elasticsearch.cluster.routing.allocation.AllocationService;
 import org.elasticsearch.cluster.routing.allocation.RoutingAllocation;
 import org.elasticsearch.common.settings.ImmutableSettings;
 import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.indices.IndexMissingException;
 import org.elasticsearch.test.ElasticsearchAllocationTestCase;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.HashSet;
+import java.util.List;
+
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
 
 import static org.elasticsearch.cluster.routing.ShardRoutingState.INITIALIZING;
 import static org.elasticsearch.common.settings.ImmutableSettings.settingsBuilder;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
 
 public class RoutingTableTest extends ElasticsearchAllocationTestCase  {
 
@@ -245,4 +255,62 @@ public class RoutingTableTest extends ElasticsearchAllocationTestCase  {
             fail("Calling with non-existing index should be ignored at the moment");
         }
     }
+
+    @Test
+    public void testShardsOnNode() {
+        assertThat(this.testRoutingTable.shardsOnNode("node0"), empty());
+
+        initPrimaries();
+        startInitializingShards(TEST_INDEX_1);
+        for (RoutingNode routingNode : this.clusterState.routingNodes()) {
+            List<ShardRouting> shardsOnNode = this.testRoutingTable.shardsOnNode(routingNode.nodeId());
+            assertThat(shardsOnNode.size(), equalTo(routingNode.size()));
+            assertThat(new HashSet<>(shardsOnNode), equalTo(new HashSet<ShardRouting>(routingNode.copyShards())));
+        }
+    }
+
+    @Test
+    public void testShardsOnNodeWithRelocation() {
+        RoutingTable routingTable = RoutingTable.builder()
+                .add(IndexRoutingTable.builder(TEST_INDEX_1)
+                        .addIndexShard(new IndexShardRoutingTable.Builder(new ShardId(TEST_INDEX_1, 0), true)
+                                .addShard(new ImmutableShardRouting(TEST_INDEX_1, 0, "node0", "node1", true, ShardRoutingState.RELOCATING, 1))
+                                .build()))
+                .build();
+        List<ShardRouting> shardsOnSource = routingTable.shardsOnNode("node0");
+        assertThat(shardsOnSource.size(), equalTo(1));
+        assertThat(shardsOnSource.get(0).state(), equalTo(ShardRoutingState.RELOCATING));
+
+        // the target lists the incoming copy as initializing, with the source as relocating node
+        List<ShardRouting> shardsOnTarget = routingTable.shardsOnNode("node1");
+        assertThat(shardsOnTarget.size(), equalTo(1));
+        assertThat(shardsOnTarget.get(0).state(), equalTo(INITIALIZING));
+        assertThat(shardsOnTarget.get(0).currentNodeId(), equalTo("node1"));
+        assertThat(shardsOnTarget.get(0).relocatingNodeId(), equalTo("node0"));
+        assertThat(shardsOnTarget.get(0).primary(), is(true));
+        assertThat(routingTable.shardsOnNode("node2"), empty());
+    }
+
+    @Test
+    public void testRerouteKeepsUnchangedIndexRoutingTables() {
+        initPrimaries();
+        ClusterState previousState = this.clusterState;
+        startInitializingShards(TEST_INDEX_1);
+
+        // only the shards of the first index were started, the second one must be the same instance
+        assertThat(this.testRoutingTable.index(TEST_INDEX_2), sameInstance(previousState.routingTable().index(TEST_INDEX_2)));
+        assertThat(this.testRoutingTable.index(TEST_INDEX_1), not(sameInstance(previousState.routingTable().index(TEST_INDEX_1))));
+
+        ClusterChangedEvent event = new ClusterChangedEvent("test", this.clusterState, previousState);
+        assertThat(event.changedIndices(), containsInAnyOrder(TEST_INDEX_1));
+        assertThat(event.indexChanged(TEST_INDEX_1), is(true));
+        assertThat(event.indexChanged(TEST_INDEX_2), is(false));
+
+        // a reroute that changes nothing keeps all instances
+        RoutingAllocation.Result rerouteResult = ALLOCATION_SERVICE.reroute(this.clusterState);
+        ClusterState rerouted = ClusterState.builder(this.clusterState).routingTable(rerouteResult.routingTable()).build();
+        assertThat(rerouted.routingTable().index(TEST_INDEX_1), sameInstance(this.testRoutingTable.index(TEST_INDEX_1)));
+        assertThat(rerouted.routingTable().index(TEST_INDEX_2), sameInstance(this.testRoutingTable.index(TEST_INDEX_2)));
+        assertThat(new ClusterChangedEvent("test", rerouted, this.clusterState).changedIndices(), empty());
+    }
 }
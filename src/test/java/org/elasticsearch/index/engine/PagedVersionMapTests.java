@@ -0,0 +1,141 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.index.engine;
+
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.index.translog.Translog;
+import org.elasticsearch.test.ElasticsearchTestCase;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+
+public class PagedVersionMapTests extends ElasticsearchTestCase {
+
+    @Test
+    public void testPutAndGet() {
+        PagedVersionMap map = new PagedVersionMap();
+        PagedVersionMap.Lookup lookup = new PagedVersionMap.Lookup();
+        Map<BytesRef, VersionValue> expected = new HashMap<>();
+        final long initialRamBytesUsed = map.ramBytesUsed();
+        final int numOps = scaledRandomIntBetween(100, 10000);
+        for (int i = 0; i < numOps; i++) {
+            BytesRef uid = new BytesRef(randomAsciiOfLengthBetween(1, 4));
+            Translog.Location location = rarely() ? null : new Translog.Location(randomIntBetween(1, 10), randomIntBetween(0, 1000), randomIntBetween(1, 100));
+            VersionValue value;
+            if (randomBoolean()) {
+                value = new DeleteVersionValue(randomIntBetween(1, 100), randomIntBetween(0, 100000), location);
+            } else {
+                value = new VersionValue(randomIntBetween(1, 100), location);
+            }
+            assertVersionValue(expected.get(uid), map.get(uid, lookup) ? lookup : null);
+            map.put(uid, value);
+            expected.put(uid, value);
+        }
+        assertThat(map.size(), equalTo((long) expected.size()));
+        for (Map.Entry<BytesRef, VersionValue> entry : expected.entrySet()) {
+            assertTrue(map.get(entry.getKey(), lookup));
+            assertVersionValue(entry.getValue(), lookup);
+        }
+        assertFalse(map.get(new BytesRef("not_a_uid"), lookup));
+        assertThat(map.ramBytesUsed(), greaterThan(initialRamBytesUsed));
+    }
+
+    @Test
+    public void testConcurrentPutAndGet() throws Exception {
+        final PagedVersionMap map = new PagedVersionMap();
+        final BytesRef[] uids = new BytesRef[scaledRandomIntBetween(10, 1000)];
+        for (int i = 0; i < uids.length; i++) {
+            uids[i] = new BytesRef(Integer.toString(i));
+        }
+        final int numOps = scaledRandomIntBetween(1000, 100000);
+        final AtomicBoolean writing = new AtomicBoolean(true);
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+        final CountDownLatch latch = new CountDownLatch(1);
+        Thread[] readers = new Thread[randomIntBetween(1, 4)];
+        for (int t = 0; t < readers.length; t++) {
+            readers[t] = new Thread() {
+                @Override
+                public void run() {
+                    PagedVersionMap.Lookup lookup = new PagedVersionMap.Lookup();
+                    try {
+                        latch.await();
+                        while (writing.get()) {
+                            for (BytesRef uid : uids) {
+                                if (map.get(uid, lookup)) {
+                                    // every put derives all values from the version, lookups must never see a mix of two puts
+                                    assertThat(lookup.translogLocation().translogLocation, equalTo(lookup.version()));
+                                    assertThat(lookup.translogLocation().size, equalTo((int) lookup.version()));
+                                    assertThat(lookup.delete(), equalTo(lookup.version() % 2 == 0));
+                                    if (lookup.delete()) {
+                                        assertThat(lookup.time(), equalTo(lookup.version()));
+                                    }
+                                }
+                            }
+                        }
+                    } catch (Throwable t) {
+                        failure.compareAndSet(null, t);
+                    }
+                }
+            };
+            readers[t].start();
+        }
+        latch.countDown();
+        try {
+            for (int i = 1; i <= numOps; i++) {
+                BytesRef uid = uids[randomInt(uids.length - 1)];
+                Translog.Location location = new Translog.Location(1, i, i);
+                map.put(uid, i % 2 == 0 ? new DeleteVersionValue(i, i, location) : new VersionValue(i, location));
+            }
+        } finally {
+            writing.set(false);
+            for (Thread reader : readers) {
+                reader.join();
+            }
+        }
+        if (failure.get() != null) {
+            throw new AssertionError("lookup failed", failure.get());
+        }
+    }
+
+    private static void assertVersionValue(VersionValue expected, VersionValue actual) {
+        if (expected == null) {
+            assertNull(actual);
+            return;
+        }
+        assertNotNull(actual);
+        assertThat(actual.version(), equalTo(expected.version()));
+        assertThat(actual.delete(), equalTo(expected.delete()));
+        if (expected.delete()) {
+            assertThat(actual.time(), equalTo(expected.time()));
+        }
+        if (expected.translogLocation() == null) {
+            assertNull(actual.translogLocation());
+        } else {
+            assertThat(actual.translogLocation(), equalTo(expected.translogLocation()));
+        }
+    }
+}
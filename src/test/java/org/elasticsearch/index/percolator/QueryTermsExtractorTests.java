@@ -0,0 +1,146 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.index.percolator;
+
+import org.apache.lucene.analysis.core.WhitespaceAnalyzer;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.index.memory.MemoryIndex;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.ConstantScoreQuery;
+import org.apache.lucene.search.DisjunctionMaxQuery;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.PhraseQuery;
+import org.apache.lucene.search.PrefixQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.test.ElasticsearchTestCase;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.elasticsearch.index.percolator.QueryTermsExtractor.extractQueryTerms;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+
+public class QueryTermsExtractorTests extends ElasticsearchTestCase {
+
+    @Test
+    public void testTermAndPhraseQueries() throws Exception {
+        assertThat(extractQueryTerms(new TermQuery(new Term("field", "value"))), containsInAnyOrder(new Term("field", "value")));
+
+        PhraseQuery phraseQuery = new PhraseQuery();
+        phraseQuery.add(new Term("field", "quick"));
+        phraseQuery.add(new Term("field", "brown"));
+        phraseQuery.add(new Term("field", "fox"));
+        // only the longest term is needed, all terms of a phrase must be present
+        assertThat(extractQueryTerms(phraseQuery), containsInAnyOrder(new Term("field", "quick")));
+        assertThat(extractQueryTerms(new PhraseQuery()), empty());
+    }
+
+    @Test
+    public void testBooleanQuery() throws Exception {
+        BooleanQuery disjunction = new BooleanQuery();
+        disjunction.add(new TermQuery(new Term("field", "a")), BooleanClause.Occur.SHOULD);
+        disjunction.add(new TermQuery(new Term("field", "b")), BooleanClause.Occur.SHOULD);
+        disjunction.add(new TermQuery(new Term("field", "c")), BooleanClause.Occur.MUST_NOT);
+        assertThat(extractQueryTerms(disjunction), containsInAnyOrder(new Term("field", "a"), new Term("field", "b")));
+
+        BooleanQuery conjunction = new BooleanQuery();
+        conjunction.add(new TermQuery(new Term("field", "a")), BooleanClause.Occur.MUST);
+        conjunction.add(new TermQuery(new Term("field", "longer")), BooleanClause.Occur.FILTER);
+        conjunction.add(new PrefixQuery(new Term("field", "pre")), BooleanClause.Occur.MUST);
+        conjunction.add(new MatchAllDocsQuery(), BooleanClause.Occur.SHOULD);
+        // a single required clause is enough, unsupported ones are ignored
+        assertThat(extractQueryTerms(conjunction), containsInAnyOrder(new Term("field", "longer")));
+
+        BooleanQuery nested = new BooleanQuery();
+        nested.add(disjunction, BooleanClause.Occur.MUST);
+        nested.add(new ConstantScoreQuery(new TermQuery(new Term("other", "x"))), BooleanClause.Occur.MUST);
+        assertThat(extractQueryTerms(nested), containsInAnyOrder(new Term("field", "a"), new Term("field", "b")));
+
+        DisjunctionMaxQuery disMax = new DisjunctionMaxQuery(Arrays.<Query>asList(new TermQuery(new Term("field", "a")), conjunction), 0f);
+        assertThat(extractQueryTerms(disMax), containsInAnyOrder(new Term("field", "a"), new Term("field", "longer")));
+    }
+
+    @Test
+    public void testUnsupportedQueries() throws Exception {
+        assertUnsupported(new MatchAllDocsQuery());
+        assertUnsupported(new PrefixQuery(new Term("field", "pre")));
+
+        BooleanQuery disjunction = new BooleanQuery();
+        disjunction.add(new TermQuery(new Term("field", "a")), BooleanClause.Occur.SHOULD);
+        disjunction.add(new PrefixQuery(new Term("field", "pre")), BooleanClause.Occur.SHOULD);
+        // the prefix query may match documents without the term
+        assertUnsupported(disjunction);
+
+        BooleanQuery conjunction = new BooleanQuery();
+        conjunction.add(new PrefixQuery(new Term("field", "pre")), BooleanClause.Occur.MUST);
+        conjunction.add(new TermQuery(new Term("field", "a")), BooleanClause.Occur.MUST_NOT);
+        assertUnsupported(conjunction);
+    }
+
+    @Test
+    public void testCandidateQueries() throws Exception {
+        QueryTermsIndex index = new QueryTermsIndex();
+        BytesRef term = new BytesRef("1");
+        BytesRef phrase = new BytesRef("2");
+        BytesRef otherField = new BytesRef("3");
+        BytesRef prefix = new BytesRef("4");
+        index.add(term, new TermQuery(new Term("field", "brown")), null);
+        PhraseQuery phraseQuery = new PhraseQuery();
+        phraseQuery.add(new Term("field", "lazy"));
+        phraseQuery.add(new Term("field", "dog"));
+        index.add(phrase, phraseQuery, null);
+        index.add(otherField, new TermQuery(new Term("other", "brown")), null);
+        index.add(prefix, new PrefixQuery(new Term("field", "qu")), null);
+        assertThat(index.numUnsupportedQueries(), equalTo(1));
+
+        MemoryIndex memoryIndex = new MemoryIndex();
+        memoryIndex.addField("field", "the quick brown fox", new WhitespaceAnalyzer());
+        IndexReader reader = memoryIndex.createSearcher().getIndexReader();
+        assertThat(index.candidateQueries(reader), containsInAnyOrder(term, prefix));
+
+        // replacing a query replaces its terms
+        Query previous = new TermQuery(new Term("field", "brown"));
+        index.add(term, new TermQuery(new Term("field", "lazy")), previous);
+        assertThat(index.candidateQueries(reader), containsInAnyOrder(prefix));
+
+        index.remove(prefix, new PrefixQuery(new Term("field", "qu")));
+        assertThat(index.numUnsupportedQueries(), equalTo(0));
+        assertThat(index.candidateQueries(reader), empty());
+
+        index.clear();
+        memoryIndex.reset();
+        memoryIndex.addField("field", "lazy dog", new WhitespaceAnalyzer());
+        assertThat(index.candidateQueries(memoryIndex.createSearcher().getIndexReader()), empty());
+    }
+
+    private static void assertUnsupported(Query query) {
+        try {
+            extractQueryTerms(query);
+            fail("expected terms of [" + query + "] not to be extracted");
+        } catch (QueryTermsExtractor.UnsupportedQueryException e) {
+            // expected
+        }
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.index.query;
+
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.settings.ImmutableSettings;
+import org.elasticsearch.index.IndexService;
+import org.elasticsearch.test.ElasticsearchSingleNodeTest;
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+
+public class ParsedQueryCacheTests extends ElasticsearchSingleNodeTest {
+
+    private static class CountingListener implements ParsedQueryCache.Listener {
+
+        int hits;
+        int misses;
+
+        @Override
+        public void onHit(long savedNanos) {
+            hits++;
+        }
+
+        @Override
+        public void onMiss() {
+            misses++;
+        }
+    }
+
+    @Test
+    public void testReuse() throws Exception {
+        IndexService indexService = createIndex("test", ImmutableSettings.EMPTY, "type", "field", "type=string");
+        IndexQueryParserService queryParser = indexService.queryParserService();
+        CountingListener listener = new CountingListener();
+
+        ParsedQuery first = queryParser.parseCached(new BytesArray("{\"match\":{\"field\":\"foo bar\"}}"), listener);
+        ParsedQuery second = queryParser.parseCached(new BytesArray("{\"match\":{\"field\":\"foo bar\"}}"), listener);
+        assertThat(second, sameInstance(first));
+        assertThat(listener.hits, equalTo(1));
+        assertThat(listener.misses, equalTo(1));
+
+        ParsedQuery other = queryParser.parseCached(new BytesArray("{\"match\":{\"field\":\"foo\"}}"), listener);
+        assertThat(other, not(sameInstance(first)));
+        assertThat(listener.misses, equalTo(2));
+
+        // a mapping change makes the cached query stale
+        client().admin().indices().preparePutMapping("test").setType("type").setSource("other", "type=long").get();
+        ParsedQuery afterMappingChange = queryParser.parseCached(new BytesArray("{\"match\":{\"field\":\"foo bar\"}}"), listener);
+        assertThat(afterMappingChange, not(sameInstance(first)));
+        assertThat(listener.misses, equalTo(3));
+        assertThat(queryParser.parseCached(new BytesArray("{\"match\":{\"field\":\"foo bar\"}}"), listener), sameInstance(afterMappingChange));
+    }
+
+    @Test
+    public void testNotCacheable() throws Exception {
+        IndexService indexService = createIndex("test", ImmutableSettings.EMPTY, "type", "date", "type=date", "field", "type=string");
+        IndexQueryParserService queryParser = indexService.queryParserService();
+        CountingListener listener = new CountingListener();
+
+        // depends on the time of the request
+        String now = "{\"range\":{\"date\":{\"gte\":\"now-1d\"}}}";
+        queryParser.parseCached(new BytesArray(now), listener);
+        queryParser.parseCached(new BytesArray(now), listener);
+        assertThat(listener.hits, equalTo(0));
+        assertThat(listener.misses, equalTo(2));
+
+        // depends on another document
+        String lookup = "{\"terms\":{\"date\":{\"index\":\"test\",\"type\":\"type\",\"id\":\"1\",\"path\":\"date\"}}}";
+        queryParser.parseCached(new BytesArray(lookup), listener);
+        queryParser.parseCached(new BytesArray(lookup), listener);
+        assertThat(listener.hits, equalTo(0));
+
+        // fuzzy date queries are relative to the time of the request
+        String fuzzy = "{\"match\":{\"date\":{\"query\":\"2015-01-01\",\"fuzziness\":\"1d\"}}}";
+        queryParser.parseCached(new BytesArray(fuzzy), listener);
+        queryParser.parseCached(new BytesArray(fuzzy), listener);
+        assertThat(listener.hits, equalTo(0));
+
+        // date values may be date math, so no query on a date field is reused
+        String absolute = "{\"range\":{\"date\":{\"gte\":\"2015-01-01\"}}}";
+        queryParser.parseCached(new BytesArray(absolute), listener);
+        queryParser.parseCached(new BytesArray(absolute), listener);
+        assertThat(listener.hits, equalTo(0));
+
+        String other = "{\"bool\":{\"must\":{\"match\":{\"field\":\"now\"}}}}";
+        queryParser.parseCached(new BytesArray(other), listener);
+        queryParser.parseCached(new BytesArray(other), listener);
+        assertThat(listener.hits, equalTo(1));
+    }
+
+    @Test
+    public void testDisabled() throws Exception {
+        IndexService indexService = createIndex("test", ImmutableSettings.builder().put(ParsedQueryCache.SIZE, 0).build());
+        IndexQueryParserService queryParser = indexService.queryParserService();
+        assertFalse(queryParser.isParsedQueryCacheEnabled());
+        CountingListener listener = new CountingListener();
+        ParsedQuery first = queryParser.parseCached(new BytesArray("{\"term\":{\"field\":\"foo\"}}"), listener);
+        ParsedQuery second = queryParser.parseCached(new BytesArray("{\"term\":{\"field\":\"foo\"}}"), listener);
+        assertThat(second, not(sameInstance(first)));
+        assertThat(listener.misses, equalTo(2));
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.index.search.child;
+
+import org.elasticsearch.common.util.BigArrays;
+import org.elasticsearch.common.util.FloatArray;
+import org.elasticsearch.common.util.IntArray;
+import org.elasticsearch.test.ElasticsearchTestCase;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+
+public class ParentIdxsTests extends ElasticsearchTestCase {
+
+    @Test
+    public void testSwitchToOrdinals() {
+        final BigArrays bigArrays = BigArrays.NON_RECYCLING_INSTANCE;
+        final int maxOrd = randomIntBetween(8, 10000);
+        final Map<Long, Integer> counts = new HashMap<>();
+        try (ParentIdxs parentIdxs = new ParentIdxs(maxOrd, bigArrays)) {
+            FloatArray scores = bigArrays.newFloatArray(1, false);
+            IntArray occurrences = bigArrays.newIntArray(1, false);
+            boolean switched = false;
+            final int numAdds = randomIntBetween(1, maxOrd);
+            for (int i = 0; i < numAdds; i++) {
+                final long ord = randomInt(maxOrd - 1);
+                long parentIdx = parentIdxs.add(ord);
+                if (parentIdx >= 0) {
+                    assertThat(counts.containsKey(ord), equalTo(false));
+                    counts.put(ord, 1);
+                    scores = bigArrays.grow(scores, parentIdx + 1);
+                    scores.set(parentIdx, ord);
+                    occurrences = bigArrays.grow(occurrences, parentIdx + 1);
+                    occurrences.set(parentIdx, 1);
+                    if (parentIdxs.shouldSwitchToOrdinals()) {
+                        assertThat(parentIdxs.size(), equalTo((long) (maxOrd >>> 3) + 1));
+                        scores = parentIdxs.remap(scores);
+                        occurrences = parentIdxs.remap(occurrences);
+                        parentIdxs.switchToOrdinals();
+                        switched = true;
+                    }
+                } else {
+                    parentIdx = -1 - parentIdx;
+                    counts.put(ord, counts.get(ord) + 1);
+                    occurrences.increment(parentIdx, 1);
+                }
+            }
+
+            assertThat(parentIdxs.size(), equalTo((long) counts.size()));
+            assertThat(switched, equalTo(counts.size() > (maxOrd >>> 3)));
+            if (switched) {
+                assertThat(parentIdxs.hash(), nullValue());
+                assertThat(parentIdxs.ords().cardinality(), equalTo((long) counts.size()));
+            } else {
+                assertThat(parentIdxs.hash(), notNullValue());
+                assertThat(parentIdxs.ords(), nullValue());
+            }
+            for (long ord = 0; ord < maxOrd; ord++) {
+                final long parentIdx = parentIdxs.find(ord);
+                if (counts.containsKey(ord)) {
+                    if (switched) {
+                        assertThat(parentIdx, equalTo(ord));
+                    }
+                    assertThat(scores.get(parentIdx), equalTo((float) ord));
+                    assertThat(occurrences.get(parentIdx), equalTo(counts.get(ord)));
+                } else {
+                    assertThat(parentIdx, equalTo(-1L));
+                }
+            }
+            scores.close();
+            occurrences.close();
+        }
+    }
+}
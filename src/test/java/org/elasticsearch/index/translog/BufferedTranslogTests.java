@@ -36,6 +36,7 @@ public class BufferedTranslogTests extends TranslogTests {
                 ImmutableSettings.settingsBuilder()
                         .put("index.translog.fs.type", TranslogFile.Type.BUFFERED.name())
                         .put("index.translog.fs.buffer_size", 10 + randomInt(128 * 1024))
+                        .put(Translog.INDEX_TRANSLOG_MMAP_SNAPSHOTS, randomBoolean())
                         .build(),
                 BigArrays.NON_RECYCLING_INSTANCE, translogDir
         );
@@ -32,7 +32,10 @@ public class FsSimpleTranslogTests extends TranslogTests {
     @Override
     protected Translog create() throws IOException {
         return new Translog(shardId,
-                ImmutableSettings.settingsBuilder().put("index.translog.fs.type", TranslogFile.Type.SIMPLE.name()).build(),
+                ImmutableSettings.settingsBuilder()
+                        .put("index.translog.fs.type", TranslogFile.Type.SIMPLE.name())
+                        .put(Translog.INDEX_TRANSLOG_MMAP_SNAPSHOTS, randomBoolean())
+                        .build(),
                 BigArrays.NON_RECYCLING_INSTANCE, translogDir);
     }
 }
\ No newline at end of file
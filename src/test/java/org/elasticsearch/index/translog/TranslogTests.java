@@ -106,7 +106,10 @@ public class TranslogTests extends ElasticsearchTestCase {
 
     protected Translog create() throws IOException {
         return new Translog(shardId,
-                ImmutableSettings.settingsBuilder().put("index.translog.fs.type", TranslogFile.Type.SIMPLE.name()).build(),
+                ImmutableSettings.settingsBuilder()
+                        .put("index.translog.fs.type", TranslogFile.Type.SIMPLE.name())
+                        .put(Translog.INDEX_TRANSLOG_MMAP_SNAPSHOTS, randomBoolean())
+                        .build(),
                 BigArrays.NON_RECYCLING_INSTANCE, translogDir);
     }
 
@@ -227,6 +230,31 @@ public class TranslogTests extends ElasticsearchTestCase {
         return stats;
     }
 
+    @Test
+    public void testMappedSnapshotAcrossRegions() throws IOException {
+        ArrayList<Translog.Operation> ops = new ArrayList<>();
+        int numOps = randomIntBetween(10, 100);
+        for (int i = 0; i < numOps; i++) {
+            addToTranslogAndList(translog, ops, new Translog.Index("test", Integer.toString(i), randomAsciiOfLengthBetween(1, 100).getBytes("UTF-8")));
+        }
+        translog.sync();
+
+        final long id = translog.currentId();
+        ChannelReference reference = new ChannelReference(translogDir.resolve(translog.getFilename(id)), StandardOpenOption.READ);
+        ChannelImmutableReader reader = new ChannelImmutableReader(id, reference, reference.channel().size(), ChannelReader.UNKNOWN_OP_COUNT);
+        // small regions force a new mapping every few operations
+        MMapChannelSnapshot snapshot = new MMapChannelSnapshot(reader, 256);
+        try {
+            ByteBuffer unused = ByteBuffer.allocate(0);
+            for (Translog.Operation op : ops) {
+                assertThat(snapshot.next(unused), equalTo(op));
+            }
+            assertThat(snapshot.next(unused), nullValue());
+        } finally {
+            snapshot.close();
+        }
+    }
+
     @Test
     public void testStats() throws IOException {
         TranslogStats stats = stats();
@@ -262,6 +290,9 @@ public class TranslogTests extends ElasticsearchTestCase {
         stats = stats();
         assertThat(stats.estimatedNumberOfOperations(), equalTo(0l));
         assertThat(stats.translogSizeInBytes().bytes(), equalTo(17l));
+        assertThat(stats.syncedOperations(), equalTo(4l));
+        // closing the previous file on newTranslog made all four operations durable with a single fsync
+        assertThat(stats.syncCount(), equalTo(1l));
     }
 
     @Test
@@ -803,6 +834,53 @@ public class TranslogTests extends ElasticsearchTestCase {
         }
     }
 
+    public void testConcurrentSyncUpToIsGrouped() throws Throwable {
+        final int opsPerThread = randomIntBetween(10, 100);
+        final int threadCount = randomIntBetween(2, 8);
+        final Thread[] threads = new Thread[threadCount];
+        final Throwable[] threadExceptions = new Throwable[threadCount];
+        final AtomicInteger syncCalls = new AtomicInteger();
+        final CountDownLatch downLatch = new CountDownLatch(1);
+        // all operations are written before anyone syncs, so the first fsync covers the locations of all threads
+        final CyclicBarrier barrier = new CyclicBarrier(threadCount);
+        for (int i = 0; i < threadCount; i++) {
+            final int threadId = i;
+            threads[i] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        downLatch.await();
+                        Translog.Location location = null;
+                        for (int opCount = 0; opCount < opsPerThread; opCount++) {
+                            location = translog.add(new Translog.Create("test", threadId + "_" + opCount, new byte[]{1}));
+                        }
+                        barrier.await();
+                        if (translog.ensureSynced(location)) {
+                            syncCalls.incrementAndGet();
+                        }
+                        assertFalse("location must be synced", translog.ensureSynced(location));
+                    } catch (Throwable t) {
+                        threadExceptions[threadId] = t;
+                    }
+                }
+            });
+            threads[i].setDaemon(true);
+            threads[i].start();
+        }
+        downLatch.countDown();
+        for (int i = 0; i < threadCount; i++) {
+            threads[i].join(60 * 1000);
+            if (threadExceptions[i] != null) {
+                throw threadExceptions[i];
+            }
+        }
+        TranslogStats stats = translog.stats();
+        assertThat(stats.syncCount(), equalTo((long) syncCalls.get()));
+        assertThat(stats.syncCount(), lessThan((long) threadCount));
+        assertThat(stats.syncCount(), equalTo(1l));
+        assertThat(stats.syncedOperations(), equalTo((long) threadCount * opsPerThread));
+    }
+
     public void testLocationComparison() throws IOException {
         List<Translog.Location> locations = newArrayList();
         int translogOperations = randomIntBetween(10, 100);
@@ -21,17 +21,23 @@ package org.elasticsearch.indices.cache.query;
 
 import org.elasticsearch.action.search.SearchResponse;
 import org.elasticsearch.action.search.SearchType;
+import org.elasticsearch.cluster.metadata.IndexMetaData;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.index.cache.query.QueryCacheStats;
 import org.elasticsearch.indices.cache.query.IndicesQueryCache;
 import org.elasticsearch.search.aggregations.bucket.histogram.DateHistogramInterval;
 import org.elasticsearch.search.aggregations.bucket.histogram.Histogram;
 import org.elasticsearch.search.aggregations.bucket.histogram.Histogram.Bucket;
+import org.elasticsearch.search.aggregations.bucket.terms.Terms;
 import org.elasticsearch.test.ElasticsearchIntegrationTest;
 
 import java.util.List;
 
 import static org.elasticsearch.search.aggregations.AggregationBuilders.dateHistogram;
+import static org.elasticsearch.search.aggregations.AggregationBuilders.terms;
 import static org.elasticsearch.test.hamcrest.ElasticsearchAssertions.assertAcked;
 import static org.elasticsearch.test.hamcrest.ElasticsearchAssertions.assertSearchResponse;
+import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.greaterThan;
 
 public class IndicesQueryCacheTests extends ElasticsearchIntegrationTest {
@@ -74,4 +80,54 @@ public class IndicesQueryCacheTests extends ElasticsearchIntegrationTest {
         }
     }
 
+    public void testCacheSegments() throws Exception {
+        assertAcked(client().admin().indices().prepareCreate("index")
+                .addMapping("type", "f", "type=string,index=not_analyzed")
+                .setSettings(Settings.builder()
+                        .put(IndexMetaData.SETTING_NUMBER_OF_SHARDS, 1)
+                        .put(IndexMetaData.SETTING_NUMBER_OF_REPLICAS, 0)
+                        .put("index.refresh_interval", -1)
+                        .put(IndicesQueryCache.INDEX_CACHE_QUERY_ENABLED, true)
+                        .put(IndicesQueryCache.INDEX_CACHE_QUERY_SEGMENTS, true)).get());
+        client().prepareIndex("index", "type", "1").setSource("f", "a").get();
+        client().prepareIndex("index", "type", "2").setSource("f", "b").get();
+        refresh();
+        client().prepareIndex("index", "type", "3").setSource("f", "a").get();
+        refresh();
+        ensureSearchable("index");
+
+        assertTermCounts(3, 2, 1);
+        QueryCacheStats stats = queryCacheStats();
+        assertThat(stats.getSegmentHitCount(), equalTo(0l));
+        long misses = stats.getSegmentMissCount();
+        assertThat(misses, greaterThan(0l));
+
+        // a new segment only requires to compute the results of that segment
+        client().prepareIndex("index", "type", "4").setSource("f", "c").get();
+        refresh();
+        assertTermCounts(4, 2, 1);
+        stats = queryCacheStats();
+        assertThat(stats.getSegmentHitCount(), equalTo(misses));
+        assertThat(stats.getSegmentMissCount(), equalTo(misses + 1));
+
+        // deletes change the segment results
+        client().prepareDelete("index", "type", "1").get();
+        refresh();
+        assertTermCounts(3, 1, 1);
+    }
+
+    private void assertTermCounts(long totalHits, long countA, long countB) {
+        SearchResponse response = client().prepareSearch("index").setSize(0).setSearchType(SearchType.QUERY_THEN_FETCH)
+                .addAggregation(terms("terms").field("f")).get();
+        assertSearchResponse(response);
+        assertThat(response.getHits().totalHits(), equalTo(totalHits));
+        Terms terms = response.getAggregations().get("terms");
+        assertThat(terms.getBucketByKey("a").getDocCount(), equalTo(countA));
+        assertThat(terms.getBucketByKey("b").getDocCount(), equalTo(countB));
+        assertThat(terms.getDocCountError(), equalTo(0l));
+    }
+
+    private QueryCacheStats queryCacheStats() {
+        return client().admin().indices().prepareStats("index").setQueryCache(true).get().getTotal().getQueryCache();
+    }
 }
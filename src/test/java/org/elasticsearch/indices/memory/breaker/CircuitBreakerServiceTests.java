@@ -24,6 +24,7 @@ import org.elasticsearch.action.admin.cluster.node.stats.NodeStats;
 import org.elasticsearch.action.admin.cluster.node.stats.NodesStatsResponse;
 import org.elasticsearch.action.index.IndexRequestBuilder;
 import org.elasticsearch.action.search.SearchRequestBuilder;
+import org.elasticsearch.action.search.SearchResponse;
 import org.elasticsearch.client.Client;
 import org.elasticsearch.common.breaker.CircuitBreaker;
 import org.elasticsearch.common.breaker.CircuitBreakingException;
@@ -34,6 +35,8 @@ import org.elasticsearch.indices.breaker.CircuitBreakerService;
 import org.elasticsearch.indices.breaker.CircuitBreakerStats;
 import org.elasticsearch.indices.breaker.HierarchyCircuitBreakerService;
 import org.elasticsearch.rest.RestStatus;
+import org.elasticsearch.search.aggregations.Aggregator.SubAggCollectionMode;
+import org.elasticsearch.search.aggregations.bucket.terms.Terms;
 import org.elasticsearch.search.sort.SortOrder;
 import org.elasticsearch.test.ElasticsearchIntegrationTest;
 import org.elasticsearch.test.ElasticsearchIntegrationTest.ClusterScope;
@@ -50,9 +53,11 @@ import static org.elasticsearch.cluster.metadata.IndexMetaData.SETTING_NUMBER_OF
 import static org.elasticsearch.common.settings.ImmutableSettings.settingsBuilder;
 import static org.elasticsearch.index.query.QueryBuilders.matchAllQuery;
 import static org.elasticsearch.search.aggregations.AggregationBuilders.cardinality;
+import static org.elasticsearch.search.aggregations.AggregationBuilders.terms;
 import static org.elasticsearch.test.ElasticsearchIntegrationTest.Scope.TEST;
 import static org.elasticsearch.test.hamcrest.ElasticsearchAssertions.assertAcked;
 import static org.elasticsearch.test.hamcrest.ElasticsearchAssertions.assertFailures;
+import static org.elasticsearch.test.hamcrest.ElasticsearchAssertions.assertSearchResponse;
 import static org.hamcrest.CoreMatchers.containsString;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.greaterThanOrEqualTo;
@@ -301,6 +306,48 @@ public class CircuitBreakerServiceTests extends ElasticsearchIntegrationTest {
         }
     }
 
+    @Test
+    public void testBreadthFirstCollectionReleasesRecordedMatches() throws Exception {
+        if (noopBreakerUsed()) {
+            logger.info("--> noop breakers used, skipping test");
+            return;
+        }
+        assertAcked(prepareCreate("cb-test", 1, settingsBuilder().put(SETTING_NUMBER_OF_REPLICAS, between(0, 1))));
+        Client client = client();
+
+        int docCount = scaledRandomIntBetween(300, 1000);
+        List<IndexRequestBuilder> reqs = newArrayList();
+        for (long id = 0; id < docCount; id++) {
+            reqs.add(client.prepareIndex("cb-test", "type", Long.toString(id)).setSource("test", id % 10, "test2", id));
+        }
+        indexRandom(true, reqs);
+
+        // the matches of the top level terms are recorded in BigArrays, and thus accounted by the REQUEST breaker, until
+        // the sub aggregation has been replayed on the best buckets
+        SearchResponse response = client.prepareSearch("cb-test").setQuery(matchAllQuery())
+                .addAggregation(terms("terms").field("test").size(3).collectMode(SubAggCollectionMode.BREADTH_FIRST)
+                        .subAggregation(terms("sub").field("test2").size(0)))
+                .get();
+        assertSearchResponse(response);
+        Terms terms = response.getAggregations().get("terms");
+        assertThat(terms.getBuckets().size(), equalTo(3));
+        for (Terms.Bucket bucket : terms.getBuckets()) {
+            Terms sub = bucket.getAggregations().get("sub");
+            assertThat((long) sub.getBuckets().size(), equalTo(bucket.getDocCount()));
+        }
+
+        assertBusy(new Runnable() {
+            @Override
+            public void run() {
+                NodesStatsResponse stats = client().admin().cluster().prepareNodesStats().setBreaker(true).get();
+                for (NodeStats nodeStats : stats) {
+                    assertThat("recorded matches should be released after the request",
+                            nodeStats.getBreaker().getStats(CircuitBreaker.REQUEST).getEstimated(), equalTo(0L));
+                }
+            }
+        });
+    }
+
     /** Issues a cache clear and waits 30 seconds for the field data breaker to be cleared */
     public void clearFieldData() throws Exception {
         client().admin().indices().prepareClearCache().setFieldDataCache(true).execute().actionGet();
@@ -22,13 +22,19 @@ import com.google.common.collect.Sets;
 import org.apache.lucene.store.IndexOutput;
 import org.elasticsearch.Version;
 import org.elasticsearch.cluster.node.DiscoveryNode;
+import org.elasticsearch.common.bytes.BytesArray;
 import org.elasticsearch.common.transport.LocalTransportAddress;
 import org.elasticsearch.index.IndexService;
 import org.elasticsearch.index.shard.IndexShard;
+import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.index.store.StoreFileMetaData;
 import org.elasticsearch.test.ElasticsearchSingleNodeTest;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.Set;
 import java.util.regex.Pattern;
 
@@ -74,4 +80,25 @@ public class RecoveryStatusTests extends ElasticsearchSingleNodeTest {
         // we must fail the recovery because marking it as done will try to move the shard to POST_RECOVERY, which will fail because it's started
         status.fail(new RecoveryFailedException(status.state(), "end of test. OK.", null), false);
     }
+
+    public void testFileChunkReorderer() {
+        final StoreFileMetaData md = new StoreFileMetaData("foo.bar", 10);
+        final ShardId shardId = new ShardId("foo", 0);
+        final List<RecoveryFileChunkRequest> chunks = new ArrayList<>();
+        for (int position = 0; position < 10; position += 2) {
+            chunks.add(new RecoveryFileChunkRequest(1, shardId, md, position, new BytesArray(new byte[2]), position == 8, 0, 0));
+        }
+        Collections.shuffle(chunks, getRandom());
+
+        RecoveryStatus.FileChunkReorderer reorderer = new RecoveryStatus.FileChunkReorderer();
+        List<Long> written = new ArrayList<>();
+        synchronized (reorderer) {
+            for (RecoveryFileChunkRequest chunk : chunks) {
+                for (RecoveryFileChunkRequest ready : reorderer.ready(chunk)) {
+                    written.add(ready.position());
+                }
+            }
+        }
+        assertEquals(Arrays.asList(0L, 2L, 4L, 6L, 8L), written);
+    }
 }
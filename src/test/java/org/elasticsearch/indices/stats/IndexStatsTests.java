@@ -43,6 +43,7 @@ import org.elasticsearch.index.cache.filter.FilterCacheModule;
 import org.elasticsearch.index.cache.filter.FilterCacheModule.FilterCacheSettings;
 import org.elasticsearch.index.cache.filter.FilterCacheStats;
 import org.elasticsearch.index.cache.filter.index.IndexFilterCache;
+import org.elasticsearch.index.fielddata.FieldDataStats;
 import org.elasticsearch.index.merge.policy.TieredMergePolicyProvider;
 import org.elasticsearch.index.merge.scheduler.ConcurrentMergeSchedulerProvider;
 import org.elasticsearch.index.query.QueryBuilders;
@@ -61,13 +62,16 @@ import java.util.Random;
 import static org.elasticsearch.cluster.metadata.IndexMetaData.SETTING_NUMBER_OF_REPLICAS;
 import static org.elasticsearch.common.settings.ImmutableSettings.settingsBuilder;
 import static org.elasticsearch.common.xcontent.XContentFactory.jsonBuilder;
+import static org.elasticsearch.search.aggregations.AggregationBuilders.terms;
 import static org.elasticsearch.test.hamcrest.ElasticsearchAssertions.assertAcked;
 import static org.elasticsearch.test.hamcrest.ElasticsearchAssertions.assertAllSuccessful;
 import static org.elasticsearch.test.hamcrest.ElasticsearchAssertions.assertSearchResponse;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
 import static org.hamcrest.Matchers.notNullValue;
 import static org.hamcrest.Matchers.nullValue;
 
@@ -130,6 +134,39 @@ public class IndexStatsTests extends ElasticsearchIntegrationTest {
 
     }
 
+    @Test
+    public void testGlobalOrdinalsStats() throws Exception {
+        assertAcked(prepareCreate("test").setSettings(settingsBuilder()
+                .put(IndexMetaData.SETTING_NUMBER_OF_SHARDS, 1)
+                .put(IndexMetaData.SETTING_NUMBER_OF_REPLICAS, 0)
+                .put(TieredMergePolicyProvider.INDEX_MERGE_POLICY_SEGMENTS_PER_TIER, 100)));
+        ensureGreen();
+        // several segments, so that global ordinals need to be built
+        for (int i = 0; i < 5; i++) {
+            client().prepareIndex("test", "type", Integer.toString(i)).setSource("field", "value" + i).get();
+            refresh();
+        }
+
+        IndicesStatsResponse indicesStats = client().admin().indices().prepareStats("test").clear().setFieldData(true).get();
+        assertThat(indicesStats.getTotal().getFieldData().getGlobalOrdinalsBuildCount(), equalTo(0l));
+        assertThat(indicesStats.getTotal().getFieldData().getGlobalOrdinalsMemorySizeInBytes(), equalTo(0l));
+
+        SearchResponse response = client().prepareSearch("test")
+                .addAggregation(terms("terms").field("field").executionHint("global_ordinals")).get();
+        assertSearchResponse(response);
+
+        indicesStats = client().admin().indices().prepareStats("test").clear().setFieldData(true).get();
+        FieldDataStats fieldDataStats = indicesStats.getTotal().getFieldData();
+        assertThat(fieldDataStats.getGlobalOrdinalsBuildCount(), greaterThanOrEqualTo(1l));
+        assertThat(fieldDataStats.getGlobalOrdinalsMemorySizeInBytes(), greaterThan(0l));
+        assertThat(fieldDataStats.getGlobalOrdinalsMemorySizeInBytes(), lessThanOrEqualTo(fieldDataStats.getMemorySizeInBytes()));
+
+        client().admin().indices().prepareClearCache("test").setFieldDataCache(true).get();
+        indicesStats = client().admin().indices().prepareStats("test").clear().setFieldData(true).get();
+        assertThat(indicesStats.getTotal().getFieldData().getGlobalOrdinalsMemorySizeInBytes(), equalTo(0l));
+        assertThat(indicesStats.getTotal().getFieldData().getGlobalOrdinalsBuildCount(), equalTo(fieldDataStats.getGlobalOrdinalsBuildCount()));
+    }
+
     @Test
     public void testClearAllCaches() throws Exception {
         client().admin().indices().prepareCreate("test")
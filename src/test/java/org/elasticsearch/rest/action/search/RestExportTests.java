@@ -0,0 +1,87 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.rest.action.search;
+
+import com.google.common.base.Charsets;
+import org.elasticsearch.action.index.IndexRequestBuilder;
+import org.elasticsearch.common.settings.ImmutableSettings;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.xcontent.XContentHelper;
+import org.elasticsearch.node.Node;
+import org.elasticsearch.test.ElasticsearchIntegrationTest;
+import org.elasticsearch.test.rest.client.http.HttpResponse;
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import static org.elasticsearch.test.ElasticsearchIntegrationTest.ClusterScope;
+import static org.elasticsearch.test.ElasticsearchIntegrationTest.Scope;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.startsWith;
+
+/**
+ */
+@ClusterScope(scope = Scope.SUITE)
+public class RestExportTests extends ElasticsearchIntegrationTest {
+
+    @Override
+    protected Settings nodeSettings(int nodeOrdinal) {
+        return ImmutableSettings.settingsBuilder()
+                .put(super.nodeSettings(nodeOrdinal))
+                .put(Node.HTTP_ENABLED, true)
+                .build();
+    }
+
+    @Test
+    public void testExportStreamsAllMatchingDocuments() throws Exception {
+        createIndex("test");
+        ensureGreen();
+        int numDocs = scaledRandomIntBetween(10, 200);
+        IndexRequestBuilder[] builders = new IndexRequestBuilder[numDocs];
+        for (int i = 0; i < numDocs; i++) {
+            builders[i] = client().prepareIndex("test", "type", Integer.toString(i)).setSource("field", i, "even", i % 2 == 0);
+        }
+        indexRandom(true, builders);
+
+        HttpResponse response = httpClient().method("GET").path("/test/_export")
+                .addParam("size", Integer.toString(randomIntBetween(1, 10)))
+                .addParam("q", "even:true")
+                .execute();
+        assertThat(response.getStatusCode(), equalTo(200));
+        assertThat(response.getHeaders().get("Transfer-Encoding"), equalTo("chunked"));
+        assertThat(response.getHeaders().get("Content-Type"), startsWith(RestExportAction.CONTENT_TYPE));
+
+        Set<String> ids = new HashSet<>();
+        for (String line : response.getBody().split("\n")) {
+            Map<String, Object> hit = XContentHelper.convertToMap(line.getBytes(Charsets.UTF_8), false).v2();
+            assertThat(hit.get("_index"), equalTo((Object) "test"));
+            assertThat(hit.get("_type"), equalTo((Object) "type"));
+            @SuppressWarnings("unchecked")
+            Map<String, Object> source = (Map<String, Object>) hit.get("_source");
+            assertThat(source.get("field"), equalTo((Object) Integer.parseInt((String) hit.get("_id"))));
+            assertThat(source.get("even"), equalTo((Object) true));
+            assertThat("duplicate hit " + hit.get("_id"), ids.add((String) hit.get("_id")), equalTo(true));
+        }
+        assertThat(ids.size(), equalTo((numDocs + 1) / 2));
+    }
+
+}
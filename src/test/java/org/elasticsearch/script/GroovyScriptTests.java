@@ -23,24 +23,34 @@ import org.elasticsearch.ExceptionsHelper;
 import org.elasticsearch.action.index.IndexRequestBuilder;
 import org.elasticsearch.action.search.SearchPhaseExecutionException;
 import org.elasticsearch.action.search.SearchResponse;
+import com.google.common.collect.ImmutableMap;
 import org.elasticsearch.common.lucene.search.function.CombineFunction;
+import org.elasticsearch.common.settings.ImmutableSettings;
 import org.elasticsearch.script.groovy.GroovyScriptEngineService;
+import org.elasticsearch.search.SearchHit;
+import org.elasticsearch.search.SearchService;
 import org.elasticsearch.test.ElasticsearchIntegrationTest;
 import org.junit.Test;
 
+import java.util.Collections;
 import java.util.List;
 
 import static com.google.common.collect.Lists.newArrayList;
+import static org.elasticsearch.cluster.metadata.IndexMetaData.SETTING_NUMBER_OF_REPLICAS;
+import static org.elasticsearch.cluster.metadata.IndexMetaData.SETTING_NUMBER_OF_SHARDS;
 import static org.elasticsearch.index.query.QueryBuilders.scriptQuery;
 import static org.elasticsearch.index.query.QueryBuilders.constantScoreQuery;
 import static org.elasticsearch.index.query.QueryBuilders.functionScoreQuery;
 import static org.elasticsearch.index.query.QueryBuilders.matchAllQuery;
 import static org.elasticsearch.index.query.QueryBuilders.matchQuery;
 import static org.elasticsearch.index.query.functionscore.ScoreFunctionBuilders.scriptFunction;
+import static org.elasticsearch.test.hamcrest.ElasticsearchAssertions.assertAcked;
 import static org.elasticsearch.test.hamcrest.ElasticsearchAssertions.assertNoFailures;
 import static org.elasticsearch.test.hamcrest.ElasticsearchAssertions.assertOrderedSearchHits;
 import static org.elasticsearch.test.hamcrest.ElasticsearchAssertions.assertSearchHits;
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.not;
 
 /**
  * Various tests for Groovy scripting
@@ -114,6 +124,81 @@ public class GroovyScriptTests extends ElasticsearchIntegrationTest {
         assertOrderedSearchHits(resp, "3", "2", "1");
     }
     
+    @Test
+    public void testDocValueAccess() throws Exception {
+        List<IndexRequestBuilder> reqs = newArrayList();
+        int numDocs = randomIntBetween(50, 500);
+        for (int i = 0; i < numDocs; i++) {
+            reqs.add(client().prepareIndex("test", "doc", "" + i).setSource("bar", i, "baz", i / 2d));
+        }
+        // spread the documents over several segments
+        indexRandom(true, false, reqs);
+
+        SearchResponse resp = client().prepareSearch("test")
+                .setQuery(constantScoreQuery(scriptQuery("doc['bar'].value % 2 == 1").lang(GroovyScriptEngineService.NAME)))
+                .setSize(numDocs)
+                .addScriptField("sum", GroovyScriptEngineService.NAME, "doc['bar'].value + _doc['baz'].value + doc['bar'].value",
+                        Collections.<String, Object>emptyMap())
+                // a parameter masks the doc lookup
+                .addScriptField("param", GroovyScriptEngineService.NAME, "doc['bar'].value",
+                        ImmutableMap.<String, Object>of("doc", ImmutableMap.of("bar", ImmutableMap.of("value", 7))))
+                // so does a variable of the script
+                .addScriptField("local", GroovyScriptEngineService.NAME, "def doc = [bar: [value: 3]]; doc['bar'].value",
+                        Collections.<String, Object>emptyMap())
+                // variables the script assigns don't survive from one hit to the next
+                .addScriptField("assigned", GroovyScriptEngineService.NAME, "x = (binding.variables.x ?: 0) + doc['bar'].value",
+                        Collections.<String, Object>emptyMap())
+                .get();
+        assertNoFailures(resp);
+        assertThat(resp.getHits().getTotalHits(), equalTo((long) numDocs / 2));
+        for (SearchHit hit : resp.getHits()) {
+            int bar = Integer.parseInt(hit.getId());
+            assertThat(bar % 2, equalTo(1));
+            assertThat(((Number) hit.field("sum").getValue()).doubleValue(), equalTo(bar * 2.5));
+            assertThat(((Number) hit.field("param").getValue()).intValue(), equalTo(7));
+            assertThat(((Number) hit.field("local").getValue()).intValue(), equalTo(3));
+            assertThat(((Number) hit.field("assigned").getValue()).intValue(), equalTo(bar));
+        }
+    }
+
+    @Test
+    public void testConcurrentSegmentSearch() throws Exception {
+        assertAcked(prepareCreate("test").setSettings(ImmutableSettings.builder()
+                .put(SETTING_NUMBER_OF_SHARDS, 1)
+                .put(SETTING_NUMBER_OF_REPLICAS, 0)
+                .put(SearchService.CONCURRENT_SEARCH_KEY, true)));
+        ensureGreen();
+
+        // every round creates a new segment, so that the shard is searched in several slices at once
+        int id = 0;
+        for (int round = 0; round < 12; round++) {
+            IndexRequestBuilder[] builders = new IndexRequestBuilder[randomIntBetween(5, 20)];
+            for (int i = 0; i < builders.length; i++) {
+                builders[i] = client().prepareIndex("test", "doc", Integer.toString(id)).setSource("bar", id);
+                id++;
+            }
+            indexRandom(false, false, builders);
+            refresh();
+        }
+
+        SearchResponse resp = client().prepareSearch("test")
+                .setQuery(functionScoreQuery(constantScoreQuery(scriptQuery("doc['bar'].value % 3 != 0").lang(GroovyScriptEngineService.NAME)))
+                        .add(scriptFunction("doc['bar'].value * 2 + _score", GroovyScriptEngineService.NAME))
+                        .boostMode(CombineFunction.REPLACE))
+                .setSize(id)
+                .get();
+        assertNoFailures(resp);
+        assertThat(resp.getHits().getTotalHits(), equalTo((long) (id - (id + 2) / 3)));
+        float previous = Float.POSITIVE_INFINITY;
+        for (SearchHit hit : resp.getHits()) {
+            int bar = Integer.parseInt(hit.getId());
+            assertThat(bar % 3, not(equalTo(0)));
+            assertThat(hit.getScore(), equalTo(bar * 2 + 1f));
+            assertThat(hit.getScore(), lessThan(previous));
+            previous = hit.getScore();
+        }
+    }
+
     public void testScoreAccess() {
         client().prepareIndex("test", "doc", "1").setSource("foo", "quick brow fox jumped over the lazy dog", "bar", 1).get();
         client().prepareIndex("test", "doc", "2").setSource("foo", "fast jumping spiders", "bar", 2).get();
@@ -19,13 +19,17 @@
 
 package org.elasticsearch.script.expression;
 
+import com.google.common.collect.ImmutableMap;
+import org.elasticsearch.action.index.IndexRequestBuilder;
 import org.elasticsearch.action.search.SearchPhaseExecutionException;
 import org.elasticsearch.action.search.SearchRequestBuilder;
 import org.elasticsearch.action.search.SearchResponse;
 import org.elasticsearch.action.search.SearchType;
+import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.index.query.QueryBuilders;
 import org.elasticsearch.index.query.functionscore.ScoreFunctionBuilder;
 import org.elasticsearch.index.query.functionscore.ScoreFunctionBuilders;
+import org.elasticsearch.search.SearchHit;
 import org.elasticsearch.search.SearchHits;
 import org.elasticsearch.search.aggregations.AggregationBuilders;
 import org.elasticsearch.search.aggregations.metrics.stats.Stats;
@@ -34,15 +38,27 @@ import org.elasticsearch.search.sort.SortOrder;
 import org.elasticsearch.test.ElasticsearchIntegrationTest;
 import org.elasticsearch.test.hamcrest.ElasticsearchAssertions;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
+import static org.elasticsearch.common.settings.ImmutableSettings.settingsBuilder;
 import static org.elasticsearch.test.hamcrest.ElasticsearchAssertions.assertSearchResponse;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.lessThan;
 
 public class ExpressionScriptTests extends ElasticsearchIntegrationTest {
 
+    @Override
+    protected Settings nodeSettings(int nodeOrdinal) {
+        // evaluate one document at a time or over blocks of various sizes
+        return settingsBuilder().put(super.nodeSettings(nodeOrdinal))
+                .put(ExpressionScriptEngineService.BLOCK_SIZE, randomFrom(0, 1, 2, 7, ExpressionScriptEngineService.DEFAULT_BLOCK_SIZE))
+                .build();
+    }
+
     private SearchRequestBuilder buildRequest(String script, Object... params) {
         ensureGreen("test");
 
@@ -186,6 +202,33 @@ public class ExpressionScriptTests extends ElasticsearchIntegrationTest {
         assertEquals(13.5, hits.getAt(2).field("foo").getValue());
     }
 
+    public void testSparseMatches() throws Exception {
+        ElasticsearchAssertions.assertAcked(prepareCreate("test").addMapping("doc", "x", "type=long", "keep", "type=boolean"));
+        ensureGreen("test");
+        int numDocs = scaledRandomIntBetween(50, 500);
+        List<IndexRequestBuilder> docs = new ArrayList<>();
+        for (int i = 0; i < numDocs; i++) {
+            docs.add(client().prepareIndex("test", "doc", Integer.toString(i)).setSource("x", i, "keep", randomBoolean()));
+        }
+        indexRandom(true, docs);
+        SearchResponse rsp = client().prepareSearch("test")
+                .setQuery(QueryBuilders.termQuery("keep", true))
+                .setSize(numDocs)
+                .addSort(SortBuilders.scriptSort("doc['x'] * a + 1", "number").lang(ExpressionScriptEngineService.NAME)
+                        .param("a", 2).order(SortOrder.DESC))
+                .addScriptField("foo", ExpressionScriptEngineService.NAME, "doc['x'] * a + 1", ImmutableMap.<String, Object>of("a", 2))
+                .get();
+        assertSearchResponse(rsp);
+        double previous = Double.POSITIVE_INFINITY;
+        for (SearchHit hit : rsp.getHits()) {
+            double expected = Integer.parseInt(hit.getId()) * 2 + 1;
+            assertEquals(expected, hit.field("foo").getValue());
+            assertEquals(expected, (Double) hit.getSortValues()[0], 0d);
+            assertThat(expected, lessThan(previous));
+            previous = expected;
+        }
+    }
+
     public void testCompileFailure() {
         client().prepareIndex("test", "doc", "1").setSource("x", 1).setRefresh(true).get();
         try {
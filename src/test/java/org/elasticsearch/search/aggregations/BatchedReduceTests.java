@@ -0,0 +1,115 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.search.aggregations;
+
+import org.elasticsearch.action.index.IndexRequestBuilder;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.action.search.SearchType;
+import org.elasticsearch.common.settings.ImmutableSettings;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.search.aggregations.bucket.histogram.Histogram;
+import org.elasticsearch.search.aggregations.bucket.terms.Terms;
+import org.elasticsearch.search.aggregations.metrics.sum.Sum;
+import org.elasticsearch.search.aggregations.metrics.tophits.TopHits;
+import org.elasticsearch.search.controller.SearchPhaseController;
+import org.elasticsearch.search.sort.SortOrder;
+import org.elasticsearch.test.ElasticsearchIntegrationTest;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.elasticsearch.common.xcontent.XContentFactory.jsonBuilder;
+import static org.elasticsearch.search.aggregations.AggregationBuilders.histogram;
+import static org.elasticsearch.search.aggregations.AggregationBuilders.sum;
+import static org.elasticsearch.search.aggregations.AggregationBuilders.terms;
+import static org.elasticsearch.search.aggregations.AggregationBuilders.topHits;
+import static org.elasticsearch.test.hamcrest.ElasticsearchAssertions.assertAcked;
+import static org.elasticsearch.test.hamcrest.ElasticsearchAssertions.assertSearchResponse;
+import static org.hamcrest.Matchers.equalTo;
+
+/**
+ * Runs aggregations on more shards than fit into a single reduce batch, so that the shard results are partially reduced
+ * while they arrive on the coordinating node.
+ */
+@ElasticsearchIntegrationTest.ClusterScope(scope = ElasticsearchIntegrationTest.Scope.SUITE)
+public class BatchedReduceTests extends ElasticsearchIntegrationTest {
+
+    @Override
+    protected Settings nodeSettings(int nodeOrdinal) {
+        return ImmutableSettings.builder()
+                .put(super.nodeSettings(nodeOrdinal))
+                .put(SearchPhaseController.SEARCH_CONTROLLER_BATCHED_REDUCE_SIZE_KEY, 2).build();
+    }
+
+    @Test
+    public void testPartialReduceMatchesSingleReduce() throws Exception {
+        final int numShards = randomIntBetween(3, 10);
+        assertAcked(prepareCreate("idx").setSettings(ImmutableSettings.builder()
+                .put("index.number_of_shards", numShards).put("index.number_of_replicas", 0)));
+        final int numTerms = randomIntBetween(2, 10);
+        final long[] termCounts = new long[numTerms];
+        final long[] termSums = new long[numTerms];
+        final int numDocs = scaledRandomIntBetween(50, 200);
+        List<IndexRequestBuilder> builders = new ArrayList<>();
+        for (int i = 0; i < numDocs; i++) {
+            final int term = randomInt(numTerms - 1);
+            termCounts[term]++;
+            termSums[term] += i;
+            builders.add(client().prepareIndex("idx", "type", Integer.toString(i)).setSource(jsonBuilder().startObject()
+                    .field("term", term)
+                    .field("value", i)
+                    .endObject()));
+        }
+        indexRandom(true, builders);
+
+        SearchResponse response = client().prepareSearch("idx")
+                .setSearchType(randomFrom(SearchType.QUERY_THEN_FETCH, SearchType.QUERY_AND_FETCH, SearchType.COUNT))
+                .addAggregation(terms("terms").field("term").size(numTerms)
+                        .subAggregation(sum("sum").field("value")))
+                .addAggregation(histogram("histo").field("term").interval(1).minDocCount(1))
+                .addAggregation(topHits("top").setSize(3).setFrom(1).addSort("value", SortOrder.DESC))
+                .get();
+        assertSearchResponse(response);
+
+        Terms terms = response.getAggregations().get("terms");
+        Histogram histo = response.getAggregations().get("histo");
+        int nonEmptyTerms = 0;
+        for (int term = 0; term < numTerms; term++) {
+            if (termCounts[term] == 0) {
+                continue;
+            }
+            nonEmptyTerms++;
+            Terms.Bucket bucket = terms.getBucketByKey(Integer.toString(term));
+            assertThat(bucket.getDocCount(), equalTo(termCounts[term]));
+            Sum sum = bucket.getAggregations().get("sum");
+            assertThat((long) sum.getValue(), equalTo(termSums[term]));
+            assertThat(terms.getDocCountError(), equalTo(0l));
+        }
+        assertThat(terms.getBuckets().size(), equalTo(nonEmptyTerms));
+        assertThat(histo.getBuckets().size(), equalTo(nonEmptyTerms));
+
+        TopHits topHits = response.getAggregations().get("top");
+        assertThat(topHits.getHits().getHits().length, equalTo(3));
+        for (int i = 0; i < 3; i++) {
+            assertThat(topHits.getHits().getAt(i).id(), equalTo(Integer.toString(numDocs - 2 - i)));
+        }
+    }
+}
@@ -21,6 +21,7 @@ package org.elasticsearch.search.aggregations.bucket;
 import org.elasticsearch.ElasticsearchException;
 import org.elasticsearch.action.index.IndexRequestBuilder;
 import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.cluster.metadata.IndexMetaData;
 import org.elasticsearch.index.query.QueryBuilders;
 import org.elasticsearch.search.aggregations.Aggregator.SubAggCollectionMode;
 import org.elasticsearch.search.aggregations.bucket.filter.Filter;
@@ -43,6 +44,7 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 
+import static org.elasticsearch.common.settings.ImmutableSettings.settingsBuilder;
 import static org.elasticsearch.common.xcontent.XContentFactory.jsonBuilder;
 import static org.elasticsearch.index.query.QueryBuilders.matchAllQuery;
 import static org.elasticsearch.search.aggregations.AggregationBuilders.avg;
@@ -1264,4 +1266,63 @@ public class LongTermsTests extends AbstractTermsTests {
     public void otherDocCount() {
         testOtherDocCount(SINGLE_VALUED_FIELD_NAME, MULTI_VALUED_FIELD_NAME);
     }
+
+    @Test
+    public void denseAndSparseSegments() throws Exception {
+        assertAcked(prepareCreate("dense_sparse_idx")
+                .setSettings(settingsBuilder().put(IndexMetaData.SETTING_NUMBER_OF_SHARDS, 1).put(IndexMetaData.SETTING_NUMBER_OF_REPLICAS, 0))
+                .addMapping("type", SINGLE_VALUED_FIELD_NAME, "type=long", MULTI_VALUED_FIELD_NAME, "type=long"));
+        // segments with values in a small range are counted in arrays, others go through the hash
+        final long[][] segments = new long[][] {
+                { 0, 1, 2, 3, 4, 5, 6, 7, 8, 9, 3, 3, 5 },
+                { 5, Long.MIN_VALUE, Long.MAX_VALUE, 1L << 40, -1L << 40, 5 },
+                { 1000, 1001, 1002, 1002, 1000, 1001 }
+        };
+        final Map<Long, Long> expectedSingleValued = new HashMap<>();
+        final Map<Long, Long> expectedMultiValued = new HashMap<>();
+        int id = 0;
+        for (long[] segment : segments) {
+            for (long value : segment) {
+                client().prepareIndex("dense_sparse_idx", "type", Integer.toString(id++)).setSource(jsonBuilder().startObject()
+                        .field(SINGLE_VALUED_FIELD_NAME, value)
+                        .startArray(MULTI_VALUED_FIELD_NAME).value(value).value(value + 1).value(value).endArray()
+                        .endObject()).get();
+                increment(expectedSingleValued, value);
+                increment(expectedMultiValued, value);
+                if (value != Long.MAX_VALUE) {
+                    increment(expectedMultiValued, value + 1);
+                } else {
+                    increment(expectedMultiValued, Long.MIN_VALUE);
+                }
+            }
+            refresh();
+        }
+
+        assertTermCounts(SINGLE_VALUED_FIELD_NAME, expectedSingleValued);
+        assertTermCounts(MULTI_VALUED_FIELD_NAME, expectedMultiValued);
+    }
+
+    private static void increment(Map<Long, Long> counts, long value) {
+        final Long count = counts.get(value);
+        counts.put(value, count == null ? 1 : count + 1);
+    }
+
+    private void assertTermCounts(String field, Map<Long, Long> expected) {
+        SearchResponse response = client().prepareSearch("dense_sparse_idx")
+                .addAggregation(terms("terms").field(field).size(0))
+                .addAggregation(terms("terms_with_sub_agg").field(field).size(0)
+                        .collectMode(randomFrom(SubAggCollectionMode.values()))
+                        .subAggregation(max("max").field(field)))
+                .get();
+        assertSearchResponse(response);
+
+        for (String name : new String[] { "terms", "terms_with_sub_agg" }) {
+            Terms terms = response.getAggregations().get(name);
+            assertThat(terms.getBuckets().size(), equalTo(expected.size()));
+            for (Terms.Bucket bucket : terms.getBuckets()) {
+                final long value = bucket.getKeyAsNumber().longValue();
+                assertThat(bucket.getDocCount(), equalTo(expected.get(value)));
+            }
+        }
+    }
 }
@@ -21,6 +21,7 @@ package org.elasticsearch.search.aggregations.metrics.cardinality;
 
 import com.carrotsearch.hppc.IntOpenHashSet;
 import com.carrotsearch.hppc.hash.MurmurHash3;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
 import org.elasticsearch.common.util.BigArrays;
 import org.elasticsearch.test.ElasticsearchTestCase;
 import org.junit.Test;
@@ -28,6 +29,7 @@ import org.junit.Test;
 import static org.elasticsearch.search.aggregations.metrics.cardinality.HyperLogLogPlusPlus.MAX_PRECISION;
 import static org.elasticsearch.search.aggregations.metrics.cardinality.HyperLogLogPlusPlus.MIN_PRECISION;
 import static org.hamcrest.Matchers.closeTo;
+import static org.hamcrest.Matchers.lessThan;
 
 public class HyperLogLogPlusPlusTests extends ElasticsearchTestCase {
 
@@ -134,4 +136,43 @@ public class HyperLogLogPlusPlusTests extends ElasticsearchTestCase {
         assertEquals(18, HyperLogLogPlusPlus.precisionFromThreshold(1000000));
     }
 
+    @Test
+    public void mergeSerialized() throws Exception {
+        final int p = randomIntBetween(MIN_PRECISION, MAX_PRECISION);
+        final HyperLogLogPlusPlus merged = new HyperLogLogPlusPlus(p, BigArrays.NON_RECYCLING_INSTANCE, 0);
+        final HyperLogLogPlusPlus streamMerged = new HyperLogLogPlusPlus(p, BigArrays.NON_RECYCLING_INSTANCE, 0);
+        final int numCounters = randomIntBetween(2, 20);
+        for (int i = 0; i < numCounters; ++i) {
+            final HyperLogLogPlusPlus counts = new HyperLogLogPlusPlus(p, BigArrays.NON_RECYCLING_INSTANCE, 1);
+            final int numValues = randomIntBetween(0, randomBoolean() ? 100 : 100000);
+            for (int j = 0; j < numValues; ++j) {
+                counts.collect(0, MurmurHash3.hash((long) randomInt(1000000)));
+            }
+            merged.merge(0, counts, 0);
+            try (BytesStreamOutput out = new BytesStreamOutput()) {
+                counts.writeTo(0, out);
+                streamMerged.merge(0, out.bytes().streamInput());
+            }
+            assertEquals(merged.cardinality(0), streamMerged.cardinality(0));
+        }
+    }
+
+    @Test
+    public void sparseBucketsDontAllocateRegisters() {
+        final int p = randomIntBetween(12, MAX_PRECISION);
+        final int numBuckets = randomIntBetween(100, 1000);
+        final HyperLogLogPlusPlus counts = new HyperLogLogPlusPlus(p, BigArrays.NON_RECYCLING_INSTANCE, 1);
+        for (int bucket = 0; bucket < numBuckets; ++bucket) {
+            for (int i = 0; i < 10; ++i) {
+                counts.collect(bucket, MurmurHash3.hash((long) randomInt()));
+            }
+        }
+        // dense registers would take 2^p bytes per bucket
+        assertThat(counts.ramBytesUsed(), lessThan((long) numBuckets * HyperLogLogPlusPlus.memoryUsage(p) / 10));
+
+        // a bucket that is upgraded to hyperloglog only allocates registers for itself
+        counts.upgradeToHll(0);
+        assertThat(counts.ramBytesUsed(), lessThan((long) numBuckets * HyperLogLogPlusPlus.memoryUsage(p) / 5));
+    }
+
 }
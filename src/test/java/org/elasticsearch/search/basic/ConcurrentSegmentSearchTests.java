@@ -0,0 +1,130 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.search.basic;
+
+import org.elasticsearch.action.index.IndexRequestBuilder;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.common.settings.ImmutableSettings;
+import org.elasticsearch.search.SearchService;
+import org.elasticsearch.search.aggregations.bucket.terms.Terms;
+import org.elasticsearch.search.aggregations.metrics.sum.Sum;
+import org.elasticsearch.search.sort.SortOrder;
+import org.elasticsearch.test.ElasticsearchIntegrationTest;
+import org.junit.Test;
+
+import static org.elasticsearch.cluster.metadata.IndexMetaData.SETTING_NUMBER_OF_REPLICAS;
+import static org.elasticsearch.cluster.metadata.IndexMetaData.SETTING_NUMBER_OF_SHARDS;
+import static org.elasticsearch.index.query.QueryBuilders.matchAllQuery;
+import static org.elasticsearch.index.query.QueryBuilders.termQuery;
+import static org.elasticsearch.search.aggregations.AggregationBuilders.sum;
+import static org.elasticsearch.search.aggregations.AggregationBuilders.terms;
+import static org.elasticsearch.test.hamcrest.ElasticsearchAssertions.assertAcked;
+import static org.elasticsearch.test.hamcrest.ElasticsearchAssertions.assertSearchResponse;
+import static org.hamcrest.Matchers.equalTo;
+
+public class ConcurrentSegmentSearchTests extends ElasticsearchIntegrationTest {
+
+    @Test
+    public void testSameResultsAsSerialSearch() throws Exception {
+        assertAcked(prepareCreate("test").setSettings(ImmutableSettings.builder()
+                .put(SETTING_NUMBER_OF_SHARDS, 1)
+                .put(SETTING_NUMBER_OF_REPLICAS, 0)
+                .put(SearchService.CONCURRENT_SEARCH_KEY, false)));
+        ensureGreen();
+
+        // every round creates a new segment, so that the shard has more than one slice
+        int id = 0;
+        for (int round = 0; round < 8; round++) {
+            IndexRequestBuilder[] builders = new IndexRequestBuilder[randomIntBetween(5, 20)];
+            for (int i = 0; i < builders.length; i++) {
+                builders[i] = client().prepareIndex("test", "type", Integer.toString(id))
+                        .setSource("value", id, "tag", "tag" + (id % 7), "even", id % 2 == 0);
+                id++;
+            }
+            indexRandom(false, false, builders);
+            refresh();
+        }
+
+        // without hits the main query only counts matches, which must be sliced as well
+        for (int size : new int[] {0, randomIntBetween(1, id)}) {
+            SearchResponse[] responses = new SearchResponse[2];
+            for (int i = 0; i < responses.length; i++) {
+                final boolean concurrent = i == 1;
+                assertAcked(client().admin().indices().prepareUpdateSettings("test")
+                        .setSettings(ImmutableSettings.builder().put(SearchService.CONCURRENT_SEARCH_KEY, concurrent)));
+                responses[i] = client().prepareSearch("test")
+                        .setQuery(randomBoolean() ? matchAllQuery() : termQuery("even", true))
+                        .addSort("value", SortOrder.DESC)
+                        .setSize(size)
+                        .addAggregation(terms("tags").field("tag").size(0))
+                        .addAggregation(sum("sum").field("value"))
+                        .get();
+                assertSearchResponse(responses[i]);
+            }
+
+            SearchResponse serial = responses[0];
+            SearchResponse concurrent = responses[1];
+            assertThat(concurrent.getHits().totalHits(), equalTo(serial.getHits().totalHits()));
+            assertThat(concurrent.getHits().hits().length, equalTo(serial.getHits().hits().length));
+            for (int i = 0; i < serial.getHits().hits().length; i++) {
+                assertThat(concurrent.getHits().getAt(i).id(), equalTo(serial.getHits().getAt(i).id()));
+            }
+
+            Terms serialTags = serial.getAggregations().get("tags");
+            Terms concurrentTags = concurrent.getAggregations().get("tags");
+            assertThat(concurrentTags.getBuckets().size(), equalTo(serialTags.getBuckets().size()));
+            for (Terms.Bucket bucket : serialTags.getBuckets()) {
+                assertThat(concurrentTags.getBucketByKey(bucket.getKeyAsString()).getDocCount(), equalTo(bucket.getDocCount()));
+            }
+            Sum serialSum = serial.getAggregations().get("sum");
+            Sum concurrentSum = concurrent.getAggregations().get("sum");
+            assertThat(concurrentSum.getValue(), equalTo(serialSum.getValue()));
+        }
+    }
+
+    @Test
+    public void testTerminateAfter() throws Exception {
+        assertAcked(prepareCreate("test").setSettings(ImmutableSettings.builder()
+                .put(SETTING_NUMBER_OF_SHARDS, 1)
+                .put(SETTING_NUMBER_OF_REPLICAS, 0)
+                .put(SearchService.CONCURRENT_SEARCH_KEY, true)));
+        ensureGreen();
+
+        int id = 0;
+        for (int round = 0; round < 8; round++) {
+            IndexRequestBuilder[] builders = new IndexRequestBuilder[10];
+            for (int i = 0; i < builders.length; i++) {
+                builders[i] = client().prepareIndex("test", "type", Integer.toString(id)).setSource("value", id);
+                id++;
+            }
+            indexRandom(false, false, builders);
+            refresh();
+        }
+
+        SearchResponse response = client().prepareSearch("test").setQuery(matchAllQuery()).setTerminateAfter(id + 1).get();
+        assertSearchResponse(response);
+        assertThat(response.getHits().totalHits(), equalTo((long) id));
+        assertThat(response.isTerminatedEarly(), equalTo(false));
+
+        response = client().prepareSearch("test").setQuery(matchAllQuery()).setTerminateAfter(5).get();
+        assertSearchResponse(response);
+        assertThat(response.isTerminatedEarly(), equalTo(true));
+    }
+}
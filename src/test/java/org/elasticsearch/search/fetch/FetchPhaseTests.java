@@ -0,0 +1,60 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.search.fetch;
+
+import org.elasticsearch.test.ElasticsearchTestCase;
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+public class FetchPhaseTests extends ElasticsearchTestCase {
+
+    @Test
+    public void testDocIdsInDocOrder() {
+        int[] docIds = new int[]{-1, 42, 7, Integer.MAX_VALUE, 0, 7, -1};
+        int[] order = FetchPhase.docIdsInDocOrder(docIds, 1, 5);
+        assertThat(order.length, equalTo(5));
+        assertThat(order[0], equalTo(3));
+        assertThat(docIds[1 + order[1]], equalTo(7));
+        assertThat(docIds[1 + order[2]], equalTo(7));
+        assertThat(order[3], equalTo(0));
+        assertThat(order[4], equalTo(2));
+    }
+
+    @Test
+    public void testRandomDocIdsInDocOrder() {
+        int size = randomIntBetween(0, 1000);
+        int from = randomIntBetween(0, 10);
+        int[] docIds = new int[from + size];
+        for (int i = 0; i < docIds.length; i++) {
+            docIds[i] = randomIntBetween(0, Integer.MAX_VALUE);
+        }
+        int[] order = FetchPhase.docIdsInDocOrder(docIds, from, size);
+        boolean[] seen = new boolean[size];
+        for (int i = 0; i < order.length; i++) {
+            assertThat(seen[order[i]], equalTo(false));
+            seen[order[i]] = true;
+            if (i > 0) {
+                assertThat(docIds[from + order[i - 1]], lessThanOrEqualTo(docIds[from + order[i]]));
+            }
+        }
+    }
+}
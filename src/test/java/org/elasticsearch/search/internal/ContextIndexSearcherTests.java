@@ -0,0 +1,85 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.search.internal;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.NoMergePolicy;
+import org.apache.lucene.search.IndexSearcher.LeafSlice;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.RAMDirectory;
+import org.elasticsearch.common.lucene.Lucene;
+import org.elasticsearch.test.ElasticsearchTestCase;
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.hamcrest.Matchers.equalTo;
+
+public class ContextIndexSearcherTests extends ElasticsearchTestCase {
+
+    @Test
+    public void testSlices() throws Exception {
+        Directory dir = new RAMDirectory();
+        IndexWriter writer = new IndexWriter(dir, new IndexWriterConfig(Lucene.STANDARD_ANALYZER).setMergePolicy(NoMergePolicy.INSTANCE));
+        int id = 0;
+        for (int numDocs : new int[] {3, 20, 3, 2, 12, 3, 3}) {
+            for (int i = 0; i < numDocs; i++) {
+                Document doc = new Document();
+                doc.add(new StringField("id", Integer.toString(id++), Field.Store.NO));
+                writer.addDocument(doc);
+            }
+            writer.commit();
+        }
+        DirectoryReader reader = DirectoryReader.open(writer, true);
+        assertThat(reader.leaves().size(), equalTo(7));
+
+        LeafSlice[] slices = ContextIndexSearcher.slices(reader.leaves(), 10, 3);
+        // large segments get their own slice, small ones are grouped by at most 3
+        assertThat(slices.length, equalTo(4));
+        assertThat(slices[0].leaves.length, equalTo(1));
+        assertThat(slices[0].leaves[0].reader().maxDoc(), equalTo(20));
+        assertThat(slices[1].leaves.length, equalTo(1));
+        assertThat(slices[1].leaves[0].reader().maxDoc(), equalTo(12));
+        assertThat(slices[2].leaves.length, equalTo(3));
+        assertThat(slices[3].leaves.length, equalTo(2));
+
+        Set<LeafReaderContext> sliced = new HashSet<>();
+        for (LeafSlice slice : slices) {
+            for (LeafReaderContext leaf : slice.leaves) {
+                assertTrue(sliced.add(leaf));
+            }
+        }
+        assertThat(sliced.size(), equalTo(reader.leaves().size()));
+
+        // seven small segments are more than a single slice can group with the default limits
+        assertThat(ContextIndexSearcher.numSlices(reader.leaves()), equalTo(2));
+
+        reader.close();
+        writer.close();
+        dir.close();
+    }
+}
@@ -22,21 +22,47 @@ package org.elasticsearch.search.scan;
 import com.google.common.collect.Sets;
 import org.apache.lucene.util.LuceneTestCase.Slow;
 import org.elasticsearch.action.index.IndexRequestBuilder;
+import org.elasticsearch.action.search.ClearScrollResponse;
 import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.action.search.SearchScrollRequest;
 import org.elasticsearch.action.search.SearchType;
+import org.elasticsearch.action.search.type.TransportSearchHelper;
+import org.elasticsearch.common.collect.Tuple;
+import org.elasticsearch.common.settings.ImmutableSettings;
+import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.rest.RestStatus;
 import org.elasticsearch.search.SearchHit;
+import org.elasticsearch.search.SearchService;
+import org.elasticsearch.search.fetch.ScrollQueryFetchSearchResult;
+import org.elasticsearch.search.internal.InternalScrollSearchRequest;
 import org.elasticsearch.test.ElasticsearchIntegrationTest;
+import org.elasticsearch.threadpool.ThreadPool;
 import org.junit.Test;
 
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
+import static org.elasticsearch.cluster.metadata.IndexMetaData.SETTING_NUMBER_OF_REPLICAS;
+import static org.elasticsearch.cluster.metadata.IndexMetaData.SETTING_NUMBER_OF_SHARDS;
 import static org.elasticsearch.common.xcontent.XContentFactory.jsonBuilder;
 import static org.elasticsearch.index.query.QueryBuilders.termQuery;
+import static org.elasticsearch.test.hamcrest.ElasticsearchAssertions.assertAcked;
+import static org.elasticsearch.test.hamcrest.ElasticsearchAssertions.assertThrows;
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
 
 public class SearchScanTests extends ElasticsearchIntegrationTest {
 
+    @Override
+    protected Settings nodeSettings(int nodeOrdinal) {
+        return ImmutableSettings.settingsBuilder().put(super.nodeSettings(nodeOrdinal)).put(SearchService.SCAN_PREFETCH_KEY, true).build();
+    }
+
     @Test
     @Slow 
     public void testNarrowingQuery() throws Exception {
@@ -84,4 +110,103 @@ public class SearchScanTests extends ElasticsearchIntegrationTest {
 
         assertThat(expectedIds, equalTo(ids));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testClearScrollWhilePrefetching() throws Exception {
+        createIndex("test");
+        ensureGreen();
+
+        IndexRequestBuilder[] builders = new IndexRequestBuilder[scaledRandomIntBetween(50, 100)];
+        for (int i = 0; i < builders.length; i++) {
+            builders[i] = client().prepareIndex("test", "tweet", Integer.toString(i)).setSource("message", "test");
+        }
+        indexRandom(true, builders);
+
+        SearchResponse searchResponse = client().prepareSearch()
+                .setSearchType(SearchType.SCAN)
+                .setSize(2)
+                .setScroll(TimeValue.timeValueMinutes(2))
+                .get();
+        searchResponse = client().prepareSearchScroll(searchResponse.getScrollId()).setScroll(TimeValue.timeValueMinutes(2)).get();
+        assertThat(searchResponse.getHits().hits().length, greaterThan(0));
+
+        // the shards are reading their next pages by now, their contexts are closed once they are done with them
+        ClearScrollResponse clearResponse = client().prepareClearScroll().addScrollId(searchResponse.getScrollId()).get();
+        assertThat(clearResponse.isSucceeded(), is(true));
+        assertThrows(client().prepareSearchScroll(searchResponse.getScrollId()).setScroll(TimeValue.timeValueMinutes(2)), RestStatus.NOT_FOUND);
+    }
+
+    @Test
+    public void testFreeContextDoesNotWaitForPrefetch() throws Exception {
+        assertAcked(prepareCreate("test").setSettings(SETTING_NUMBER_OF_SHARDS, 1, SETTING_NUMBER_OF_REPLICAS, 0));
+        ensureGreen();
+
+        IndexRequestBuilder[] builders = new IndexRequestBuilder[scaledRandomIntBetween(10, 50)];
+        for (int i = 0; i < builders.length; i++) {
+            builders[i] = client().prepareIndex("test", "tweet", Integer.toString(i)).setSource("message", "test");
+        }
+        indexRandom(true, builders);
+
+        SearchResponse searchResponse = client().prepareSearch()
+                .setSearchType(SearchType.SCAN)
+                .setSize(2)
+                .setScroll(TimeValue.timeValueMinutes(2))
+                .get();
+        Tuple<String, Long> target = TransportSearchHelper.parseScrollId(searchResponse.getScrollId()).getContext()[0];
+        String nodeName = internalCluster().clusterService().state().nodes().get(target.v1()).name();
+        final SearchService searchService = internalCluster().getInstance(SearchService.class, nodeName);
+        ThreadPool threadPool = internalCluster().getInstance(ThreadPool.class, nodeName);
+        final long contextId = target.v2();
+
+        // occupy all search threads, so that the prefetched page stays queued until the context is freed
+        final CountDownLatch blocked = new CountDownLatch(1);
+        int searchThreads = threadPool.info(ThreadPool.Names.SEARCH).getMax();
+        for (int i = 0; i < searchThreads; i++) {
+            threadPool.executor(ThreadPool.Names.SEARCH).execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        blocked.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            });
+        }
+        try {
+            SearchScrollRequest scrollRequest = new SearchScrollRequest(searchResponse.getScrollId()).scroll(TimeValue.timeValueMinutes(2));
+            final InternalScrollSearchRequest shardScrollRequest = new InternalScrollSearchRequest(scrollRequest, contextId);
+            ScrollQueryFetchSearchResult page = searchService.executeScan(shardScrollRequest);
+            assertThat(page.result().fetchResult().hits().hits().length, equalTo(2));
+
+            // the next page is queued behind the blocked search threads, the scroll must compute it instead of waiting for it
+            Future<ScrollQueryFetchSearchResult> nextPage = threadPool.executor(ThreadPool.Names.GENERIC).submit(new Callable<ScrollQueryFetchSearchResult>() {
+                @Override
+                public ScrollQueryFetchSearchResult call() throws Exception {
+                    return searchService.executeScan(shardScrollRequest);
+                }
+            });
+            assertThat(nextPage.get(10, TimeUnit.SECONDS).result().fetchResult().hits().hits().length, equalTo(2));
+
+            // a generic thread stands in for the network thread that frees the context
+            Future<Boolean> freed = threadPool.executor(ThreadPool.Names.GENERIC).submit(new Callable<Boolean>() {
+                @Override
+                public Boolean call() throws Exception {
+                    return searchService.freeContext(contextId);
+                }
+            });
+            assertThat(freed.get(10, TimeUnit.SECONDS), is(true));
+            assertThat(searchService.freeContext(contextId), is(false));
+        } finally {
+            blocked.countDown();
+        }
+        // freeing cancelled the queued prefetch, which must not touch the context once it gets to run
+        assertBusy(new Runnable() {
+            @Override
+            public void run() {
+                assertThat(searchService.getActiveContexts(), equalTo(0));
+            }
+        });
+        assertThrows(client().prepareSearchScroll(searchResponse.getScrollId()).setScroll(TimeValue.timeValueMinutes(2)), RestStatus.NOT_FOUND);
+    }
+}
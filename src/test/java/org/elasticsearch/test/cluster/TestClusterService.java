@@ -181,6 +181,11 @@ public class TestClusterService implements ClusterService {
         throw new UnsupportedOperationException();
     }
 
+    @Override
+    public <T> void submitStateUpdateTask(String source, Priority priority, T task, ClusterStateTaskExecutor<T> executor, ClusterStateTaskListener listener) {
+        throw new UnsupportedOperationException();
+    }
+
     @Override
     public List<PendingClusterTask> pendingTasks() {
         throw new UnsupportedOperationException();
@@ -22,16 +22,21 @@ package org.elasticsearch.transport.netty;
 import org.apache.lucene.util.LuceneTestCase.Slow;
 import org.elasticsearch.Version;
 import org.elasticsearch.cluster.node.DiscoveryNode;
+import org.elasticsearch.common.bytes.BytesArray;
 import org.elasticsearch.common.network.NetworkService;
 import org.elasticsearch.common.settings.ImmutableSettings;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.transport.InetSocketTransportAddress;
 import org.elasticsearch.common.util.BigArrays;
 import org.elasticsearch.test.transport.MockTransportService;
-import org.elasticsearch.transport.AbstractSimpleTransportTests;
-import org.elasticsearch.transport.ConnectTransportException;
+import org.elasticsearch.threadpool.ThreadPool;
+import org.elasticsearch.transport.*;
 import org.junit.Test;
 
+import java.nio.charset.StandardCharsets;
+
+import static org.hamcrest.Matchers.*;
+
 @Slow
 public class SimpleNettyTransportTests extends AbstractSimpleTransportTests {
 
@@ -39,7 +44,12 @@ public class SimpleNettyTransportTests extends AbstractSimpleTransportTests {
     protected MockTransportService build(Settings settings, Version version) {
         int startPort = 11000 + randomIntBetween(0, 255);
         int endPort = startPort + 10;
-        settings = ImmutableSettings.builder().put(settings).put("transport.tcp.port", startPort + "-" + endPort).build();
+        settings = ImmutableSettings.builder().put(settings).put("transport.tcp.port", startPort + "-" + endPort)
+                // compress even the small messages of these tests when asked to
+                .put(Transport.TransportSettings.TRANSPORT_COMPRESS_MIN_SIZE, 0)
+                .put(Transport.TransportSettings.TRANSPORT_COMPRESS_TYPE, randomFrom("lzf", "lz4"))
+                .put(Transport.TransportSettings.TRANSPORT_COMPRESS_ACTIONS, "internal:test/compressed/*")
+                .build();
         MockTransportService transportService = new MockTransportService(settings, new NettyTransport(settings, threadPool, new NetworkService(settings), BigArrays.NON_RECYCLING_INSTANCE, version), threadPool);
         transportService.start();
         return transportService;
@@ -49,4 +59,34 @@ public class SimpleNettyTransportTests extends AbstractSimpleTransportTests {
     public void testConnectException() {
         serviceA.connectToNode(new DiscoveryNode("C", new InetSocketTransportAddress("localhost", 9876), Version.CURRENT));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testCompressedActionStats() throws Exception {
+        final String action = "internal:test/compressed/bytes";
+        serviceA.registerRequestHandler(action, BytesTransportRequest.class, ThreadPool.Names.GENERIC, new TransportRequestHandler<BytesTransportRequest>() {
+            @Override
+            public void messageReceived(BytesTransportRequest request, TransportChannel channel) throws Exception {
+                assertThat(request.bytes().length(), equalTo(100000));
+                channel.sendResponse(TransportResponse.Empty.INSTANCE);
+            }
+        });
+
+        StringBuilder content = new StringBuilder();
+        while (content.length() < 100000) {
+            content.append("compress me ");
+        }
+        content.setLength(100000);
+        BytesTransportRequest request = new BytesTransportRequest(new BytesArray(content.toString().getBytes(StandardCharsets.UTF_8)), nodeA.version());
+        serviceB.submitRequest(nodeA, action, request, new EmptyTransportResponseHandler(ThreadPool.Names.GENERIC)).txGet();
+
+        TransportStats.CompressionStats stats = serviceB.stats().compression().get(action);
+        assertThat(stats, notNullValue());
+        assertThat(stats.getCount(), equalTo(1l));
+        assertThat(stats.getUncompressedSize().bytes(), greaterThan(100000l));
+        assertThat(stats.getCompressedSize().bytes(), lessThan(10000l));
+        // the response is compressed on the other side
+        assertThat(serviceA.stats().compression().get(action).getCount(), equalTo(1l));
+
+        serviceA.removeHandler(action);
+    }
+}